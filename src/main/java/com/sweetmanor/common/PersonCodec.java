@@ -0,0 +1,137 @@
+package com.sweetmanor.common;
+
+import com.sweetmanor.utils.BinaryCodec;
+import com.sweetmanor.utils.ObjectCodec;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StreamCorruptedException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Person 的二进制编码：代替 Java 序列化的反射和类描述信息，手工写出字段。 <br />
+ * 单个 Person 注册为 BinaryCodec 的类型 {@value #PERSON_ID}，编码为“格式版本 + 姓名 + 年龄”；
+ * 与 Java 序列化一致，不写入 transient 的性别，解码后的对象与原对象 equals 且 hashCode 相同。 <br />
+ * 列表使用 LIST 批量编码（类型 {@value #LIST_ID}）：先写数量，再按列依次写出全部姓名和全部年龄，
+ * 每个元素不再重复写类型编号，相邻的同类数据也更利于压缩。 <br />
+ * 格式版本只能递增：新版本在末尾追加字段，读取时按版本决定读取哪些字段；遇到比当前更新的版本时报错，不会误读。
+ *
+ * @author ijlhjj
+ * @version 1.0 2025-02-13
+ */
+public final class PersonCodec {
+    /**
+     * 单个 Person 的类型编号
+     */
+    public static final int PERSON_ID = 16;
+    /**
+     * Person 列表的类型编号
+     */
+    public static final int LIST_ID = 17;
+    /**
+     * 当前的格式版本
+     */
+    static final int VERSION = 1;
+
+    /**
+     * 批量编解码 List&lt;Person&gt;，元素不能为 null；读取结果为 ArrayList
+     */
+    public static final ObjectCodec<List<Person>> LIST = new ListCodec();
+
+    /**
+     * 私有构造函数，防止类被实例化
+     */
+    private PersonCodec() {
+    }
+
+    /**
+     * 创建只注册了 Person 的二进制编解码器
+     *
+     * @return 新的编解码器
+     */
+    public static BinaryCodec newCodec() {
+        return register(new BinaryCodec());
+    }
+
+    /**
+     * 在已有的编解码器上注册 Person，使用编号 {@value #PERSON_ID}
+     *
+     * @param codec 编解码器，编号和类型都不能已被占用
+     * @return 参数中的编解码器
+     * @throws IllegalArgumentException 如果编号或类型已经注册
+     */
+    public static BinaryCodec register(BinaryCodec codec) {
+        return codec.register(PERSON_ID, Person.class,
+                (person, out) -> {
+                    out.writeByte(VERSION);
+                    out.writeString(person.getName());
+                    out.writeVarInt(person.getAge());
+                },
+                in -> {
+                    checkVersion(in.readByte());
+                    return new Person(in.readString(), in.readVarInt());
+                });
+    }
+
+    private static void checkVersion(int version) throws StreamCorruptedException {
+        if (version < 1 || version > VERSION)
+            throw new StreamCorruptedException("不支持的 Person 格式版本：" + version);
+    }
+
+    /**
+     * 批量编码时的包装对象，只在 ListCodec 内部使用
+     */
+    private static final class Batch {
+        final List<Person> people;
+
+        Batch(List<Person> people) {
+            this.people = people;
+        }
+    }
+
+    /**
+     * 列表编解码器：借用 BinaryCodec 的长度前缀和变长整数，按列写出字段
+     */
+    private static final class ListCodec implements ObjectCodec<List<Person>> {
+        private final BinaryCodec codec = new BinaryCodec().register(LIST_ID, Batch.class,
+                (batch, out) -> {
+                    List<Person> people = batch.people;
+                    out.writeByte(VERSION);
+                    out.writeVarInt(people.size());
+                    for (Person person : people)
+                        out.writeString(person.getName());
+                    for (Person person : people)
+                        out.writeVarInt(person.getAge());
+                },
+                in -> {
+                    checkVersion(in.readByte());
+                    int size = in.readVarInt();
+                    if (size < 0)
+                        throw new StreamCorruptedException("Person 列表长度错误：" + size);
+                    // 长度来自数据本身，不据此预分配，避免损坏的数据导致巨大的分配
+                    List<String> names = new ArrayList<>();
+                    for (int i = 0; i < size; i++)
+                        names.add(in.readString());
+                    List<Person> people = new ArrayList<>(size);
+                    for (int i = 0; i < size; i++)
+                        people.add(new Person(names.get(i), in.readVarInt()));
+                    return new Batch(people);
+                });
+
+        @Override
+        public void write(List<Person> people, OutputStream out) throws IOException {
+            codec.write(new Batch(people), out);
+        }
+
+        @Override
+        public List<Person> read(InputStream in) throws IOException {
+            Object batch = codec.read(in);
+            if (!(batch instanceof Batch))
+                throw new StreamCorruptedException("不是 Person 列表");
+            return ((Batch) batch).people;
+        }
+    }
+
+}
@@ -0,0 +1,313 @@
+package com.sweetmanor.utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.CompletionHandler;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 异步文件工具类：基于 AsynchronousFileChannel 实现，方法立即返回 CompletableFuture，调用线程不会被 I/O 阻塞。 <br />
+ * 读写按块进行，每个请求从直接缓冲区池中借用一个缓冲区，完成后归还；
+ * 回调在 AsynchronousFileChannel 的默认线程池中执行，后续处理耗时较长时应使用 thenXxxAsync 切换到其他线程池。
+ *
+ * @author ijlhjj
+ * @version 1.0 2025-01-30
+ */
+public final class AsyncFileUtil {
+    /**
+     * 每块读写的字节数
+     */
+    private static final int BUFFER_SIZE = 256 * 1024;
+
+    private static final DirectBufferPool POOL = new DirectBufferPool(BUFFER_SIZE, 64);
+
+    /**
+     * 私有构造函数，防止类被实例化
+     */
+    private AsyncFileUtil() {
+    }
+
+    /**
+     * 异步读取文件的全部内容
+     *
+     * @param file 要读取的文件
+     * @return 文件内容，读取失败时异常完成（IOException）
+     */
+    public static CompletableFuture<byte[]> readAllAsync(Path file) {
+        CompletableFuture<byte[]> future = new CompletableFuture<>();
+        AsynchronousFileChannel channel;
+        long size;
+        try {
+            channel = AsynchronousFileChannel.open(file, StandardOpenOption.READ);
+            size = channel.size();
+        } catch (IOException | RuntimeException e) {
+            future.completeExceptionally(e);
+            return future;
+        }
+        if (size > Integer.MAX_VALUE - 8) {
+            closeQuietly(channel);
+            future.completeExceptionally(new IOException("文件过大：" + file));
+            return future;
+        }
+
+        ByteBuffer buffer = POOL.acquire();
+        byte[] data = new byte[(int) size];
+        new Reader(channel, buffer, data, future).read();
+        return future.whenComplete((r, e) -> {
+            closeQuietly(channel);
+            POOL.release(buffer);
+        });
+    }
+
+    /**
+     * 异步将数据写入文件，文件已存在时覆盖，父目录不存在时创建
+     *
+     * @param file 目标文件
+     * @param data 要写入的数据
+     * @return 写入的字节数，写入失败时异常完成（IOException）
+     */
+    public static CompletableFuture<Long> writeAsync(Path file, byte[] data) {
+        return writeAsync(file, ByteBuffer.wrap(data));
+    }
+
+    /**
+     * 异步将缓冲区中剩余的数据写入文件，文件已存在时覆盖，父目录不存在时创建。写入完成前不能修改缓冲区
+     *
+     * @param file 目标文件
+     * @param data 要写入的数据，从 position 写到 limit
+     * @return 写入的字节数，写入失败时异常完成（IOException）
+     */
+    public static CompletableFuture<Long> writeAsync(Path file, ByteBuffer data) {
+        CompletableFuture<Long> future = new CompletableFuture<>();
+        AsynchronousFileChannel channel;
+        try {
+            channel = openForWrite(file);
+        } catch (IOException | RuntimeException e) {
+            future.completeExceptionally(e);
+            return future;
+        }
+
+        // 直接缓冲区可以直接写入，堆缓冲区逐块复制到池中的直接缓冲区，避免 JDK 内部临时分配
+        ByteBuffer buffer = data.isDirect() ? null : POOL.acquire();
+        new Writer(channel, data.duplicate(), buffer, future).write();
+        return future.whenComplete((r, e) -> {
+            closeQuietly(channel);
+            if (buffer != null)
+                POOL.release(buffer);
+        });
+    }
+
+    /**
+     * 异步拷贝文件，目标已存在时覆盖，父目录不存在时创建。读写交替进行，同一时刻只占用一个缓冲区
+     *
+     * @param source 源文件
+     * @param target 目标文件
+     * @return 拷贝的字节数，拷贝失败时异常完成（IOException）
+     */
+    public static CompletableFuture<Long> copyAsync(Path source, Path target) {
+        CompletableFuture<Long> future = new CompletableFuture<>();
+        AsynchronousFileChannel in;
+        AsynchronousFileChannel out;
+        try {
+            in = AsynchronousFileChannel.open(source, StandardOpenOption.READ);
+        } catch (IOException | RuntimeException e) {
+            future.completeExceptionally(e);
+            return future;
+        }
+        try {
+            out = openForWrite(target);
+        } catch (IOException | RuntimeException e) {
+            closeQuietly(in);
+            future.completeExceptionally(e);
+            return future;
+        }
+
+        ByteBuffer buffer = POOL.acquire();
+        new Copier(in, out, buffer, future).read();
+        return future.whenComplete((r, e) -> {
+            closeQuietly(in);
+            closeQuietly(out);
+            POOL.release(buffer);
+        });
+    }
+
+    private static AsynchronousFileChannel openForWrite(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null)
+            Files.createDirectories(parent);
+        return AsynchronousFileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    private static void closeQuietly(AsynchronousFileChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // 忽略关闭异常
+        }
+    }
+
+    /**
+     * 分块读取到字节数组，每次读取完成后在回调中发起下一次读取
+     */
+    private static final class Reader implements CompletionHandler<Integer, Void> {
+        private final AsynchronousFileChannel channel;
+        private final ByteBuffer buffer;
+        private final byte[] data;
+        private final CompletableFuture<byte[]> future;
+        private int offset;
+
+        Reader(AsynchronousFileChannel channel, ByteBuffer buffer, byte[] data, CompletableFuture<byte[]> future) {
+            this.channel = channel;
+            this.buffer = buffer;
+            this.data = data;
+            this.future = future;
+        }
+
+        void read() {
+            if (offset == data.length) {
+                future.complete(data);
+                return;
+            }
+            buffer.clear().limit(Math.min(buffer.capacity(), data.length - offset));
+            channel.read(buffer, offset, null, this);
+        }
+
+        @Override
+        public void completed(Integer n, Void attachment) {
+            if (n < 0) {
+                // 文件在读取过程中被截断
+                future.complete(Arrays.copyOf(data, offset));
+                return;
+            }
+            buffer.flip().get(data, offset, n);
+            offset += n;
+            read();
+        }
+
+        @Override
+        public void failed(Throwable e, Void attachment) {
+            future.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * 分块写入，处理部分写入的情况
+     */
+    private static final class Writer implements CompletionHandler<Integer, Void> {
+        private final AsynchronousFileChannel channel;
+        private final ByteBuffer data;
+        /**
+         * 复制堆数据使用的直接缓冲区，data 为直接缓冲区时为 null
+         */
+        private final ByteBuffer buffer;
+        private final CompletableFuture<Long> future;
+        private long position;
+
+        Writer(AsynchronousFileChannel channel, ByteBuffer data, ByteBuffer buffer, CompletableFuture<Long> future) {
+            this.channel = channel;
+            this.data = data;
+            this.buffer = buffer;
+            this.future = future;
+            if (buffer != null)
+                buffer.limit(0);
+        }
+
+        void write() {
+            if (buffer == null) {
+                if (!data.hasRemaining()) {
+                    future.complete(position);
+                    return;
+                }
+                channel.write(data, position, null, this);
+                return;
+            }
+
+            // 上一块已全部写出时复制下一块
+            if (!buffer.hasRemaining()) {
+                if (!data.hasRemaining()) {
+                    future.complete(position);
+                    return;
+                }
+                int n = Math.min(buffer.capacity(), data.remaining());
+                buffer.clear();
+                buffer.put(data.slice(data.position(), n)).flip();
+                data.position(data.position() + n);
+            }
+            channel.write(buffer, position, null, this);
+        }
+
+        @Override
+        public void completed(Integer n, Void attachment) {
+            position += n;
+            write();
+        }
+
+        @Override
+        public void failed(Throwable e, Void attachment) {
+            future.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * 读写交替的拷贝：读满一块后写出，写完后读取下一块
+     */
+    private static final class Copier {
+        private final AsynchronousFileChannel in;
+        private final AsynchronousFileChannel out;
+        private final ByteBuffer buffer;
+        private final CompletableFuture<Long> future;
+        private long position;
+
+        Copier(AsynchronousFileChannel in, AsynchronousFileChannel out, ByteBuffer buffer, CompletableFuture<Long> future) {
+            this.in = in;
+            this.out = out;
+            this.buffer = buffer;
+            this.future = future;
+        }
+
+        void read() {
+            buffer.clear();
+            in.read(buffer, position, null, new CompletionHandler<Integer, Void>() {
+                @Override
+                public void completed(Integer n, Void attachment) {
+                    if (n < 0) {
+                        future.complete(position);
+                        return;
+                    }
+                    buffer.flip();
+                    write();
+                }
+
+                @Override
+                public void failed(Throwable e, Void attachment) {
+                    future.completeExceptionally(e);
+                }
+            });
+        }
+
+        void write() {
+            out.write(buffer, position, null, new CompletionHandler<Integer, Void>() {
+                @Override
+                public void completed(Integer n, Void attachment) {
+                    position += n;
+                    if (buffer.hasRemaining())
+                        write();
+                    else
+                        read();
+                }
+
+                @Override
+                public void failed(Throwable e, Void attachment) {
+                    future.completeExceptionally(e);
+                }
+            });
+        }
+    }
+
+}
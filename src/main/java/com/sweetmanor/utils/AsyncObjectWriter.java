@@ -0,0 +1,364 @@
+package com.sweetmanor.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 异步对象写入器：调用线程只把对象放入有界的等待队列，由后台线程编码并写入文件，不在调用线程中等待序列化和磁盘。 <br />
+ * 队列按目标文件合并：同一文件还没开始写入时再次写入，只替换等待中的对象，两次调用得到同一个 Future，
+ * 适合会话状态检查点这类只关心最新版本的场景。同一文件同时只有一个线程在写，写入顺序与调用顺序一致。 <br />
+ * 等待中的文件数达到容量时按溢出策略处理：阻塞调用线程、丢弃最早等待的写入，或者直接拒绝。
+ * 每次写入都先写临时文件再重命名，durable 为 true 时还会 fsync（同 ObjectAccessUtil.writeAtomically）。
+ *
+ * @param <T> 对象类型
+ * @author ijlhjj
+ * @version 1.0 2025-02-11
+ */
+public class AsyncObjectWriter<T> implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(AsyncObjectWriter.class);
+    private static final AtomicLong COUNTER = new AtomicLong();
+
+    /**
+     * 等待中的文件数达到容量时的处理方式
+     */
+    public enum OverflowPolicy {
+        /**
+         * 阻塞调用线程，直到有文件开始写入
+         */
+        BLOCK,
+        /**
+         * 丢弃最早等待的写入，其 Future 以 CancellationException 异常完成
+         */
+        DROP_OLDEST,
+        /**
+         * 抛出 RejectedExecutionException
+         */
+        FAIL
+    }
+
+    private final ObjectCodec<? super T> codec;
+    private final Thread[] workers;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    /**
+     * 等待写入的文件，按第一次排队的顺序；合并写入不改变位置
+     */
+    private final LinkedHashMap<Path, Pending> pending = new LinkedHashMap<>();
+    /**
+     * 正在写入的文件
+     */
+    private final Map<Path, Pending> running = new HashMap<>();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    private volatile int capacity = 1024;
+    private volatile OverflowPolicy policy = OverflowPolicy.BLOCK;
+    private volatile boolean durable;
+    private volatile boolean closed;
+
+    /**
+     * 构造写入器，使用一个后台线程
+     *
+     * @param codec 对象的编解码器
+     */
+    public AsyncObjectWriter(ObjectCodec<? super T> codec) {
+        this(codec, 1);
+    }
+
+    /**
+     * 构造写入器并启动后台线程
+     *
+     * @param codec   对象的编解码器
+     * @param threads 后台线程数，不同文件可以并行写入
+     * @throws IllegalArgumentException threads 小于 1
+     */
+    public AsyncObjectWriter(ObjectCodec<? super T> codec, int threads) {
+        if (threads < 1)
+            throw new IllegalArgumentException("Threads must be positive: " + threads);
+        this.codec = codec;
+        long id = COUNTER.incrementAndGet();
+        workers = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Thread(this::run, "async-writer-" + id + "-" + i);
+            workers[i].setDaemon(true);
+            workers[i].start();
+        }
+    }
+
+    /**
+     * 设置最多等待写入的文件数（合并后），默认 1024
+     *
+     * @param capacity 文件数，必须大于 0
+     * @return 当前对象
+     * @throws IllegalArgumentException capacity 小于 1
+     */
+    public AsyncObjectWriter<T> capacity(int capacity) {
+        if (capacity < 1)
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        this.capacity = capacity;
+        return this;
+    }
+
+    /**
+     * 设置溢出策略，默认 BLOCK
+     *
+     * @param policy 溢出策略
+     * @return 当前对象
+     */
+    public AsyncObjectWriter<T> policy(OverflowPolicy policy) {
+        this.policy = Objects.requireNonNull(policy, "policy");
+        return this;
+    }
+
+    /**
+     * 设置是否在每次写入后 fsync 文件和目录，默认 false
+     *
+     * @param durable 是否持久写入
+     * @return 当前对象
+     */
+    public AsyncObjectWriter<T> durable(boolean durable) {
+        this.durable = durable;
+        return this;
+    }
+
+    /**
+     * 提交写入：对象由后台线程编码，调用方在写入完成前不能再修改它
+     *
+     * @param object 待写入的对象
+     * @param file   目标文件，父目录不存在时创建
+     * @return 目标文件已替换时完成（被合并时为最新版本写入完成），失败时异常完成，目标文件保持不变
+     * @throws IllegalStateException      如果写入器已关闭
+     * @throws RejectedExecutionException 如果队列已满且策略为 FAIL
+     */
+    public CompletableFuture<Void> write(T object, Path file) {
+        Objects.requireNonNull(object, "object");
+        Path target = file.toAbsolutePath();
+        Pending removed = null;
+        CompletableFuture<Void> future;
+        lock.lock();
+        try {
+            if (closed)
+                throw new IllegalStateException("Writer closed");
+            Pending existing = pending.get(target);
+            if (existing != null) {
+                existing.object = object;
+                coalesced.incrementAndGet();
+                return existing.future;
+            }
+            while (pending.size() >= capacity) {
+                OverflowPolicy current = policy;
+                if (current == OverflowPolicy.FAIL)
+                    throw new RejectedExecutionException("Write queue full: " + pending.size());
+                if (current == OverflowPolicy.DROP_OLDEST) {
+                    Iterator<Pending> it = pending.values().iterator();
+                    removed = it.next();
+                    it.remove();
+                    dropped.incrementAndGet();
+                    break;
+                }
+                notFull.awaitUninterruptibly();
+                if (closed)
+                    throw new IllegalStateException("Writer closed");
+            }
+            Pending added = new Pending(target, object);
+            pending.put(target, added);
+            future = added.future;
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+        // 在锁外完成，避免回调在持有锁时执行
+        if (removed != null)
+            removed.future.completeExceptionally(new CancellationException("Dropped: " + removed.target));
+        return future;
+    }
+
+    /**
+     * 等待调用本方法之前提交的全部写入完成（成功或失败）
+     *
+     * @throws InterruptedException 如果等待时被中断
+     */
+    public void flush() throws InterruptedException {
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        lock.lock();
+        try {
+            for (Pending p : pending.values())
+                futures.add(p.future);
+            for (Pending p : running.values())
+                futures.add(p.future);
+        } finally {
+            lock.unlock();
+        }
+        for (CompletableFuture<Void> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                throw e;
+            } catch (Exception e) {
+                // 失败已通过各自的 Future 通知调用方
+            }
+        }
+    }
+
+    /**
+     * 获取等待写入的文件数（不含正在写入的）
+     *
+     * @return 文件数
+     */
+    public int getPendingCount() {
+        lock.lock();
+        try {
+            return pending.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 获取已写入的文件次数（包括失败的）
+     *
+     * @return 次数
+     */
+    public long getWrittenCount() {
+        return written.get();
+    }
+
+    /**
+     * 获取被合并（替换等待中的对象）的写入数
+     *
+     * @return 次数
+     */
+    public long getCoalescedCount() {
+        return coalesced.get();
+    }
+
+    /**
+     * 获取因 DROP_OLDEST 策略被丢弃的写入数
+     *
+     * @return 次数
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * 写入全部等待中的对象后停止后台线程；之后的 write 抛出 IllegalStateException
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (closed)
+                return;
+            closed = true;
+            notEmpty.signalAll();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        for (Thread worker : workers) {
+            try {
+                worker.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * 后台线程：取出最早等待且没有在写的文件，写入后再取下一个
+     */
+    private void run() {
+        while (true) {
+            Pending next;
+            lock.lock();
+            try {
+                while ((next = take()) == null) {
+                    if (closed && pending.isEmpty())
+                        return;
+                    notEmpty.awaitUninterruptibly();
+                }
+                running.put(next.target, next);
+                notFull.signal();
+            } finally {
+                lock.unlock();
+            }
+
+            Throwable error = null;
+            try {
+                @SuppressWarnings("unchecked")
+                T object = (T) next.object;
+                if (durable)
+                    ObjectAccessUtil.writeAtomically(object, next.target.toFile(), codec);
+                else
+                    ObjectAccessUtil.replace(ObjectAccessUtil.writeTemp(object, next.target, codec), next.target);
+            } catch (Throwable e) {
+                // 包括深层对象图序列化时的 StackOverflowError：只让本次写入失败，后台线程继续运行
+                logger.warn("异步写入失败：{}", next.target, e);
+                error = e;
+            } finally {
+                written.incrementAndGet();
+                // 先完成 Future 再释放文件，同一文件后续写入的 Future 不会先于本次完成
+                try {
+                    if (error == null)
+                        next.future.complete(null);
+                    else
+                        next.future.completeExceptionally(error);
+                } finally {
+                    lock.lock();
+                    try {
+                        running.remove(next.target);
+                        // 同一文件的新写入可能在等待本次完成
+                        notEmpty.signalAll();
+                    } finally {
+                        lock.unlock();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 从等待队列中取出最早的、没有在写的文件，调用方持有锁
+     */
+    private Pending take() {
+        Iterator<Pending> it = pending.values().iterator();
+        while (it.hasNext()) {
+            Pending p = it.next();
+            if (!running.containsKey(p.target)) {
+                it.remove();
+                return p;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 等待写入的文件，对象在合并写入时被替换
+     */
+    private static final class Pending {
+        final Path target;
+        final CompletableFuture<Void> future = new CompletableFuture<>();
+        Object object;
+
+        Pending(Path target, Object object) {
+            this.target = target;
+            this.object = object;
+        }
+    }
+
+}
@@ -0,0 +1,524 @@
+package com.sweetmanor.utils;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 紧凑二进制编解码器：只支持注册过的类型，每个类型注册一次字段的写入和读取函数，编码时不使用反射，也不写入类描述信息。 <br />
+ * 每个对象编码为“变长整数长度 + 类型编号 + 字段”，整数使用变长编码（ZigZag），字符串使用 UTF-8 编码；
+ * 读取时按长度读取完整的一段数据再解码，不会多读输入流中后续的数据。 <br />
+ * 内置 String、Integer、Long、Double、Boolean 和 byte[] 类型，编号 0 ~ {@value #RESERVED_IDS} 保留，
+ * 自定义类型的编号必须大于该值。注册应在使用前完成，注册后可以被多个线程同时使用。
+ *
+ * @author ijlhjj
+ * @version 1.0 2025-02-04
+ */
+public class BinaryCodec implements ObjectCodec<Object> {
+    /**
+     * 保留的最大类型编号
+     */
+    public static final int RESERVED_IDS = 15;
+
+    private static final int NULL_ID = 0;
+
+    private final Map<Class<?>, Registration<?>> byClass = new ConcurrentHashMap<>();
+    private volatile Registration<?>[] byId = new Registration<?>[RESERVED_IDS + 1];
+
+    /**
+     * 构造编解码器，只包含内置类型
+     */
+    public BinaryCodec() {
+        add(1, String.class, (value, out) -> out.writeString(value), Input::readString);
+        add(2, Integer.class, (value, out) -> out.writeVarInt(value), Input::readVarInt);
+        add(3, Long.class, (value, out) -> out.writeVarLong(value), Input::readVarLong);
+        add(4, Double.class, (value, out) -> out.writeDouble(value), Input::readDouble);
+        add(5, Boolean.class, (value, out) -> out.writeBoolean(value), Input::readBoolean);
+        add(6, byte[].class, (value, out) -> out.writeBytes(value), Input::readBytes);
+    }
+
+    /**
+     * 注册类型：编码时按对象的实际类型（不含子类）查找，解码时按编号查找
+     *
+     * @param id     类型编号，写入编码中，必须大于 {@value #RESERVED_IDS}，同一编号的含义不能改变
+     * @param type   对象类型
+     * @param writer 字段写入函数
+     * @param reader 字段读取函数，按写入的顺序读取
+     * @param <T>    对象类型
+     * @return 当前对象
+     * @throws IllegalArgumentException 编号不合法，或者编号、类型已经注册
+     */
+    public <T> BinaryCodec register(int id, Class<T> type, Writer<? super T> writer, Reader<? extends T> reader) {
+        if (id <= RESERVED_IDS)
+            throw new IllegalArgumentException("Type id must be greater than " + RESERVED_IDS + ": " + id);
+        add(id, type, writer, reader);
+        return this;
+    }
+
+    private synchronized <T> void add(int id, Class<T> type, Writer<? super T> writer, Reader<? extends T> reader) {
+        if (byClass.containsKey(type))
+            throw new IllegalArgumentException("Type already registered: " + type.getName());
+        Registration<?>[] ids = byId;
+        if (id < ids.length && ids[id] != null)
+            throw new IllegalArgumentException("Type id already registered: " + id);
+
+        Registration<T> registration = new Registration<>(id, type, writer, reader);
+        ids = Arrays.copyOf(ids, Math.max(ids.length, id + 1));
+        ids[id] = registration;
+        byId = ids;
+        byClass.put(type, registration);
+    }
+
+    /**
+     * 判断类型是否已注册
+     *
+     * @param type 对象类型
+     * @return 已注册返回 true
+     */
+    public boolean isRegistered(Class<?> type) {
+        return byClass.containsKey(type);
+    }
+
+    @Override
+    public void write(Object object, OutputStream out) throws IOException {
+        Output output = new Output(this);
+        output.writeObject(object);
+        // 长度前缀使读取时能够准确地只读取这一个对象
+        Output length = new Output(this);
+        length.writeRaw(output.size());
+        out.write(length.buffer, 0, length.size());
+        out.write(output.buffer, 0, output.size());
+    }
+
+    @Override
+    public Object read(InputStream in) throws IOException {
+        int size = readRawVarInt(in);
+        if (size < 0)
+            throw new StreamCorruptedException("对象长度错误：" + size);
+        byte[] data = in.readNBytes(size);
+        if (data.length != size)
+            throw new EOFException("对象数据不完整");
+
+        Input input = new Input(this, data, 0, size);
+        Object object = input.readObject();
+        if (input.position != size)
+            throw new StreamCorruptedException("对象数据有多余的字节");
+        return object;
+    }
+
+    /**
+     * 将对象编码为字节数组（带长度前缀，与 write 写入的内容相同）
+     *
+     * @param object 要编码的对象
+     * @return 编码结果
+     * @throws IOException 如果对象的类型未注册
+     */
+    public byte[] encode(Object object) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        write(object, out);
+        return out.toByteArray();
+    }
+
+    /**
+     * 从字节数组解码对象
+     *
+     * @param data encode 的编码结果
+     * @return 解码得到的对象
+     * @throws IOException 如果数据格式错误
+     */
+    public Object decode(byte[] data) throws IOException {
+        return read(new ByteArrayInputStream(data));
+    }
+
+    private static int readRawVarInt(InputStream in) throws IOException {
+        int result = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.read();
+            if (b < 0)
+                throw new EOFException("读取对象长度时到达流末尾");
+            result |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+                return result;
+        }
+        throw new StreamCorruptedException("变长整数格式错误");
+    }
+
+    /**
+     * 字段写入函数
+     *
+     * @param <T> 对象类型
+     */
+    @FunctionalInterface
+    public interface Writer<T> {
+        /**
+         * 写入对象的全部字段
+         *
+         * @param value 对象，不为 null
+         * @param out   输出
+         * @throws IOException 如果嵌套对象的类型未注册
+         */
+        void write(T value, Output out) throws IOException;
+    }
+
+    /**
+     * 字段读取函数
+     *
+     * @param <T> 对象类型
+     */
+    @FunctionalInterface
+    public interface Reader<T> {
+        /**
+         * 按写入的顺序读取字段并构造对象
+         *
+         * @param in 输入
+         * @return 对象
+         * @throws IOException 如果数据格式错误
+         */
+        T read(Input in) throws IOException;
+    }
+
+    /**
+     * 类型注册信息
+     */
+    private static final class Registration<T> {
+        final int id;
+        final Class<T> type;
+        final Writer<? super T> writer;
+        final Reader<? extends T> reader;
+
+        Registration(int id, Class<T> type, Writer<? super T> writer, Reader<? extends T> reader) {
+            this.id = id;
+            this.type = type;
+            this.writer = writer;
+            this.reader = reader;
+        }
+
+        void write(Object value, Output out) throws IOException {
+            writer.write(type.cast(value), out);
+        }
+    }
+
+    /**
+     * 编码输出：写入自动扩容的字节数组
+     */
+    public static final class Output {
+        private final BinaryCodec codec;
+        private byte[] buffer = new byte[64];
+        private int size;
+
+        private Output(BinaryCodec codec) {
+            this.codec = codec;
+        }
+
+        int size() {
+            return size;
+        }
+
+        private void ensure(int n) {
+            if (size + n > buffer.length)
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + n));
+        }
+
+        /**
+         * 写入一个字节
+         *
+         * @param value 字节值
+         */
+        public void writeByte(int value) {
+            ensure(1);
+            buffer[size++] = (byte) value;
+        }
+
+        /**
+         * 写入布尔值（1 字节）
+         *
+         * @param value 布尔值
+         */
+        public void writeBoolean(boolean value) {
+            writeByte(value ? 1 : 0);
+        }
+
+        /**
+         * 写入变长整数：ZigZag 编码后每字节 7 位，绝对值较小的整数只占 1 ~ 2 个字节
+         *
+         * @param value 整数
+         */
+        public void writeVarInt(int value) {
+            writeRaw((value << 1) ^ (value >> 31));
+        }
+
+        /**
+         * 写入变长长整数
+         *
+         * @param value 长整数
+         */
+        public void writeVarLong(long value) {
+            ensure(10);
+            long v = (value << 1) ^ (value >> 63);
+            while ((v & ~0x7FL) != 0) {
+                buffer[size++] = (byte) ((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            buffer[size++] = (byte) v;
+        }
+
+        private void writeRaw(int v) {
+            ensure(5);
+            while ((v & ~0x7F) != 0) {
+                buffer[size++] = (byte) ((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            buffer[size++] = (byte) v;
+        }
+
+        /**
+         * 写入固定 4 字节整数（小端）
+         *
+         * @param value 整数
+         */
+        public void writeInt(int value) {
+            ensure(4);
+            buffer[size++] = (byte) value;
+            buffer[size++] = (byte) (value >>> 8);
+            buffer[size++] = (byte) (value >>> 16);
+            buffer[size++] = (byte) (value >>> 24);
+        }
+
+        /**
+         * 写入固定 8 字节长整数（小端）
+         *
+         * @param value 长整数
+         */
+        public void writeLong(long value) {
+            writeInt((int) value);
+            writeInt((int) (value >>> 32));
+        }
+
+        /**
+         * 写入双精度浮点数（8 字节）
+         *
+         * @param value 浮点数
+         */
+        public void writeDouble(double value) {
+            writeLong(Double.doubleToRawLongBits(value));
+        }
+
+        /**
+         * 写入字符串：长度加 1 的变长整数（0 表示 null）和 UTF-8 编码
+         *
+         * @param value 字符串，可以为 null
+         */
+        public void writeString(String value) {
+            if (value == null) {
+                writeRaw(0);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeRaw(bytes.length + 1);
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buffer, size, bytes.length);
+            size += bytes.length;
+        }
+
+        /**
+         * 写入字节数组：长度加 1 的变长整数（0 表示 null）和内容
+         *
+         * @param value 字节数组，可以为 null
+         */
+        public void writeBytes(byte[] value) {
+            if (value == null) {
+                writeRaw(0);
+                return;
+            }
+            writeRaw(value.length + 1);
+            ensure(value.length);
+            System.arraycopy(value, 0, buffer, size, value.length);
+            size += value.length;
+        }
+
+        /**
+         * 写入嵌套对象：类型编号和字段
+         *
+         * @param value 对象，可以为 null
+         * @throws NotSerializableException 如果对象的类型未注册
+         */
+        public void writeObject(Object value) throws IOException {
+            if (value == null) {
+                writeRaw(NULL_ID);
+                return;
+            }
+            Registration<?> registration = codec.byClass.get(value.getClass());
+            if (registration == null)
+                throw new NotSerializableException(value.getClass().getName());
+            writeRaw(registration.id);
+            registration.write(value, this);
+        }
+    }
+
+    /**
+     * 解码输入：从字节数组读取，越界时抛出 EOFException
+     */
+    public static final class Input {
+        private final BinaryCodec codec;
+        private final byte[] buffer;
+        private final int limit;
+        private int position;
+
+        private Input(BinaryCodec codec, byte[] buffer, int offset, int limit) {
+            this.codec = codec;
+            this.buffer = buffer;
+            this.position = offset;
+            this.limit = limit;
+        }
+
+        private void require(int n) throws EOFException {
+            if (n < 0 || limit - position < n)
+                throw new EOFException("对象数据不完整");
+        }
+
+        /**
+         * 读取一个字节
+         *
+         * @return 字节值
+         * @throws EOFException 如果数据不足
+         */
+        public byte readByte() throws EOFException {
+            require(1);
+            return buffer[position++];
+        }
+
+        /**
+         * 读取布尔值
+         *
+         * @return 布尔值
+         * @throws EOFException 如果数据不足
+         */
+        public boolean readBoolean() throws EOFException {
+            return readByte() != 0;
+        }
+
+        /**
+         * 读取变长整数
+         *
+         * @return 整数
+         * @throws IOException 如果数据不足或格式错误
+         */
+        public int readVarInt() throws IOException {
+            int v = readRaw();
+            return (v >>> 1) ^ -(v & 1);
+        }
+
+        /**
+         * 读取变长长整数
+         *
+         * @return 长整数
+         * @throws IOException 如果数据不足或格式错误
+         */
+        public long readVarLong() throws IOException {
+            long result = 0;
+            for (int shift = 0; shift < 70; shift += 7) {
+                byte b = readByte();
+                result |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0)
+                    return (result >>> 1) ^ -(result & 1);
+            }
+            throw new StreamCorruptedException("变长整数格式错误");
+        }
+
+        private int readRaw() throws IOException {
+            int result = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                byte b = readByte();
+                result |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0)
+                    return result;
+            }
+            throw new StreamCorruptedException("变长整数格式错误");
+        }
+
+        /**
+         * 读取固定 4 字节整数（小端）
+         *
+         * @return 整数
+         * @throws EOFException 如果数据不足
+         */
+        public int readInt() throws EOFException {
+            require(4);
+            int v = (buffer[position] & 0xFF) | (buffer[position + 1] & 0xFF) << 8
+                    | (buffer[position + 2] & 0xFF) << 16 | (buffer[position + 3] & 0xFF) << 24;
+            position += 4;
+            return v;
+        }
+
+        /**
+         * 读取固定 8 字节长整数（小端）
+         *
+         * @return 长整数
+         * @throws EOFException 如果数据不足
+         */
+        public long readLong() throws EOFException {
+            return (readInt() & 0xFFFFFFFFL) | (long) readInt() << 32;
+        }
+
+        /**
+         * 读取双精度浮点数
+         *
+         * @return 浮点数
+         * @throws EOFException 如果数据不足
+         */
+        public double readDouble() throws EOFException {
+            return Double.longBitsToDouble(readLong());
+        }
+
+        /**
+         * 读取字符串
+         *
+         * @return 字符串，可能为 null
+         * @throws IOException 如果数据不足或格式错误
+         */
+        public String readString() throws IOException {
+            int n = readRaw() - 1;
+            if (n < 0)
+                return null;
+            require(n);
+            String value = new String(buffer, position, n, StandardCharsets.UTF_8);
+            position += n;
+            return value;
+        }
+
+        /**
+         * 读取字节数组
+         *
+         * @return 字节数组，可能为 null
+         * @throws IOException 如果数据不足或格式错误
+         */
+        public byte[] readBytes() throws IOException {
+            int n = readRaw() - 1;
+            if (n < 0)
+                return null;
+            require(n);
+            byte[] value = Arrays.copyOfRange(buffer, position, position + n);
+            position += n;
+            return value;
+        }
+
+        /**
+         * 读取嵌套对象
+         *
+         * @return 对象，可能为 null
+         * @throws IOException 如果类型编号未注册或数据格式错误
+         */
+        public Object readObject() throws IOException {
+            int id = readRaw();
+            if (id == NULL_ID)
+                return null;
+            Registration<?>[] ids = codec.byId;
+            if (id < 0 || id >= ids.length || ids[id] == null)
+                throw new StreamCorruptedException("未注册的类型编号：" + id);
+            return ids[id].reader.read(this);
+        }
+    }
+
+}
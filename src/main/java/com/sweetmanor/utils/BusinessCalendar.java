@@ -0,0 +1,291 @@
+package com.sweetmanor.utils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+
+/**
+ * 工作日日历：按年份范围预先计算每一天是否为工作日，保存为位图。 <br />
+ * 周六、周日默认为休息日，可额外指定节假日以及调休上班日。 <br />
+ * 位图同时保存每 64 天的累计工作日数，因此 isBusinessDay、businessDaysBetween 为 O(1)，
+ * addBusinessDays 为一次二分查找加字内定位，不需要逐日循环。 <br />
+ * 对象构造后不可变，查询方法线程安全且不创建对象（以纪元日表示日期的重载）。
+ *
+ * @author ijlhjj
+ * @version 1.0 2025-01-08
+ */
+public final class BusinessCalendar {
+    /**
+     * 起始日期（包括）的纪元日
+     */
+    private final long firstDay;
+    /**
+     * 结束日期（不包括）的纪元日
+     */
+    private final long endDay;
+    /**
+     * 工作日位图，第 i 位表示 firstDay + i 是否为工作日，末尾多出一个空字便于边界计算
+     */
+    private final long[] bits;
+    /**
+     * ranks[w] 为第 w 个字之前的工作日总数
+     */
+    private final int[] ranks;
+
+    private BusinessCalendar(int fromYear, int toYear, Collection<LocalDate> holidays, Collection<LocalDate> workdays) {
+        this.firstDay = LocalDate.of(fromYear, 1, 1).toEpochDay();
+        this.endDay = LocalDate.of(toYear + 1, 1, 1).toEpochDay();
+        int days = (int) (endDay - firstDay);
+        this.bits = new long[(days >>> 6) + 1];
+
+        // 先按星期设置工作日：1970-01-01 为星期四
+        for (int i = 0; i < days; i++) {
+            int dayOfWeek = (int) Math.floorMod(firstDay + i + 3, 7L); // 0 为星期一
+            if (dayOfWeek < 5)
+                bits[i >>> 6] |= 1L << i;
+        }
+        // 节假日清除，调休上班日置位，超出年份范围的日期忽略
+        for (LocalDate holiday : holidays) {
+            long day = holiday.toEpochDay();
+            if (day >= firstDay && day < endDay)
+                bits[(int) (day - firstDay) >>> 6] &= ~(1L << (day - firstDay));
+        }
+        for (LocalDate workday : workdays) {
+            long day = workday.toEpochDay();
+            if (day >= firstDay && day < endDay)
+                bits[(int) (day - firstDay) >>> 6] |= 1L << (day - firstDay);
+        }
+
+        // 计算累计工作日数
+        this.ranks = new int[bits.length];
+        for (int w = 1; w < bits.length; w++)
+            ranks[w] = ranks[w - 1] + Long.bitCount(bits[w - 1]);
+    }
+
+    /**
+     * 创建只包含周末休息规则的日历
+     *
+     * @param fromYear 起始年份（包括）
+     * @param toYear   结束年份（包括）
+     * @return 工作日日历
+     */
+    public static BusinessCalendar of(int fromYear, int toYear) {
+        return of(fromYear, toYear, Collections.emptyList(), Collections.emptyList());
+    }
+
+    /**
+     * 创建工作日日历
+     *
+     * @param fromYear 起始年份（包括）
+     * @param toYear   结束年份（包括）
+     * @param holidays 节假日，不在年份范围内的将被忽略, not null
+     * @param workdays 调休上班日（周末上班），不在年份范围内的将被忽略, not null
+     * @return 工作日日历
+     * @throws IllegalArgumentException 年份范围不合法
+     */
+    public static BusinessCalendar of(int fromYear, int toYear, Collection<LocalDate> holidays, Collection<LocalDate> workdays) {
+        if (fromYear > toYear || toYear - fromYear > 10000)
+            throw new IllegalArgumentException("Invalid year range: " + fromYear + " - " + toYear);
+        return new BusinessCalendar(fromYear, toYear, holidays, workdays);
+    }
+
+    /**
+     * 从节假日文件加载日历，年份范围为文件中出现的最小年份到最大年份。 <br />
+     * 文件为 UTF-8 编码，每行一个日期，格式为 yyyy-MM-dd，后面可跟一个空白分隔的标记：
+     * “休”或“holiday”表示节假日（默认），“班”或“work”表示调休上班日；空行和以 # 开头的行被忽略。
+     *
+     * @param file 节假日文件
+     * @return 工作日日历
+     * @throws IOException              如果读取文件发生错误
+     * @throws IllegalArgumentException 文件内容格式错误或不包含任何日期
+     */
+    public static BusinessCalendar load(Path file) throws IOException {
+        List<LocalDate> holidays = new ArrayList<>();
+        List<LocalDate> workdays = new ArrayList<>();
+        int minYear = Integer.MAX_VALUE;
+        int maxYear = Integer.MIN_VALUE;
+
+        int lineNo = 0;
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            lineNo++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#"))
+                continue;
+
+            String[] parts = line.split("\\s+");
+            LocalDate date;
+            try {
+                date = LocalDate.parse(parts[0]);
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("Invalid date at line " + lineNo + ": " + line, e);
+            }
+
+            String mark = parts.length > 1 ? parts[1] : "休";
+            if ("班".equals(mark) || "work".equalsIgnoreCase(mark))
+                workdays.add(date);
+            else if ("休".equals(mark) || "holiday".equalsIgnoreCase(mark))
+                holidays.add(date);
+            else
+                throw new IllegalArgumentException("Invalid mark at line " + lineNo + ": " + line);
+
+            minYear = Math.min(minYear, date.getYear());
+            maxYear = Math.max(maxYear, date.getYear());
+        }
+
+        if (minYear > maxYear)
+            throw new IllegalArgumentException("No date found in " + file);
+        return of(minYear, maxYear, holidays, workdays);
+    }
+
+    /**
+     * 判断指定日期是否为工作日
+     *
+     * @param date 日期, not null
+     * @return 工作日返回 true
+     * @throws IllegalArgumentException 日期超出日历范围
+     */
+    public boolean isBusinessDay(LocalDate date) {
+        return isBusinessDay(date.toEpochDay());
+    }
+
+    /**
+     * 判断指定日期是否为工作日
+     *
+     * @param epochDay 以纪元日表示的日期，即 LocalDate.toEpochDay()
+     * @return 工作日返回 true
+     * @throws IllegalArgumentException 日期超出日历范围
+     */
+    public boolean isBusinessDay(long epochDay) {
+        int i = position(epochDay);
+        return (bits[i >>> 6] & (1L << i)) != 0;
+    }
+
+    /**
+     * 计算 [start, end) 之间的工作日天数，end 早于 start 时返回负值
+     *
+     * @param start 起始日期（包括）, not null
+     * @param end   结束日期（不包括）, not null
+     * @return 工作日天数
+     * @throws IllegalArgumentException 日期超出日历范围
+     */
+    public int businessDaysBetween(LocalDate start, LocalDate end) {
+        return businessDaysBetween(start.toEpochDay(), end.toEpochDay());
+    }
+
+    /**
+     * 计算 [start, end) 之间的工作日天数，end 早于 start 时返回负值
+     *
+     * @param startEpochDay 起始日期（包括）的纪元日
+     * @param endEpochDay   结束日期（不包括）的纪元日，可以为日历最后一天的下一天
+     * @return 工作日天数
+     * @throws IllegalArgumentException 日期超出日历范围
+     */
+    public int businessDaysBetween(long startEpochDay, long endEpochDay) {
+        if (endEpochDay < startEpochDay)
+            return -businessDaysBetween(endEpochDay, startEpochDay);
+        return rank(boundary(endEpochDay)) - rank(position(startEpochDay));
+    }
+
+    /**
+     * 对输入日期增加指定个工作日。amount 为正时返回之后第 amount 个工作日，为负时返回之前第 -amount 个工作日，为 0 时返回原日期
+     *
+     * @param date   原日期, not null
+     * @param amount 增加的工作日数，可以为负值
+     * @return 计算后的日期
+     * @throws IllegalArgumentException 日期或计算结果超出日历范围
+     */
+    public LocalDate addBusinessDays(LocalDate date, int amount) {
+        return LocalDate.ofEpochDay(addBusinessDays(date.toEpochDay(), amount));
+    }
+
+    /**
+     * 对输入日期增加指定个工作日。amount 为正时返回之后第 amount 个工作日，为负时返回之前第 -amount 个工作日，为 0 时返回原日期
+     *
+     * @param epochDay 以纪元日表示的原日期
+     * @param amount   增加的工作日数，可以为负值
+     * @return 计算后日期的纪元日
+     * @throws IllegalArgumentException 日期或计算结果超出日历范围
+     */
+    public long addBusinessDays(long epochDay, int amount) {
+        int pos = position(epochDay);
+        if (amount == 0)
+            return epochDay;
+
+        // 目标为第 target 个工作日（从 0 开始计数）
+        long target = amount > 0 ? (long) rank(pos + 1) + amount - 1 : (long) rank(pos) + amount;
+        if (target < 0 || target >= ranks[ranks.length - 1] + Long.bitCount(bits[bits.length - 1]))
+            throw new IllegalArgumentException("Result out of calendar range");
+        return firstDay + select((int) target);
+    }
+
+    /**
+     * 获取日历的起始日期
+     *
+     * @return 起始日期（包括）
+     */
+    public LocalDate getFirstDate() {
+        return LocalDate.ofEpochDay(firstDay);
+    }
+
+    /**
+     * 获取日历的结束日期
+     *
+     * @return 结束日期（包括）
+     */
+    public LocalDate getLastDate() {
+        return LocalDate.ofEpochDay(endDay - 1);
+    }
+
+    /**
+     * 将纪元日转换为位图中的位置
+     */
+    private int position(long epochDay) {
+        if (epochDay < firstDay || epochDay >= endDay)
+            throw new IllegalArgumentException("Date out of calendar range: epochDay " + epochDay);
+        return (int) (epochDay - firstDay);
+    }
+
+    /**
+     * 将作为区间右边界的纪元日转换为位图中的位置，允许等于结束日期
+     */
+    private int boundary(long epochDay) {
+        if (epochDay < firstDay || epochDay > endDay)
+            throw new IllegalArgumentException("Date out of calendar range: epochDay " + epochDay);
+        return (int) (epochDay - firstDay);
+    }
+
+    /**
+     * 位置 pos 之前（不包括）的工作日总数
+     */
+    private int rank(int pos) {
+        int w = pos >>> 6;
+        return ranks[w] + Long.bitCount(bits[w] & ((1L << pos) - 1));
+    }
+
+    /**
+     * 查找第 k 个（从 0 开始）工作日的位置
+     */
+    private int select(int k) {
+        // 二分查找最后一个累计数不大于 k 的字
+        int lo = 0;
+        int hi = ranks.length - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (ranks[mid] <= k)
+                lo = mid;
+            else
+                hi = mid - 1;
+        }
+
+        // 在字内依次清除最低位的 1，剩下的最低位即为目标
+        long word = bits[lo];
+        for (int r = k - ranks[lo]; r > 0; r--)
+            word &= word - 1;
+        return (lo << 6) + Long.numberOfTrailingZeros(word);
+    }
+
+}
@@ -0,0 +1,720 @@
+package com.sweetmanor.utils;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.*;
+
+/**
+ * 并行压缩工具类：将数据拆分为块，在多个线程中同时压缩，再按原顺序写出，压缩速度随 CPU 核数提高。 <br />
+ * gzip：每块压缩为一个独立的 gzip 成员（与 pigz 的 --independent 模式类似），多个成员首尾相接，
+ * 任何 gzip 工具都可以解压。每个成员的头部附加字段（FEXTRA，子字段标识“SZ”）记录成员的字节数，
+ * gunzip 据此无需解压即可定位下一个成员，从而并行解压；不含该字段的 gzip 文件按普通方式顺序解压。 <br />
+ * zip：小文件整体在工作线程中压缩，大文件按块并行压缩后流式写出，按文件顺序写出。
+ * 不支持 ZIP64，条目数超过 65535 或大小、偏移超过 4GB 时抛出异常。
+ *
+ * @author ijlhjj
+ * @version 1.0 2025-02-02
+ */
+public final class CompressUtil {
+    /**
+     * gzip 块大小
+     */
+    public static final int BLOCK_SIZE = 512 * 1024;
+
+    /**
+     * gzip 成员头部长度：10 字节固定头部 + 2 字节 XLEN + 8 字节附加字段
+     */
+    private static final int HEADER_SIZE = 20;
+    private static final int TRAILER_SIZE = 8;
+    /**
+     * 本工具生成的成员上限：一块数据加上 deflate 的膨胀量。超过此值的成员按普通 gzip 顺序解压，不按头部长度整体读入内存
+     */
+    private static final int MAX_MEMBER_SIZE = 2 * BLOCK_SIZE;
+    /**
+     * deflate 的预设字典大小，即回溯窗口大小
+     */
+    private static final int DICTIONARY_SIZE = 32 * 1024;
+    private static final AtomicLong COUNTER = new AtomicLong();
+
+    /**
+     * 工作线程各自的 Deflater 和 Inflater。线程池每次调用时创建，压缩级别在线程内不变；线程结束时释放本地内存（见 newExecutor）
+     */
+    private static final ThreadLocal<Deflater> DEFLATER = new ThreadLocal<>();
+    private static final ThreadLocal<Inflater> INFLATER = new ThreadLocal<>();
+
+    /**
+     * 私有构造函数，防止类被实例化
+     */
+    private CompressUtil() {
+    }
+
+    /**
+     * 使用默认压缩级别和全部 CPU 核并行压缩文件为 gzip 格式
+     *
+     * @param source 源文件
+     * @param target 目标文件，已存在时覆盖
+     * @throws IOException 如果读写失败
+     */
+    public static void gzip(Path source, Path target) throws IOException {
+        try (InputStream in = Files.newInputStream(source);
+             OutputStream out = new BufferedOutputStream(Files.newOutputStream(target), 1 << 16)) {
+            gzip(in, out, Deflater.DEFAULT_COMPRESSION, Runtime.getRuntime().availableProcessors());
+        }
+    }
+
+    /**
+     * 并行压缩为 gzip 格式，输入按 {@value #BLOCK_SIZE} 字节分块，每块为一个独立的 gzip 成员。不关闭输入输出流
+     *
+     * @param in      输入流
+     * @param out     输出流
+     * @param level   压缩级别 0-9，-1 为默认级别
+     * @param threads 压缩线程数，必须大于 0
+     * @throws IOException              如果读写失败
+     * @throws IllegalArgumentException 压缩级别或线程数不合法
+     */
+    public static void gzip(InputStream in, OutputStream out, int level, int threads) throws IOException {
+        if (level < Deflater.DEFAULT_COMPRESSION || level > Deflater.BEST_COMPRESSION)
+            throw new IllegalArgumentException("Invalid compression level: " + level);
+        checkThreads(threads);
+
+        ExecutorService executor = newExecutor(threads);
+        try {
+            OrderedWriter writer = new OrderedWriter(out, threads * 2);
+            boolean empty = true;
+            while (true) {
+                byte[] block = in.readNBytes(BLOCK_SIZE);
+                // 空输入也输出一个成员，保证结果是合法的 gzip 数据
+                if (block.length == 0 && !empty)
+                    break;
+                empty = false;
+                writer.add(executor.submit(() -> compressMember(block, level)));
+                if (block.length < BLOCK_SIZE)
+                    break;
+            }
+            writer.finish();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 使用全部 CPU 核并行解压 gzip 文件
+     *
+     * @param source 源文件
+     * @param target 目标文件，已存在时覆盖
+     * @throws IOException 如果读写失败或数据损坏
+     */
+    public static void gunzip(Path source, Path target) throws IOException {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(source), 1 << 16);
+             OutputStream out = Files.newOutputStream(target)) {
+            gunzip(in, out, Runtime.getRuntime().availableProcessors());
+        }
+    }
+
+    /**
+     * 解压 gzip 数据：带有成员长度字段的成员并行解压，遇到其他 gzip 成员时剩余部分顺序解压。不关闭输入输出流
+     *
+     * @param in      输入流
+     * @param out     输出流
+     * @param threads 解压线程数，必须大于 0
+     * @throws IOException              如果读写失败或数据损坏
+     * @throws IllegalArgumentException 线程数不合法
+     */
+    public static void gunzip(InputStream in, OutputStream out, int threads) throws IOException {
+        checkThreads(threads);
+
+        PushbackInputStream pin = new PushbackInputStream(in, HEADER_SIZE);
+        ExecutorService executor = newExecutor(threads);
+        try {
+            OrderedWriter writer = new OrderedWriter(out, threads * 2);
+            byte[] header = new byte[HEADER_SIZE];
+            int n;
+            while ((n = pin.readNBytes(header, 0, HEADER_SIZE)) > 0) {
+                int memberSize = n == HEADER_SIZE ? memberSize(header) : -1;
+                if (memberSize < 0) {
+                    // 不是本工具生成的成员：退回已读取的头部，剩余部分顺序解压
+                    pin.unread(header, 0, n);
+                    break;
+                }
+                byte[] body = pin.readNBytes(memberSize - HEADER_SIZE);
+                if (body.length != memberSize - HEADER_SIZE)
+                    throw new EOFException("gzip 数据不完整");
+                writer.add(executor.submit(() -> inflateMember(body)));
+            }
+            writer.finish();
+
+            if (n > 0) {
+                GZIPInputStream gin = new GZIPInputStream(pin, 1 << 16);
+                gin.transferTo(out);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 使用默认压缩级别和全部 CPU 核并行压缩目录为 zip 文件，条目名为相对于 dir 的路径
+     *
+     * @param dir     要压缩的目录
+     * @param zipFile 目标文件，已存在时覆盖
+     * @throws IOException 如果读写失败，或者超出非 ZIP64 格式的限制
+     */
+    public static void zip(Path dir, Path zipFile) throws IOException {
+        zip(dir, zipFile, Deflater.DEFAULT_COMPRESSION, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * 并行压缩目录为 zip 文件：目录中的文件（递归，跟随符号链接）按路径排序，在工作线程中压缩后按顺序写出。
+     * 不超过 {@value #BLOCK_SIZE} 字节的文件整体在内存中压缩，同时压缩的文件数不超过线程数的 2 倍；
+     * 更大的文件按块并行压缩并直接写出，大小和校验值写在数据之后的数据描述符中，内存占用与文件大小无关。
+     *
+     * @param dir     要压缩的目录
+     * @param zipFile 目标文件，已存在时覆盖
+     * @param level   压缩级别 0-9，-1 为默认级别
+     * @param threads 压缩线程数，必须大于 0
+     * @throws IOException              如果读写失败，或者超出非 ZIP64 格式的限制
+     * @throws IllegalArgumentException 压缩级别或线程数不合法
+     */
+    public static void zip(Path dir, Path zipFile, int level, int threads) throws IOException {
+        if (level < Deflater.DEFAULT_COMPRESSION || level > Deflater.BEST_COMPRESSION)
+            throw new IllegalArgumentException("Invalid compression level: " + level);
+        checkThreads(threads);
+
+        List<Path> files;
+        try (Stream<Path> stream = FileUtil.streamFiles(dir, new FileQuery())) {
+            files = stream.sorted().collect(Collectors.toList());
+        }
+        if (files.size() > 0xFFFF)
+            throw new IOException("条目数超过 65535，需要 ZIP64 格式：" + files.size());
+
+        ExecutorService executor = newExecutor(threads);
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(zipFile), 1 << 16)) {
+            ZipWriter writer = new ZipWriter(out);
+            Deque<Future<ZipEntryData>> pending = new ArrayDeque<>();
+            for (Path file : files) {
+                String name = dir.relativize(file).toString().replace('\\', '/');
+                if (Files.size(file) > BLOCK_SIZE) {
+                    // 先写出之前的条目，保持文件顺序
+                    while (!pending.isEmpty())
+                        writer.write(await(pending.poll()));
+                    zipLarge(writer, file, name, executor, threads, level);
+                    continue;
+                }
+                pending.add(executor.submit(() -> compressEntry(file, name, level)));
+                if (pending.size() >= threads * 2)
+                    writer.write(await(pending.poll()));
+            }
+            while (!pending.isEmpty())
+                writer.write(await(pending.poll()));
+            writer.finish();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 将一块数据压缩为完整的 gzip 成员
+     */
+    private static byte[] compressMember(byte[] block, int level) {
+        Deflater deflater = deflater(level);
+        deflater.setInput(block);
+        deflater.finish();
+
+        // 预留 deflate 的最大膨胀量，通常一次即可压缩完成
+        byte[] out = new byte[HEADER_SIZE + block.length + (block.length >> 12) + (block.length >> 14) + 64 + TRAILER_SIZE];
+        int pos = HEADER_SIZE;
+        while (!deflater.finished()) {
+            if (pos == out.length - TRAILER_SIZE)
+                out = Arrays.copyOf(out, out.length * 2);
+            pos += deflater.deflate(out, pos, out.length - TRAILER_SIZE - pos);
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(block);
+        int size = pos + TRAILER_SIZE;
+        writeHeader(out, size);
+        writeIntLE(out, pos, (int) crc.getValue());
+        writeIntLE(out, pos + 4, block.length);
+        return size == out.length ? out : Arrays.copyOf(out, size);
+    }
+
+    /**
+     * 写入 gzip 成员头部：FLG 只设置 FEXTRA，附加字段为“SZ”子字段，内容为成员总字节数
+     */
+    private static void writeHeader(byte[] out, int memberSize) {
+        out[0] = 0x1f;
+        out[1] = (byte) 0x8b;
+        out[2] = 8; // CM = deflate
+        out[3] = 4; // FLG = FEXTRA
+        // MTIME = 0, XFL = 0
+        out[9] = (byte) 255; // OS = unknown
+        out[10] = 8; // XLEN
+        out[11] = 0;
+        out[12] = 'S';
+        out[13] = 'Z';
+        out[14] = 4; // LEN
+        out[15] = 0;
+        writeIntLE(out, 16, memberSize);
+    }
+
+    /**
+     * 解析本工具生成的成员头部，返回成员总字节数，不是本工具生成的成员时返回 -1
+     */
+    private static int memberSize(byte[] h) {
+        if (h[0] != 0x1f || h[1] != (byte) 0x8b || h[2] != 8 || h[3] != 4 || h[10] != 8 || h[11] != 0
+                || h[12] != 'S' || h[13] != 'Z' || h[14] != 4 || h[15] != 0)
+            return -1;
+        int size = readIntLE(h, 16);
+        return size >= HEADER_SIZE + TRAILER_SIZE && size <= MAX_MEMBER_SIZE ? size : -1;
+    }
+
+    /**
+     * 解压一个成员（不含头部），校验 CRC32 和长度
+     */
+    private static byte[] inflateMember(byte[] body) throws IOException {
+        int crc = readIntLE(body, body.length - TRAILER_SIZE);
+        int size = readIntLE(body, body.length - 4);
+        if (size < 0)
+            throw new ZipException("gzip 成员过大");
+
+        Inflater inflater = inflater();
+        inflater.setInput(body, 0, body.length - TRAILER_SIZE);
+        // 长度来自尾部，不据此一次分配，随解压出的数据逐步扩大缓冲区
+        byte[] out = new byte[Math.min(size, BLOCK_SIZE)];
+        try {
+            int pos = 0;
+            while (pos < size && !inflater.finished()) {
+                if (pos == out.length)
+                    out = Arrays.copyOf(out, (int) Math.min(size, 2L * out.length));
+                int n = inflater.inflate(out, pos, out.length - pos);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary()))
+                    break;
+                pos += n;
+            }
+            // 输出已满时压缩流的结束块可能还未处理，继续推进直到 finished，多出的数据说明长度不一致
+            byte[] scratch = new byte[1];
+            while (pos == size && !inflater.finished()) {
+                if (inflater.inflate(scratch) != 0 || inflater.needsInput() || inflater.needsDictionary())
+                    break;
+            }
+            if (pos != size || !inflater.finished())
+                throw new ZipException("gzip 成员长度不一致");
+        } catch (DataFormatException e) {
+            throw new ZipException("gzip 数据损坏：" + e.getMessage());
+        }
+
+        CRC32 actual = new CRC32();
+        actual.update(out);
+        if ((int) actual.getValue() != crc)
+            throw new ZipException("gzip 成员 CRC 校验失败");
+        return out;
+    }
+
+    /**
+     * 读取并压缩一个不超过 {@value #BLOCK_SIZE} 字节的文件
+     */
+    private static ZipEntryData compressEntry(Path file, String name, int level) throws IOException {
+        byte[] data;
+        try (InputStream in = Files.newInputStream(file)) {
+            data = in.readNBytes(BLOCK_SIZE);
+            if (in.read() != -1)
+                throw new IOException("文件在压缩过程中发生变化：" + file);
+        }
+
+        Deflater deflater = deflater(level);
+        deflater.setInput(data);
+        deflater.finish();
+        byte[] out = new byte[data.length + (data.length >> 12) + (data.length >> 14) + 64];
+        int pos = 0;
+        while (!deflater.finished()) {
+            if (pos == out.length)
+                out = Arrays.copyOf(out, out.length * 2);
+            pos += deflater.deflate(out, pos, out.length - pos);
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        return new ZipEntryData(name, Files.getLastModifiedTime(file).toMillis(), crc.getValue(), data.length,
+                pos == out.length ? out : Arrays.copyOf(out, pos));
+    }
+
+    /**
+     * 流式压缩大文件：按 {@value #BLOCK_SIZE} 字节分块并行压缩，每块以前一块末尾的 32KB 作为预设字典，
+     * 除最后一块外以 SYNC_FLUSH 结束，各块的压缩数据首尾相接即为一个完整的 deflate 流（与 pigz 相同）。
+     * CRC32 在当前线程中顺序计算，内存中最多保留线程数 2 倍的块
+     */
+    private static void zipLarge(ZipWriter writer, Path file, String name, ExecutorService executor, int threads,
+                                 int level) throws IOException {
+        if (Files.size(file) > ZipWriter.MAX_32)
+            throw new IOException("文件过大，需要 ZIP64 格式：" + file);
+        writer.begin(name, Files.getLastModifiedTime(file).toMillis());
+
+        OrderedWriter body = new OrderedWriter(writer.out, threads * 2);
+        CRC32 crc = new CRC32();
+        long size = 0;
+        try (InputStream in = Files.newInputStream(file)) {
+            byte[] block = in.readNBytes(BLOCK_SIZE);
+            byte[] dictionary = null;
+            while (true) {
+                // 预读下一块，以确定当前块是否为最后一块
+                byte[] next = in.readNBytes(BLOCK_SIZE);
+                boolean last = next.length == 0;
+                crc.update(block);
+                size += block.length;
+                byte[] current = block;
+                byte[] preset = dictionary;
+                body.add(executor.submit(() -> deflateBlock(current, preset, last, level)));
+                if (last)
+                    break;
+                dictionary = Arrays.copyOfRange(block, block.length - DICTIONARY_SIZE, block.length);
+                block = next;
+            }
+        }
+        body.finish();
+        writer.end(crc.getValue(), body.written, size);
+    }
+
+    /**
+     * 压缩大文件中的一块，不含头部：最后一块结束压缩流，其余块以 SYNC_FLUSH 对齐到字节边界
+     */
+    private static byte[] deflateBlock(byte[] block, byte[] dictionary, boolean last, int level) {
+        Deflater deflater = deflater(level);
+        if (dictionary != null)
+            deflater.setDictionary(dictionary);
+        deflater.setInput(block);
+        byte[] out = new byte[block.length + (block.length >> 12) + (block.length >> 14) + 64];
+        int pos = 0;
+        if (last) {
+            deflater.finish();
+            while (!deflater.finished()) {
+                if (pos == out.length)
+                    out = Arrays.copyOf(out, out.length * 2);
+                pos += deflater.deflate(out, pos, out.length - pos);
+            }
+        } else {
+            // 输出填满缓冲区时刷新可能还未完成，扩大后继续
+            do {
+                if (pos == out.length)
+                    out = Arrays.copyOf(out, out.length * 2);
+                pos += deflater.deflate(out, pos, out.length - pos, Deflater.SYNC_FLUSH);
+            } while (pos == out.length);
+        }
+        return pos == out.length ? out : Arrays.copyOf(out, pos);
+    }
+
+    /**
+     * 获取当前线程的 Deflater 并重置，第一次调用时以指定的压缩级别创建
+     */
+    private static Deflater deflater(int level) {
+        Deflater deflater = DEFLATER.get();
+        if (deflater == null) {
+            deflater = new Deflater(level, true);
+            DEFLATER.set(deflater);
+        } else {
+            deflater.reset();
+        }
+        return deflater;
+    }
+
+    /**
+     * 获取当前线程的 Inflater 并重置
+     */
+    private static Inflater inflater() {
+        Inflater inflater = INFLATER.get();
+        if (inflater == null) {
+            inflater = new Inflater(true);
+            INFLATER.set(inflater);
+        } else {
+            inflater.reset();
+        }
+        return inflater;
+    }
+
+    /**
+     * 释放当前线程的 Deflater 和 Inflater 占用的本地内存
+     */
+    private static void release() {
+        Deflater deflater = DEFLATER.get();
+        if (deflater != null) {
+            deflater.end();
+            DEFLATER.remove();
+        }
+        Inflater inflater = INFLATER.get();
+        if (inflater != null) {
+            inflater.end();
+            INFLATER.remove();
+        }
+    }
+
+    private static void checkThreads(int threads) {
+        if (threads < 1)
+            throw new IllegalArgumentException("Threads must be positive: " + threads);
+    }
+
+    /**
+     * 压缩线程池：守护线程，避免未关闭的线程池阻止 JVM 退出；线程随线程池关闭而结束，结束时释放 Deflater 和 Inflater
+     */
+    private static ExecutorService newExecutor(int threads) {
+        return Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(() -> {
+                try {
+                    r.run();
+                } finally {
+                    release();
+                }
+            }, "compress-" + COUNTER.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * 等待任务完成，将任务异常还原为 IOException
+     */
+    private static <T> T await(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("压缩被中断");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException)
+                throw (IOException) cause;
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            throw new IOException(cause);
+        }
+    }
+
+    private static void writeIntLE(byte[] b, int off, int v) {
+        b[off] = (byte) v;
+        b[off + 1] = (byte) (v >>> 8);
+        b[off + 2] = (byte) (v >>> 16);
+        b[off + 3] = (byte) (v >>> 24);
+    }
+
+    private static int readIntLE(byte[] b, int off) {
+        return (b[off] & 0xff) | (b[off + 1] & 0xff) << 8 | (b[off + 2] & 0xff) << 16 | (b[off + 3] & 0xff) << 24;
+    }
+
+    /**
+     * 按提交顺序写出并行任务的结果，未写出的任务数达到上限时等待最早的任务
+     */
+    private static final class OrderedWriter {
+        private final OutputStream out;
+        private final int window;
+        private final Deque<Future<byte[]>> pending = new ArrayDeque<>();
+        /**
+         * 已写出的字节数
+         */
+        private long written;
+
+        OrderedWriter(OutputStream out, int window) {
+            this.out = out;
+            this.window = window;
+        }
+
+        void add(Future<byte[]> future) throws IOException {
+            pending.add(future);
+            if (pending.size() >= window)
+                write(await(pending.poll()));
+        }
+
+        /**
+         * 写出全部剩余结果，不关闭输出流
+         */
+        void finish() throws IOException {
+            while (!pending.isEmpty())
+                write(await(pending.poll()));
+        }
+
+        private void write(byte[] data) throws IOException {
+            out.write(data);
+            written += data.length;
+        }
+    }
+
+    /**
+     * 压缩完成的 zip 条目
+     */
+    private static final class ZipEntryData {
+        private final byte[] name;
+        private final long modified;
+        private final long crc;
+        private final long size;
+        private final byte[] compressed;
+
+        ZipEntryData(String name, long modified, long crc, long size, byte[] compressed) {
+            this.name = name.getBytes(StandardCharsets.UTF_8);
+            this.modified = modified;
+            this.crc = crc;
+            this.size = size;
+            this.compressed = compressed;
+        }
+    }
+
+    /**
+     * zip 文件写入器：依次写出本地文件头和压缩数据，最后写出中央目录
+     */
+    private static final class ZipWriter {
+        private static final long MAX_32 = 0xFFFFFFFFL;
+        /**
+         * 通用标志位：第 3 位表示校验值和大小写在数据之后的数据描述符中
+         */
+        private static final int FLAG_DESCRIPTOR = 0x0008;
+        /**
+         * 通用标志位：第 11 位表示文件名使用 UTF-8 编码
+         */
+        private static final int FLAG_UTF8 = 0x0800;
+
+        private final OutputStream out;
+        private final ByteArrayOutputStream central = new ByteArrayOutputStream();
+        private long offset;
+        private int count;
+        /**
+         * 正在流式写入的条目
+         */
+        private byte[] streamName;
+        private int[] streamTime;
+        private long streamOffset;
+
+        ZipWriter(OutputStream out) {
+            this.out = out;
+        }
+
+        void write(ZipEntryData entry) throws IOException {
+            if (entry.compressed.length > MAX_32 || entry.size > MAX_32 || offset > MAX_32)
+                throw new IOException("zip 文件超过 4GB，需要 ZIP64 格式");
+
+            int[] dos = dosTime(entry.modified);
+            long start = offset;
+            writeLocalHeader(entry.name, dos, 0, entry.crc, entry.compressed.length, entry.size);
+            out.write(entry.compressed);
+            offset += entry.compressed.length;
+            writeCentral(entry.name, dos, 0, entry.crc, entry.compressed.length, entry.size, start);
+        }
+
+        /**
+         * 开始流式写入的条目：本地文件头中校验值和大小为 0，调用方随后直接向 out 写出压缩数据
+         */
+        void begin(String name, long modified) throws IOException {
+            if (offset > MAX_32)
+                throw new IOException("zip 文件超过 4GB，需要 ZIP64 格式");
+            streamName = name.getBytes(StandardCharsets.UTF_8);
+            streamTime = dosTime(modified);
+            streamOffset = offset;
+            writeLocalHeader(streamName, streamTime, FLAG_DESCRIPTOR, 0, 0, 0);
+        }
+
+        /**
+         * 结束流式写入的条目：写出数据描述符，记录中央目录
+         */
+        void end(long crc, long compressedSize, long size) throws IOException {
+            if (compressedSize > MAX_32 || size > MAX_32)
+                throw new IOException("zip 文件超过 4GB，需要 ZIP64 格式");
+            ByteArrayOutputStream descriptor = new ByteArrayOutputStream(16);
+            writeInt(descriptor, 0x08074b50);
+            writeInt(descriptor, (int) crc);
+            writeInt(descriptor, (int) compressedSize);
+            writeInt(descriptor, (int) size);
+            descriptor.writeTo(out);
+            offset += compressedSize + descriptor.size();
+            writeCentral(streamName, streamTime, FLAG_DESCRIPTOR, crc, compressedSize, size, streamOffset);
+        }
+
+        private void writeLocalHeader(byte[] name, int[] dos, int flags, long crc, long compressedSize, long size)
+                throws IOException {
+            ByteArrayOutputStream header = new ByteArrayOutputStream(30 + name.length);
+            writeInt(header, 0x04034b50);
+            writeShort(header, 20); // 解压所需版本
+            writeShort(header, FLAG_UTF8 | flags);
+            writeShort(header, ZipEntry.DEFLATED);
+            writeShort(header, dos[0]);
+            writeShort(header, dos[1]);
+            writeInt(header, (int) crc);
+            writeInt(header, (int) compressedSize);
+            writeInt(header, (int) size);
+            writeShort(header, name.length);
+            writeShort(header, 0); // 扩展字段长度
+            header.write(name);
+            header.writeTo(out);
+            offset += header.size();
+        }
+
+        private void writeCentral(byte[] name, int[] dos, int flags, long crc, long compressedSize, long size,
+                                  long headerOffset) {
+            writeInt(central, 0x02014b50);
+            writeShort(central, 20); // 创建版本
+            writeShort(central, 20); // 解压所需版本
+            writeShort(central, FLAG_UTF8 | flags);
+            writeShort(central, ZipEntry.DEFLATED);
+            writeShort(central, dos[0]);
+            writeShort(central, dos[1]);
+            writeInt(central, (int) crc);
+            writeInt(central, (int) compressedSize);
+            writeInt(central, (int) size);
+            writeShort(central, name.length);
+            writeShort(central, 0); // 扩展字段长度
+            writeShort(central, 0); // 注释长度
+            writeShort(central, 0); // 磁盘号
+            writeShort(central, 0); // 内部属性
+            writeInt(central, 0); // 外部属性
+            writeInt(central, (int) headerOffset);
+            central.write(name, 0, name.length);
+            count++;
+        }
+
+        /**
+         * 写出中央目录和目录结束记录，不关闭输出流
+         */
+        void finish() throws IOException {
+            if (offset > MAX_32)
+                throw new IOException("zip 文件超过 4GB，需要 ZIP64 格式");
+            central.writeTo(out);
+
+            ByteArrayOutputStream end = new ByteArrayOutputStream(22);
+            writeInt(end, 0x06054b50);
+            writeShort(end, 0); // 磁盘号
+            writeShort(end, 0); // 中央目录开始的磁盘号
+            writeShort(end, count);
+            writeShort(end, count);
+            writeInt(end, central.size());
+            writeInt(end, (int) offset);
+            writeShort(end, 0); // 注释长度
+            end.writeTo(out);
+        }
+
+        /**
+         * 转换为 DOS 时间和日期，1980 年以前的时间按 1980-01-01 处理
+         */
+        private static int[] dosTime(long millis) {
+            LocalDateTime t = LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+            if (t.getYear() < 1980)
+                return new int[]{0, (1 << 5) | 1};
+            return new int[]{t.getHour() << 11 | t.getMinute() << 5 | t.getSecond() >> 1,
+                    (t.getYear() - 1980) << 9 | t.getMonthValue() << 5 | t.getDayOfMonth()};
+        }
+
+        private static void writeShort(ByteArrayOutputStream out, int v) {
+            out.write(v);
+            out.write(v >>> 8);
+        }
+
+        private static void writeInt(ByteArrayOutputStream out, int v) {
+            writeShort(out, v & 0xFFFF);
+            writeShort(out, v >>> 16);
+        }
+    }
+
+}
@@ -0,0 +1,396 @@
+package com.sweetmanor.utils;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.CRC32C;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * 压缩编解码器：包装另一个编解码器，将其输出分块压缩后写出，读取时自动识别。 <br />
+ * 编码以 6 字节头部开始（4 字节魔数、算法编号、压缩级别），之后是若干块，
+ * 每块为“原始长度 + 存储长度 + 原始数据的 CRC32C + 数据”，压缩后没有变小的块原样存储，原始长度为 0 表示结束。 <br />
+ * 支持 Deflater（级别 1 ~ 9，级别越低越快）和纯 Java 实现的 LZ4 块格式（速度最快，压缩率较低）。
+ * 对象编码超过一个块时，后续各块在 ForkJoin 公共线程池中并行压缩，按顺序写出；读取时逐块解压，不会一次性解压整个对象。 <br />
+ * 读取时不以魔数开头的数据按未压缩处理，直接交给被包装的编解码器，因此可以读取启用压缩前写入的文件。
+ *
+ * @param <T> 对象类型
+ * @author ijlhjj
+ * @version 1.0 2025-02-09
+ */
+public class CompressedCodec<T> implements ObjectCodec<T> {
+    /**
+     * 默认块大小
+     */
+    public static final int DEFAULT_BLOCK_SIZE = 256 * 1024;
+    /**
+     * 最大块大小，读取时原始长度超过此值的块视为损坏，不据此分配内存
+     */
+    public static final int MAX_BLOCK_SIZE = 16 * 1024 * 1024;
+
+    private static final byte[] MAGIC = {(byte) 0xFE, (byte) 0xC0, 'Z', 1};
+    private static final int BLOCK_HEADER = 12;
+
+    private static final ThreadLocal<Deflater> DEFLATER = ThreadLocal.withInitial(() -> new Deflater(Deflater.DEFAULT_COMPRESSION, true));
+    private static final ThreadLocal<Inflater> INFLATER = ThreadLocal.withInitial(() -> new Inflater(true));
+
+    /**
+     * 压缩算法，编号写入头部
+     */
+    public enum Algorithm {
+        /**
+         * Deflater（不含 zlib 头部），可设置压缩级别
+         */
+        DEFLATE(1),
+        /**
+         * LZ4 块格式，忽略压缩级别
+         */
+        LZ4(2);
+
+        private final int id;
+
+        Algorithm(int id) {
+            this.id = id;
+        }
+
+        static Algorithm of(int id) {
+            for (Algorithm algorithm : values())
+                if (algorithm.id == id)
+                    return algorithm;
+            return null;
+        }
+    }
+
+    private final ObjectCodec<T> codec;
+    private volatile Algorithm algorithm = Algorithm.LZ4;
+    private volatile int level = 1;
+    private volatile int blockSize = DEFAULT_BLOCK_SIZE;
+    private volatile int parallelism = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * 构造压缩编解码器，默认使用 LZ4
+     *
+     * @param codec 被包装的编解码器
+     */
+    public CompressedCodec(ObjectCodec<T> codec) {
+        this.codec = codec;
+    }
+
+    /**
+     * 设置写入时使用的压缩算法，读取时按头部自动识别
+     *
+     * @param algorithm 压缩算法
+     * @return 当前对象
+     */
+    public CompressedCodec<T> algorithm(Algorithm algorithm) {
+        this.algorithm = algorithm;
+        return this;
+    }
+
+    /**
+     * 设置 Deflater 的压缩级别，默认为 1（最快）
+     *
+     * @param level 1 ~ 9
+     * @return 当前对象
+     * @throws IllegalArgumentException 级别不合法
+     */
+    public CompressedCodec<T> level(int level) {
+        if (level < Deflater.BEST_SPEED || level > Deflater.BEST_COMPRESSION)
+            throw new IllegalArgumentException("Invalid compression level: " + level);
+        this.level = level;
+        return this;
+    }
+
+    /**
+     * 设置块大小，默认 {@value #DEFAULT_BLOCK_SIZE} 字节
+     *
+     * @param blockSize 字节数，4KB ~ {@value #MAX_BLOCK_SIZE}
+     * @return 当前对象
+     * @throws IllegalArgumentException 块大小小于 4KB 或大于 MAX_BLOCK_SIZE
+     */
+    public CompressedCodec<T> blockSize(int blockSize) {
+        if (blockSize < 4096)
+            throw new IllegalArgumentException("Block size too small: " + blockSize);
+        if (blockSize > MAX_BLOCK_SIZE)
+            throw new IllegalArgumentException("Block size too large: " + blockSize);
+        this.blockSize = blockSize;
+        return this;
+    }
+
+    /**
+     * 设置每个对象最多同时压缩的块数，默认为 CPU 核数，1 表示在调用线程中顺序压缩
+     *
+     * @param parallelism 块数，必须大于 0
+     * @return 当前对象
+     * @throws IllegalArgumentException parallelism 小于 1
+     */
+    public CompressedCodec<T> parallelism(int parallelism) {
+        if (parallelism < 1)
+            throw new IllegalArgumentException("Parallelism must be positive: " + parallelism);
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    @Override
+    public void write(T object, OutputStream out) throws IOException {
+        Algorithm algorithm = this.algorithm;
+        int level = algorithm == Algorithm.DEFLATE ? this.level : 0;
+        out.write(MAGIC);
+        out.write(algorithm.id);
+        out.write(level);
+        BlockOutputStream blocks = new BlockOutputStream(out, algorithm, level, blockSize, parallelism);
+        codec.write(object, blocks);
+        blocks.finish();
+    }
+
+    @Override
+    public T read(InputStream in) throws IOException {
+        // 逐字节比较头部，不匹配时把已读取的字节放回被包装的编解码器的输入前面，不会多读后续数据
+        byte[] header = new byte[MAGIC.length + 2];
+        for (int i = 0; i < header.length; i++) {
+            int b = in.read();
+            if (b < 0)
+                return codec.read(new ByteArrayInputStream(header, 0, i));
+            header[i] = (byte) b;
+            if (i < MAGIC.length ? header[i] != MAGIC[i] : i == MAGIC.length && Algorithm.of(b) == null)
+                return codec.read(new SequenceInputStream(new ByteArrayInputStream(header, 0, i + 1), in));
+        }
+
+        BlockInputStream blocks = new BlockInputStream(in, Algorithm.of(header[MAGIC.length]));
+        T object = codec.read(blocks);
+        blocks.drain();
+        return object;
+    }
+
+    /**
+     * 压缩一个块，返回带块头部的完整数据
+     */
+    private static byte[] compressBlock(byte[] data, int length, Algorithm algorithm, int level) {
+        CRC32C crc = new CRC32C();
+        crc.update(data, 0, length);
+        byte[] out;
+        int stored;
+        if (algorithm == Algorithm.LZ4) {
+            out = new byte[BLOCK_HEADER + Lz4Block.maxCompressedLength(length)];
+            stored = Lz4Block.compress(data, 0, length, out, BLOCK_HEADER);
+        } else {
+            out = new byte[BLOCK_HEADER + length + 64];
+            Deflater deflater = DEFLATER.get();
+            deflater.reset();
+            deflater.setLevel(level);
+            deflater.setInput(data, 0, length);
+            deflater.finish();
+            // 修改级别后的第一次调用可能只刷出部分数据，循环到结束或缓冲区用完
+            stored = 0;
+            while (!deflater.finished() && stored < out.length - BLOCK_HEADER)
+                stored += deflater.deflate(out, BLOCK_HEADER + stored, out.length - BLOCK_HEADER - stored);
+            if (!deflater.finished())
+                stored = length; // 不可压缩，原样存储
+        }
+        if (stored >= length) {
+            stored = length;
+            out = Arrays.copyOf(out, BLOCK_HEADER + length);
+            System.arraycopy(data, 0, out, BLOCK_HEADER, length);
+        }
+        ByteBuffer.wrap(out).putInt(length).putInt(stored).putInt((int) crc.getValue());
+        return out.length == BLOCK_HEADER + stored ? out : Arrays.copyOf(out, BLOCK_HEADER + stored);
+    }
+
+    /**
+     * 分块压缩的输出流：块写满后压缩，多个块并行压缩时按顺序写出
+     */
+    private static final class BlockOutputStream extends OutputStream {
+        private final OutputStream out;
+        private final Algorithm algorithm;
+        private final int level;
+        private final int parallelism;
+        private final Deque<CompletableFuture<byte[]>> pending = new ArrayDeque<>();
+        private byte[] buffer;
+        private int count;
+
+        BlockOutputStream(OutputStream out, Algorithm algorithm, int level, int blockSize, int parallelism) {
+            this.out = out;
+            this.algorithm = algorithm;
+            this.level = level;
+            this.parallelism = parallelism;
+            this.buffer = new byte[blockSize];
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (count == buffer.length)
+                submit();
+            buffer[count++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                if (count == buffer.length)
+                    submit();
+                int n = Math.min(len, buffer.length - count);
+                System.arraycopy(b, off, buffer, count, n);
+                count += n;
+                off += n;
+                len -= n;
+            }
+        }
+
+        /**
+         * 提交已写满的块：单线程时直接压缩写出，否则交给公共线程池并换用新的缓冲区
+         */
+        private void submit() throws IOException {
+            if (parallelism == 1) {
+                out.write(compressBlock(buffer, count, algorithm, level));
+                count = 0;
+                return;
+            }
+            byte[] block = buffer;
+            int length = count;
+            pending.add(CompletableFuture.supplyAsync(() -> compressBlock(block, length, algorithm, level), ForkJoinPool.commonPool()));
+            buffer = new byte[buffer.length];
+            count = 0;
+            while (pending.size() >= parallelism)
+                out.write(await(pending.poll()));
+        }
+
+        /**
+         * 压缩最后一块，写出全部块和结束标记，不关闭输出流
+         */
+        void finish() throws IOException {
+            if (count > 0) {
+                // 最后一块在调用线程中压缩，与仍在进行的并行压缩重叠
+                byte[] last = compressBlock(buffer, count, algorithm, level);
+                while (!pending.isEmpty())
+                    out.write(await(pending.poll()));
+                out.write(last);
+            }
+            while (!pending.isEmpty())
+                out.write(await(pending.poll()));
+            out.write(new byte[4]);
+            out.flush();
+        }
+
+        private static byte[] await(CompletableFuture<byte[]> future) throws IOException {
+            try {
+                return future.join();
+            } catch (CompletionException e) {
+                throw new IOException("压缩失败", e.getCause());
+            }
+        }
+    }
+
+    /**
+     * 分块解压的输入流：每次只解压一块
+     */
+    private static final class BlockInputStream extends InputStream {
+        private final DataInputStream in;
+        private final Algorithm algorithm;
+        private byte[] block = new byte[0];
+        private int position;
+        private int limit;
+        private boolean eof;
+
+        BlockInputStream(InputStream in, Algorithm algorithm) {
+            this.in = new DataInputStream(in);
+            this.algorithm = algorithm;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (!fill())
+                return -1;
+            return block[position++] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0)
+                return 0;
+            if (!fill())
+                return -1;
+            int n = Math.min(len, limit - position);
+            System.arraycopy(block, position, b, off, n);
+            position += n;
+            return n;
+        }
+
+        /**
+         * 当前块读完时读取并解压下一块，已到结束标记时返回 false
+         */
+        private boolean fill() throws IOException {
+            while (position == limit) {
+                if (eof)
+                    return false;
+                int length = in.readInt();
+                if (length == 0) {
+                    eof = true;
+                    return false;
+                }
+                int stored = in.readInt();
+                int checksum = in.readInt();
+                // 先校验长度再分配，损坏的头部不会导致巨大的分配
+                if (length < 0 || length > MAX_BLOCK_SIZE || stored < 0 || stored > length)
+                    throw new ZipException("压缩块头部错误");
+                byte[] data = in.readNBytes(stored);
+                if (data.length != stored)
+                    throw new EOFException("压缩块不完整");
+
+                if (block.length < length)
+                    block = new byte[length];
+                if (stored == length) {
+                    System.arraycopy(data, 0, block, 0, length);
+                } else {
+                    try {
+                        decompress(data, length);
+                    } catch (DataFormatException e) {
+                        throw new ZipException("压缩块损坏：" + e.getMessage());
+                    }
+                }
+                CRC32C crc = new CRC32C();
+                crc.update(block, 0, length);
+                if ((int) crc.getValue() != checksum)
+                    throw new ZipException("压缩块校验失败");
+                position = 0;
+                limit = length;
+            }
+            return true;
+        }
+
+        private void decompress(byte[] data, int length) throws DataFormatException {
+            if (algorithm == Algorithm.LZ4) {
+                Lz4Block.decompress(data, 0, data.length, block, 0, length);
+                return;
+            }
+            Inflater inflater = INFLATER.get();
+            inflater.reset();
+            inflater.setInput(data);
+            int n = 0;
+            while (n < length && !inflater.finished()) {
+                int r = inflater.inflate(block, n, length - n);
+                if (r == 0 && (inflater.needsInput() || inflater.needsDictionary()))
+                    break;
+                n += r;
+            }
+            if (n != length)
+                throw new DataFormatException("解压长度不一致");
+        }
+
+        /**
+         * 跳过被包装的编解码器没有读取的剩余数据，直到结束标记
+         */
+        void drain() throws IOException {
+            while (fill())
+                position = limit;
+        }
+    }
+
+}
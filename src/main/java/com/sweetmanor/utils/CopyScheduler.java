@@ -0,0 +1,490 @@
+package com.sweetmanor.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 文件拷贝调度器：拷贝任务按优先级排队，由固定个数的工作线程执行，所有拷贝共享一个全局的限速令牌桶（每秒字节数）。 <br />
+ * 速率可以随时修改并立即生效，例如夜间不限速、白天高峰期降低速率，避免批量拷贝占满磁盘带宽影响同一主机上的其他服务。 <br />
+ * 每个文件先按块拷贝到目标目录下的临时文件，完成后原子重命名为目标文件，取消或失败时不会留下不完整的文件。
+ * 通过 getMetrics 可以随时获取队列长度、吞吐量和预计剩余时间，每个任务也可以单独查询进度和预计完成时间。
+ *
+ * @author ijlhjj
+ * @version 1.0 2025-02-03
+ */
+public class CopyScheduler implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(CopyScheduler.class);
+
+    /**
+     * 不限速时每次 transferTo 的字节数
+     */
+    private static final long UNLIMITED_CHUNK = 8L << 20;
+    /**
+     * 限速时每块的字节数范围：约为每秒速率的 1/10，使等待的粒度与令牌桶的突发时长一致
+     */
+    private static final long MIN_CHUNK = 4L << 10;
+    private static final long MAX_CHUNK = 1L << 20;
+    /**
+     * 吞吐量的最短统计间隔（纳秒）
+     */
+    private static final long SAMPLE_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final AtomicLong COUNTER = new AtomicLong();
+
+    /**
+     * 优先级高的先执行，优先级相同时先提交的先执行
+     */
+    private final PriorityBlockingQueue<Job> queue = new PriorityBlockingQueue<>(16,
+            Comparator.comparingInt((Job job) -> job.priority).reversed().thenComparingLong(job -> job.sequence));
+    private final Set<Job> running = ConcurrentHashMap.newKeySet();
+    private final TokenBucket bucket = new TokenBucket(0);
+    private final Thread[] workers;
+    private final AtomicLong sequence = new AtomicLong();
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final AtomicReference<Sample> sample = new AtomicReference<>(new Sample(System.nanoTime(), 0, 0));
+    private volatile boolean closed;
+
+    /**
+     * 构造调度器并启动工作线程，默认不限速
+     *
+     * @param concurrency 同时拷贝的文件数，必须大于 0
+     * @throws IllegalArgumentException concurrency 小于 1
+     */
+    public CopyScheduler(int concurrency) {
+        if (concurrency < 1)
+            throw new IllegalArgumentException("Concurrency must be positive: " + concurrency);
+        workers = new Thread[concurrency];
+        long id = COUNTER.incrementAndGet();
+        for (int i = 0; i < concurrency; i++) {
+            workers[i] = new Thread(this::work, "copy-scheduler-" + id + "-" + i);
+            workers[i].setDaemon(true);
+            workers[i].start();
+        }
+    }
+
+    /**
+     * 设置全局速率，所有正在执行和排队的拷贝共享该速率。可在任意时刻调用，立即生效
+     *
+     * @param bytesPerSecond 每秒字节数，0 表示不限速
+     * @return 当前对象
+     * @throws IllegalArgumentException bytesPerSecond 小于 0
+     */
+    public CopyScheduler rate(long bytesPerSecond) {
+        bucket.setRate(bytesPerSecond);
+        return this;
+    }
+
+    /**
+     * 获取当前的全局速率
+     *
+     * @return 每秒字节数，0 表示不限速
+     */
+    public long getRate() {
+        return bucket.getRate();
+    }
+
+    /**
+     * 以默认优先级 0 提交拷贝任务
+     *
+     * @param source 源文件
+     * @param target 目标文件，为已存在的目录时拷贝到该目录下
+     * @return 拷贝任务
+     * @throws IOException 如果源文件不存在或不是普通文件
+     */
+    public Job submit(Path source, Path target) throws IOException {
+        return submit(source, target, 0);
+    }
+
+    /**
+     * 提交拷贝任务，目标已存在时覆盖，父目录不存在时创建
+     *
+     * @param source   源文件
+     * @param target   目标文件，为已存在的目录时拷贝到该目录下
+     * @param priority 优先级，数值越大越先执行
+     * @return 拷贝任务
+     * @throws IOException           如果源文件不存在或不是普通文件
+     * @throws IllegalStateException 如果调度器已关闭
+     */
+    public Job submit(Path source, Path target, int priority) throws IOException {
+        if (closed)
+            throw new IllegalStateException("Scheduler closed");
+        if (!Files.isRegularFile(source))
+            throw new IOException("源文件不存在或不是普通文件：" + source);
+        Path dest = Files.isDirectory(target) ? target.resolve(source.getFileName()) : target;
+        Job job = new Job(source, dest, priority, sequence.incrementAndGet(), Files.size(source));
+        queue.add(job);
+        return job;
+    }
+
+    /**
+     * 获取调度器当前的运行指标
+     *
+     * @return 指标快照
+     */
+    public Metrics getMetrics() {
+        long pending = 0;
+        int queued = 0;
+        for (Job job : queue) {
+            if (job.source == null)
+                continue;
+            pending += job.size;
+            queued++;
+        }
+        for (Job job : running)
+            pending += Math.max(0, job.size - job.copied.get());
+        return new Metrics(queued, running.size(), completed.sum(), failed.sum(), bytes.sum(), throughput(), pending);
+    }
+
+    /**
+     * 计算吞吐量：距上次采样超过 1 秒时重新采样，返回最近一个采样区间的平均速率
+     */
+    private double throughput() {
+        Sample last = sample.get();
+        long now = System.nanoTime();
+        if (now - last.nanos < SAMPLE_NANOS)
+            return last.rate;
+        long total = bytes.sum();
+        Sample next = new Sample(now, total, (total - last.bytes) * 1e9 / (now - last.nanos));
+        // 并发采样时只有一个成功，失败的一方使用成功者的结果
+        return sample.compareAndSet(last, next) ? next.rate : sample.get().rate;
+    }
+
+    /**
+     * 停止接受新任务，等待已提交的任务全部执行完成后结束工作线程。需要放弃排队的任务时先逐个取消
+     */
+    @Override
+    public void close() {
+        if (closed)
+            return;
+        closed = true;
+        // 优先级最低的结束标记排在所有任务之后，每个工作线程取到一个后退出
+        for (int i = 0; i < workers.length; i++)
+            queue.add(new Job(null, null, Integer.MIN_VALUE, Long.MAX_VALUE, 0));
+        for (Thread worker : workers) {
+            try {
+                worker.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * 工作线程：依次取出优先级最高的任务执行
+     */
+    private void work() {
+        while (true) {
+            Job job;
+            try {
+                job = queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (job.source == null)
+                return;
+            if (job.future.isDone())
+                continue; // 排队期间已被取消
+
+            running.add(job);
+            job.startNanos = System.nanoTime();
+            try {
+                copy(job);
+                completed.increment();
+                job.future.complete(job.copied.get());
+            } catch (CancellationException e) {
+                logger.debug("拷贝已取消：{}", job.source);
+            } catch (IOException | RuntimeException e) {
+                failed.increment();
+                job.future.completeExceptionally(e);
+            } finally {
+                running.remove(job);
+            }
+        }
+    }
+
+    /**
+     * 按块拷贝到临时文件，每块拷贝前从令牌桶申请相应的字节数，完成后原子重命名
+     */
+    private void copy(Job job) throws IOException {
+        Path parent = job.target.toAbsolutePath().getParent();
+        if (parent != null)
+            Files.createDirectories(parent);
+        Path temp = job.target.resolveSibling("." + job.target.getFileName() + ".tmp-" + Long.toHexString(ThreadLocalRandom.current().nextLong()));
+        try {
+            try (FileChannel in = FileChannel.open(job.source, StandardOpenOption.READ);
+                 FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                long size = in.size();
+                long position = 0;
+                while (position < size) {
+                    if (job.future.isCancelled())
+                        throw new CancellationException();
+                    long rate = bucket.getRate();
+                    long chunk = Math.min(size - position, rate <= 0 ? UNLIMITED_CHUNK : Math.max(MIN_CHUNK, Math.min(MAX_CHUNK, rate / 10)));
+                    bucket.acquire(chunk);
+                    long n = in.transferTo(position, chunk, out);
+                    if (n <= 0)
+                        break; // 文件在拷贝过程中被截断
+                    position += n;
+                    job.copied.addAndGet(n);
+                    bytes.add(n);
+                }
+            }
+            Files.setLastModifiedTime(temp, Files.getLastModifiedTime(job.source));
+            Files.move(temp, job.target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (InterruptedIOException e) {
+            Files.deleteIfExists(temp);
+            Thread.currentThread().interrupt();
+            throw e;
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
+
+    /**
+     * 拷贝任务：可以查询进度、预计完成时间，或者取消
+     */
+    public final class Job {
+        private final Path source;
+        private final Path target;
+        private final int priority;
+        private final long sequence;
+        private final long size;
+        private final AtomicLong copied = new AtomicLong();
+        private final CompletableFuture<Long> future = new CompletableFuture<>();
+        private volatile long startNanos;
+
+        private Job(Path source, Path target, int priority, long sequence, long size) {
+            this.source = source;
+            this.target = target;
+            this.priority = priority;
+            this.sequence = sequence;
+            this.size = size;
+        }
+
+        /**
+         * 获取源文件
+         *
+         * @return 源文件
+         */
+        public Path getSource() {
+            return source;
+        }
+
+        /**
+         * 获取目标文件
+         *
+         * @return 目标文件
+         */
+        public Path getTarget() {
+            return target;
+        }
+
+        /**
+         * 获取优先级
+         *
+         * @return 优先级
+         */
+        public int getPriority() {
+            return priority;
+        }
+
+        /**
+         * 获取提交时源文件的大小
+         *
+         * @return 字节数
+         */
+        public long getSize() {
+            return size;
+        }
+
+        /**
+         * 获取已拷贝的字节数
+         *
+         * @return 字节数
+         */
+        public long getCopied() {
+            return copied.get();
+        }
+
+        /**
+         * 估算剩余时间：按该任务开始以来的平均速率计算
+         *
+         * @return 毫秒数，已完成时为 0，尚未开始或还没有拷贝任何数据时为 -1
+         */
+        public long getEtaMillis() {
+            if (future.isDone())
+                return 0;
+            long start = startNanos;
+            long done = copied.get();
+            if (start == 0 || done == 0)
+                return -1;
+            double rate = done * 1e9 / Math.max(1, System.nanoTime() - start);
+            return (long) (Math.max(0, size - done) * 1000 / rate);
+        }
+
+        /**
+         * 获取任务的完成结果：拷贝的字节数，失败时异常完成（IOException），取消时为已取消状态
+         *
+         * @return 拷贝结果
+         */
+        public CompletableFuture<Long> getFuture() {
+            return future;
+        }
+
+        /**
+         * 取消任务：排队中的任务从队列中移除，正在执行的任务在当前块完成后停止并删除临时文件
+         *
+         * @return 取消成功返回 true，任务已完成时返回 false
+         */
+        public boolean cancel() {
+            boolean cancelled = future.cancel(false);
+            if (cancelled)
+                queue.remove(this);
+            return cancelled;
+        }
+
+        @Override
+        public String toString() {
+            return "Job [source=" + source + ", priority=" + priority + ", copied=" + copied.get() + "/" + size + "]";
+        }
+    }
+
+    /**
+     * 调度器的运行指标快照
+     */
+    public static final class Metrics {
+        private final int queued;
+        private final int running;
+        private final long completed;
+        private final long failed;
+        private final long bytes;
+        private final double bytesPerSecond;
+        private final long pendingBytes;
+
+        private Metrics(int queued, int running, long completed, long failed, long bytes, double bytesPerSecond, long pendingBytes) {
+            this.queued = queued;
+            this.running = running;
+            this.completed = completed;
+            this.failed = failed;
+            this.bytes = bytes;
+            this.bytesPerSecond = bytesPerSecond;
+            this.pendingBytes = pendingBytes;
+        }
+
+        /**
+         * 获取排队中的任务数
+         *
+         * @return 任务数
+         */
+        public int getQueued() {
+            return queued;
+        }
+
+        /**
+         * 获取正在执行的任务数
+         *
+         * @return 任务数
+         */
+        public int getRunning() {
+            return running;
+        }
+
+        /**
+         * 获取已成功完成的任务数
+         *
+         * @return 任务数
+         */
+        public long getCompleted() {
+            return completed;
+        }
+
+        /**
+         * 获取失败的任务数
+         *
+         * @return 任务数
+         */
+        public long getFailed() {
+            return failed;
+        }
+
+        /**
+         * 获取累计拷贝的字节数
+         *
+         * @return 字节数
+         */
+        public long getBytes() {
+            return bytes;
+        }
+
+        /**
+         * 获取最近的吞吐量（最近一个不短于 1 秒的采样区间的平均值）
+         *
+         * @return 每秒字节数
+         */
+        public double getBytesPerSecond() {
+            return bytesPerSecond;
+        }
+
+        /**
+         * 获取排队和正在执行的任务尚未拷贝的字节数
+         *
+         * @return 字节数
+         */
+        public long getPendingBytes() {
+            return pendingBytes;
+        }
+
+        /**
+         * 按最近的吞吐量估算全部任务的剩余时间
+         *
+         * @return 毫秒数，没有待拷贝的数据时为 0，吞吐量未知时为 -1
+         */
+        public long getEtaMillis() {
+            if (pendingBytes == 0)
+                return 0;
+            return bytesPerSecond <= 0 ? -1 : (long) (pendingBytes * 1000 / bytesPerSecond);
+        }
+
+        @Override
+        public String toString() {
+            long eta = getEtaMillis();
+            return "Metrics [queued=" + queued + ", running=" + running + ", completed=" + completed + ", failed=" + failed
+                    + ", bytes=" + bytes + ", rate=" + (long) bytesPerSecond + "B/s, pending=" + pendingBytes
+                    + ", eta=" + (eta < 0 ? "unknown" : DurationFormatter.ENGLISH.format(eta)) + "]";
+        }
+    }
+
+    /**
+     * 吞吐量采样点
+     */
+    private static final class Sample {
+        final long nanos;
+        final long bytes;
+        final double rate;
+
+        Sample(long nanos, long bytes, double rate) {
+            this.nanos = nanos;
+            this.bytes = bytes;
+            this.rate = rate;
+        }
+    }
+
+}
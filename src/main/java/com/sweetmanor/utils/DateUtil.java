@@ -3,9 +3,10 @@ package com.sweetmanor.utils;
 import org.apache.commons.lang3.time.DateFormatUtils;
 import org.apache.commons.lang3.time.DateUtils;
 
+import java.time.ZoneId;
 import java.util.Calendar;
 import java.util.Date;
-import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
 
 /**
  * 日期时间工具类：部分方法直接调用 commons-lang3 包的方法实现。 <br />
@@ -21,6 +22,13 @@ public final class DateUtil {
      */
     public static final String DEFAULT_FORMAT = "yyyy-MM-dd HH:mm:ss";
 
+    /**
+     * 批量计算时数组长度达到该值使用并行计算
+     */
+    public static final int PARALLEL_THRESHOLD = 1 << 20;
+
+    private static final long DAY_MILLIS = 86_400_000L;
+
     private DateUtil() {
     }
 
@@ -235,67 +243,222 @@ public final class DateUtil {
     }
 
     /**
-     * 将毫秒转换为中文表示的时间字符串，月按 30 天计算
+     * 将毫秒转换为中文表示的时间字符串，月按 30 天计算。
+     * 需要英文单位、限制输出精度或追加到已有缓冲区时，直接使用 DurationFormatter。
      *
      * @param millis 要转换的毫秒数
      * @return 转换后的中文时间字符串
      * @throws IllegalArgumentException 如果输入的毫秒值无效
+     * @see DurationFormatter
      */
     public static String convertMillisToString(long millis) {
-        // 如果毫秒数小于 0，则抛出 IllegalArgumentException 异常
-        if (millis < 0) {
-            throw new IllegalArgumentException("Milliseconds must be non-negative");
-        }
+        // 使用中文单位表的 DurationFormatter 进行格式化
+        return DurationFormatter.CHINESE.format(millis);
+    }
 
-        // 计算年数
-        long years = TimeUnit.MILLISECONDS.toDays(millis) / 365;
-        // 计算月数
-        long months = TimeUnit.MILLISECONDS.toDays(millis) % 365 / 30;
-        // 计算天数
-        long days = TimeUnit.MILLISECONDS.toDays(millis) % 365 % 30;
-        // 计算小时数
-        long hours = TimeUnit.MILLISECONDS.toHours(millis) % 24;
-        // 计算分钟数
-        long minutes = TimeUnit.MILLISECONDS.toMinutes(millis) % 60;
-        // 计算秒数
-        long seconds = TimeUnit.MILLISECONDS.toSeconds(millis) % 60;
-        // 计算毫秒数
-        long milliseconds = millis % 1000;
-
-        // 创建一个 StringBuilder 对象来存储结果字符串
-        StringBuilder result = new StringBuilder();
-
-        // 如果年数大于 0，则将年数添加到结果字符串中
-        if (years > 0) {
-            result.append(years).append("年 ");
-        }
-        // 如果月数大于 0，则将月数添加到结果字符串中
-        if (months > 0) {
-            result.append(months).append("月 ");
+    /**
+     * 对时间戳数组批量增加指定天数，与 addDays(Date, int) 的语义一致（使用系统默认时区，保持本地时间不变）。
+     * src 与 dst 可以是同一个数组
+     *
+     * @param src  原时间戳数组（毫秒）, not null
+     * @param days 增加的天数，可以为负值
+     * @param dst  结果数组，长度不能小于 src, not null
+     * @throws IllegalArgumentException dst 长度小于 src
+     */
+    public static void addDays(long[] src, int days, long[] dst) {
+        addDays(src, days, ZoneId.systemDefault(), dst);
+    }
+
+    /**
+     * 对时间戳数组批量增加指定天数，保持指定时区的本地时间不变，夏令时切换日的处理与 Calendar.add 一致。
+     * 固定偏移时区直接加上天数对应的毫秒数，夏令时时区按本地时间计算。src 与 dst 可以是同一个数组
+     *
+     * @param src  原时间戳数组（毫秒）, not null
+     * @param days 增加的天数，可以为负值
+     * @param zone 时区, not null
+     * @param dst  结果数组，长度不能小于 src, not null
+     * @throws IllegalArgumentException dst 长度小于 src
+     */
+    public static void addDays(long[] src, int days, ZoneId zone, long[] dst) {
+        long delta = days * DAY_MILLIS;
+        ZoneOffsets offsets = offsetsOf(src, dst, zone, Math.abs(delta));
+        if (offsets.isFixed()) {
+            run(src.length, (from, to) -> {
+                for (int i = from; i < to; i++)
+                    dst[i] = src[i] + delta;
+            });
+        } else {
+            // 与 GregorianCalendar.add 的规则一致：优先保持原时间的偏移，偏移变化时按新偏移调整，调整后跨日则保留调整前的结果
+            run(src.length, (from, to) -> {
+                for (int i = from; i < to; i++) {
+                    int offset = offsets.offsetAt(src[i]);
+                    long local = src[i] + offset + delta;
+                    long t = local - offset;
+                    int newOffset = offsets.offsetAt(t);
+                    if (newOffset != offset) {
+                        long adjusted = local - newOffset;
+                        if (Math.floorDiv(adjusted + offsets.offsetAt(adjusted), DAY_MILLIS) == Math.floorDiv(local, DAY_MILLIS))
+                            t = adjusted;
+                    }
+                    dst[i] = t;
+                }
+            });
         }
-        // 如果天数大于 0，则将天数添加到结果字符串中
-        if (days > 0) {
-            result.append(days).append("日 ");
+    }
+
+    /**
+     * 批量设置为指定日期的 00:00:00.000，与 setBeginTime(Date) 的语义一致。src 与 dst 可以是同一个数组
+     *
+     * @param src  原时间戳数组（毫秒）, not null
+     * @param zone 时区, not null
+     * @param dst  结果数组，长度不能小于 src, not null
+     * @throws IllegalArgumentException dst 长度小于 src
+     */
+    public static void startOfDay(long[] src, ZoneId zone, long[] dst) {
+        ZoneOffsets offsets = offsetsOf(src, dst, zone, 0);
+        if (offsets.isFixed()) {
+            int offset = offsets.offsetAt(0);
+            run(src.length, (from, to) -> {
+                for (int i = from; i < to; i++) {
+                    long local = src[i] + offset;
+                    dst[i] = local - Math.floorMod(local, DAY_MILLIS) - offset;
+                }
+            });
+        } else {
+            run(src.length, (from, to) -> {
+                for (int i = from; i < to; i++) {
+                    long local = src[i] + offsets.offsetAt(src[i]);
+                    dst[i] = offsets.localToInstant(local - Math.floorMod(local, DAY_MILLIS));
+                }
+            });
         }
-        // 如果小时数大于 0，则将小时数添加到结果字符串中
-        if (hours > 0) {
-            result.append(hours).append("时 ");
+    }
+
+    /**
+     * 批量设置为指定日期的 23:59:59，毫秒保持不变，与 setEndTime(Date) 的语义一致。src 与 dst 可以是同一个数组
+     *
+     * @param src  原时间戳数组（毫秒）, not null
+     * @param zone 时区, not null
+     * @param dst  结果数组，长度不能小于 src, not null
+     * @throws IllegalArgumentException dst 长度小于 src
+     */
+    public static void endOfDay(long[] src, ZoneId zone, long[] dst) {
+        ZoneOffsets offsets = offsetsOf(src, dst, zone, DAY_MILLIS);
+        if (offsets.isFixed()) {
+            int offset = offsets.offsetAt(0);
+            run(src.length, (from, to) -> {
+                for (int i = from; i < to; i++)
+                    dst[i] = endOfDayLocal(src[i] + offset) - offset;
+            });
+        } else {
+            run(src.length, (from, to) -> {
+                for (int i = from; i < to; i++)
+                    dst[i] = offsets.localToInstant(endOfDayLocal(src[i] + offsets.offsetAt(src[i])));
+            });
         }
-        // 如果分钟数大于 0，则将分钟数添加到结果字符串中
-        if (minutes > 0) {
-            result.append(minutes).append("分 ");
+    }
+
+    /**
+     * 批量设置为所在月份最后一天的 23:59:59，毫秒保持不变，
+     * 相当于 setEndTime(getLastDayOfMonth(date))。src 与 dst 可以是同一个数组
+     *
+     * @param src  原时间戳数组（毫秒）, not null
+     * @param zone 时区, not null
+     * @param dst  结果数组，长度不能小于 src, not null
+     * @throws IllegalArgumentException dst 长度小于 src
+     */
+    public static void endOfMonth(long[] src, ZoneId zone, long[] dst) {
+        ZoneOffsets offsets = offsetsOf(src, dst, zone, 32 * DAY_MILLIS);
+        if (offsets.isFixed()) {
+            int offset = offsets.offsetAt(0);
+            run(src.length, (from, to) -> {
+                for (int i = from; i < to; i++)
+                    dst[i] = endOfMonthLocal(src[i] + offset) - offset;
+            });
+        } else {
+            run(src.length, (from, to) -> {
+                for (int i = from; i < to; i++)
+                    dst[i] = offsets.localToInstant(endOfMonthLocal(src[i] + offsets.offsetAt(src[i])));
+            });
         }
-        // 如果秒数大于 0，则将秒数添加到结果字符串中
-        if (seconds > 0) {
-            result.append(seconds).append("秒 ");
+    }
+
+    /**
+     * 本地时间所在日期的 23:59:59，毫秒保持不变
+     */
+    private static long endOfDayLocal(long local) {
+        return local - Math.floorMod(local, DAY_MILLIS) + DAY_MILLIS - 1000 + Math.floorMod(local, 1000L);
+    }
+
+    /**
+     * 本地时间所在月份最后一天的 23:59:59，毫秒保持不变。
+     * 纪元日到年月日的换算采用 Howard Hinnant 的 civil_from_days 算法，只有整数运算
+     */
+    private static long endOfMonthLocal(long local) {
+        long epochDay = Math.floorDiv(local, DAY_MILLIS);
+        // 以 3 月 1 日为一年的开始，闰日位于年末
+        long z = epochDay + 719468;
+        long era = Math.floorDiv(z, 146097);
+        long doe = z - era * 146097;
+        long yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+        long doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+        long mp = (5 * doy + 2) / 153;
+        long dayOfMonth = doy - (153 * mp + 2) / 5 + 1;
+        long month = mp < 10 ? mp + 3 : mp - 9;
+        long year = yoe + era * 400 + (month <= 2 ? 1 : 0);
+
+        // 当月天数：2 月按闰年判断，其他月份 1、3、5、7、8、10、12 为 31 天
+        long length;
+        if (month == 2)
+            length = (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) ? 29 : 28;
+        else
+            length = 30 + ((month + (month >> 3)) & 1);
+
+        long lastDay = epochDay - dayOfMonth + length;
+        return lastDay * DAY_MILLIS + DAY_MILLIS - 1000 + Math.floorMod(local, 1000L);
+    }
+
+    /**
+     * 检查数组长度并构造覆盖数组时间范围的时区偏移表，固定偏移时区不需要遍历数组
+     *
+     * @param padding 计算结果可能超出原时间范围的最大毫秒数
+     */
+    private static ZoneOffsets offsetsOf(long[] src, long[] dst, ZoneId zone, long padding) {
+        if (dst.length < src.length)
+            throw new IllegalArgumentException("dst length must not be less than src length");
+        if (zone.getRules().isFixedOffset() || src.length == 0)
+            return ZoneOffsets.of(zone, 0, 0);
+
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (long t : src) {
+            min = Math.min(min, t);
+            max = Math.max(max, t);
         }
-        // 如果毫秒数大于 0，则将毫秒数添加到结果字符串中
-        if (milliseconds > 0) {
-            result.append(milliseconds).append("毫秒");
+        // 额外留出两天，覆盖本地时间换算时的偏移
+        return ZoneOffsets.of(zone, min - padding - 2 * DAY_MILLIS, max + padding + 2 * DAY_MILLIS);
+    }
+
+    /**
+     * 执行批量计算，数组较大时按分片并行执行
+     */
+    private static void run(int length, RangeKernel kernel) {
+        if (length < PARALLEL_THRESHOLD) {
+            kernel.apply(0, length);
+            return;
         }
+        int chunkSize = 1 << 16;
+        int chunks = (length + chunkSize - 1) / chunkSize;
+        IntStream.range(0, chunks).parallel()
+                .forEach(c -> kernel.apply(c * chunkSize, Math.min(length, (c + 1) * chunkSize)));
+    }
 
-        // 返回最终的结果字符串
-        return result.toString();
+    /**
+     * 对 [from, to) 范围内的元素执行计算
+     */
+    @FunctionalInterface
+    private interface RangeKernel {
+        void apply(int from, int to);
     }
 
 }
@@ -0,0 +1,65 @@
+package com.sweetmanor.utils;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 直接缓冲区池：直接缓冲区的分配和回收代价较高，异步 I/O 的每次请求从池中借用固定大小的缓冲区，完成后归还。 <br />
+ * 池中最多保留 maxPooled 个空闲缓冲区，超出的缓冲区归还时直接丢弃，由垃圾回收释放。
+ *
+ * @author ijlhjj
+ * @version 1.0 2025-01-30
+ */
+final class DirectBufferPool {
+    private final int bufferSize;
+    private final int maxPooled;
+    private final ConcurrentLinkedQueue<ByteBuffer> free = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pooled = new AtomicInteger();
+
+    /**
+     * 构造缓冲区池
+     *
+     * @param bufferSize 缓冲区大小（字节）
+     * @param maxPooled  最多保留的空闲缓冲区个数
+     */
+    DirectBufferPool(int bufferSize, int maxPooled) {
+        this.bufferSize = bufferSize;
+        this.maxPooled = maxPooled;
+    }
+
+    /**
+     * 缓冲区大小
+     *
+     * @return 字节数
+     */
+    int bufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * 借用一个已清空的缓冲区，池为空时分配新的缓冲区
+     *
+     * @return 直接缓冲区
+     */
+    ByteBuffer acquire() {
+        ByteBuffer buffer = free.poll();
+        if (buffer == null)
+            return ByteBuffer.allocateDirect(bufferSize);
+        pooled.decrementAndGet();
+        return buffer.clear();
+    }
+
+    /**
+     * 归还缓冲区，归还后调用方不能再使用该缓冲区
+     *
+     * @param buffer 借用的缓冲区
+     */
+    void release(ByteBuffer buffer) {
+        if (pooled.incrementAndGet() <= maxPooled)
+            free.offer(buffer);
+        else
+            pooled.decrementAndGet();
+    }
+
+}
@@ -0,0 +1,601 @@
+package com.sweetmanor.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * 目录索引：对目录树进行一次并行扫描，在内存中保存每个文件和目录的大小、修改时间和类型，
+ * 之后通过 WatchService 监听文件系统事件增量更新，统计和查询直接由内存中的索引回答，不再访问磁盘。 <br />
+ * 事件队列溢出（OVERFLOW）时重新扫描整个目录树；设置持久化文件后，关闭时保存索引，
+ * 下次启动时先加载保存的索引供查询，再在后台重新扫描以同步期间的变化。 <br />
+ * 索引按相对路径（以“/”分隔）有序保存，子目录的查询只访问该子目录范围内的项。
+ * 与 FileUtil.stat 一致地跟随符号链接：通过不同路径到达的同一个目录分别索引，指向祖先目录的链接被跳过。
+ * 所有事件在单独的守护线程中处理，查询方法可在任意线程中调用。
+ *
+ * @author ijlhjj
+ * @version 1.0 2025-01-22
+ */
+public class DirectoryIndex implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(DirectoryIndex.class);
+
+    /**
+     * 持久化文件的魔数
+     */
+    private static final int MAGIC = 0x44494458;
+    private static final AtomicLong COUNTER = new AtomicLong();
+
+    private final Path root;
+    private Path persistFile;
+
+    /**
+     * 相对路径 → 文件属性，扫描时整体替换
+     */
+    private volatile ConcurrentSkipListMap<String, Entry> entries = new ConcurrentSkipListMap<>();
+    /**
+     * 监听键 → 所监听目录的相对路径；通过符号链接从多个路径到达的同一个目录共用一个监听键
+     */
+    private final Map<WatchKey, Set<String>> keys = new ConcurrentHashMap<>();
+    /**
+     * 整个索引的文件数、目录数和字节数，只由事件线程修改
+     */
+    private final AtomicLong files = new AtomicLong();
+    private final AtomicLong dirs = new AtomicLong();
+    private final AtomicLong bytes = new AtomicLong();
+    private final AtomicLong scans = new AtomicLong();
+
+    private WatchService watcher;
+    private Thread thread;
+    private volatile boolean closed;
+
+    /**
+     * 构造目录索引，调用 start 后开始扫描和监听
+     *
+     * @param root 索引的根目录
+     */
+    public DirectoryIndex(Path root) {
+        this.root = root.toAbsolutePath().normalize();
+    }
+
+    /**
+     * 设置持久化文件：启动时从该文件加载索引，关闭时保存索引
+     *
+     * @param file 持久化文件，null 表示不持久化
+     * @return 当前对象
+     */
+    public DirectoryIndex persistTo(Path file) {
+        this.persistFile = file;
+        return this;
+    }
+
+    /**
+     * 启动索引：加载持久化的索引或扫描目录树，然后开始监听文件系统事件
+     *
+     * @return 当前对象
+     * @throws IOException 如果根目录不存在或无法创建 WatchService
+     */
+    public DirectoryIndex start() throws IOException {
+        if (!Files.isDirectory(root))
+            throw new IOException("目录不存在：" + root);
+        if (thread != null)
+            throw new IllegalStateException("Index already started");
+
+        watcher = root.getFileSystem().newWatchService();
+        // 加载成功时先提供旧索引，注册监听和同步变化交给事件线程完成
+        boolean loaded = persistFile != null && load();
+        if (!loaded)
+            scan();
+
+        thread = new Thread(() -> processEvents(loaded), "directory-index-" + COUNTER.incrementAndGet());
+        thread.setDaemon(true);
+        thread.start();
+        return this;
+    }
+
+    /**
+     * 获取索引的根目录
+     *
+     * @return 根目录
+     */
+    public Path getRoot() {
+        return root;
+    }
+
+    /**
+     * 获取已完成的完整扫描次数，包括启动时的扫描和溢出后的重新扫描
+     *
+     * @return 扫描次数
+     */
+    public long getScanCount() {
+        return scans.get();
+    }
+
+    /**
+     * 统计整个目录树，结果与 FileUtil.stat 一致
+     *
+     * @return 统计结果
+     */
+    public FileUtil.DirStats stat() {
+        return new FileUtil.DirStats(files.get(), dirs.get(), bytes.get());
+    }
+
+    /**
+     * 统计子目录
+     *
+     * @param dir 相对于根目录的子目录路径，以“/”分隔，空字符串表示根目录
+     * @return 统计结果，子目录不在索引中时返回全 0 的结果
+     */
+    public FileUtil.DirStats stat(String dir) {
+        if (dir.isEmpty())
+            return stat();
+
+        long f = 0, d = 0, b = 0;
+        for (Entry entry : subtree(entries, dir).values()) {
+            if (entry.dir) {
+                d++;
+            } else {
+                f++;
+                b += entry.size;
+            }
+        }
+        return new FileUtil.DirStats(f, d, b);
+    }
+
+    /**
+     * 获取文件个数
+     *
+     * @return 文件个数
+     */
+    public long countFiles() {
+        return files.get();
+    }
+
+    /**
+     * 获取目录个数，不包括根目录
+     *
+     * @return 目录个数
+     */
+    public long countDirs() {
+        return dirs.get();
+    }
+
+    /**
+     * 查找满足条件的文件，返回的流直接遍历内存中的索引
+     *
+     * @param query 查询条件, not null
+     * @return 文件路径流，按相对路径排序
+     */
+    public Stream<Path> streamFiles(FileQuery query) {
+        boolean recursive = query.isRecursive();
+        return entries.entrySet().stream()
+                .filter(e -> !e.getValue().dir && (recursive || e.getKey().indexOf('/') < 0))
+                .map(e -> new AbstractMap.SimpleImmutableEntry<>(root.resolve(e.getKey()), e.getValue()))
+                .filter(e -> query.matches(root, e.getKey(), e.getValue()))
+                .map(AbstractMap.SimpleImmutableEntry::getKey);
+    }
+
+    /**
+     * 查找满足条件的文件
+     *
+     * @param query 查询条件, not null
+     * @return 文件路径列表，按相对路径排序
+     */
+    public List<Path> getFiles(FileQuery query) {
+        return streamFiles(query).collect(Collectors.toList());
+    }
+
+    /**
+     * 将索引保存到持久化文件，先写临时文件再原子重命名
+     *
+     * @throws IOException           如果写入失败
+     * @throws IllegalStateException 未设置持久化文件
+     */
+    public void save() throws IOException {
+        if (persistFile == null)
+            throw new IllegalStateException("Persist file not set");
+
+        Map<String, Entry> snapshot = entries;
+        Path temp = persistFile.resolveSibling(persistFile.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeUTF(root.toString());
+            for (Map.Entry<String, Entry> e : snapshot.entrySet()) {
+                out.writeBoolean(true);
+                out.writeUTF(e.getKey());
+                out.writeBoolean(e.getValue().dir);
+                out.writeLong(e.getValue().size);
+                out.writeLong(e.getValue().modified);
+            }
+            out.writeBoolean(false);
+        }
+        Files.move(temp, persistFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * 停止监听，设置了持久化文件时保存索引
+     *
+     * @throws IOException 如果保存失败
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed)
+            return;
+        closed = true;
+        if (watcher != null)
+            watcher.close();
+        if (thread != null) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (persistFile != null && thread != null)
+            save();
+    }
+
+    /**
+     * 从持久化文件加载索引，文件不存在、格式错误或根目录不一致时返回 false
+     */
+    private boolean load() {
+        if (!Files.isRegularFile(persistFile))
+            return false;
+
+        ConcurrentSkipListMap<String, Entry> loaded = new ConcurrentSkipListMap<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(persistFile)))) {
+            if (in.readInt() != MAGIC || !root.toString().equals(in.readUTF()))
+                return false;
+            while (in.readBoolean()) {
+                String rel = in.readUTF();
+                loaded.put(rel, new Entry(in.readBoolean(), in.readLong(), in.readLong()));
+            }
+        } catch (IOException e) {
+            logger.warn("索引文件无效，将重新扫描：{}", persistFile, e);
+            return false;
+        }
+        replace(loaded);
+        return true;
+    }
+
+    /**
+     * 完整扫描目录树：取消原有的监听，并行扫描到新的索引后整体替换
+     */
+    private void scan() {
+        for (WatchKey key : keys.keySet())
+            key.cancel();
+        keys.clear();
+
+        ConcurrentSkipListMap<String, Entry> scanned = new ConcurrentSkipListMap<>();
+        ForkJoinPool.commonPool().invoke(new ScanTask(root, "", scanned, null));
+        replace(scanned);
+        scans.incrementAndGet();
+        logger.debug("目录扫描完成：{} {}", root, stat());
+    }
+
+    /**
+     * 替换整个索引并重新计算合计值
+     */
+    private void replace(ConcurrentSkipListMap<String, Entry> map) {
+        long f = 0, d = 0, b = 0;
+        for (Entry entry : map.values()) {
+            if (entry.dir) {
+                d++;
+            } else {
+                f++;
+                b += entry.size;
+            }
+        }
+        entries = map;
+        files.set(f);
+        dirs.set(d);
+        bytes.set(b);
+    }
+
+    /**
+     * 事件处理循环，WatchService 关闭时退出
+     */
+    private void processEvents(boolean rescan) {
+        try {
+            if (rescan)
+                scan();
+            while (!closed) {
+                WatchKey key = watcher.take();
+                Set<String> dirs = keys.getOrDefault(key, Collections.emptySet());
+                boolean overflow = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == OVERFLOW) {
+                        overflow = true;
+                    } else {
+                        for (String dir : dirs) {
+                            String rel = dir.isEmpty() ? event.context().toString() : dir + "/" + event.context();
+                            if (event.kind() == ENTRY_DELETE)
+                                remove(rel);
+                            else
+                                update(rel);
+                        }
+                    }
+                }
+                // 目录已被删除或不再可访问
+                if (!key.reset())
+                    keys.remove(key);
+                if (overflow) {
+                    logger.info("文件系统事件溢出，重新扫描：{}", root);
+                    scan();
+                }
+            }
+        } catch (ClosedWatchServiceException e) {
+            // 索引已关闭
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            logger.error("目录索引事件处理失败：{}", root, e);
+        }
+    }
+
+    /**
+     * 处理新建或修改事件：读取最新属性，新出现的目录扫描其子树并注册监听
+     */
+    private void update(String rel) {
+        Path path = root.resolve(rel);
+        BasicFileAttributes attrs;
+        try {
+            attrs = Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (IOException e) {
+            // 事件到达前文件已被删除
+            remove(rel);
+            return;
+        }
+
+        Entry old = entries.get(rel);
+        if (attrs.isDirectory()) {
+            FileUtil.Ancestor ancestors = ancestors(rel);
+            // 指向祖先目录的链接，与扫描时一样不索引
+            if (ancestors.contains(attrs.fileKey())) {
+                remove(rel);
+                return;
+            }
+            if (old != null && old.dir) {
+                entries.put(rel, new Entry(true, 0, attrs.lastModifiedTime().toMillis()));
+                return;
+            }
+            remove(rel);
+            // 先注册监听再扫描，扫描期间新建的文件由扫描或后续事件补充
+            ConcurrentSkipListMap<String, Entry> scanned = new ConcurrentSkipListMap<>();
+            scanned.put(rel, new Entry(true, 0, attrs.lastModifiedTime().toMillis()));
+            new ScanTask(path, rel, scanned, ancestors).invoke();
+            for (Map.Entry<String, Entry> e : scanned.entrySet())
+                put(e.getKey(), e.getValue());
+        } else {
+            if (old != null && old.dir)
+                remove(rel);
+            put(rel, new Entry(false, attrs.size(), attrs.lastModifiedTime().toMillis()));
+        }
+    }
+
+    /**
+     * 从根目录到 rel 的父目录的祖先目录链
+     */
+    private FileUtil.Ancestor ancestors(String rel) {
+        FileUtil.Ancestor chain = new FileUtil.Ancestor(fileKey(root), null);
+        Path dir = root;
+        int start = 0;
+        for (int end; (end = rel.indexOf('/', start)) >= 0; start = end + 1) {
+            dir = dir.resolve(rel.substring(start, end));
+            chain = new FileUtil.Ancestor(fileKey(dir), chain);
+        }
+        return chain;
+    }
+
+    /**
+     * 读取目录的 fileKey（跟随符号链接），无法读取时返回 null
+     */
+    private static Object fileKey(Path dir) {
+        try {
+            return Files.readAttributes(dir, BasicFileAttributes.class).fileKey();
+        } catch (IOException e) {
+            logger.debug("读取目录属性失败：{}", dir, e);
+            return null;
+        }
+    }
+
+    /**
+     * 添加或替换一项并更新合计值
+     */
+    private void put(String rel, Entry entry) {
+        Entry old = entries.put(rel, entry);
+        if (old != null)
+            subtract(old);
+        if (entry.dir) {
+            dirs.incrementAndGet();
+        } else {
+            files.incrementAndGet();
+            bytes.addAndGet(entry.size);
+        }
+    }
+
+    /**
+     * 删除一项及其子树并更新合计值
+     */
+    private void remove(String rel) {
+        Entry old = entries.remove(rel);
+        if (old == null)
+            return;
+        subtract(old);
+        if (old.dir) {
+            Map<String, Entry> children = subtree(entries, rel);
+            for (Entry child : children.values())
+                subtract(child);
+            children.clear();
+        }
+    }
+
+    private void subtract(Entry entry) {
+        if (entry.dir) {
+            dirs.decrementAndGet();
+        } else {
+            files.decrementAndGet();
+            bytes.addAndGet(-entry.size);
+        }
+    }
+
+    /**
+     * 子目录范围内的所有项：相对路径以“dir/”开头，'0' 是 '/' 的下一个字符
+     */
+    private static ConcurrentNavigableMap<String, Entry> subtree(ConcurrentSkipListMap<String, Entry> map, String dir) {
+        return map.subMap(dir + "/", dir + "0");
+    }
+
+    /**
+     * 并行扫描任务：注册目录监听，索引目录的直接子项，每个子目录分发为新的任务
+     */
+    private final class ScanTask extends RecursiveAction {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final Path dir;
+        private final String rel;
+        private final Map<String, Entry> target;
+        /**
+         * 祖先目录链，用于检测符号链接形成的循环（同 FileUtil.stat）
+         */
+        private final FileUtil.Ancestor ancestors;
+
+        ScanTask(Path dir, String rel, Map<String, Entry> target, FileUtil.Ancestor ancestors) {
+            this.dir = dir;
+            this.rel = rel;
+            this.target = target;
+            this.ancestors = ancestors;
+        }
+
+        @Override
+        protected void compute() {
+            FileUtil.Ancestor self = new FileUtil.Ancestor(fileKey(dir), ancestors);
+            try {
+                WatchKey key = dir.register(watcher, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
+                keys.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(rel);
+            } catch (ClosedWatchServiceException e) {
+                return;
+            } catch (IOException e) {
+                logger.debug("无法监听目录：{}", dir, e);
+            }
+
+            List<ScanTask> subtasks = new ArrayList<>();
+            try (DirectoryStream<Path> children = Files.newDirectoryStream(dir)) {
+                for (Path child : children) {
+                    BasicFileAttributes attrs = readAttributes(child);
+                    if (attrs == null)
+                        continue;
+                    String childRel = rel.isEmpty() ? child.getFileName().toString() : rel + "/" + child.getFileName();
+                    if (attrs.isDirectory()) {
+                        // 跳过指向祖先目录的链接，不记录该项
+                        if (self.contains(attrs.fileKey()))
+                            continue;
+                        target.put(childRel, new Entry(true, 0, attrs.lastModifiedTime().toMillis()));
+                        ScanTask task = new ScanTask(child, childRel, target, self);
+                        task.fork();
+                        subtasks.add(task);
+                    } else {
+                        target.put(childRel, new Entry(false, attrs.size(), attrs.lastModifiedTime().toMillis()));
+                    }
+                }
+            } catch (IOException e) {
+                logger.debug("跳过无法访问的目录：{}", dir, e);
+            }
+
+            for (ScanTask task : subtasks)
+                task.join();
+        }
+    }
+
+    /**
+     * 读取文件属性：跟随符号链接，链接失效时返回链接本身的属性，无法访问时返回 null
+     */
+    private static BasicFileAttributes readAttributes(Path path) {
+        try {
+            return Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (IOException e) {
+            try {
+                return Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+            } catch (IOException e2) {
+                logger.debug("跳过无法访问的文件：{}", path, e2);
+                return null;
+            }
+        }
+    }
+
+    /**
+     * 索引项：实现 BasicFileAttributes 以便直接使用 FileQuery 过滤
+     */
+    private static final class Entry implements BasicFileAttributes {
+        private final boolean dir;
+        private final long size;
+        private final long modified;
+
+        Entry(boolean dir, long size, long modified) {
+            this.dir = dir;
+            this.size = size;
+            this.modified = modified;
+        }
+
+        @Override
+        public FileTime lastModifiedTime() {
+            return FileTime.fromMillis(modified);
+        }
+
+        @Override
+        public FileTime lastAccessTime() {
+            return lastModifiedTime();
+        }
+
+        @Override
+        public FileTime creationTime() {
+            return lastModifiedTime();
+        }
+
+        @Override
+        public boolean isRegularFile() {
+            return !dir;
+        }
+
+        @Override
+        public boolean isDirectory() {
+            return dir;
+        }
+
+        @Override
+        public boolean isSymbolicLink() {
+            return false;
+        }
+
+        @Override
+        public boolean isOther() {
+            return false;
+        }
+
+        @Override
+        public long size() {
+            return size;
+        }
+
+        @Override
+        public Object fileKey() {
+            return null;
+        }
+    }
+
+}
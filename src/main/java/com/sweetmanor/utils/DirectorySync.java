@@ -0,0 +1,384 @@
+package com.sweetmanor.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.CRC32C;
+
+/**
+ * 目录增量同步：将源目录同步到目标目录，只拷贝发生变化的文件。 <br />
+ * 文件大小和最后修改时间都相同时认为未变化；开启内容校验后，大小相同而修改时间不同的文件再比较 CRC32C 校验值，
+ * 内容相同时只更新修改时间。 <br />
+ * 变化的文件使用 FileCopier 的零拷贝方式写入临时文件，完成后原子重命名为目标文件，同步中断不会留下不完整的文件。 <br />
+ * 同步完成后在目标目录下写入状态文件（{@value #STATE_FILE}），记录每个文件同步时的大小、修改时间和校验值，
+ * 下次同步时直接与状态文件比较，不再读取目标目录中每个文件的属性。状态文件依赖于目标目录只由同步程序修改这一前提。 <br />
+ * 与 FileCopier 一致，源目录中的符号链接会被跟随：链接到的文件按其目标的大小和修改时间比较，拷贝为普通文件；
+ * 链接到的目录按普通目录同步；形成循环的链接被跳过并记录警告。
+ *
+ * @author ijlhjj
+ * @version 1.0 2025-01-20
+ */
+public class DirectorySync {
+    private static final Logger logger = LoggerFactory.getLogger(DirectorySync.class);
+    private static final AtomicLong COUNTER = new AtomicLong();
+
+    /**
+     * 目标目录下的状态文件名
+     */
+    public static final String STATE_FILE = ".sync-state";
+
+    /**
+     * 未计算校验值时的占位值
+     */
+    private static final long NO_HASH = -1;
+
+    private boolean deleteExtraneous;
+    private boolean verifyContent;
+    private int concurrency = Math.max(4, Runtime.getRuntime().availableProcessors());
+    private FileCopier.Listener listener;
+
+    /**
+     * 设置是否删除目标目录中源目录不存在的文件和目录，默认为 false
+     *
+     * @param deleteExtraneous 是否删除多余的文件
+     * @return 当前对象
+     */
+    public DirectorySync deleteExtraneous(boolean deleteExtraneous) {
+        this.deleteExtraneous = deleteExtraneous;
+        return this;
+    }
+
+    /**
+     * 设置是否对大小相同、修改时间不同的文件比较内容校验值，默认为 false
+     *
+     * @param verifyContent 是否校验内容
+     * @return 当前对象
+     */
+    public DirectorySync verifyContent(boolean verifyContent) {
+        this.verifyContent = verifyContent;
+        return this;
+    }
+
+    /**
+     * 设置同时拷贝的文件数，默认为 CPU 核数（至少为 4）
+     *
+     * @param concurrency 并发数，必须大于 0
+     * @return 当前对象
+     * @throws IllegalArgumentException concurrency 小于 1
+     */
+    public DirectorySync concurrency(int concurrency) {
+        if (concurrency < 1)
+            throw new IllegalArgumentException("Concurrency must be positive: " + concurrency);
+        this.concurrency = concurrency;
+        return this;
+    }
+
+    /**
+     * 设置拷贝进度监听器，只报告实际拷贝的文件。监听器会在拷贝线程中被调用，实现必须是线程安全的
+     *
+     * @param listener 进度监听器，null 表示不监听
+     * @return 当前对象
+     */
+    public DirectorySync listener(FileCopier.Listener listener) {
+        this.listener = listener;
+        return this;
+    }
+
+    /**
+     * 将源目录同步到目标目录，目标目录不存在时创建
+     *
+     * @param source 源目录
+     * @param target 目标目录
+     * @return 同步结果
+     * @throws IOException 如果发生 I/O 错误，或者源不是目录、目标是源的子目录
+     */
+    public Result sync(Path source, Path target) throws IOException {
+        if (!Files.isDirectory(source))
+            throw new IOException("源目录不存在：" + source);
+        if (target.toAbsolutePath().normalize().startsWith(source.toAbsolutePath().normalize()))
+            throw new IOException("不能将目录同步到自身的子目录！");
+        Files.createDirectories(target);
+
+        Path stateFile = target.resolve(STATE_FILE);
+        Map<String, Entry> oldState = readState(stateFile);
+        Map<String, Entry> newState = new ConcurrentHashMap<>();
+        Set<String> sourceDirs = new HashSet<>();
+        Result result = new Result();
+
+        FileCopier copier = new FileCopier().listener(listener);
+        FileCopier.Progress progress = new FileCopier.Progress();
+        // 守护线程，避免同步异常退出时线程池阻止 JVM 退出
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency, r -> {
+            Thread t = new Thread(r, "directory-sync-" + COUNTER.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        Semaphore permits = new Semaphore(concurrency * 2);
+        AtomicReference<IOException> failure = new AtomicReference<>();
+
+        try {
+            Files.walkFileTree(source, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                    String rel = relative(source, dir);
+                    sourceDirs.add(rel);
+                    Files.createDirectories(target.resolve(rel));
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    String rel = relative(source, file);
+                    Entry previous = oldState != null ? oldState.get(rel) : null;
+                    permits.acquireUninterruptibly();
+                    executor.execute(() -> {
+                        try {
+                            newState.put(rel, syncFile(copier, progress, file, attrs, target.resolve(rel), previous, result));
+                        } catch (IOException e) {
+                            failure.compareAndSet(null, e);
+                        } catch (RuntimeException e) {
+                            failure.compareAndSet(null, new IOException("同步文件失败：" + file, e));
+                        } finally {
+                            permits.release();
+                        }
+                    });
+                    return failure.get() == null ? FileVisitResult.CONTINUE : FileVisitResult.TERMINATE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException e) throws IOException {
+                    if (e instanceof FileSystemLoopException) {
+                        logger.warn("跳过符号链接循环：{}", file);
+                        return FileVisitResult.SKIP_SUBTREE;
+                    }
+                    throw e;
+                }
+            });
+        } finally {
+            executor.shutdown();
+            try {
+                while (!executor.awaitTermination(1, TimeUnit.MINUTES))
+                    logger.debug("等待同步任务完成：{}", progress);
+            } catch (InterruptedException e) {
+                executor.shutdownNow();
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("同步被中断");
+            }
+        }
+
+        if (failure.get() != null)
+            throw failure.get();
+
+        if (deleteExtraneous)
+            deleteExtraneous(target, newState.keySet(), sourceDirs, result);
+
+        writeState(stateFile, newState);
+        result.bytes = progress.getBytes();
+        return result;
+    }
+
+    /**
+     * 同步单个文件，返回同步后的状态
+     */
+    private Entry syncFile(FileCopier copier, FileCopier.Progress progress, Path file, BasicFileAttributes attrs,
+                           Path dest, Entry previous, Result result) throws IOException {
+        long size = attrs.size();
+        long modified = attrs.lastModifiedTime().toMillis();
+
+        // 没有状态记录时读取目标文件的属性
+        if (previous == null && Files.isRegularFile(dest)) {
+            BasicFileAttributes destAttrs = Files.readAttributes(dest, BasicFileAttributes.class);
+            previous = new Entry(destAttrs.size(), destAttrs.lastModifiedTime().toMillis(), NO_HASH);
+        }
+
+        if (previous != null && previous.size == size) {
+            if (previous.modified == modified) {
+                result.skipped.incrementAndGet();
+                return previous;
+            }
+            // 修改时间不同时比较内容
+            if (verifyContent) {
+                long hash = crc32c(file);
+                long destHash = previous.hash != NO_HASH ? previous.hash : crc32c(dest);
+                if (hash == destHash) {
+                    Files.setLastModifiedTime(dest, FileTime.fromMillis(modified));
+                    result.skipped.incrementAndGet();
+                    return new Entry(size, modified, hash);
+                }
+            }
+        }
+
+        copier.copyFileAtomically(file, dest, progress);
+        result.copied.incrementAndGet();
+        return new Entry(size, modified, verifyContent ? crc32c(dest) : NO_HASH);
+    }
+
+    /**
+     * 删除目标目录中源目录不存在的文件和目录，状态文件除外
+     */
+    private void deleteExtraneous(Path target, Set<String> sourceFiles, Set<String> sourceDirs, Result result)
+            throws IOException {
+        Files.walkFileTree(target, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                String rel = relative(target, file);
+                if (!rel.equals(STATE_FILE) && !sourceFiles.contains(rel)) {
+                    Files.delete(file);
+                    result.deleted.incrementAndGet();
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException e) throws IOException {
+                if (e != null)
+                    throw e;
+                if (!sourceDirs.contains(relative(target, dir))) {
+                    Files.delete(dir);
+                    result.deleted.incrementAndGet();
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /**
+     * 计算相对路径，统一使用“/”作为分隔符
+     */
+    private static String relative(Path root, Path path) {
+        return root.relativize(path).toString().replace('\\', '/');
+    }
+
+    /**
+     * 计算文件内容的 CRC32C 校验值，使用 1MB 的直接缓冲区顺序读取
+     */
+    static long crc32c(Path file) throws IOException {
+        CRC32C crc = new CRC32C();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (channel.read(buffer) > 0) {
+                buffer.flip();
+                crc.update(buffer);
+                buffer.clear();
+            }
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * 读取状态文件，文件不存在或格式错误时返回 null。格式为每行一个文件：大小、修改时间、校验值、相对路径，以制表符分隔
+     */
+    private static Map<String, Entry> readState(Path stateFile) {
+        if (!Files.isRegularFile(stateFile))
+            return null;
+
+        Map<String, Entry> state = new HashMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(stateFile, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split("\t", 4);
+                state.put(parts[3], new Entry(Long.parseLong(parts[0]), Long.parseLong(parts[1]), Long.parseLong(parts[2])));
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.warn("状态文件无效，将重新比较目标文件：{}", stateFile, e);
+            return null;
+        }
+        return state;
+    }
+
+    /**
+     * 写入状态文件：先写临时文件再原子重命名
+     */
+    private static void writeState(Path stateFile, Map<String, Entry> state) throws IOException {
+        Path temp = stateFile.resolveSibling(STATE_FILE + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            for (Map.Entry<String, Entry> e : state.entrySet()) {
+                Entry entry = e.getValue();
+                writer.write(entry.size + "\t" + entry.modified + "\t" + entry.hash + "\t" + e.getKey());
+                writer.newLine();
+            }
+        }
+        Files.move(temp, stateFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * 文件同步状态
+     */
+    private static final class Entry {
+        private final long size;
+        private final long modified;
+        private final long hash;
+
+        Entry(long size, long modified, long hash) {
+            this.size = size;
+            this.modified = modified;
+            this.hash = hash;
+        }
+    }
+
+    /**
+     * 同步结果
+     */
+    public static final class Result {
+        private final AtomicLong copied = new AtomicLong();
+        private final AtomicLong skipped = new AtomicLong();
+        private final AtomicLong deleted = new AtomicLong();
+        private long bytes;
+
+        /**
+         * 获取拷贝的文件数
+         *
+         * @return 文件数
+         */
+        public long getCopied() {
+            return copied.get();
+        }
+
+        /**
+         * 获取未变化而跳过的文件数
+         *
+         * @return 文件数
+         */
+        public long getSkipped() {
+            return skipped.get();
+        }
+
+        /**
+         * 获取删除的文件和目录数
+         *
+         * @return 文件和目录数
+         */
+        public long getDeleted() {
+            return deleted.get();
+        }
+
+        /**
+         * 获取拷贝的字节数
+         *
+         * @return 字节数
+         */
+        public long getBytes() {
+            return bytes;
+        }
+
+        @Override
+        public String toString() {
+            return "Result [copied=" + copied + ", skipped=" + skipped + ", deleted=" + deleted + ", bytes=" + bytes + "]";
+        }
+    }
+
+}
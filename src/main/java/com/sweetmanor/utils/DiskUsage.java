@@ -0,0 +1,413 @@
+package com.sweetmanor.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.Serial;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * 磁盘占用统计（du）：一次并行遍历得到每个目录的文件数、目录数和字节数汇总树，
+ * 同时使用有界堆保留最大的 N 个目录和 N 个文件。 <br />
+ * 汇总树只保留到 maxDepth 层，更深的目录只计入其所在的第 maxDepth 层目录，内存占用与保留的节点数有关。 <br />
+ * 同一个文件的多个硬链接只统计一次；默认不跟随符号链接（链接本身按文件统计），
+ * 跟随时每个物理目录只统计一次，可以避免链接形成的循环。字节数为文件的实际大小，不是占用的磁盘块大小。
+ *
+ * @author ijlhjj
+ * @version 1.0 2025-01-28
+ */
+public class DiskUsage {
+    private static final Logger logger = LoggerFactory.getLogger(DiskUsage.class);
+
+    /**
+     * 文件类型掩码及类型值（st_mode）
+     */
+    private static final int S_IFMT = 0170000;
+    private static final int S_IFDIR = 0040000;
+    private static final int S_IFREG = 0100000;
+    private static final int S_IFLNK = 0120000;
+
+    private int maxDepth = Integer.MAX_VALUE;
+    private int topN = 10;
+    private boolean followLinks;
+
+    /**
+     * 设置汇总树保留的最大深度，根目录深度为 0，默认不限制
+     *
+     * @param maxDepth 最大深度，不能为负数
+     * @return 当前对象
+     * @throws IllegalArgumentException maxDepth 为负数
+     */
+    public DiskUsage maxDepth(int maxDepth) {
+        if (maxDepth < 0)
+            throw new IllegalArgumentException("Max depth must be non-negative: " + maxDepth);
+        this.maxDepth = maxDepth;
+        return this;
+    }
+
+    /**
+     * 设置保留的最大目录和最大文件的个数，默认为 10
+     *
+     * @param n 个数，不能为负数
+     * @return 当前对象
+     * @throws IllegalArgumentException n 为负数
+     */
+    public DiskUsage topN(int n) {
+        if (n < 0)
+            throw new IllegalArgumentException("Top N must be non-negative: " + n);
+        this.topN = n;
+        return this;
+    }
+
+    /**
+     * 设置是否跟随符号链接，默认为 false
+     *
+     * @param followLinks 是否跟随符号链接
+     * @return 当前对象
+     */
+    public DiskUsage followLinks(boolean followLinks) {
+        this.followLinks = followLinks;
+        return this;
+    }
+
+    /**
+     * 统计目录的磁盘占用，在 ForkJoin 公共线程池中并行遍历，无法访问的文件或目录将被忽略
+     *
+     * @param dir 要统计的目录
+     * @return 统计结果
+     * @throws IOException 如果 dir 不是目录
+     */
+    public Result scan(Path dir) throws IOException {
+        if (!Files.isDirectory(dir))
+            throw new IOException("目录不存在：" + dir);
+
+        boolean unix = dir.getFileSystem().supportedFileAttributeViews().contains("unix");
+        Context context = new Context(unix, followLinks ? new LinkOption[0] : new LinkOption[]{LinkOption.NOFOLLOW_LINKS});
+        Object rootKey = Files.readAttributes(dir, "basic:fileKey").get("fileKey");
+        if (rootKey != null)
+            context.dirKeys.add(rootKey);
+
+        ScanResult scanned = ForkJoinPool.commonPool().invoke(new ScanTask(context, dir, 0));
+        return new Result(scanned.node, sorted(scanned.dirs, Comparator.comparingLong(Node::getBytes)),
+                sorted(scanned.files, Comparator.comparingLong(FileSize::getBytes)));
+    }
+
+    /**
+     * 将有界堆转换为从大到小排列的列表
+     */
+    private static <T> List<T> sorted(PriorityQueue<T> heap, Comparator<T> comparator) {
+        List<T> list = new ArrayList<>(heap);
+        list.sort(comparator.reversed());
+        return Collections.unmodifiableList(list);
+    }
+
+    /**
+     * 加入有界堆，超过 topN 时移除最小的元素
+     */
+    private <T> void offer(PriorityQueue<T> heap, T item) {
+        if (topN == 0)
+            return;
+        heap.offer(item);
+        if (heap.size() > topN)
+            heap.poll();
+    }
+
+    /**
+     * 一次遍历共享的状态
+     */
+    private static final class Context {
+        private final boolean unix;
+        private final LinkOption[] options;
+        /**
+         * 已统计的硬链接文件和（跟随链接时）已统计的目录，按 fileKey 去重
+         */
+        private final Set<Object> fileKeys = ConcurrentHashMap.newKeySet();
+        private final Set<Object> dirKeys = ConcurrentHashMap.newKeySet();
+
+        Context(boolean unix, LinkOption[] options) {
+            this.unix = unix;
+            this.options = options;
+        }
+    }
+
+    /**
+     * 一个目录子树的统计结果：汇总节点和子树内的有界堆
+     */
+    private static final class ScanResult {
+        private final Node node;
+        private final PriorityQueue<Node> dirs = new PriorityQueue<>(Comparator.comparingLong(Node::getBytes));
+        private final PriorityQueue<FileSize> files = new PriorityQueue<>(Comparator.comparingLong(FileSize::getBytes));
+
+        ScanResult(Node node) {
+            this.node = node;
+        }
+    }
+
+    /**
+     * 并行统计任务：统计一个目录的直接子项，每个子目录分发为新的任务
+     */
+    private final class ScanTask extends RecursiveTask<ScanResult> {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final Context context;
+        private final Path dir;
+        private final int depth;
+
+        ScanTask(Context context, Path dir, int depth) {
+            this.context = context;
+            this.dir = dir;
+            this.depth = depth;
+        }
+
+        @Override
+        protected ScanResult compute() {
+            ScanResult result = new ScanResult(new Node(dir, depth < maxDepth ? new ArrayList<>() : null));
+            Node node = result.node;
+            List<ScanTask> subtasks = new ArrayList<>();
+
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+                for (Path entry : entries) {
+                    Attributes attrs = read(entry);
+                    if (attrs == null)
+                        continue;
+
+                    if (attrs.dir) {
+                        // 跟随链接时同一个目录只统计一次
+                        if (followLinks && attrs.key != null && !context.dirKeys.add(attrs.key))
+                            continue;
+                        ScanTask task = new ScanTask(context, entry, depth + 1);
+                        task.fork();
+                        subtasks.add(task);
+                    } else {
+                        // 多个硬链接只统计第一个
+                        if (attrs.links > 1 && attrs.key != null && !context.fileKeys.add(attrs.key))
+                            continue;
+                        node.files++;
+                        node.bytes += attrs.size;
+                        offer(result.files, new FileSize(entry, attrs.size));
+                    }
+                }
+            } catch (IOException e) {
+                logger.debug("跳过无法访问的目录：{}", dir, e);
+            }
+
+            for (ScanTask task : subtasks) {
+                ScanResult child = task.join();
+                node.dirs += child.node.dirs + 1;
+                node.files += child.node.files;
+                node.bytes += child.node.bytes;
+                if (node.children != null)
+                    node.children.add(child.node);
+                offer(result.dirs, child.node);
+                for (Node n : child.dirs)
+                    offer(result.dirs, n);
+                for (FileSize f : child.files)
+                    offer(result.files, f);
+            }
+            if (node.children != null)
+                node.children.sort(Comparator.comparingLong(Node::getBytes).reversed());
+            return result;
+        }
+
+        /**
+         * 读取文件类型、大小、硬链接数和 fileKey，Unix 文件系统上只需要一次 stat 调用
+         */
+        private Attributes read(Path entry) {
+            try {
+                if (context.unix) {
+                    Map<String, Object> map = Files.readAttributes(entry, "unix:mode,size,nlink,fileKey", context.options);
+                    int type = (Integer) map.get("mode") & S_IFMT;
+                    return new Attributes(type == S_IFDIR, type != S_IFDIR && type != S_IFREG && type != S_IFLNK,
+                            (Long) map.get("size"), (Integer) map.get("nlink"), map.get("fileKey"));
+                }
+                Map<String, Object> map = Files.readAttributes(entry, "basic:isDirectory,size,fileKey", context.options);
+                return new Attributes((Boolean) map.get("isDirectory"), false, (Long) map.get("size"), 1, map.get("fileKey"));
+            } catch (IOException e) {
+                // 跟随链接时链接失效，按链接本身统计
+                if (followLinks && Files.isSymbolicLink(entry)) {
+                    try {
+                        return new Attributes(false, false, Files.size(entry), 1, null);
+                    } catch (IOException ignored) {
+                        // 忽略
+                    }
+                }
+                logger.debug("跳过无法访问的文件：{}", entry, e);
+                return null;
+            }
+        }
+    }
+
+    /**
+     * 统计一个目录项所需的属性
+     */
+    private static final class Attributes {
+        private final boolean dir;
+        private final long size;
+        private final int links;
+        private final Object key;
+
+        Attributes(boolean dir, boolean special, long size, int links, Object key) {
+            this.dir = dir;
+            // 设备文件、管道等特殊文件不计大小
+            this.size = special ? 0 : size;
+            this.links = links;
+            this.key = key;
+        }
+    }
+
+    /**
+     * 目录的汇总节点
+     */
+    public static final class Node {
+        private final Path path;
+        private final List<Node> children;
+        private long files;
+        private long dirs;
+        private long bytes;
+
+        Node(Path path, List<Node> children) {
+            this.path = path;
+            this.children = children;
+        }
+
+        /**
+         * 获取目录路径
+         *
+         * @return 目录路径
+         */
+        public Path getPath() {
+            return path;
+        }
+
+        /**
+         * 获取子树中的文件个数
+         *
+         * @return 文件个数
+         */
+        public long getFiles() {
+            return files;
+        }
+
+        /**
+         * 获取子树中的目录个数，不包括当前目录
+         *
+         * @return 目录个数
+         */
+        public long getDirs() {
+            return dirs;
+        }
+
+        /**
+         * 获取子树中的文件总字节数
+         *
+         * @return 字节数
+         */
+        public long getBytes() {
+            return bytes;
+        }
+
+        /**
+         * 获取子目录节点，按字节数从大到小排列；超过最大深度的节点返回空列表
+         *
+         * @return 子目录节点
+         */
+        public List<Node> getChildren() {
+            return children == null ? Collections.emptyList() : Collections.unmodifiableList(children);
+        }
+
+        @Override
+        public String toString() {
+            return "Node [path=" + path + ", files=" + files + ", dirs=" + dirs + ", bytes=" + bytes + "]";
+        }
+    }
+
+    /**
+     * 文件及其大小
+     */
+    public static final class FileSize {
+        private final Path path;
+        private final long bytes;
+
+        FileSize(Path path, long bytes) {
+            this.path = path;
+            this.bytes = bytes;
+        }
+
+        /**
+         * 获取文件路径
+         *
+         * @return 文件路径
+         */
+        public Path getPath() {
+            return path;
+        }
+
+        /**
+         * 获取文件字节数
+         *
+         * @return 字节数
+         */
+        public long getBytes() {
+            return bytes;
+        }
+
+        @Override
+        public String toString() {
+            return path + " (" + bytes + ")";
+        }
+    }
+
+    /**
+     * 统计结果
+     */
+    public static final class Result {
+        private final Node root;
+        private final List<Node> largestDirs;
+        private final List<FileSize> largestFiles;
+
+        Result(Node root, List<Node> largestDirs, List<FileSize> largestFiles) {
+            this.root = root;
+            this.largestDirs = largestDirs;
+            this.largestFiles = largestFiles;
+        }
+
+        /**
+         * 获取根目录的汇总节点
+         *
+         * @return 根节点
+         */
+        public Node getRoot() {
+            return root;
+        }
+
+        /**
+         * 获取最大的 N 个目录（不包括根目录，不受最大深度限制），按字节数从大到小排列
+         *
+         * @return 目录节点列表
+         */
+        public List<Node> getLargestDirs() {
+            return largestDirs;
+        }
+
+        /**
+         * 获取最大的 N 个文件，按字节数从大到小排列
+         *
+         * @return 文件列表
+         */
+        public List<FileSize> getLargestFiles() {
+            return largestFiles;
+        }
+
+        @Override
+        public String toString() {
+            return "Result [root=" + root + ", largestDirs=" + largestDirs.size() + ", largestFiles=" + largestFiles.size() + "]";
+        }
+    }
+
+}
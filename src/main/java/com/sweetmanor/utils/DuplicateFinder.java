@@ -0,0 +1,312 @@
+package com.sweetmanor.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * 重复文件查找：分阶段筛选，尽量减少读取的数据量。 <br />
+ * 1. 遍历目录，按文件大小分组，大小唯一的文件不可能重复； <br />
+ * 2. 大小相同的文件计算首尾各 sampleSize 字节的摘要，再次分组； <br />
+ * 3. 仍然相同的文件才计算完整内容的摘要。 <br />
+ * 摘要使用 SHA-256，在 ForkJoin 公共线程池中并行计算；大文件分段内存映射读取，小文件使用线程独享的直接缓冲区。
+ * 同一个文件的多个硬链接只计算一次，不视为重复。
+ *
+ * @author ijlhjj
+ * @version 1.0 2025-01-24
+ */
+public class DuplicateFinder {
+    private static final Logger logger = LoggerFactory.getLogger(DuplicateFinder.class);
+
+    /**
+     * 不小于该大小的文件使用内存映射读取
+     */
+    private static final long MAP_THRESHOLD = 1L << 20;
+    /**
+     * 内存映射的分段大小
+     */
+    private static final long MAP_CHUNK = 64L << 20;
+    /**
+     * 小文件读取使用的缓冲区，每个线程一个
+     */
+    private static final ThreadLocal<ByteBuffer> BUFFER = ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(1 << 16));
+
+    private long minSize = 1;
+    private int sampleSize = 4096;
+
+    /**
+     * 设置参与比较的最小文件大小，默认为 1（忽略空文件）
+     *
+     * @param bytes 字节数
+     * @return 当前对象
+     */
+    public DuplicateFinder minSize(long bytes) {
+        this.minSize = bytes;
+        return this;
+    }
+
+    /**
+     * 设置第二阶段读取的首尾字节数，默认为 4096
+     *
+     * @param bytes 字节数，必须大于 0
+     * @return 当前对象
+     * @throws IllegalArgumentException bytes 小于 1
+     */
+    public DuplicateFinder sampleSize(int bytes) {
+        if (bytes < 1)
+            throw new IllegalArgumentException("Sample size must be positive: " + bytes);
+        this.sampleSize = bytes;
+        return this;
+    }
+
+    /**
+     * 查找多个目录中的重复文件，遍历时跟随符号链接，无法访问的文件将被忽略
+     *
+     * @param dirs 要查找的目录
+     * @return 查找结果
+     * @throws IOException 如果遍历目录失败
+     */
+    public Result find(Path... dirs) throws IOException {
+        Result result = new Result();
+
+        // 第一阶段：按大小分组
+        Map<Long, List<Path>> bySize = new HashMap<>();
+        Set<Object> fileKeys = new HashSet<>();
+        for (Path dir : dirs) {
+            Files.walkFileTree(dir, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    result.files++;
+                    // 跳过已出现过的硬链接
+                    if (attrs.isRegularFile() && attrs.size() >= minSize
+                            && (attrs.fileKey() == null || fileKeys.add(attrs.fileKey())))
+                        bySize.computeIfAbsent(attrs.size(), k -> new ArrayList<>(2)).add(file);
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException e) {
+                    logger.debug("跳过无法访问的文件：{}", file, e);
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        }
+        List<Group> groups = new ArrayList<>();
+        for (Map.Entry<Long, List<Path>> e : bySize.entrySet())
+            if (e.getValue().size() > 1)
+                groups.add(new Group(e.getKey(), e.getValue()));
+
+        // 第二阶段：按首尾摘要分组，首尾覆盖整个文件时即为完整摘要
+        List<Group> duplicates = new ArrayList<>();
+        List<Group> sampled = new ArrayList<>();
+        for (Group group : regroup(groups, file -> sampleDigest(file, result))) {
+            if (group.size <= 2L * sampleSize)
+                duplicates.add(group);
+            else
+                sampled.add(group);
+        }
+
+        // 第三阶段：计算完整摘要
+        duplicates.addAll(regroup(sampled, file -> fullDigest(file, result)));
+
+        duplicates.sort(Comparator.comparingLong(Group::wastedBytes).reversed());
+        for (Group group : duplicates) {
+            result.groups.add(group.files);
+            result.duplicates += group.files.size() - 1;
+            result.wasted += group.wastedBytes();
+        }
+        return result;
+    }
+
+    /**
+     * 并行计算每个文件的摘要，将每组拆分为摘要相同的子组，只保留包含多个文件的子组
+     */
+    private static List<Group> regroup(List<Group> groups, DigestFunction function) {
+        Map<Path, ByteBuffer> digests = groups.stream().flatMap(g -> g.files.stream()).parallel()
+                .map(file -> {
+                    try {
+                        return new AbstractMap.SimpleImmutableEntry<>(file, function.apply(file));
+                    } catch (IOException e) {
+                        logger.debug("跳过无法读取的文件：{}", file, e);
+                        return null;
+                    }
+                })
+                .filter(Objects::nonNull)
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+
+        List<Group> result = new ArrayList<>();
+        for (Group group : groups) {
+            Map<ByteBuffer, List<Path>> byDigest = new LinkedHashMap<>();
+            for (Path file : group.files) {
+                ByteBuffer digest = digests.get(file);
+                if (digest != null)
+                    byDigest.computeIfAbsent(digest, k -> new ArrayList<>(2)).add(file);
+            }
+            for (List<Path> sub : byDigest.values())
+                if (sub.size() > 1)
+                    result.add(new Group(group.size, sub));
+        }
+        return result;
+    }
+
+    /**
+     * 计算首尾各 sampleSize 字节的摘要
+     */
+    private ByteBuffer sampleDigest(Path file, Result result) throws IOException {
+        MessageDigest digest = sha256();
+        ByteBuffer buffer = BUFFER.get();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size <= 2L * sampleSize) {
+                update(digest, channel, 0, size, buffer, result);
+            } else {
+                update(digest, channel, 0, sampleSize, buffer, result);
+                update(digest, channel, size - sampleSize, sampleSize, buffer, result);
+            }
+        }
+        return ByteBuffer.wrap(digest.digest());
+    }
+
+    /**
+     * 计算完整内容的摘要
+     */
+    private static ByteBuffer fullDigest(Path file, Result result) throws IOException {
+        MessageDigest digest = sha256();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < MAP_THRESHOLD) {
+                update(digest, channel, 0, size, BUFFER.get(), result);
+            } else {
+                for (long position = 0; position < size; position += MAP_CHUNK) {
+                    MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(MAP_CHUNK, size - position));
+                    result.bytesRead.addAndGet(mapped.remaining());
+                    digest.update(mapped);
+                }
+            }
+        }
+        return ByteBuffer.wrap(digest.digest());
+    }
+
+    /**
+     * 读取 [position, position + length) 范围的数据更新摘要
+     */
+    private static void update(MessageDigest digest, FileChannel channel, long position, long length,
+                               ByteBuffer buffer, Result result) throws IOException {
+        long end = position + length;
+        while (position < end) {
+            buffer.clear();
+            buffer.limit((int) Math.min(buffer.capacity(), end - position));
+            int n = channel.read(buffer, position);
+            if (n <= 0)
+                break; // 文件在读取过程中被截断
+            position += n;
+            buffer.flip();
+            digest.update(buffer);
+            result.bytesRead.addAndGet(n);
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface DigestFunction {
+        ByteBuffer apply(Path file) throws IOException;
+    }
+
+    /**
+     * 大小相同的候选文件组
+     */
+    private static final class Group {
+        private final long size;
+        private final List<Path> files;
+
+        Group(long size, List<Path> files) {
+            this.size = size;
+            this.files = files;
+        }
+
+        long wastedBytes() {
+            return size * (files.size() - 1);
+        }
+    }
+
+    /**
+     * 查找结果：重复文件组和浪费的空间
+     */
+    public static final class Result {
+        private final List<List<Path>> groups = new ArrayList<>();
+        private final AtomicLong bytesRead = new AtomicLong();
+        private long files;
+        private long duplicates;
+        private long wasted;
+
+        /**
+         * 获取重复文件组，每组内的文件内容相同，按浪费的空间从大到小排列
+         *
+         * @return 重复文件组
+         */
+        public List<List<Path>> getGroups() {
+            return groups;
+        }
+
+        /**
+         * 获取遍历的文件数
+         *
+         * @return 文件数
+         */
+        public long getFiles() {
+            return files;
+        }
+
+        /**
+         * 获取多余的文件数，即每组中除第一个文件外的文件个数之和
+         *
+         * @return 文件数
+         */
+        public long getDuplicates() {
+            return duplicates;
+        }
+
+        /**
+         * 获取多余文件占用的字节数
+         *
+         * @return 字节数
+         */
+        public long getWastedBytes() {
+            return wasted;
+        }
+
+        /**
+         * 获取计算摘要时读取的字节数
+         *
+         * @return 字节数
+         */
+        public long getBytesRead() {
+            return bytesRead.get();
+        }
+
+        @Override
+        public String toString() {
+            return "Result [groups=" + groups.size() + ", files=" + files + ", duplicates=" + duplicates
+                    + ", wasted=" + wasted + ", bytesRead=" + bytesRead + "]";
+        }
+    }
+
+}
@@ -0,0 +1,251 @@
+package com.sweetmanor.utils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * 时长格式化器：将毫秒数格式化为“1年 2月 3日 4时 5分 6秒 7毫秒”形式的字符串，并支持解析回毫秒数。 <br />
+ * 年按 365 天、月按 30 天计算，值为 0 的单位不输出。 <br />
+ * formatTo 方法直接写入调用方提供的 StringBuilder / Appendable，不创建中间对象，适合在批量任务中频繁调用。 <br />
+ * 对象不可变，可在多线程间共享。
+ *
+ * @author ijlhjj
+ * @version 1.0 2025-01-10
+ */
+public final class DurationFormatter {
+    /**
+     * 各单位对应的毫秒数，从大到小排列
+     */
+    private static final long[] UNIT_MILLIS = {
+            365L * 86_400_000L, 30L * 86_400_000L, 86_400_000L, 3_600_000L, 60_000L, 1000L, 1L};
+    /**
+     * “日”在 UNIT_MILLIS 中的下标
+     */
+    private static final int DAY = 2;
+
+    /**
+     * 中文单位表，与 DateUtil.convertMillisToString 的输出一致
+     */
+    public static final DurationFormatter CHINESE = new DurationFormatter(
+            new String[]{"年 ", "月 ", "日 ", "时 ", "分 ", "秒 ", "毫秒"}, Integer.MAX_VALUE);
+
+    /**
+     * 英文单位表
+     */
+    public static final DurationFormatter ENGLISH = new DurationFormatter(
+            new String[]{"y ", "mo ", "d ", "h ", "m ", "s ", "ms"}, Integer.MAX_VALUE);
+
+    /**
+     * 各单位输出时的后缀
+     */
+    private final String[] suffixes;
+    /**
+     * 最多输出的非零单位个数
+     */
+    private final int precision;
+    /**
+     * 解析时按长度从长到短尝试匹配的单位下标，避免“毫秒”被“秒”、“ms”被“m”提前匹配
+     */
+    private final int[] parseOrder;
+
+    private DurationFormatter(String[] suffixes, int precision) {
+        this.suffixes = suffixes;
+        this.precision = precision;
+
+        // 按去除空白后的单位长度降序排列
+        Integer[] order = new Integer[suffixes.length];
+        for (int i = 0; i < order.length; i++)
+            order[i] = i;
+        Arrays.sort(order, (a, b) -> suffixes[b].trim().length() - suffixes[a].trim().length());
+        this.parseOrder = new int[order.length];
+        for (int i = 0; i < order.length; i++)
+            parseOrder[i] = order[i];
+    }
+
+    /**
+     * 根据语言获取格式化器：中文返回 CHINESE，其他语言返回 ENGLISH
+     *
+     * @param locale 语言, not null
+     * @return 格式化器
+     */
+    public static DurationFormatter getInstance(Locale locale) {
+        return Locale.CHINESE.getLanguage().equals(locale.getLanguage()) ? CHINESE : ENGLISH;
+    }
+
+    /**
+     * 返回只输出最大的 precision 个非零单位的格式化器，较小的单位直接截断，不进行四舍五入
+     *
+     * @param precision 最多输出的非零单位个数，必须大于 0
+     * @return 新的格式化器
+     * @throws IllegalArgumentException precision 小于 1
+     */
+    public DurationFormatter withPrecision(int precision) {
+        if (precision < 1)
+            throw new IllegalArgumentException("Precision must be positive: " + precision);
+        return new DurationFormatter(suffixes, precision);
+    }
+
+    /**
+     * 格式化毫秒数
+     *
+     * @param millis 要格式化的毫秒数
+     * @return 格式化后的字符串，millis 为 0 时返回空字符串
+     * @throws IllegalArgumentException 如果输入的毫秒值为负数
+     */
+    public String format(long millis) {
+        return formatTo(millis, new StringBuilder(32)).toString();
+    }
+
+    /**
+     * 将毫秒数格式化后追加到 StringBuilder
+     *
+     * @param millis 要格式化的毫秒数
+     * @param sb     追加的目标, not null
+     * @return 传入的 StringBuilder
+     * @throws IllegalArgumentException 如果输入的毫秒值为负数
+     */
+    public StringBuilder formatTo(long millis, StringBuilder sb) {
+        try {
+            formatTo(millis, (Appendable) sb);
+        } catch (IOException e) {
+            // StringBuilder 不会抛出 IOException
+            throw new UncheckedIOException(e);
+        }
+        return sb;
+    }
+
+    /**
+     * 将毫秒数格式化后追加到 Appendable
+     *
+     * @param millis 要格式化的毫秒数
+     * @param out    追加的目标, not null
+     * @param <A>    Appendable 的具体类型
+     * @return 传入的 Appendable
+     * @throws IOException              如果写入发生错误
+     * @throws IllegalArgumentException 如果输入的毫秒值为负数
+     */
+    public <A extends Appendable> A formatTo(long millis, A out) throws IOException {
+        checkMillis(millis);
+        // 只拆分一次：年、月、日由天数得出，时、分、秒、毫秒依次从不足一天的余数中减去
+        long days = millis / UNIT_MILLIS[DAY];
+        long rest = millis - days * UNIT_MILLIS[DAY];
+        int written = 0;
+        for (int unit = 0; unit < UNIT_MILLIS.length && written < precision; unit++) {
+            long value;
+            if (unit <= DAY) {
+                value = dayValue(unit, days);
+            } else {
+                value = rest / UNIT_MILLIS[unit];
+                rest -= value * UNIT_MILLIS[unit];
+            }
+            if (value > 0) {
+                appendDigits(value, out);
+                out.append(suffixes[unit]);
+                written++;
+            }
+        }
+        return out;
+    }
+
+    /**
+     * 将格式化后的字符串解析为毫秒数，单位之间的空白可有可无，空字符串解析为 0
+     *
+     * @param text 要解析的字符串, not null
+     * @return 毫秒数
+     * @throws IllegalArgumentException 字符串格式错误或结果溢出
+     */
+    public long parse(CharSequence text) {
+        long millis = 0;
+        int pos = 0;
+        int length = text.length();
+        while (true) {
+            pos = skipWhitespace(text, pos);
+            if (pos >= length)
+                return millis;
+
+            // 读取数字
+            int start = pos;
+            long value = 0;
+            while (pos < length && text.charAt(pos) >= '0' && text.charAt(pos) <= '9') {
+                value = value * 10 + (text.charAt(pos) - '0');
+                if (value < 0)
+                    throw new IllegalArgumentException("Number too large at index " + start + ": " + text);
+                pos++;
+            }
+            if (pos == start)
+                throw new IllegalArgumentException("Expected number at index " + pos + ": " + text);
+            pos = skipWhitespace(text, pos);
+
+            // 匹配单位
+            int unit = -1;
+            for (int candidate : parseOrder) {
+                String label = suffixes[candidate].trim();
+                if (regionMatches(text, pos, label)) {
+                    unit = candidate;
+                    pos += label.length();
+                    break;
+                }
+            }
+            if (unit < 0)
+                throw new IllegalArgumentException("Expected unit at index " + pos + ": " + text);
+
+            try {
+                millis = Math.addExact(millis, Math.multiplyExact(value, UNIT_MILLIS[unit]));
+            } catch (ArithmeticException e) {
+                throw new IllegalArgumentException("Duration overflow: " + text, e);
+            }
+        }
+    }
+
+    /**
+     * 计算年、月、日单位上的值，与 DateUtil.convertMillisToString 原有的拆分方式一致
+     */
+    private static long dayValue(int unit, long days) {
+        switch (unit) {
+            case 0:
+                return days / 365;
+            case 1:
+                return days % 365 / 30;
+            default:
+                return days % 365 % 30;
+        }
+    }
+
+    private static void checkMillis(long millis) {
+        if (millis < 0)
+            throw new IllegalArgumentException("Milliseconds must be non-negative");
+    }
+
+    /**
+     * 逐位写入非负整数，避免转换为字符串；StringBuilder 直接使用其 append(long)
+     */
+    private static void appendDigits(long value, Appendable out) throws IOException {
+        if (out instanceof StringBuilder) {
+            ((StringBuilder) out).append(value);
+            return;
+        }
+        long divisor = 1;
+        while (value / divisor >= 10)
+            divisor *= 10;
+        for (; divisor > 0; divisor /= 10)
+            out.append((char) ('0' + value / divisor % 10));
+    }
+
+    private static int skipWhitespace(CharSequence text, int pos) {
+        while (pos < text.length() && Character.isWhitespace(text.charAt(pos)))
+            pos++;
+        return pos;
+    }
+
+    private static boolean regionMatches(CharSequence text, int pos, String label) {
+        if (pos + label.length() > text.length())
+            return false;
+        for (int i = 0; i < label.length(); i++)
+            if (text.charAt(pos + i) != label.charAt(i))
+                return false;
+        return true;
+    }
+
+}
@@ -0,0 +1,324 @@
+package com.sweetmanor.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 文件拷贝器：单个文件使用 FileChannel.transferTo 拷贝（Linux 下由内核 sendfile / copy_file_range 完成，不经过用户态缓冲区），
+ * 拷贝目录时多个文件在线程池中并发拷贝，适合包含大量小文件的目录。 <br />
+ * 默认保留文件的最后修改时间和 POSIX 权限，拷贝过程中通过 Listener 报告进度。 <br />
+ * 配置方法返回当前对象，配置完成后可重复使用，每次 copy 调用使用独立的线程池。
+ *
+ * @author ijlhjj
+ * @version 1.0 2025-01-18
+ */
+public class FileCopier {
+    private static final Logger logger = LoggerFactory.getLogger(FileCopier.class);
+
+    /**
+     * 单次 transferTo 的最大字节数，大文件分段拷贝以便报告进度
+     */
+    private static final long CHUNK_SIZE = 64L << 20;
+
+    private int concurrency = Math.max(4, Runtime.getRuntime().availableProcessors());
+    private boolean preserveAttributes = true;
+    private Listener listener;
+
+    /**
+     * 设置同时拷贝的文件数，默认为 CPU 核数（至少为 4）
+     *
+     * @param concurrency 并发数，必须大于 0
+     * @return 当前对象
+     * @throws IllegalArgumentException concurrency 小于 1
+     */
+    public FileCopier concurrency(int concurrency) {
+        if (concurrency < 1)
+            throw new IllegalArgumentException("Concurrency must be positive: " + concurrency);
+        this.concurrency = concurrency;
+        return this;
+    }
+
+    /**
+     * 设置是否保留文件的最后修改时间和 POSIX 权限，默认为 true
+     *
+     * @param preserveAttributes 是否保留属性
+     * @return 当前对象
+     */
+    public FileCopier preserveAttributes(boolean preserveAttributes) {
+        this.preserveAttributes = preserveAttributes;
+        return this;
+    }
+
+    /**
+     * 设置进度监听器。监听器会在拷贝线程中被调用，实现必须是线程安全的
+     *
+     * @param listener 进度监听器，null 表示不监听
+     * @return 当前对象
+     */
+    public FileCopier listener(Listener listener) {
+        this.listener = listener;
+        return this;
+    }
+
+    /**
+     * 拷贝文件或目录，目标已存在的文件将被覆盖。 <br />
+     * source 为目录时将其中的内容拷贝到 target 目录（不存在时创建），与 FileUtils.copyDirectory 的行为一致；
+     * source 为文件时，target 为已存在的目录则拷贝到该目录下，否则拷贝为 target 文件。
+     *
+     * @param source 源文件或目录
+     * @param target 目标文件或目录
+     * @return 拷贝完成时的进度
+     * @throws IOException 如果发生 I/O 错误，或者将目录拷贝到文件、拷贝到自身的子目录，或者将文件拷贝到自身
+     */
+    public Progress copy(Path source, Path target) throws IOException {
+        Progress progress = new Progress();
+        if (!Files.isDirectory(source)) {
+            Path dest = Files.isDirectory(target) ? target.resolve(source.getFileName()) : target;
+            // 打开目标文件时会将其截断，源文件和目标文件相同时必须在此之前拒绝
+            if (Files.exists(dest) && Files.isSameFile(source, dest))
+                throw new IOException("源文件和目标文件相同：" + source);
+            copyFile(source, dest, progress);
+            return progress.snapshot();
+        }
+
+        if (Files.exists(target) && !Files.isDirectory(target))
+            throw new IOException("不能将目录拷贝到文件！");
+        if (target.toAbsolutePath().normalize().startsWith(source.toAbsolutePath().normalize()))
+            throw new IOException("不能将目录拷贝到自身的子目录！");
+
+        copyDirectory(source, target, progress);
+        return progress.snapshot();
+    }
+
+    /**
+     * 遍历源目录：目录在遍历线程中创建，文件提交到线程池拷贝，使用信号量限制排队的任务数
+     */
+    private void copyDirectory(Path source, Path target, Progress progress) throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency, new CopierThreadFactory());
+        Semaphore permits = new Semaphore(concurrency * 2);
+        AtomicReference<IOException> failure = new AtomicReference<>();
+        List<Path[]> dirs = new ArrayList<>();
+
+        try {
+            Files.walkFileTree(source, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                    Path dest = target.resolve(source.relativize(dir).toString());
+                    Files.createDirectories(dest);
+                    dirs.add(new Path[]{dir, dest});
+                    return failure.get() == null ? FileVisitResult.CONTINUE : FileVisitResult.TERMINATE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                    Path dest = target.resolve(source.relativize(file).toString());
+                    permits.acquireUninterruptibly();
+                    executor.execute(() -> {
+                        try {
+                            copyFile(file, dest, progress);
+                        } catch (IOException e) {
+                            failure.compareAndSet(null, e);
+                        } catch (RuntimeException e) {
+                            failure.compareAndSet(null, new IOException("拷贝文件失败：" + file, e));
+                        } finally {
+                            permits.release();
+                        }
+                    });
+                    return failure.get() == null ? FileVisitResult.CONTINUE : FileVisitResult.TERMINATE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException e) throws IOException {
+                    // 跳过符号链接形成的循环，其他错误终止拷贝
+                    if (e instanceof FileSystemLoopException) {
+                        logger.warn("跳过符号链接循环：{}", file);
+                        return FileVisitResult.SKIP_SUBTREE;
+                    }
+                    throw e;
+                }
+            });
+        } finally {
+            // 等待已提交的拷贝任务全部完成
+            executor.shutdown();
+            try {
+                while (!executor.awaitTermination(1, TimeUnit.MINUTES))
+                    logger.debug("等待拷贝任务完成：{}", progress);
+            } catch (InterruptedException e) {
+                executor.shutdownNow();
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("拷贝被中断");
+            }
+        }
+
+        if (failure.get() != null)
+            throw failure.get();
+
+        // 文件拷贝完成后再设置目录属性，避免写入文件时修改时间被更新
+        if (preserveAttributes)
+            for (Path[] dir : dirs)
+                copyAttributes(dir[0], dir[1]);
+    }
+
+    /**
+     * 使用 transferTo 拷贝单个文件
+     */
+    void copyFile(Path source, Path target, Progress progress) throws IOException {
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                     StandardOpenOption.TRUNCATE_EXISTING)) {
+            long size = in.size();
+            long position = 0;
+            while (position < size) {
+                long n = in.transferTo(position, Math.min(CHUNK_SIZE, size - position), out);
+                if (n <= 0)
+                    break; // 文件在拷贝过程中被截断
+                position += n;
+                progress.bytes.addAndGet(n);
+                if (listener != null && position < size)
+                    listener.onProgress(progress.snapshot());
+            }
+        }
+
+        if (preserveAttributes)
+            copyAttributes(source, target);
+        progress.files.incrementAndGet();
+        if (listener != null)
+            listener.onProgress(progress.snapshot());
+    }
+
+    /**
+     * 先拷贝到目标目录下的临时文件，完成后原子重命名为目标文件，拷贝中断时不会留下不完整的目标文件
+     */
+    void copyFileAtomically(Path source, Path target, Progress progress) throws IOException {
+        Path temp = target.resolveSibling("." + target.getFileName() + ".tmp-" + Long.toHexString(ThreadLocalRandom.current().nextLong()));
+        try {
+            copyFile(source, temp, progress);
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
+
+    /**
+     * 拷贝最后修改时间和 POSIX 权限，不支持 POSIX 的文件系统只拷贝修改时间
+     */
+    private static void copyAttributes(Path source, Path target) throws IOException {
+        BasicFileAttributes attrs = Files.readAttributes(source, BasicFileAttributes.class);
+        PosixFileAttributeView sourceView = Files.getFileAttributeView(source, PosixFileAttributeView.class);
+        PosixFileAttributeView targetView = Files.getFileAttributeView(target, PosixFileAttributeView.class);
+        if (sourceView != null && targetView != null)
+            targetView.setPermissions(sourceView.readAttributes().permissions());
+        Files.setLastModifiedTime(target, FileTime.fromMillis(attrs.lastModifiedTime().toMillis()));
+    }
+
+    /**
+     * 拷贝进度监听器
+     */
+    @FunctionalInterface
+    public interface Listener {
+        /**
+         * 每拷贝完成一个文件，以及大文件每拷贝完成一段时调用
+         *
+         * @param progress 当前进度的快照
+         */
+        void onProgress(Progress progress);
+    }
+
+    /**
+     * 拷贝进度：已拷贝的文件数、字节数和平均速率
+     */
+    public static final class Progress {
+        private final AtomicLong files = new AtomicLong();
+        private final AtomicLong bytes = new AtomicLong();
+        private final long startNanos;
+        private final long elapsedNanos;
+
+        Progress() {
+            this.startNanos = System.nanoTime();
+            this.elapsedNanos = -1;
+        }
+
+        private Progress(long files, long bytes, long startNanos, long elapsedNanos) {
+            this.files.set(files);
+            this.bytes.set(bytes);
+            this.startNanos = startNanos;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        Progress snapshot() {
+            return new Progress(files.get(), bytes.get(), startNanos, System.nanoTime() - startNanos);
+        }
+
+        /**
+         * 获取已拷贝完成的文件数
+         *
+         * @return 文件数
+         */
+        public long getFiles() {
+            return files.get();
+        }
+
+        /**
+         * 获取已拷贝的字节数
+         *
+         * @return 字节数
+         */
+        public long getBytes() {
+            return bytes.get();
+        }
+
+        /**
+         * 获取已用时间（毫秒）
+         *
+         * @return 毫秒数
+         */
+        public long getElapsedMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(Math.max(0, elapsedNanos));
+        }
+
+        /**
+         * 获取平均拷贝速率
+         *
+         * @return 每秒字节数
+         */
+        public double getBytesPerSecond() {
+            return elapsedNanos <= 0 ? 0 : bytes.get() * 1e9 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return "Progress [files=" + getFiles() + ", bytes=" + getBytes() + ", elapsed="
+                    + DurationFormatter.ENGLISH.format(getElapsedMillis()) + ", rate=" + (long) getBytesPerSecond() + "B/s]";
+        }
+    }
+
+    /**
+     * 拷贝线程工厂：守护线程，避免未关闭的线程池阻止 JVM 退出
+     */
+    private static final class CopierThreadFactory implements ThreadFactory {
+        private static final AtomicLong COUNTER = new AtomicLong();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "file-copier-" + COUNTER.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }
+    }
+
+}
@@ -0,0 +1,295 @@
+package com.sweetmanor.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.UnaryOperator;
+
+/**
+ * 对象文件读取缓存：反复读取同一个对象文件时，只在文件发生变化后才重新反序列化。 <br />
+ * 以文件的规范路径为键，每次读取时比较文件的大小、最后修改时间和文件标识（inode，原子替换写入时会改变），
+ * 一致时直接返回缓存的对象，只需要一次读取属性的系统调用。 <br />
+ * 按文件大小计算权重，总权重超过上限时淘汰最久未使用的对象（LRU）；
+ * 缓存的对象会被多个调用方共享，可变对象应设置复制函数，每次返回一个防御性副本。
+ *
+ * @author ijlhjj
+ * @version 1.0 2025-02-08
+ */
+public class FileObjectCache {
+    private static final Logger logger = LoggerFactory.getLogger(FileObjectCache.class);
+
+    /**
+     * 访问顺序的 LinkedHashMap，最久未使用的在最前面
+     */
+    private final LinkedHashMap<Path, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private long weight;
+
+    private volatile long maxWeight = 64L << 20;
+    private volatile ObjectCodec<?> codec;
+    private volatile UnaryOperator<Object> copier;
+
+    /**
+     * 设置总权重上限（缓存对象的文件字节数之和），默认 64MB。超过上限的单个文件不缓存
+     *
+     * @param maxWeight 字节数，必须大于 0
+     * @return 当前对象
+     * @throws IllegalArgumentException maxWeight 小于 1
+     */
+    public FileObjectCache maxWeight(long maxWeight) {
+        if (maxWeight < 1)
+            throw new IllegalArgumentException("Max weight must be positive: " + maxWeight);
+        this.maxWeight = maxWeight;
+        synchronized (entries) {
+            evict();
+        }
+        return this;
+    }
+
+    /**
+     * 设置读取文件使用的编解码器，默认为 ObjectAccessUtil 的默认编解码器。修改后清空缓存
+     *
+     * @param codec 编解码器，null 表示使用默认编解码器
+     * @return 当前对象
+     */
+    public FileObjectCache codec(ObjectCodec<?> codec) {
+        this.codec = codec;
+        clear();
+        return this;
+    }
+
+    /**
+     * 设置复制函数：命中和加载时都返回复制后的对象，缓存中的对象不会被调用方修改
+     *
+     * @param copier 复制函数，null 表示直接返回缓存的对象
+     * @return 当前对象
+     */
+    public FileObjectCache copier(UnaryOperator<Object> copier) {
+        this.copier = copier;
+        return this;
+    }
+
+    /**
+     * 读取文件中的对象，文件未变化时返回缓存的对象
+     *
+     * @param file 对象文件
+     * @return 读取到的对象（设置了复制函数时为副本）
+     * @throws IOException 如果文件不存在或者读取失败
+     */
+    public Object get(Path file) throws IOException {
+        Path key = file.toRealPath();
+        BasicFileAttributes attrs = Files.readAttributes(key, BasicFileAttributes.class);
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+        }
+        if (entry != null && entry.matches(attrs)) {
+            hits.increment();
+            return copy(entry.value);
+        }
+
+        misses.increment();
+        ObjectCodec<?> current = codec == null ? ObjectAccessUtil.getDefaultCodec() : codec;
+        Object value;
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(key))) {
+            value = current.read(in);
+        }
+        // 读取期间文件被修改时不缓存，下次读取重新加载
+        BasicFileAttributes after = Files.readAttributes(key, BasicFileAttributes.class);
+        Entry loaded = new Entry(value, attrs);
+        if (loaded.matches(after) && attrs.size() <= maxWeight)
+            put(key, loaded);
+        else
+            invalidate(key);
+        return copy(value);
+    }
+
+    private Object copy(Object value) {
+        UnaryOperator<Object> current = copier;
+        return current == null || value == null ? value : current.apply(value);
+    }
+
+    private void put(Path key, Entry entry) {
+        synchronized (entries) {
+            Entry old = entries.put(key, entry);
+            if (old != null)
+                weight -= old.weight;
+            weight += entry.weight;
+            evict();
+        }
+    }
+
+    /**
+     * 淘汰最久未使用的对象直到总权重不超过上限，调用方持有锁
+     */
+    private void evict() {
+        Iterator<Entry> it = entries.values().iterator();
+        while (weight > maxWeight && it.hasNext()) {
+            weight -= it.next().weight;
+            it.remove();
+            evictions.increment();
+        }
+    }
+
+    /**
+     * 使文件的缓存失效
+     *
+     * @param file 对象文件
+     */
+    public void invalidate(Path file) {
+        Path key;
+        try {
+            key = file.toRealPath();
+        } catch (NoSuchFileException e) {
+            // 文件已删除，按绝对路径查找
+            key = file.toAbsolutePath().normalize();
+        } catch (IOException e) {
+            logger.debug("解析路径失败：{}", file, e);
+            return;
+        }
+        synchronized (entries) {
+            Entry old = entries.remove(key);
+            if (old != null)
+                weight -= old.weight;
+        }
+    }
+
+    /**
+     * 清空缓存，统计数据保留
+     */
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+            weight = 0;
+        }
+    }
+
+    /**
+     * 获取缓存统计
+     *
+     * @return 统计快照
+     */
+    public Stats getStats() {
+        synchronized (entries) {
+            return new Stats(hits.sum(), misses.sum(), evictions.sum(), entries.size(), weight);
+        }
+    }
+
+    /**
+     * 缓存项：对象和加载时文件的大小、修改时间、文件标识
+     */
+    private static final class Entry {
+        final Object value;
+        final long weight;
+        final long size;
+        final Object modified;
+        final Object fileKey;
+
+        Entry(Object value, BasicFileAttributes attrs) {
+            this.value = value;
+            this.weight = Math.max(1, attrs.size());
+            this.size = attrs.size();
+            this.modified = attrs.lastModifiedTime();
+            this.fileKey = attrs.fileKey();
+        }
+
+        boolean matches(BasicFileAttributes attrs) {
+            return size == attrs.size() && modified.equals(attrs.lastModifiedTime()) && Objects.equals(fileKey, attrs.fileKey());
+        }
+    }
+
+    /**
+     * 缓存统计：命中、未命中、淘汰次数，以及当前的对象数和总权重
+     */
+    public static final class Stats {
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+        private final int size;
+        private final long weight;
+
+        private Stats(long hits, long misses, long evictions, int size, long weight) {
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.size = size;
+            this.weight = weight;
+        }
+
+        /**
+         * 获取命中次数
+         *
+         * @return 次数
+         */
+        public long getHits() {
+            return hits;
+        }
+
+        /**
+         * 获取未命中（重新加载）次数
+         *
+         * @return 次数
+         */
+        public long getMisses() {
+            return misses;
+        }
+
+        /**
+         * 获取因超过权重上限被淘汰的次数
+         *
+         * @return 次数
+         */
+        public long getEvictions() {
+            return evictions;
+        }
+
+        /**
+         * 获取缓存的对象数
+         *
+         * @return 对象数
+         */
+        public int getSize() {
+            return size;
+        }
+
+        /**
+         * 获取缓存对象的总权重
+         *
+         * @return 字节数
+         */
+        public long getWeight() {
+            return weight;
+        }
+
+        /**
+         * 获取命中率
+         *
+         * @return 0 ~ 1，没有读取过时为 0
+         */
+        public double getHitRate() {
+            long total = hits + misses;
+            return total == 0 ? 0 : (double) hits / total;
+        }
+
+        @Override
+        public String toString() {
+            return "Stats [hits=" + hits + ", misses=" + misses + ", evictions=" + evictions + ", size=" + size
+                    + ", weight=" + weight + "]";
+        }
+    }
+
+}
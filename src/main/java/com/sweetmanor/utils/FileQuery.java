@@ -0,0 +1,167 @@
+package com.sweetmanor.utils;
+
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+
+/**
+ * 文件查询条件：配合 FileUtil.streamFiles 使用，在遍历目录时直接过滤文件。 <br />
+ * 所有条件同时满足的文件才会被返回，未设置的条件不参与过滤。
+ * 过滤时使用遍历过程中读取的 BasicFileAttributes，每个文件只读取一次属性。
+ *
+ * @author ijlhjj
+ * @version 1.0 2025-01-15
+ */
+public class FileQuery {
+    private boolean recursive = true;
+    private String[] suffixes;
+    private String glob;
+    private PathMatcher globMatcher;
+    private boolean globOnName;
+    private long minSize = -1;
+    private long maxSize = Long.MAX_VALUE;
+    private long modifiedAfter = Long.MIN_VALUE;
+    private long modifiedBefore = Long.MAX_VALUE;
+
+    /**
+     * 设置是否递归遍历子目录，默认为 true
+     *
+     * @param recursive true遍历子目录，false只获取当前目录（不包括子目录）
+     * @return 当前对象
+     */
+    public FileQuery recursive(boolean recursive) {
+        this.recursive = recursive;
+        return this;
+    }
+
+    /**
+     * 设置文件扩展名（不含“.”，区分大小写），与 FileUtils.listFiles 的匹配规则一致
+     *
+     * @param extensions 扩展名数组，null 表示不过滤
+     * @return 当前对象
+     */
+    public FileQuery extensions(String... extensions) {
+        if (extensions == null) {
+            this.suffixes = null;
+        } else {
+            // 按后缀匹配，支持 tar.gz 这样的多段扩展名
+            this.suffixes = new String[extensions.length];
+            for (int i = 0; i < extensions.length; i++)
+                suffixes[i] = "." + extensions[i];
+        }
+        return this;
+    }
+
+    /**
+     * 设置 glob 匹配模式。模式中不包含“/”时匹配文件名，否则匹配相对于遍历根目录的路径
+     *
+     * @param glob glob 模式，例如 *.java、src/**&#47;*.xml，null 表示不过滤
+     * @return 当前对象
+     */
+    public FileQuery glob(String glob) {
+        this.glob = glob;
+        this.globMatcher = glob == null ? null : FileSystems.getDefault().getPathMatcher("glob:" + glob);
+        this.globOnName = glob != null && glob.indexOf('/') < 0;
+        return this;
+    }
+
+    /**
+     * 设置最小文件大小（包括）
+     *
+     * @param bytes 字节数
+     * @return 当前对象
+     */
+    public FileQuery minSize(long bytes) {
+        this.minSize = bytes;
+        return this;
+    }
+
+    /**
+     * 设置最大文件大小（包括）
+     *
+     * @param bytes 字节数
+     * @return 当前对象
+     */
+    public FileQuery maxSize(long bytes) {
+        this.maxSize = bytes;
+        return this;
+    }
+
+    /**
+     * 设置最后修改时间的下限（不包括）
+     *
+     * @param millis 毫秒时间戳
+     * @return 当前对象
+     */
+    public FileQuery modifiedAfter(long millis) {
+        this.modifiedAfter = millis;
+        return this;
+    }
+
+    /**
+     * 设置最后修改时间的上限（不包括）
+     *
+     * @param millis 毫秒时间戳
+     * @return 当前对象
+     */
+    public FileQuery modifiedBefore(long millis) {
+        this.modifiedBefore = millis;
+        return this;
+    }
+
+    /**
+     * 是否递归遍历子目录
+     *
+     * @return 递归返回 true
+     */
+    public boolean isRecursive() {
+        return recursive;
+    }
+
+    /**
+     * 判断文件是否满足查询条件，先比较属性再匹配名称
+     *
+     * @param root  遍历的根目录
+     * @param file  文件路径
+     * @param attrs 文件属性
+     * @return 满足条件返回 true
+     */
+    boolean matches(Path root, Path file, BasicFileAttributes attrs) {
+        long size = attrs.size();
+        if (size < minSize || size > maxSize)
+            return false;
+
+        if (modifiedAfter != Long.MIN_VALUE || modifiedBefore != Long.MAX_VALUE) {
+            long modified = attrs.lastModifiedTime().toMillis();
+            if (modified <= modifiedAfter || modified >= modifiedBefore)
+                return false;
+        }
+
+        if (suffixes != null) {
+            String name = file.getFileName().toString();
+            boolean matched = false;
+            for (String suffix : suffixes) {
+                if (name.endsWith(suffix)) {
+                    matched = true;
+                    break;
+                }
+            }
+            if (!matched)
+                return false;
+        }
+
+        if (globMatcher != null)
+            return globMatcher.matches(globOnName ? file.getFileName() : root.relativize(file));
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "FileQuery [recursive=" + recursive + ", extensions=" + Arrays.toString(suffixes) + ", glob=" + glob
+                + ", minSize=" + minSize + ", maxSize=" + maxSize
+                + ", modifiedAfter=" + modifiedAfter + ", modifiedBefore=" + modifiedBefore + "]";
+    }
+
+}
@@ -1,13 +1,24 @@
 package com.sweetmanor.utils;
 
-import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
-import org.apache.commons.io.filefilter.DirectoryFileFilter;
-import org.apache.commons.io.filefilter.TrueFileFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.Collection;
+import java.io.Serial;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * 文件工具类：
@@ -17,6 +28,12 @@ import java.util.Collection;
  * @version 1.0 2014-08-26
  */
 public final class FileUtil {
+    private static final Logger logger = LoggerFactory.getLogger(FileUtil.class);
+
+    /**
+     * 并行读取文本行时默认的分块大小
+     */
+    public static final long LINE_CHUNK_SIZE = 16L << 20;
 
     /**
      * 私有构造函数，用于阻止外部实例化该类
@@ -58,10 +75,8 @@ public final class FileUtil {
      * @return 文件个数
      */
     public static int countFiles(File dir) {
-        // 使用 Apache Commons IO 库的 FileUtils 类的 listFiles 方法获取指定目录下的所有文件，包括子目录中的文件
-        Collection<File> files = FileUtils.listFiles(dir, null, true);
-        // 返回文件个数
-        return files.size();
+        // 流式遍历目录树，只累加计数，不构造文件集合
+        return toInt(stat(dir).getFiles());
     }
 
     /**
@@ -71,10 +86,8 @@ public final class FileUtil {
      * @return 目录个数
      */
     public static int countDirs(File dir) {
-        // 使用 Apache Commons IO 库的 FileUtils 类的 listFilesAndDirs 方法获取指定目录下的所有目录，包括子目录中的目录
-        Collection<File> files = FileUtils.listFilesAndDirs(dir, DirectoryFileFilter.INSTANCE, TrueFileFilter.INSTANCE);
-        // 返回目录个数，减1是因为遍历结果包含了当前目录
-        return files.size() - 1;
+        // 统计结果不包含 dir 本身
+        return toInt(stat(dir).getDirs());
     }
 
     /**
@@ -84,10 +97,74 @@ public final class FileUtil {
      * @return 目录和文件的总个数
      */
     public static int countDirAndFiles(File dir) {
-        // 使用 Apache Commons IO 库的 FileUtils 类的 listFilesAndDirs 方法获取指定目录下的所有文件和目录，包括子目录中的文件和目录
-        Collection<File> files = FileUtils.listFilesAndDirs(dir, TrueFileFilter.INSTANCE, TrueFileFilter.INSTANCE);
-        // 返回目录和文件的总个数，减1是因为遍历结果包含了当前目录
-        return files.size() - 1;
+        DirStats stats = stat(dir);
+        // 统计结果不包含 dir 本身
+        return toInt(stats.getFiles() + stats.getDirs());
+    }
+
+    /**
+     * 统计目录包含的文件个数、目录个数（不包括 dir 本身）和文件总字节数（递归所有子目录）。 <br />
+     * 遍历时跟随符号链接并跳过链接形成的循环，无法访问的文件或目录将被忽略；dir 不是目录时返回全 0 的结果。
+     *
+     * @param dir 要统计的目录
+     * @return 统计结果
+     */
+    public static DirStats stat(File dir) {
+        return stat(dir, false);
+    }
+
+    /**
+     * 统计目录包含的文件个数、目录个数（不包括 dir 本身）和文件总字节数（递归所有子目录）。 <br />
+     * parallel 为 true 时将子目录分发到 ForkJoin 公共线程池并行遍历，适合文件数量巨大的目录树。
+     *
+     * @param dir      要统计的目录
+     * @param parallel 是否并行遍历
+     * @return 统计结果
+     */
+    public static DirStats stat(File dir, boolean parallel) {
+        DirStats stats = new DirStats();
+        // 不是目录（包括不存在）时与 commons-io 的行为一致，返回 0
+        if (dir == null || !dir.isDirectory())
+            return stats;
+
+        Path root = dir.toPath();
+        if (parallel)
+            return ForkJoinPool.commonPool().invoke(new StatTask(root, null));
+
+        try {
+            Files.walkFileTree(root, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path d, BasicFileAttributes attrs) {
+                    if (!d.equals(root))
+                        stats.dirs++;
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    stats.files++;
+                    stats.bytes += attrs.size();
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException e) {
+                    // 无法访问或符号链接循环，忽略该文件（目录）
+                    logger.debug("跳过无法访问的文件：{}", file, e);
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            logger.error("遍历目录失败：", e);
+        }
+        return stats;
+    }
+
+    /**
+     * 将统计数转换为 int，超出范围时返回 Integer.MAX_VALUE
+     */
+    private static int toInt(long count) {
+        return (int) Math.min(count, Integer.MAX_VALUE);
     }
 
     /**
@@ -99,10 +176,125 @@ public final class FileUtil {
      * @return 返回结果文件数组
      */
     public static File[] getFiles(File dir, String[] extensions, boolean recursive) {
-        // 使用 Apache Commons IO 库的 FileUtils 类的 listFiles 方法获取指定目录下的指定扩展名文件
-        Collection<File> files = FileUtils.listFiles(dir, extensions, recursive);
-        // 将文件集合转换为数组
-        return FileUtils.convertFileCollectionToFileArray(files);
+        // 边遍历边收集为数组，不再构造中间集合
+        try (Stream<Path> files = streamFiles(dir, extensions, recursive)) {
+            return files.map(Path::toFile).toArray(File[]::new);
+        }
+    }
+
+    /**
+     * 惰性查找目录下指定类型文件，返回的流在遍历目录的同时产生结果
+     *
+     * @param dir        查找的目录
+     * @param extensions 扩展名数组，null 表示所有文件
+     * @param recursive  是否递归遍历子目录，true遍历子目录，false只获取当前目录（不包括子目录）
+     * @return 文件路径流
+     * @see #streamFiles(Path, FileQuery)
+     */
+    public static Stream<Path> streamFiles(File dir, String[] extensions, boolean recursive) {
+        return streamFiles(dir.toPath(), new FileQuery().extensions(extensions).recursive(recursive));
+    }
+
+    /**
+     * 惰性查找目录下满足条件的文件。 <br />
+     * 返回的流在遍历目录的同时产生结果，超大目录树也可以立即开始处理，内存占用只与单个目录的项数有关。
+     * 查询条件在遍历时直接过滤，每个文件只读取一次属性；遍历跟随符号链接并跳过链接形成的循环，无法访问的文件或目录将被忽略。 <br />
+     * 流的 Spliterator 可以按未遍历的子目录进行拆分，适合使用 parallel() 并行处理。
+     * 遍历过程中不应修改 query。
+     *
+     * @param dir   查找的目录，不是目录时返回空流
+     * @param query 查询条件, not null
+     * @return 文件路径流
+     */
+    public static Stream<Path> streamFiles(Path dir, FileQuery query) {
+        if (dir == null || !Files.isDirectory(dir))
+            return Stream.empty();
+
+        Object rootKey = null;
+        try {
+            rootKey = Files.readAttributes(dir, BasicFileAttributes.class).fileKey();
+        } catch (IOException e) {
+            logger.debug("读取目录属性失败：{}", dir, e);
+        }
+        return StreamSupport.stream(new FileSpliterator(dir, query, new PendingDir(dir, rootKey, null)), false);
+    }
+
+    /**
+     * 并行读取文本文件的所有行，等价于 Files.lines(file, charset).parallel()，适合 GB 级的日志文件。 <br />
+     * 文件在换行符处切分为约 {@value #LINE_CHUNK_SIZE} 字节的块，每块单独内存映射，各块在 ForkJoin 公共线程池中并行拆分为行；
+     * 行以 LineSlice 表示，只记录字节范围，作为字符序列使用时才解码。 <br />
+     * 行以“\n”或“\r\n”结尾；使用完毕后必须关闭返回的流（建议使用 try-with-resources）。
+     *
+     * @param file    文本文件
+     * @param charset 字符集，换行符必须编码为单字节 0x0A（如 UTF-8、GBK），不支持 UTF-16 等字符集
+     * @return 行的并行流
+     * @throws IOException              如果打开文件失败
+     * @throws IllegalArgumentException 字符集不支持按字节查找换行符
+     */
+    public static Stream<LineSlice> lines(Path file, Charset charset) throws IOException {
+        return lines(file, charset, LINE_CHUNK_SIZE);
+    }
+
+    /**
+     * 并行读取文本文件的所有行，指定分块大小
+     *
+     * @param file      文本文件
+     * @param charset   字符集，换行符必须编码为单字节 0x0A
+     * @param chunkSize 分块大小（字节），必须大于 0
+     * @return 行的并行流
+     * @throws IOException              如果打开文件失败
+     * @throws IllegalArgumentException 字符集不支持按字节查找换行符，或 chunkSize 小于 1
+     * @see #lines(Path, Charset)
+     */
+    public static Stream<LineSlice> lines(Path file, Charset charset, long chunkSize) throws IOException {
+        checkLineCharset(charset);
+        if (chunkSize < 1)
+            throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            MappedChunks chunks = MappedChunks.split(channel, chunkSize);
+            return chunks.chunks().flatMap(chunk -> MappedChunks.lines(chunk, charset)).onClose(() -> {
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 并行处理文本文件的每个块：文件在换行符处切分为约 chunkSize 字节的块，每块只包含完整的行。 <br />
+     * action 在 ForkJoin 公共线程池中被并发调用，参数为该块的只读映射缓冲区，适合直接按字节解析的场景。
+     *
+     * @param file      文本文件，换行符必须为单字节 0x0A
+     * @param chunkSize 分块大小（字节），必须大于 0
+     * @param action    块处理器，必须是线程安全的
+     * @throws IOException              如果读取文件失败
+     * @throws IllegalArgumentException chunkSize 小于 1
+     */
+    public static void forEachChunk(Path file, long chunkSize, Consumer<? super ByteBuffer> action) throws IOException {
+        if (chunkSize < 1)
+            throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedChunks.split(channel, chunkSize).chunks().forEach(action);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * 检查换行符是否编码为单字节：“\r\n”必须编码为 0x0D 0x0A
+     */
+    private static void checkLineCharset(Charset charset) {
+        ByteBuffer encoded = charset.encode("\r\n");
+        if (encoded.remaining() != 2 || encoded.get(0) != '\r' || encoded.get(1) != '\n')
+            throw new IllegalArgumentException("Unsupported charset for line splitting: " + charset);
     }
 
     /**
@@ -121,22 +313,325 @@ public final class FileUtil {
     /**
      * 文件拷贝
      * <strong>注意：</strong> 不能将目录拷贝到文件；拷贝过程将强制覆盖。
+     * 需要限制并发数或监听拷贝进度时，直接使用 FileCopier；需要限速或按优先级排队时，使用 CopyScheduler。
      *
      * @param source 源文件
      * @param target 目标文件或目录
-     * @throws IOException 如果发生 I/O 错误
+     * @throws IOException 如果发生 I/O 错误，或者源文件和目标文件相同
      */
     public static void copyFile(File source, File target) throws IOException {
         // 如果源文件是目录，而目标文件是普通文件，则抛出异常
         if (source.isDirectory() && target.isFile())
             throw new IOException("不能将目录拷贝到文件！");
 
-        if (source.isDirectory() && target.isDirectory()) // 如果源文件是目录，而目标文件也是目录，则使用 FileUtils.copyDirectory 方法进行拷贝
-            FileUtils.copyDirectory(source, target);
-        else if (source.isFile() && target.isDirectory()) // 如果源文件是普通文件，而目标文件是目录，则使用 FileUtils.copyFileToDirectory 方法进行拷贝
-            FileUtils.copyFileToDirectory(source, target);
-        else if (source.isFile() && target.isFile()) // 如果源文件和目标文件都是普通文件，则使用 FileUtils.copyFile 方法进行拷贝
-            FileUtils.copyFile(source, target);
+        // 目录拷贝到目录、文件拷贝到目录或覆盖已存在的文件，都使用 FileCopier：
+        // 文件内容由 transferTo 零拷贝传输，目录中的多个文件并发拷贝，源文件和目标文件相同时抛出异常
+        if ((source.isDirectory() && target.isDirectory()) || (source.isFile() && (target.isDirectory() || target.isFile())))
+            new FileCopier().copy(source.toPath(), target.toPath());
+    }
+
+    /**
+     * 目录增量同步：只拷贝大小或修改时间发生变化的文件，适合反复镜像内容变化不大的目录。
+     * 需要校验文件内容或限制并发数时，直接使用 DirectorySync。
+     *
+     * @param source           源目录
+     * @param target           目标目录，不存在时创建
+     * @param deleteExtraneous 是否删除目标目录中源目录不存在的文件和目录
+     * @return 同步结果
+     * @throws IOException 如果发生 I/O 错误
+     */
+    public static DirectorySync.Result syncDirectory(File source, File target, boolean deleteExtraneous) throws IOException {
+        return new DirectorySync().deleteExtraneous(deleteExtraneous).sync(source.toPath(), target.toPath());
+    }
+
+    /**
+     * 统计目录的磁盘占用：一次并行遍历得到每个子目录的文件数、目录数和字节数，以及最大的 10 个目录和 10 个文件。
+     * 需要限制汇总树深度、调整 N 或跟随符号链接时，直接使用 DiskUsage。
+     *
+     * @param dir 要统计的目录
+     * @return 统计结果
+     * @throws IOException 如果 dir 不是目录
+     */
+    public static DiskUsage.Result diskUsage(File dir) throws IOException {
+        return new DiskUsage().scan(dir.toPath());
+    }
+
+    /**
+     * 查找目录中内容相同的文件：先按大小分组，再比较首尾数据的摘要，最后只对仍然相同的文件计算完整摘要。
+     * 需要调整最小文件大小或同时查找多个目录时，直接使用 DuplicateFinder。
+     *
+     * @param dir 要查找的目录
+     * @return 查找结果，包括重复文件组和浪费的空间
+     * @throws IOException 如果遍历目录失败
+     */
+    public static DuplicateFinder.Result findDuplicates(File dir) throws IOException {
+        return new DuplicateFinder().find(dir.toPath());
+    }
+
+    /**
+     * 目录统计结果：文件个数、目录个数和文件总字节数
+     */
+    public static final class DirStats {
+        private long files;
+        private long dirs;
+        private long bytes;
+
+        DirStats() {
+        }
+
+        DirStats(long files, long dirs, long bytes) {
+            this.files = files;
+            this.dirs = dirs;
+            this.bytes = bytes;
+        }
+
+        /**
+         * 获取文件个数
+         *
+         * @return 文件个数
+         */
+        public long getFiles() {
+            return files;
+        }
+
+        /**
+         * 获取目录个数，不包括统计的根目录
+         *
+         * @return 目录个数
+         */
+        public long getDirs() {
+            return dirs;
+        }
+
+        /**
+         * 获取文件总字节数
+         *
+         * @return 文件总字节数
+         */
+        public long getBytes() {
+            return bytes;
+        }
+
+        /**
+         * 合并另一个统计结果到当前对象
+         */
+        private void add(DirStats other) {
+            files += other.files;
+            dirs += other.dirs;
+            bytes += other.bytes;
+        }
+
+        @Override
+        public String toString() {
+            return "DirStats [files=" + files + ", dirs=" + dirs + ", bytes=" + bytes + "]";
+        }
+
+    }
+
+    /**
+     * 并行统计任务：统计一个目录的直接子项，每个子目录分发为新的任务
+     */
+    private static final class StatTask extends RecursiveTask<DirStats> {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final Path dir;
+        /**
+         * 祖先目录链，用于检测符号链接形成的循环
+         */
+        private final Ancestor ancestors;
+
+        StatTask(Path dir, Ancestor ancestors) {
+            this.dir = dir;
+            this.ancestors = ancestors;
+        }
+
+        @Override
+        protected DirStats compute() {
+            DirStats stats = new DirStats();
+            List<StatTask> subtasks = new ArrayList<>();
+
+            Ancestor self = ancestors;
+            try {
+                Object key = Files.readAttributes(dir, BasicFileAttributes.class).fileKey();
+                self = new Ancestor(key, ancestors);
+            } catch (IOException e) {
+                logger.debug("读取目录属性失败：{}", dir, e);
+            }
+
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+                for (Path entry : entries) {
+                    BasicFileAttributes attrs;
+                    try {
+                        attrs = Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                        // 符号链接读取目标的属性，目标不存在时按链接本身统计
+                        if (attrs.isSymbolicLink()) {
+                            try {
+                                attrs = Files.readAttributes(entry, BasicFileAttributes.class);
+                            } catch (IOException ignored) {
+                                // 失效的链接
+                            }
+                        }
+                    } catch (IOException e) {
+                        logger.debug("跳过无法访问的文件：{}", entry, e);
+                        continue;
+                    }
+
+                    if (attrs.isDirectory()) {
+                        // 跳过指向祖先目录的链接
+                        if (self != null && self.contains(attrs.fileKey()))
+                            continue;
+                        stats.dirs++;
+                        StatTask task = new StatTask(entry, self);
+                        task.fork();
+                        subtasks.add(task);
+                    } else {
+                        stats.files++;
+                        stats.bytes += attrs.size();
+                    }
+                }
+            } catch (IOException e) {
+                logger.debug("跳过无法访问的目录：{}", dir, e);
+            }
+
+            for (StatTask task : subtasks)
+                stats.add(task.join());
+            return stats;
+        }
+    }
+
+    /**
+     * 不可变的祖先目录链表节点，DirectoryIndex 的扫描使用同样的循环检测
+     */
+    static final class Ancestor {
+        private final Object key;
+        private final Ancestor parent;
+
+        Ancestor(Object key, Ancestor parent) {
+            this.key = key;
+            this.parent = parent;
+        }
+
+        boolean contains(Object fileKey) {
+            if (fileKey == null)
+                return false;
+            for (Ancestor a = this; a != null; a = a.parent)
+                if (fileKey.equals(a.key))
+                    return true;
+            return false;
+        }
+    }
+
+    /**
+     * 待遍历的目录
+     */
+    private static final class PendingDir {
+        private final Path dir;
+        private final Object key;
+        private final Ancestor ancestors;
+
+        PendingDir(Path dir, Object key, Ancestor ancestors) {
+            this.dir = dir;
+            this.key = key;
+            this.ancestors = ancestors;
+        }
+    }
+
+    /**
+     * 文件遍历 Spliterator：每次展开一个目录，满足条件的文件进入就绪队列，子目录进入待遍历队列。
+     * 拆分时将一半待遍历目录（没有时为一半就绪文件）交给新的 Spliterator
+     */
+    private static final class FileSpliterator implements Spliterator<Path> {
+        private final Path root;
+        private final FileQuery query;
+        private final ArrayDeque<PendingDir> pending = new ArrayDeque<>();
+        private final ArrayDeque<Path> ready = new ArrayDeque<>();
+
+        FileSpliterator(Path root, FileQuery query, PendingDir first) {
+            this.root = root;
+            this.query = query;
+            if (first != null)
+                pending.add(first);
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Path> action) {
+            while (ready.isEmpty()) {
+                if (pending.isEmpty())
+                    return false;
+                expand(pending.poll());
+            }
+            action.accept(ready.poll());
+            return true;
+        }
+
+        @Override
+        public Spliterator<Path> trySplit() {
+            // 待遍历目录不足时先展开一个目录，使刚创建的流也能被拆分
+            while (pending.size() < 2 && ready.size() < 2 && !pending.isEmpty())
+                expand(pending.poll());
+
+            FileSpliterator other = new FileSpliterator(root, query, null);
+            if (pending.size() >= 2) {
+                for (int n = pending.size() / 2; n > 0; n--)
+                    other.pending.add(pending.pollLast());
+            } else if (ready.size() >= 2) {
+                for (int n = ready.size() / 2; n > 0; n--)
+                    other.ready.add(ready.pollLast());
+            } else {
+                return null;
+            }
+            return other;
+        }
+
+        @Override
+        public long estimateSize() {
+            return pending.isEmpty() ? ready.size() : Long.MAX_VALUE;
+        }
+
+        @Override
+        public int characteristics() {
+            return NONNULL | DISTINCT;
+        }
+
+        /**
+         * 遍历一个目录的直接子项
+         */
+        private void expand(PendingDir p) {
+            Ancestor self = new Ancestor(p.key, p.ancestors);
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(p.dir)) {
+                for (Path entry : entries) {
+                    BasicFileAttributes attrs = readAttributes(entry);
+                    if (attrs == null)
+                        continue;
+                    if (attrs.isDirectory()) {
+                        // 非递归时不进入子目录，并跳过指向祖先目录的链接
+                        if (query.isRecursive() && !self.contains(attrs.fileKey()))
+                            pending.add(new PendingDir(entry, attrs.fileKey(), self));
+                    } else if (query.matches(root, entry, attrs)) {
+                        ready.add(entry);
+                    }
+                }
+            } catch (IOException | DirectoryIteratorException e) {
+                logger.debug("跳过无法访问的目录：{}", p.dir, e);
+            }
+        }
+    }
+
+    /**
+     * 读取文件属性：跟随符号链接，链接失效时返回链接本身的属性，无法访问时返回 null
+     */
+    private static BasicFileAttributes readAttributes(Path path) {
+        try {
+            return Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (IOException e) {
+            try {
+                return Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+            } catch (IOException e2) {
+                logger.debug("跳过无法访问的文件：{}", path, e2);
+                return null;
+            }
+        }
     }
 
 }
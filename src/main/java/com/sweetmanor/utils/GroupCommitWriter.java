@@ -0,0 +1,257 @@
+package com.sweetmanor.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 组提交写入器：多个线程并发地原子、持久写入对象文件时，把一个时间窗口内的写入合并为一批提交。 <br />
+ * 调用线程只负责编码并写入临时文件，随即返回 Future；提交线程在窗口结束（或达到批量上限）时，
+ * 逐个 fsync 临时文件、重命名为目标文件，最后对涉及的每个目录只做一次 fsync，然后完成这一批的 Future。 <br />
+ * 同一批中对同一个文件的多次写入只提交最后一次，被覆盖的临时文件直接删除、不做 fsync。
+ * 文件内容的 fsync 无法合并，节省的是目录 fsync、重复写入以及调用线程等待磁盘的时间。
+ *
+ * @param <T> 对象类型
+ * @author ijlhjj
+ * @version 1.0 2025-02-07
+ */
+public class GroupCommitWriter<T> implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(GroupCommitWriter.class);
+    private static final AtomicLong COUNTER = new AtomicLong();
+
+    private final ObjectCodec<? super T> codec;
+    private final LinkedBlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final Thread committer;
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong commits = new AtomicLong();
+    private volatile long windowNanos = TimeUnit.MILLISECONDS.toNanos(10);
+    private volatile int maxBatch = 256;
+    private volatile boolean closed;
+
+    /**
+     * 构造写入器并启动提交线程
+     *
+     * @param codec 对象的编解码器
+     */
+    public GroupCommitWriter(ObjectCodec<? super T> codec) {
+        this.codec = codec;
+        committer = new Thread(this::run, "group-commit-" + COUNTER.incrementAndGet());
+        committer.setDaemon(true);
+        committer.start();
+    }
+
+    /**
+     * 设置合并窗口：一批的第一个写入到达后最多等待的时间，默认 10 毫秒
+     *
+     * @param millis 毫秒数，0 表示不等待，只合并已经排队的写入
+     * @return 当前对象
+     * @throws IllegalArgumentException millis 小于 0
+     */
+    public GroupCommitWriter<T> window(long millis) {
+        if (millis < 0)
+            throw new IllegalArgumentException("Window must not be negative: " + millis);
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(millis);
+        return this;
+    }
+
+    /**
+     * 设置每批最多合并的写入数，达到后立即提交，默认 256
+     *
+     * @param maxBatch 写入数，必须大于 0
+     * @return 当前对象
+     * @throws IllegalArgumentException maxBatch 小于 1
+     */
+    public GroupCommitWriter<T> maxBatch(int maxBatch) {
+        if (maxBatch < 1)
+            throw new IllegalArgumentException("Max batch must be positive: " + maxBatch);
+        this.maxBatch = maxBatch;
+        return this;
+    }
+
+    /**
+     * 写入对象：在调用线程中编码到临时文件，由提交线程持久化并替换目标文件
+     *
+     * @param object 待写入的对象
+     * @param file   目标文件，父目录不存在时创建
+     * @return 数据已写入磁盘且目标文件已替换时完成，失败时异常完成（IOException；编码期间写入器被关闭时为 IllegalStateException），目标文件保持不变
+     * @throws IllegalStateException 如果写入器已关闭
+     */
+    public CompletableFuture<Void> write(T object, Path file) {
+        if (closed)
+            throw new IllegalStateException("Writer closed");
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        Path temp;
+        Path target;
+        try {
+            target = ObjectAccessUtil.resolveTarget(file);
+            temp = ObjectAccessUtil.writeTemp(object, target, codec);
+        } catch (IOException | RuntimeException e) {
+            future.completeExceptionally(e);
+            return future;
+        }
+        // 编码期间可能已经关闭：检查和入队在锁内完成，关闭后提交线程不会再看到新的写入
+        synchronized (queue) {
+            if (!closed) {
+                queue.add(new Pending(temp, target, future));
+                return future;
+            }
+        }
+        deleteQuietly(temp);
+        future.completeExceptionally(new IllegalStateException("Writer closed"));
+        return future;
+    }
+
+    /**
+     * 获取已提交的批数
+     *
+     * @return 批数
+     */
+    public long getBatchCount() {
+        return batches.get();
+    }
+
+    /**
+     * 获取已提交的写入数（包括同一批中被覆盖的写入）
+     *
+     * @return 写入数
+     */
+    public long getCommitCount() {
+        return commits.get();
+    }
+
+    /**
+     * 提交已排队的全部写入后停止提交线程
+     */
+    @Override
+    public void close() {
+        synchronized (queue) {
+            if (closed)
+                return;
+            closed = true;
+        }
+        try {
+            committer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 提交线程：等待一批的第一个写入，再在窗口内收集后续写入
+     */
+    private void run() {
+        List<Pending> batch = new ArrayList<>();
+        while (true) {
+            try {
+                Pending first = queue.poll(50, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    if (closed && queue.isEmpty())
+                        return;
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + windowNanos;
+                int limit = maxBatch;
+                while (batch.size() < limit) {
+                    Pending next = queue.poll(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                    if (next == null)
+                        break;
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                // 中断时提交已收集的写入后继续，直到关闭
+                Thread.interrupted();
+            }
+            if (!batch.isEmpty()) {
+                commit(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * 提交一批写入：fsync 临时文件、重命名，每个目录 fsync 一次
+     */
+    private void commit(List<Pending> batch) {
+        // 同一目标文件只保留最后一次写入
+        Map<Path, Pending> latest = new LinkedHashMap<>();
+        List<Pending> superseded = new ArrayList<>();
+        for (Pending pending : batch) {
+            Pending previous = latest.put(pending.target, pending);
+            if (previous != null)
+                superseded.add(previous);
+        }
+
+        // 先计数再完成 Future，等待 Future 的调用方总能看到本批的统计
+        batches.incrementAndGet();
+        commits.addAndGet(batch.size());
+
+        Map<Path, List<Pending>> dirs = new LinkedHashMap<>();
+        for (Pending pending : latest.values()) {
+            try {
+                ObjectAccessUtil.force(pending.temp);
+                ObjectAccessUtil.replace(pending.temp, pending.target);
+                dirs.computeIfAbsent(pending.target.getParent(), k -> new ArrayList<>()).add(pending);
+            } catch (IOException | RuntimeException e) {
+                deleteQuietly(pending.temp);
+                pending.future.completeExceptionally(e);
+            }
+        }
+        for (Map.Entry<Path, List<Pending>> entry : dirs.entrySet()) {
+            try {
+                ObjectAccessUtil.forceDirectory(entry.getKey());
+                for (Pending pending : entry.getValue())
+                    pending.future.complete(null);
+            } catch (IOException | RuntimeException e) {
+                for (Pending pending : entry.getValue())
+                    pending.future.completeExceptionally(e);
+            }
+        }
+
+        // 被覆盖的写入在最终内容持久化后完成
+        for (Pending pending : superseded) {
+            deleteQuietly(pending.temp);
+            CompletableFuture<Void> winner = latest.get(pending.target).future;
+            winner.whenComplete((r, e) -> {
+                if (e == null)
+                    pending.future.complete(null);
+                else
+                    pending.future.completeExceptionally(e);
+            });
+        }
+        logger.debug("组提交：{} 个写入，{} 个文件，{} 个目录", batch.size(), latest.size(), dirs.size());
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.warn("删除临时文件失败：{}", file, e);
+        }
+    }
+
+    /**
+     * 等待提交的写入
+     */
+    private static final class Pending {
+        final Path temp;
+        final Path target;
+        final CompletableFuture<Void> future;
+
+        Pending(Path temp, Path target, CompletableFuture<Void> future) {
+            this.temp = temp;
+            this.target = target;
+            this.future = future;
+        }
+    }
+
+}
@@ -0,0 +1,38 @@
+package com.sweetmanor.utils;
+
+import java.io.*;
+
+/**
+ * Java 序列化编解码器：使用 ObjectOutputStream / ObjectInputStream，支持任意实现了 Serializable 的对象。 <br />
+ * 编码中包含完整的类描述信息，通用但体积较大、速度较慢；对性能敏感的类型应使用 BinaryCodec。
+ *
+ * @author ijlhjj
+ * @version 1.0 2025-02-04
+ */
+public final class JavaSerializationCodec implements ObjectCodec<Object> {
+    /**
+     * 无状态，全局共享一个实例
+     */
+    public static final JavaSerializationCodec INSTANCE = new JavaSerializationCodec();
+
+    private JavaSerializationCodec() {
+    }
+
+    @Override
+    public void write(Object object, OutputStream out) throws IOException {
+        // ObjectOutputStream 关闭时会关闭底层流，这里只刷新
+        ObjectOutputStream oos = new ObjectOutputStream(out);
+        oos.writeObject(object);
+        oos.flush();
+    }
+
+    @Override
+    public Object read(InputStream in) throws IOException {
+        try {
+            return new ObjectInputStream(in).readObject();
+        } catch (ClassNotFoundException e) {
+            throw new InvalidClassException("类不存在：" + e.getMessage());
+        }
+    }
+
+}
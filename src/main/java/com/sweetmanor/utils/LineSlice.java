@@ -0,0 +1,92 @@
+package com.sweetmanor.utils;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+/**
+ * 文本行切片：内存映射文件中一行的字节范围（不包括换行符），首次作为字符序列访问时才解码。 <br />
+ * 只需要按字节解析时使用 byteAt / asByteBuffer，不产生任何解码开销。 <br />
+ * 切片引用映射的内存，文件被截断后访问可能抛出异常；需要长期保存的内容请调用 toString 复制。
+ *
+ * @author ijlhjj
+ * @version 1.0 2025-01-26
+ */
+public final class LineSlice implements CharSequence {
+    private final ByteBuffer buffer;
+    private final int offset;
+    private final int byteLength;
+    private final Charset charset;
+    private String decoded;
+
+    LineSlice(ByteBuffer buffer, int offset, int byteLength, Charset charset) {
+        this.buffer = buffer;
+        this.offset = offset;
+        this.byteLength = byteLength;
+        this.charset = charset;
+    }
+
+    /**
+     * 获取行的字节数（不包括换行符）
+     *
+     * @return 字节数
+     */
+    public int byteLength() {
+        return byteLength;
+    }
+
+    /**
+     * 获取行内指定位置的字节
+     *
+     * @param index 字节下标
+     * @return 字节值
+     * @throws IndexOutOfBoundsException 下标越界
+     */
+    public byte byteAt(int index) {
+        if (index < 0 || index >= byteLength)
+            throw new IndexOutOfBoundsException("Index: " + index + ", length: " + byteLength);
+        return buffer.get(offset + index);
+    }
+
+    /**
+     * 获取行内容的只读缓冲区，与映射的内存共享数据
+     *
+     * @return 只读缓冲区，position 为 0，limit 为行的字节数
+     */
+    public ByteBuffer asByteBuffer() {
+        return buffer.slice(offset, byteLength).asReadOnlyBuffer();
+    }
+
+    @Override
+    public int length() {
+        return toString().length();
+    }
+
+    @Override
+    public char charAt(int index) {
+        return toString().charAt(index);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return toString().subSequence(start, end);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return byteLength == 0;
+    }
+
+    /**
+     * 解码为字符串，结果会被缓存
+     */
+    @Override
+    public String toString() {
+        String s = decoded;
+        if (s == null) {
+            s = charset.decode(buffer.slice(offset, byteLength)).toString();
+            decoded = s;
+        }
+        return s;
+    }
+
+}
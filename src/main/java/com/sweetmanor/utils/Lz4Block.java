@@ -0,0 +1,200 @@
+package com.sweetmanor.utils;
+
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+
+/**
+ * LZ4 块格式的纯 Java 实现：单遍哈希匹配，压缩率低于 Deflater，但压缩和解压速度快得多。 <br />
+ * 编码与 LZ4 块格式兼容：每个序列为“标记字节 + 字面量 + 2 字节偏移 + 匹配长度”，窗口 64KB，最短匹配 4 字节，
+ * 最后 5 个字节总是字面量。只处理单个块，帧格式由调用方负责。
+ *
+ * @author ijlhjj
+ * @version 1.0 2025-02-09
+ */
+final class Lz4Block {
+    private static final int MIN_MATCH = 4;
+    private static final int LAST_LITERALS = 5;
+    /**
+     * 距离末尾不足该字节数时不再查找匹配
+     */
+    private static final int MF_LIMIT = 12;
+    private static final int MAX_OFFSET = 65535;
+    private static final int HASH_LOG = 14;
+
+    /**
+     * 哈希表：4 字节序列的哈希值 → 位置 + 1（0 表示空），每个线程复用
+     */
+    private static final ThreadLocal<int[]> TABLE = ThreadLocal.withInitial(() -> new int[1 << HASH_LOG]);
+
+    private Lz4Block() {
+    }
+
+    /**
+     * 压缩结果的最大长度（数据不可压缩时）
+     *
+     * @param length 原始数据长度
+     * @return 目标缓冲区需要的字节数
+     */
+    static int maxCompressedLength(int length) {
+        return length + length / 255 + 16;
+    }
+
+    /**
+     * 压缩一个块
+     *
+     * @param src    原始数据
+     * @param srcOff 起始位置
+     * @param srcLen 长度
+     * @param dst    目标缓冲区，剩余空间不少于 maxCompressedLength(srcLen)
+     * @param dstOff 写入位置
+     * @return 压缩后的字节数
+     */
+    static int compress(byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff) {
+        int end = srcOff + srcLen;
+        int anchor = srcOff;
+        int op = dstOff;
+
+        if (srcLen > MF_LIMIT) {
+            int[] table = TABLE.get();
+            Arrays.fill(table, 0);
+            int matchLimit = end - LAST_LITERALS;
+            int mfLimit = end - MF_LIMIT;
+            int ip = srcOff;
+            while (ip < mfLimit) {
+                int sequence = readIntLE(src, ip);
+                int h = hash(sequence);
+                int ref = table[h] - 1;
+                table[h] = ip + 1;
+                if (ref < 0 || ip - ref > MAX_OFFSET || readIntLE(src, ref) != sequence) {
+                    ip++;
+                    continue;
+                }
+
+                // 向前扩展匹配
+                while (ip > anchor && ref > srcOff && src[ip - 1] == src[ref - 1]) {
+                    ip--;
+                    ref--;
+                }
+                int matchLength = MIN_MATCH;
+                while (ip + matchLength < matchLimit && src[ip + matchLength] == src[ref + matchLength])
+                    matchLength++;
+
+                op = writeSequence(src, anchor, ip - anchor, dst, op, ip - ref, matchLength - MIN_MATCH);
+                ip += matchLength;
+                anchor = ip;
+                // 记录匹配末尾附近的位置，提高下一次匹配的命中率
+                if (ip - 2 < mfLimit)
+                    table[hash(readIntLE(src, ip - 2))] = ip - 2 + 1;
+            }
+        }
+
+        // 剩余的字面量
+        int literals = end - anchor;
+        op = writeLiteralLength(dst, op, literals, 0);
+        System.arraycopy(src, anchor, dst, op, literals);
+        return op + literals - dstOff;
+    }
+
+    private static int writeSequence(byte[] src, int anchor, int literals, byte[] dst, int op, int offset, int matchLength) {
+        op = writeLiteralLength(dst, op, literals, Math.min(matchLength, 15));
+        System.arraycopy(src, anchor, dst, op, literals);
+        op += literals;
+        dst[op++] = (byte) offset;
+        dst[op++] = (byte) (offset >>> 8);
+        if (matchLength >= 15)
+            op = writeExtraLength(dst, op, matchLength - 15);
+        return op;
+    }
+
+    /**
+     * 写入标记字节（高 4 位字面量长度，低 4 位匹配长度）和字面量的扩展长度
+     */
+    private static int writeLiteralLength(byte[] dst, int op, int literals, int matchNibble) {
+        dst[op++] = (byte) ((Math.min(literals, 15) << 4) | matchNibble);
+        if (literals >= 15)
+            op = writeExtraLength(dst, op, literals - 15);
+        return op;
+    }
+
+    private static int writeExtraLength(byte[] dst, int op, int length) {
+        while (length >= 255) {
+            dst[op++] = (byte) 255;
+            length -= 255;
+        }
+        dst[op++] = (byte) length;
+        return op;
+    }
+
+    /**
+     * 解压一个块
+     *
+     * @param src    压缩数据
+     * @param srcOff 起始位置
+     * @param srcLen 长度
+     * @param dst    目标缓冲区
+     * @param dstOff 写入位置
+     * @param dstLen 原始数据长度，解压结果必须正好是该长度
+     * @throws DataFormatException 如果数据损坏
+     */
+    static void decompress(byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff, int dstLen) throws DataFormatException {
+        int ip = srcOff;
+        int srcEnd = srcOff + srcLen;
+        int op = dstOff;
+        int dstEnd = dstOff + dstLen;
+        try {
+            while (true) {
+                int token = src[ip++] & 0xFF;
+                int literals = token >>> 4;
+                if (literals == 15) {
+                    int b;
+                    do {
+                        b = src[ip++] & 0xFF;
+                        literals += b;
+                    } while (b == 255);
+                }
+                if (literals > srcEnd - ip || literals > dstEnd - op)
+                    throw new DataFormatException("LZ4 字面量越界");
+                System.arraycopy(src, ip, dst, op, literals);
+                ip += literals;
+                op += literals;
+                if (ip == srcEnd)
+                    break; // 最后一个序列只有字面量
+
+                int offset = (src[ip++] & 0xFF) | (src[ip++] & 0xFF) << 8;
+                int matchLength = token & 0x0F;
+                if (matchLength == 15) {
+                    int b;
+                    do {
+                        b = src[ip++] & 0xFF;
+                        matchLength += b;
+                    } while (b == 255);
+                }
+                matchLength += MIN_MATCH;
+                if (offset == 0 || offset > op - dstOff || matchLength > dstEnd - op)
+                    throw new DataFormatException("LZ4 匹配越界");
+                // 匹配可能与输出重叠（重复模式），逐字节复制
+                int ref = op - offset;
+                if (offset >= matchLength) {
+                    System.arraycopy(dst, ref, dst, op, matchLength);
+                    op += matchLength;
+                } else {
+                    for (int i = 0; i < matchLength; i++)
+                        dst[op++] = dst[ref++];
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException e) {
+            throw new DataFormatException("LZ4 数据不完整");
+        }
+        if (op != dstEnd)
+            throw new DataFormatException("LZ4 解压长度不一致");
+    }
+
+    private static int hash(int sequence) {
+        return (sequence * -1640531535) >>> (32 - HASH_LOG);
+    }
+
+    private static int readIntLE(byte[] b, int i) {
+        return (b[i] & 0xFF) | (b[i + 1] & 0xFF) << 8 | (b[i + 2] & 0xFF) << 16 | (b[i + 3] & 0xFF) << 24;
+    }
+
+}
@@ -0,0 +1,152 @@
+package com.sweetmanor.utils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 按行分块的内存映射文件：将文件在换行符处切分为若干块，每块单独映射（单个映射最大 2GB），
+ * 各块互不重叠且只包含完整的行，可以在多个线程中独立处理。
+ *
+ * @author ijlhjj
+ * @version 1.0 2025-01-26
+ */
+final class MappedChunks {
+    /**
+     * 查找换行符时每次读取的字节数
+     */
+    private static final int SCAN_SIZE = 4096;
+
+    private final FileChannel channel;
+    /**
+     * 各块的起始位置，最后一个元素为文件大小
+     */
+    private final long[] bounds;
+
+    private MappedChunks(FileChannel channel, long[] bounds) {
+        this.channel = channel;
+        this.bounds = bounds;
+    }
+
+    /**
+     * 计算分块边界：每块约 chunkSize 字节，向后延伸到下一个换行符之后
+     *
+     * @param channel   文件通道，处理完成前不能关闭
+     * @param chunkSize 期望的块大小
+     * @return 分块结果
+     * @throws IOException 读取失败，或者单行超过 2GB 无法映射
+     */
+    static MappedChunks split(FileChannel channel, long chunkSize) throws IOException {
+        long size = channel.size();
+        long[] bounds = new long[16];
+        int count = 0;
+        ByteBuffer scan = ByteBuffer.allocate(SCAN_SIZE);
+
+        long start = 0;
+        while (start < size) {
+            bounds = count == bounds.length ? Arrays.copyOf(bounds, count * 2) : bounds;
+            bounds[count++] = start;
+            long end = start + chunkSize;
+            end = end >= size ? size : nextLineStart(channel, end, size, scan);
+            if (end - start > Integer.MAX_VALUE)
+                throw new IOException("行长度超过 2GB，无法映射：" + start);
+            start = end;
+        }
+        bounds = Arrays.copyOf(bounds, count + 1);
+        bounds[count] = size;
+        return new MappedChunks(channel, bounds);
+    }
+
+    /**
+     * 从 position 开始查找换行符，返回其后一个位置；没有换行符时返回文件大小
+     */
+    private static long nextLineStart(FileChannel channel, long position, long size, ByteBuffer scan) throws IOException {
+        // 块边界前一个字节恰好是换行符时不需要延伸
+        for (long pos = position - 1; pos < size; ) {
+            scan.clear();
+            int n = channel.read(scan, pos);
+            if (n <= 0)
+                return size;
+            for (int i = 0; i < n; i++)
+                if (scan.get(i) == '\n')
+                    return pos + i + 1;
+            pos += n;
+        }
+        return size;
+    }
+
+    /**
+     * 块数
+     *
+     * @return 块数
+     */
+    int size() {
+        return bounds.length - 1;
+    }
+
+    /**
+     * 映射指定的块
+     *
+     * @param index 块下标
+     * @return 只读映射缓冲区
+     */
+    MappedByteBuffer map(int index) {
+        try {
+            return channel.map(FileChannel.MapMode.READ_ONLY, bounds[index], bounds[index + 1] - bounds[index]);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 所有块的并行流，每块在被处理时才映射
+     *
+     * @return 映射缓冲区流
+     */
+    Stream<ByteBuffer> chunks() {
+        return IntStream.range(0, size()).parallel().mapToObj(this::map);
+    }
+
+    /**
+     * 将一块拆分为行，行不包括结尾的“\n”和“\r\n”，最后一行没有换行符时也作为一行
+     *
+     * @param chunk   映射缓冲区
+     * @param charset 字符集
+     * @return 行的顺序流
+     */
+    static Stream<LineSlice> lines(ByteBuffer chunk, Charset charset) {
+        Spliterator<LineSlice> spliterator = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE,
+                Spliterator.ORDERED | Spliterator.NONNULL) {
+            private int position;
+
+            @Override
+            public boolean tryAdvance(Consumer<? super LineSlice> action) {
+                int limit = chunk.limit();
+                if (position >= limit)
+                    return false;
+
+                int start = position;
+                int end = start;
+                while (end < limit && chunk.get(end) != '\n')
+                    end++;
+                position = end + 1;
+                if (end > start && chunk.get(end - 1) == '\r')
+                    end--;
+                action.accept(new LineSlice(chunk, start, end - start, charset));
+                return true;
+            }
+        };
+        return StreamSupport.stream(spliterator, false);
+    }
+
+}
@@ -0,0 +1,644 @@
+package com.sweetmanor.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32C;
+
+/**
+ * 内存映射的持久化键值对象存储：替代“一个键一个文件”的 writeToFile / readFromFile 用法。 <br />
+ * 所有记录以追加方式写入一个内存映射的数据文件，记录为“键长度 + 值长度（-1 表示删除）+ CRC32C + 键 + 值”，键和值由 ObjectCodec 编码，
+ * 键按编码后的字节比较是否相等。堆外（直接缓冲区）的开放寻址哈希表保存键到记录偏移量的映射，
+ * 读取只需一次哈希探测和一次映射内存读取，不产生系统调用。 <br />
+ * 覆盖和删除留下的旧记录在后台压缩：可回收的字节数超过数据量的一半（且不少于 {@value #MIN_COMPACT_BYTES} 字节）时，
+ * 将存活的记录复制到新文件后原子替换，压缩期间的读写不受影响，只在最后替换时短暂阻塞。 <br />
+ * 索引在打开时扫描数据文件重建，扫描遇到校验失败的尾部记录时丢弃。单个数据文件不超过 2GB。
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型
+ * @author ijlhjj
+ * @version 1.0 2025-02-06
+ */
+public class MappedObjectStore<K, V> implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(MappedObjectStore.class);
+
+    /**
+     * 目录下的数据文件名
+     */
+    public static final String DATA_FILE = "store.dat";
+    /**
+     * 触发后台压缩的最小可回收字节数
+     */
+    public static final long MIN_COMPACT_BYTES = 1L << 20;
+
+    private static final int MAGIC = 0x4D4F5354;
+    private static final int VERSION = 1;
+    /**
+     * 文件头：魔数、版本、数据末尾偏移量
+     */
+    private static final int FILE_HEADER = 16;
+    private static final int RECORD_HEADER = 12;
+    private static final int TOMBSTONE = -1;
+    private static final int INITIAL_CAPACITY = 1 << 20;
+    /**
+     * 索引槽：8 字节记录偏移量 + 4 字节哈希值（0 表示空槽）+ 4 字节填充
+     */
+    private static final int SLOT_SIZE = 16;
+    private static final int INITIAL_SLOTS = 1024;
+    private static final AtomicLong COUNTER = new AtomicLong();
+
+    private final Path dataFile;
+    private final ObjectCodec<K> keyCodec;
+    private final ObjectCodec<V> valueCodec;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object compactLock = new Object();
+    private final AtomicBoolean compacting = new AtomicBoolean();
+    private final AtomicLong compactions = new AtomicLong();
+    private final ExecutorService compactor;
+
+    private FileChannel channel;
+    private MappedByteBuffer data;
+    private Index index;
+    private int end;
+    private int size;
+    /**
+     * 被覆盖或删除的记录占用的字节数（包括删除标记本身）
+     */
+    private long garbage;
+    private boolean closed;
+
+    private MappedObjectStore(Path dir, ObjectCodec<K> keyCodec, ObjectCodec<V> valueCodec) {
+        this.dataFile = dir.resolve(DATA_FILE);
+        this.keyCodec = keyCodec;
+        this.valueCodec = valueCodec;
+        this.compactor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "object-store-compactor-" + COUNTER.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * 打开存储，目录或数据文件不存在时创建，已存在时扫描数据文件重建索引
+     *
+     * @param dir        存储目录
+     * @param keyCodec   键的编解码器
+     * @param valueCodec 值的编解码器
+     * @param <K>        键类型
+     * @param <V>        值类型
+     * @return 存储对象
+     * @throws IOException 如果数据文件格式错误，或者发生 I/O 错误
+     */
+    public static <K, V> MappedObjectStore<K, V> open(Path dir, ObjectCodec<K> keyCodec, ObjectCodec<V> valueCodec) throws IOException {
+        Files.createDirectories(dir);
+        MappedObjectStore<K, V> store = new MappedObjectStore<>(dir, keyCodec, valueCodec);
+        try {
+            store.load();
+        } catch (IOException | RuntimeException e) {
+            store.compactor.shutdown();
+            if (store.channel != null)
+                store.channel.close();
+            throw e;
+        }
+        return store;
+    }
+
+    /**
+     * 映射数据文件，校验并扫描记录，重建索引
+     */
+    private void load() throws IOException {
+        channel = FileChannel.open(dataFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long fileSize = channel.size();
+        if (fileSize > Integer.MAX_VALUE)
+            throw new IOException("数据文件超过 2GB：" + dataFile);
+        data = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(fileSize, INITIAL_CAPACITY));
+        index = new Index(INITIAL_SLOTS);
+        if (fileSize == 0) {
+            data.putInt(0, MAGIC).putInt(4, VERSION);
+            setEnd(FILE_HEADER);
+            return;
+        }
+        if (data.getInt(0) != MAGIC || data.getInt(4) != VERSION)
+            throw new IOException("不是对象存储数据文件：" + dataFile);
+
+        long recorded = data.getLong(8);
+        int limit = recorded < FILE_HEADER || recorded > data.capacity() ? data.capacity() : (int) recorded;
+        int position = FILE_HEADER;
+        int next;
+        while (position < limit && (next = validRecordEnd(data, position, limit)) > 0) {
+            applyRecord(index, data, position);
+            position = next;
+        }
+        if (position != recorded)
+            logger.warn("丢弃对象存储不完整的尾部：{}，{} 字节", dataFile, recorded - position);
+        setEnd(position);
+    }
+
+    /**
+     * 将一条记录应用到索引：更新键的位置，统计存活的键数和可回收的字节数
+     */
+    private void applyRecord(Index target, ByteBuffer buffer, int offset) {
+        int keyLength = buffer.getInt(offset);
+        boolean tombstone = buffer.getInt(offset + 4) == TOMBSTONE;
+        int hash = hash(buffer, offset + RECORD_HEADER, keyLength);
+        long slot = target.find(buffer, offset + RECORD_HEADER, keyLength, hash, buffer);
+        if (slot >= 0) {
+            int old = (int) target.offset(slot);
+            // 墓碑写入时已经计入可回收字节，被覆盖时不再重复计算
+            if (buffer.getInt(old + 4) != TOMBSTONE) {
+                garbage += recordSize(buffer, old);
+                size--;
+            }
+            target.set(slot, offset, hash);
+        } else if (!tombstone) {
+            index = target.insert(-slot - 1, offset, hash, buffer);
+        }
+        if (tombstone)
+            garbage += recordSize(buffer, offset);
+        else
+            size++;
+    }
+
+    /**
+     * 读取键对应的值：一次哈希探测和一次映射内存读取
+     *
+     * @param key 键
+     * @return 值，键不存在时返回 null
+     * @throws IOException 如果值不能被解码
+     */
+    public V get(K key) throws IOException {
+        byte[] keyBytes = encode(keyCodec, key);
+        byte[] value;
+        lock.readLock().lock();
+        try {
+            ensureOpen();
+            long slot = index.find(ByteBuffer.wrap(keyBytes), 0, keyBytes.length, hash(keyBytes), data);
+            if (slot < 0)
+                return null;
+            int offset = (int) index.offset(slot);
+            int valueLength = data.getInt(offset + 4);
+            if (valueLength == TOMBSTONE)
+                return null;
+            value = new byte[valueLength];
+            data.get(offset + RECORD_HEADER + keyBytes.length, value);
+        } finally {
+            lock.readLock().unlock();
+        }
+        return valueCodec.read(new ByteArrayInputStream(value));
+    }
+
+    /**
+     * 判断键是否存在
+     *
+     * @param key 键
+     * @return 存在返回 true
+     * @throws IOException 如果键不能被编码
+     */
+    public boolean containsKey(K key) throws IOException {
+        byte[] keyBytes = encode(keyCodec, key);
+        lock.readLock().lock();
+        try {
+            ensureOpen();
+            long slot = index.find(ByteBuffer.wrap(keyBytes), 0, keyBytes.length, hash(keyBytes), data);
+            return slot >= 0 && data.getInt((int) index.offset(slot) + 4) != TOMBSTONE;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 写入键值，键已存在时覆盖
+     *
+     * @param key   键
+     * @param value 值，不能为 null
+     * @throws IOException 如果键或值不能被编码，或者数据文件超过 2GB
+     */
+    public void put(K key, V value) throws IOException {
+        if (value == null)
+            throw new IllegalArgumentException("Value must not be null");
+        append(encode(keyCodec, key), encode(valueCodec, value));
+    }
+
+    /**
+     * 删除键：追加一条删除标记，旧记录在压缩时回收
+     *
+     * @param key 键
+     * @return 键存在并被删除时返回 true
+     * @throws IOException 如果键不能被编码
+     */
+    public boolean remove(K key) throws IOException {
+        if (!containsKey(key))
+            return false;
+        return append(encode(keyCodec, key), null);
+    }
+
+    /**
+     * 追加记录并更新索引，value 为 null 时写入删除标记，返回是否改变了存在的键
+     */
+    private boolean append(byte[] key, byte[] value) throws IOException {
+        if (key.length == 0)
+            throw new IllegalArgumentException("Encoded key must not be empty");
+        int recordSize = RECORD_HEADER + key.length + (value == null ? 0 : value.length);
+        boolean changed;
+        lock.writeLock().lock();
+        try {
+            ensureOpen();
+            int hash = hash(key);
+            long slot = index.find(ByteBuffer.wrap(key), 0, key.length, hash, data);
+            if (value == null && (slot < 0 || data.getInt((int) index.offset(slot) + 4) == TOMBSTONE))
+                return false; // 并发删除
+            ensureCapacity(recordSize);
+            int offset = end;
+            writeRecord(data, offset, key, value);
+            setEnd(offset + recordSize);
+            changed = slot >= 0;
+            applyRecord(index, data, offset);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        maybeCompact();
+        return changed || value != null;
+    }
+
+    private static void writeRecord(ByteBuffer buffer, int offset, byte[] key, byte[] value) {
+        buffer.putInt(offset, key.length);
+        buffer.putInt(offset + 4, value == null ? TOMBSTONE : value.length);
+        buffer.put(offset + RECORD_HEADER, key);
+        if (value != null)
+            buffer.put(offset + RECORD_HEADER + key.length, value);
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(offset, 8));
+        crc.update(buffer.slice(offset + RECORD_HEADER, key.length + (value == null ? 0 : value.length)));
+        buffer.putInt(offset + 8, (int) crc.getValue());
+    }
+
+    /**
+     * 校验 offset 处的记录，返回记录的结束位置，记录不完整或校验失败时返回 -1
+     */
+    private static int validRecordEnd(ByteBuffer buffer, int offset, int limit) {
+        if (limit - offset < RECORD_HEADER)
+            return -1;
+        int keyLength = buffer.getInt(offset);
+        int valueLength = buffer.getInt(offset + 4);
+        if (keyLength <= 0 || valueLength < TOMBSTONE)
+            return -1;
+        long payload = (long) keyLength + Math.max(0, valueLength);
+        if (payload > limit - offset - RECORD_HEADER)
+            return -1;
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(offset, 8));
+        crc.update(buffer.slice(offset + RECORD_HEADER, (int) payload));
+        return (int) crc.getValue() == buffer.getInt(offset + 8) ? offset + RECORD_HEADER + (int) payload : -1;
+    }
+
+    private static int recordSize(ByteBuffer buffer, int offset) {
+        return RECORD_HEADER + buffer.getInt(offset) + Math.max(0, buffer.getInt(offset + 4));
+    }
+
+    /**
+     * 映射空间不足时按倍数扩大映射（文件随之扩大），旧的映射由垃圾回收释放
+     */
+    private void ensureCapacity(int recordSize) throws IOException {
+        long required = (long) end + recordSize;
+        if (required <= data.capacity())
+            return;
+        if (required > Integer.MAX_VALUE)
+            throw new IOException("数据文件超过 2GB：" + dataFile);
+        long capacity = Math.min(Integer.MAX_VALUE, Math.max(required, (long) data.capacity() * 2));
+        data = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+    }
+
+    private void setEnd(int end) {
+        this.end = end;
+        data.putLong(8, end);
+    }
+
+    /**
+     * 获取存活的键数
+     *
+     * @return 键数
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 获取数据文件中已使用的字节数
+     *
+     * @return 字节数
+     */
+    public long getDataSize() {
+        lock.readLock().lock();
+        try {
+            return end;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 获取可以被压缩回收的字节数
+     *
+     * @return 字节数
+     */
+    public long getGarbageBytes() {
+        lock.readLock().lock();
+        try {
+            return garbage;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 获取已完成的压缩次数
+     *
+     * @return 压缩次数
+     */
+    public long getCompactionCount() {
+        return compactions.get();
+    }
+
+    /**
+     * 可回收的字节数超过阈值时在后台线程中压缩，同一时刻只有一个压缩任务
+     */
+    private void maybeCompact() {
+        lock.readLock().lock();
+        try {
+            if (closed || garbage < MIN_COMPACT_BYTES || garbage * 2 < end - FILE_HEADER)
+                return;
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (!compacting.compareAndSet(false, true))
+            return;
+        try {
+            compactor.execute(() -> {
+                try {
+                    compact();
+                } catch (IOException | RuntimeException e) {
+                    logger.error("压缩对象存储失败：{}", dataFile, e);
+                } finally {
+                    compacting.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // 正在关闭
+            compacting.set(false);
+        }
+    }
+
+    /**
+     * 立即压缩：将存活的记录复制到新文件，再原子替换数据文件。 <br />
+     * 复制快照期间不持有锁，读写照常进行；最后在写锁内补齐快照之后追加的记录并替换文件。
+     *
+     * @throws IOException 如果发生 I/O 错误
+     */
+    public void compact() throws IOException {
+        synchronized (compactLock) {
+            // 快照：数据文件只追加，快照末尾之前的记录不会再改变
+            ByteBuffer snapshot;
+            Index slots;
+            int snapshotEnd;
+            int live;
+            lock.readLock().lock();
+            try {
+                ensureOpen();
+                snapshot = data.duplicate();
+                slots = index.copy();
+                snapshotEnd = end;
+                live = (int) Math.min(Integer.MAX_VALUE, end - garbage);
+            } finally {
+                lock.readLock().unlock();
+            }
+
+            Path temp = dataFile.resolveSibling(DATA_FILE + ".compact");
+            try (FileChannel newChannel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                MappedByteBuffer target = newChannel.map(FileChannel.MapMode.READ_WRITE, 0,
+                        Math.min(Integer.MAX_VALUE, Math.max(INITIAL_CAPACITY, (long) live * 2)));
+                target.putInt(0, MAGIC).putInt(4, VERSION);
+                Index newIndex = new Index(slots.slots);
+                int position = FILE_HEADER;
+                for (long slot = 0; slot < slots.slots; slot++) {
+                    if (slots.hash(slot) == 0)
+                        continue;
+                    int offset = (int) slots.offset(slot);
+                    if (snapshot.getInt(offset + 4) == TOMBSTONE)
+                        continue;
+                    int recordSize = recordSize(snapshot, offset);
+                    if ((long) position + recordSize > target.capacity())
+                        target = newChannel.map(FileChannel.MapMode.READ_WRITE, 0, Math.min(Integer.MAX_VALUE, ((long) position + recordSize) * 2));
+                    target.put(position, snapshot, offset, recordSize);
+                    newIndex = newIndex.insert(-newIndex.find(target, position + RECORD_HEADER, snapshot.getInt(offset), slots.hash(slot), target) - 1,
+                            position, slots.hash(slot), target);
+                    position += recordSize;
+                }
+
+                lock.writeLock().lock();
+                try {
+                    ensureOpen();
+                    // 补齐快照之后追加的记录
+                    long oldGarbage = garbage;
+                    int oldSize = size;
+                    garbage = 0;
+                    index = newIndex;
+                    size = (int) newIndex.used;
+                    for (int offset = snapshotEnd; offset < end; offset += recordSize(data, offset)) {
+                        int recordSize = recordSize(data, offset);
+                        if ((long) position + recordSize > target.capacity())
+                            target = newChannel.map(FileChannel.MapMode.READ_WRITE, 0, Math.min(Integer.MAX_VALUE, ((long) position + recordSize) * 2));
+                        target.put(position, data, offset, recordSize);
+                        applyRecord(index, target, position);
+                        position += recordSize;
+                    }
+                    target.putLong(8, position);
+                    target.force();
+                    Files.move(temp, dataFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+                    FileChannel oldChannel = channel;
+                    channel = FileChannel.open(dataFile, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                    data = target;
+                    end = position;
+                    oldChannel.close();
+                    compactions.incrementAndGet();
+                    logger.debug("压缩对象存储：{}，回收 {} 字节，键数 {} → {}", dataFile, oldGarbage - garbage, oldSize, size);
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+
+    /**
+     * 将映射内存中的修改强制写入磁盘
+     */
+    public void sync() {
+        lock.readLock().lock();
+        try {
+            if (!closed)
+                data.force();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 等待正在进行的压缩完成，将修改写入磁盘并关闭数据文件
+     *
+     * @throws IOException 如果关闭失败
+     */
+    @Override
+    public void close() throws IOException {
+        compactor.shutdown();
+        try {
+            compactor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        lock.writeLock().lock();
+        try {
+            if (closed)
+                return;
+            closed = true;
+            data.force();
+            channel.close();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed)
+            throw new IOException("对象存储已关闭：" + dataFile);
+    }
+
+    private static <T> byte[] encode(ObjectCodec<T> codec, T object) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        codec.write(object, out);
+        return out.toByteArray();
+    }
+
+    private static int hash(byte[] key) {
+        return hash(ByteBuffer.wrap(key), 0, key.length);
+    }
+
+    /**
+     * 键的哈希值：FNV-1a 后再做一次混合，0 保留给空槽
+     */
+    private static int hash(ByteBuffer buffer, int offset, int length) {
+        int h = 0x811C9DC5;
+        for (int i = 0; i < length; i++)
+            h = (h ^ buffer.get(offset + i)) * 0x01000193;
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        return h == 0 ? 1 : h;
+    }
+
+    /**
+     * 堆外开放寻址哈希表（线性探测）：槽位保存在直接缓冲区中，不产生堆对象。
+     * 删除的键保留槽位并指向删除标记，压缩时清除；使用的槽位超过一半时扩容
+     */
+    private static final class Index {
+        final long slots;
+        final ByteBuffer table;
+        long used;
+
+        Index(long slots) {
+            if (slots * SLOT_SIZE > Integer.MAX_VALUE)
+                throw new IllegalStateException("Index too large: " + slots);
+            this.slots = slots;
+            this.table = ByteBuffer.allocateDirect((int) (slots * SLOT_SIZE));
+        }
+
+        long offset(long slot) {
+            return table.getLong((int) (slot * SLOT_SIZE));
+        }
+
+        int hash(long slot) {
+            return table.getInt((int) (slot * SLOT_SIZE + 8));
+        }
+
+        void set(long slot, long offset, int hash) {
+            table.putLong((int) (slot * SLOT_SIZE), offset);
+            table.putInt((int) (slot * SLOT_SIZE + 8), hash);
+        }
+
+        /**
+         * 查找键（位于 key 缓冲区的 keyOffset 处），哈希值相同时与 data 中记录的键比较。
+         * 找到时返回槽位，否则返回 -(可插入的槽位) - 1
+         */
+        long find(ByteBuffer key, int keyOffset, int keyLength, int hash, ByteBuffer data) {
+            long mask = slots - 1;
+            long slot = hash & mask;
+            while (true) {
+                int h = hash(slot);
+                if (h == 0)
+                    return -slot - 1;
+                if (h == hash) {
+                    int offset = (int) offset(slot);
+                    if (data.getInt(offset) == keyLength
+                            && data.slice(offset + RECORD_HEADER, keyLength).equals(key.slice(keyOffset, keyLength)))
+                        return slot;
+                }
+                slot = (slot + 1) & mask;
+            }
+        }
+
+        /**
+         * 在空槽位插入，超过负载因子时返回扩容后的新表
+         */
+        Index insert(long slot, long offset, int hash, ByteBuffer data) {
+            set(slot, offset, hash);
+            if (++used * 2 <= slots)
+                return this;
+            Index larger = new Index(slots * 2);
+            for (long i = 0; i < slots; i++) {
+                int h = hash(i);
+                if (h == 0)
+                    continue;
+                long s = h & (larger.slots - 1);
+                while (larger.hash(s) != 0)
+                    s = (s + 1) & (larger.slots - 1);
+                larger.set(s, offset(i), h);
+                larger.used++;
+            }
+            return larger;
+        }
+
+        Index copy() {
+            Index copy = new Index(slots);
+            copy.table.put(0, table, 0, table.capacity());
+            copy.used = used;
+            return copy;
+        }
+    }
+
+}
@@ -5,9 +5,15 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
- * 对象序列化工具类：只作为一个代码示例，具体应用时应该使用成熟的第三方序列化库。
+ * 对象序列化工具类：只作为一个代码示例，具体应用时应该使用成熟的第三方序列化库。 <br />
+ * 序列化方式由 ObjectCodec 决定，默认使用 Java 序列化；可以通过 setDefaultCodec 全局替换，
+ * 或者在读写时指定编解码器，例如对已注册的类型使用体积更小、速度更快的 BinaryCodec，需要压缩时再用 CompressedCodec 包装。
  *
  * @author ijlhjj
  * @version 1.0 2016-11-22
@@ -15,12 +21,40 @@ import java.io.*;
 public final class ObjectAccessUtil {
     private static final Logger logger = LoggerFactory.getLogger(ObjectAccessUtil.class);
 
+    /**
+     * 未指定编解码器时使用的默认编解码器
+     */
+    private static volatile ObjectCodec<Object> defaultCodec = JavaSerializationCodec.INSTANCE;
+
+    /**
+     * readCached 使用的全局缓存
+     */
+    private static final FileObjectCache CACHE = new FileObjectCache();
+
     /**
      * 私有构造函数，防止类被实例化
      */
     private ObjectAccessUtil() {
     }
 
+    /**
+     * 设置默认编解码器，影响之后所有未指定编解码器的读写
+     *
+     * @param codec 编解码器，null 表示恢复为 Java 序列化
+     */
+    public static void setDefaultCodec(ObjectCodec<Object> codec) {
+        defaultCodec = codec == null ? JavaSerializationCodec.INSTANCE : codec;
+    }
+
+    /**
+     * 获取默认编解码器
+     *
+     * @return 默认编解码器
+     */
+    public static ObjectCodec<Object> getDefaultCodec() {
+        return defaultCodec;
+    }
+
     /**
      * 将可序列化对象写入到文件中
      *
@@ -39,6 +73,18 @@ public final class ObjectAccessUtil {
      * @param file   写入的目标文件
      */
     public static void writeToFile(Serializable object, File file) {
+        writeToFile(object, file, defaultCodec);
+    }
+
+    /**
+     * 使用指定的编解码器将对象写入到文件中。调用线程会等待编码和写入完成，不希望阻塞时使用 AsyncObjectWriter
+     *
+     * @param object 待写入的对象
+     * @param file   写入的目标文件
+     * @param codec  编解码器
+     * @param <T>    对象类型
+     */
+    public static <T> void writeToFile(T object, File file, ObjectCodec<? super T> codec) {
         // 检查对象和文件是否为空，如果为空则直接返回
         if (object == null || file == null)
             return;
@@ -47,23 +93,152 @@ public final class ObjectAccessUtil {
         if (file.isDirectory())
             return;
 
-        // 如果文件已经存在，则先删除
-        if (file.exists())
-            file.delete();
+        // 先写入同目录下的临时文件，完成后重命名覆盖目标文件：写入失败时原文件保持不变
+        try {
+            replace(writeTemp(object, file.toPath(), codec), file.toPath());
+        } catch (IOException e) {
+            logger.error("写入对象失败：", e);
+        }
+    }
+
+    /**
+     * 原子、持久地将对象写入文件：写入临时文件并 fsync，重命名为目标文件，再 fsync 所在目录。
+     * 方法返回时数据已写入磁盘，任何时刻崩溃，目标文件要么是旧内容，要么是完整的新内容。 <br />
+     * 每次调用都有两次 fsync，大量并发写入时使用 GroupCommitWriter 合并目录 fsync。
+     *
+     * @param object 待写入的可序列化对象
+     * @param file   写入的目标文件
+     * @throws IOException 如果写入失败，此时目标文件保持不变
+     */
+    public static void writeAtomically(Serializable object, File file) throws IOException {
+        writeAtomically(object, file, defaultCodec);
+    }
+
+    /**
+     * 使用指定的编解码器原子、持久地将对象写入文件
+     *
+     * @param object 待写入的对象
+     * @param file   写入的目标文件
+     * @param codec  编解码器
+     * @param <T>    对象类型
+     * @throws IOException 如果写入失败，此时目标文件保持不变
+     */
+    public static <T> void writeAtomically(T object, File file, ObjectCodec<? super T> codec) throws IOException {
+        Path target = resolveTarget(file.toPath());
+        Path temp = writeTemp(object, target, codec);
+        try {
+            force(temp);
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        replace(temp, target);
+        forceDirectory(target.getParent());
+    }
+
+    /**
+     * 将对象编码写入目标文件同目录下的临时文件（父目录不存在时创建），不 fsync。
+     * 目标是符号链接时写在链接指向的文件旁边，临时文件的权限与目标文件一致
+     *
+     * @return 临时文件
+     */
+    static <T> Path writeTemp(T object, Path target, ObjectCodec<? super T> codec) throws IOException {
+        Path temp = createTemp(resolveTarget(target));
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp))) {
+            codec.write(object, out);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        return temp;
+    }
+
+    /**
+     * 解析重命名的目标：目标文件是符号链接时逐级解析到最终指向的路径（可以尚不存在），
+     * 重命名替换的是链接指向的文件，链接本身保留
+     *
+     * @param target 目标文件
+     * @return 绝对路径
+     * @throws IOException 如果符号链接层数过多，或者读取链接失败
+     */
+    static Path resolveTarget(Path target) throws IOException {
+        Path path = target.toAbsolutePath();
+        for (int i = 0; Files.isSymbolicLink(path); i++) {
+            if (i == 40)
+                throw new FileSystemException(target.toString(), null, "符号链接层数过多");
+            // 相对链接相对于链接所在的目录
+            path = path.resolveSibling(Files.readSymbolicLink(path));
+        }
+        return path;
+    }
+
+    /**
+     * 在目标文件同目录下创建空的临时文件（父目录不存在时创建）。
+     * 不使用 Files.createTempFile（POSIX 下固定为 0600）：新文件的权限由 umask 决定，目标文件已存在时拷贝其权限
+     *
+     * @param target 已解析的目标文件
+     * @return 临时文件
+     */
+    static Path createTemp(Path target) throws IOException {
+        Path parent = target.getParent();
+        Files.createDirectories(parent);
+        Path temp;
+        while (true) {
+            temp = parent.resolve("." + target.getFileName() + "." + Long.toUnsignedString(ThreadLocalRandom.current().nextLong(), 36) + ".tmp");
+            try {
+                Files.createFile(temp);
+                break;
+            } catch (FileAlreadyExistsException e) {
+                // 名称冲突时换一个随机名称
+            }
+        }
+        try {
+            PosixFileAttributeView targetView = Files.getFileAttributeView(target, PosixFileAttributeView.class);
+            if (targetView != null && Files.exists(target))
+                Files.getFileAttributeView(temp, PosixFileAttributeView.class).setPermissions(targetView.readAttributes().permissions());
+        } catch (NoSuchFileException e) {
+            // 目标文件在此期间被删除，保持 umask 决定的权限
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        return temp;
+    }
 
-        // 尝试创建文件的父目录
+    /**
+     * 将临时文件原子重命名为目标文件（目标是符号链接时替换其指向的文件），失败时删除临时文件
+     */
+    static void replace(Path temp, Path target) throws IOException {
         try {
-            FileUtils.forceMkdirParent(file);
-        } catch (IOException e1) {
-            logger.error("创建父目录失败：", e1);
+            Files.move(temp, resolveTarget(target), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
+
+    /**
+     * 将文件内容强制写入磁盘
+     */
+    static void force(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.force(true);
         }
+    }
 
-        // 尝试将对象写入到文件中
-        try (FileOutputStream fos = new FileOutputStream(file); //
-             ObjectOutputStream oos = new ObjectOutputStream(fos);) {
-            oos.writeObject(object);
-        } catch (IOException e2) {
-            logger.error("写入对象失败：", e2);
+    /**
+     * 将目录项（重命名的结果）强制写入磁盘。Windows 等不支持打开目录的平台上忽略
+     */
+    static void forceDirectory(Path dir) throws IOException {
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(dir, StandardOpenOption.READ);
+        } catch (IOException e) {
+            logger.debug("不支持目录 fsync：{}", dir);
+            return;
+        }
+        try (channel) {
+            channel.force(true);
         }
     }
 
@@ -85,14 +260,110 @@ public final class ObjectAccessUtil {
      * @return 反序列化读取到的对象，文件或对象不存在将返回null
      */
     public static Object readFromFile(File file) {
+        return readFromFile(file, defaultCodec);
+    }
+
+    /**
+     * 使用指定的编解码器从文件读取对象
+     *
+     * @param file  读取的文件对象
+     * @param codec 编解码器，必须与写入时使用的一致
+     * @param <T>   对象类型
+     * @return 读取到的对象，文件或对象不存在将返回null
+     */
+    public static <T> T readFromFile(File file, ObjectCodec<T> codec) {
         // 如果文件为空或不存在，则返回null
         if (file == null || !file.exists())
             return null;
 
         // 从输入流中读取对象并返回
-        try (FileInputStream fis = new FileInputStream(file); //
-             ObjectInputStream ois = new ObjectInputStream(fis);) {
-            return ois.readObject();
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+            return codec.read(in);
+        } catch (Exception e) {
+            logger.error("读取对象失败：", e);
+        }
+
+        // 如果发生异常，返回null
+        return null;
+    }
+
+    /**
+     * 打开对象序列写入器，使用默认编解码器：大量对象逐个写入同一个文件，不需要先放进一个集合
+     *
+     * @param file 写入的目标文件，关闭写入器时才会出现
+     * @return 写入器，使用完毕后必须关闭
+     * @throws IOException 如果创建文件失败
+     */
+    public static ObjectWriter<Object> openWriter(File file) throws IOException {
+        return openWriter(file, defaultCodec);
+    }
+
+    /**
+     * 使用指定的编解码器打开对象序列写入器
+     *
+     * @param file  写入的目标文件，关闭写入器时才会出现
+     * @param codec 编解码器
+     * @param <T>   对象类型
+     * @return 写入器，使用完毕后必须关闭
+     * @throws IOException 如果创建文件失败
+     */
+    public static <T> ObjectWriter<T> openWriter(File file, ObjectCodec<? super T> codec) throws IOException {
+        return openWriter(file, codec, ObjectWriter.DEFAULT_RESET_INTERVAL);
+    }
+
+    /**
+     * 使用指定的编解码器打开对象序列写入器，并指定 Java 序列化重置句柄表的间隔：
+     * 对象之间共享引用较多时增大间隔可以减小文件，单个对象很大时减小间隔可以降低内存占用
+     *
+     * @param file          写入的目标文件，关闭写入器时才会出现
+     * @param codec         编解码器
+     * @param resetInterval 每写入多少个对象重置一次句柄表
+     * @param <T>           对象类型
+     * @return 写入器，使用完毕后必须关闭
+     * @throws IOException 如果创建文件失败
+     */
+    public static <T> ObjectWriter<T> openWriter(File file, ObjectCodec<? super T> codec, int resetInterval) throws IOException {
+        return new ObjectWriter<>(file.toPath(), codec, resetInterval);
+    }
+
+    /**
+     * 打开对象序列读取器，使用默认编解码器：逐个读取 openWriter 写入的对象，内存占用与对象总数无关
+     *
+     * @param file 读取的文件对象
+     * @return 读取器，使用完毕后必须关闭
+     * @throws IOException 如果文件不存在或者格式错误
+     */
+    public static ObjectReader<Object> openReader(File file) throws IOException {
+        return openReader(file, defaultCodec);
+    }
+
+    /**
+     * 使用指定的编解码器打开对象序列读取器
+     *
+     * @param file  读取的文件对象
+     * @param codec 编解码器，必须与写入时使用的一致
+     * @param <T>   对象类型
+     * @return 读取器，使用完毕后必须关闭
+     * @throws IOException 如果文件不存在、格式错误，或者与编解码器不一致
+     */
+    public static <T> ObjectReader<T> openReader(File file, ObjectCodec<T> codec) throws IOException {
+        return new ObjectReader<>(file.toPath(), codec);
+    }
+
+    /**
+     * 带缓存地从文件读取对象：文件的大小、修改时间和标识都未变化时直接返回上次读取的对象，不再反序列化。
+     * 适合每次请求都要读取的配置、键等对象；缓存的对象被所有调用方共享，可变对象应通过 getCache().copier 设置复制函数
+     *
+     * @param file 读取的文件对象
+     * @return 读取到的对象，文件或对象不存在将返回null
+     */
+    public static Object readCached(File file) {
+        // 如果文件为空或不存在，则返回null
+        if (file == null || !file.exists())
+            return null;
+
+        try {
+            return CACHE.get(file.toPath());
         } catch (Exception e) {
             logger.error("读取对象失败：", e);
         }
@@ -101,4 +372,39 @@ public final class ObjectAccessUtil {
         return null;
     }
 
+    /**
+     * 获取 readCached 使用的全局缓存，用于设置权重上限、复制函数，或者查看命中统计
+     *
+     * @return 全局缓存
+     */
+    public static FileObjectCache getCache() {
+        return CACHE;
+    }
+
+    /**
+     * 打开追加式记录日志：大量对象保存在同一个文件中，可以按序号随机读取或顺序遍历，替代每个对象一个文件的方式
+     *
+     * @param file  数据文件，不存在时创建，同目录下另有一个索引文件
+     * @param codec 记录的编解码器
+     * @param <T>   记录的对象类型
+     * @return 记录日志，使用完毕后必须关闭
+     * @throws IOException 如果文件不是记录日志，或者发生 I/O 错误
+     */
+    public static <T> RecordLog<T> openRecordLog(File file, ObjectCodec<T> codec) throws IOException {
+        FileUtils.forceMkdirParent(file);
+        return RecordLog.open(file.toPath(), codec);
+    }
+
+    /**
+     * 打开持久化键值对象存储，键和值都使用默认编解码器：所有键保存在同一个内存映射的数据文件中，替代每个键一个文件的方式
+     *
+     * @param dir 存储目录，不存在时创建
+     * @return 对象存储，使用完毕后必须关闭
+     * @throws IOException 如果数据文件格式错误，或者发生 I/O 错误
+     */
+    public static MappedObjectStore<Object, Object> openObjectStore(File dir) throws IOException {
+        ObjectCodec<Object> codec = defaultCodec;
+        return MappedObjectStore.open(dir.toPath(), codec, codec);
+    }
+
 }
@@ -0,0 +1,36 @@
+package com.sweetmanor.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * 对象编解码器：ObjectAccessUtil 读写文件时使用的序列化方式。 <br />
+ * 内置 Java 序列化（JavaSerializationCodec，默认）和只支持已注册类型的紧凑二进制编码（BinaryCodec），
+ * 也可以实现本接口接入其他序列化库。实现必须是线程安全的，同一个编解码器会被多个线程同时使用。
+ *
+ * @param <T> 可编码的对象类型
+ * @author ijlhjj
+ * @version 1.0 2025-02-04
+ */
+public interface ObjectCodec<T> {
+
+    /**
+     * 将对象编码后写入输出流，不关闭输出流
+     *
+     * @param object 要写入的对象
+     * @param out    输出流
+     * @throws IOException 如果对象不能被编码，或者写入失败
+     */
+    void write(T object, OutputStream out) throws IOException;
+
+    /**
+     * 从输入流读取一个对象，只读取该对象的编码，不关闭输入流
+     *
+     * @param in 输入流
+     * @return 读取到的对象
+     * @throws IOException 如果数据格式错误，或者读取失败
+     */
+    T read(InputStream in) throws IOException;
+
+}
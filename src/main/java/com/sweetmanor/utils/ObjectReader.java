@@ -0,0 +1,138 @@
+package com.sweetmanor.utils;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 对象序列读取器：逐个读取 ObjectWriter 写入的对象，任意时刻只持有当前一个对象，可以处理远大于堆内存的数据集。 <br />
+ * 作为 Iterator 使用时读取错误以 UncheckedIOException 抛出；也可以通过 stream 转换为顺序流，关闭流时关闭读取器。
+ * 文件缺少结束标记（写入方没有正常关闭）时同样视为读取错误，不会把截断的数据当作完整的结果。
+ *
+ * @param <T> 对象类型
+ * @author ijlhjj
+ * @version 1.0 2025-02-10
+ */
+public class ObjectReader<T> implements Iterator<T>, Closeable {
+    private final ObjectCodec<T> codec;
+    private final InputStream in;
+    /**
+     * 文件是 Java 序列化流时的对象流，否则为 null
+     */
+    private final ObjectInputStream ois;
+    private T next;
+    private boolean end;
+    private long count;
+
+    /**
+     * 打开读取器并校验文件头部
+     *
+     * @param file  ObjectWriter 写入的文件
+     * @param codec 编解码器，必须与写入时使用的一致
+     * @throws IOException 如果文件不存在、格式错误，或者与编解码器不一致
+     */
+    ObjectReader(Path file, ObjectCodec<T> codec) throws IOException {
+        this.codec = codec;
+        this.in = new BufferedInputStream(Files.newInputStream(file), 64 * 1024);
+        try {
+            byte[] magic = in.readNBytes(ObjectWriter.MAGIC.length);
+            if (!Arrays.equals(magic, ObjectWriter.MAGIC))
+                throw new StreamCorruptedException("不是对象序列文件：" + file);
+            int format = in.read();
+            boolean java = codec == JavaSerializationCodec.INSTANCE;
+            if (format != (java ? ObjectWriter.FORMAT_JAVA : ObjectWriter.FORMAT_CODEC))
+                throw new StreamCorruptedException("对象序列文件格式与编解码器不一致：" + format);
+            this.ois = java ? new ObjectInputStream(in) : null;
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next != null)
+            return true;
+        if (end)
+            return false;
+        try {
+            next = readNext();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return next != null;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext())
+            throw new NoSuchElementException();
+        T object = next;
+        next = null;
+        count++;
+        return object;
+    }
+
+    /**
+     * 读取下一个对象，遇到结束标记时返回 null
+     */
+    @SuppressWarnings("unchecked")
+    private T readNext() throws IOException {
+        int marker = ois != null ? ois.read() : in.read();
+        if (marker == ObjectWriter.MARKER_END) {
+            end = true;
+            return null;
+        }
+        if (marker < 0)
+            throw new EOFException("对象序列文件不完整，缺少结束标记");
+        if (marker != ObjectWriter.MARKER_OBJECT)
+            throw new StreamCorruptedException("对象标记错误：" + marker);
+        if (ois == null)
+            return codec.read(in);
+        try {
+            return (T) ois.readObject();
+        } catch (ClassNotFoundException e) {
+            throw new InvalidClassException("类不存在：" + e.getMessage());
+        }
+    }
+
+    /**
+     * 获取已经通过 next 返回的对象数
+     *
+     * @return 对象数
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * 将剩余的对象转换为顺序流，关闭流时关闭读取器
+     *
+     * @return 对象流
+     */
+    public Stream<T> stream() {
+        Spliterator<T> spliterator = Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, false).onClose(() -> {
+            try {
+                close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    @Override
+    public void close() throws IOException {
+        end = true;
+        next = null;
+        in.close();
+    }
+
+}
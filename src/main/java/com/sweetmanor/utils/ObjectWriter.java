@@ -0,0 +1,159 @@
+package com.sweetmanor.utils;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Objects;
+
+/**
+ * 对象序列写入器：把任意数量的对象逐个写入同一个文件，不需要先把它们放进一个集合。 <br />
+ * 使用 Java 序列化时整个文件是一个 ObjectOutputStream，每写入 resetInterval 个对象调用一次 reset，
+ * 清空两端的句柄表，内存占用不随对象数量增长，同时相邻对象仍然可以共享类描述信息；
+ * 其他编解码器的每个对象独立编码。每个对象前有一个标记字节，关闭时写入结束标记。 <br />
+ * 数据先写入同目录下的临时文件，关闭时重命名为目标文件，读取方不会看到写了一半的文件；
+ * 写入失败后关闭会删除临时文件，目标文件保持不变。用 ObjectReader 读取。
+ *
+ * @param <T> 对象类型
+ * @author ijlhjj
+ * @version 1.0 2025-02-10
+ */
+public class ObjectWriter<T> implements Closeable, Flushable {
+    /**
+     * 默认每写入多少个对象重置一次句柄表
+     */
+    public static final int DEFAULT_RESET_INTERVAL = 1000;
+
+    static final byte[] MAGIC = {'S', 'O', 'B', 'J'};
+    /**
+     * 文件格式：整个文件是一个 Java 序列化流
+     */
+    static final int FORMAT_JAVA = 1;
+    /**
+     * 文件格式：每个对象由编解码器独立编码
+     */
+    static final int FORMAT_CODEC = 2;
+    static final int MARKER_OBJECT = 1;
+    static final int MARKER_END = 0;
+
+    private final Path target;
+    private final Path temp;
+    private final ObjectCodec<? super T> codec;
+    private final OutputStream out;
+    /**
+     * 使用 Java 序列化时的对象流，否则为 null
+     */
+    private final ObjectOutputStream oos;
+    private final int resetInterval;
+    private long count;
+    private boolean failed;
+    private boolean closed;
+
+    /**
+     * 创建写入器，父目录不存在时创建
+     *
+     * @param target        目标文件
+     * @param codec         编解码器
+     * @param resetInterval 使用 Java 序列化时每写入多少个对象重置一次句柄表
+     * @throws IOException 如果创建临时文件失败
+     */
+    ObjectWriter(Path target, ObjectCodec<? super T> codec, int resetInterval) throws IOException {
+        if (resetInterval < 1)
+            throw new IllegalArgumentException("Reset interval must be positive: " + resetInterval);
+        // 临时文件与链接指向的文件在同一目录，权限与目标文件一致
+        this.target = ObjectAccessUtil.resolveTarget(target);
+        this.codec = codec;
+        this.resetInterval = resetInterval;
+        this.temp = ObjectAccessUtil.createTemp(this.target);
+        try {
+            this.out = new BufferedOutputStream(Files.newOutputStream(temp), 64 * 1024);
+            out.write(MAGIC);
+            if (codec == JavaSerializationCodec.INSTANCE) {
+                out.write(FORMAT_JAVA);
+                this.oos = new ObjectOutputStream(out);
+            } else {
+                out.write(FORMAT_CODEC);
+                this.oos = null;
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
+
+    /**
+     * 写入一个对象
+     *
+     * @param object 对象，不能为 null
+     * @throws IOException 如果对象不能被编码，或者写入失败；之后的写入都会失败，关闭时丢弃临时文件
+     */
+    public void write(T object) throws IOException {
+        Objects.requireNonNull(object, "object");
+        if (closed)
+            throw new IOException("写入器已关闭");
+        if (failed)
+            throw new IOException("写入器之前的写入已失败");
+        try {
+            if (oos != null) {
+                oos.writeByte(MARKER_OBJECT);
+                oos.writeObject(object);
+                if ((count + 1) % resetInterval == 0)
+                    oos.reset();
+            } else {
+                out.write(MARKER_OBJECT);
+                codec.write(object, out);
+            }
+            count++;
+        } catch (IOException | RuntimeException e) {
+            failed = true;
+            throw e;
+        }
+    }
+
+    /**
+     * 获取已写入的对象数
+     *
+     * @return 对象数
+     */
+    public long getCount() {
+        return count;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (oos != null)
+            oos.flush();
+        out.flush();
+    }
+
+    /**
+     * 写入结束标记并重命名为目标文件；之前的写入失败时删除临时文件，目标文件保持不变
+     *
+     * @throws IOException 如果写入或者重命名失败
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed)
+            return;
+        closed = true;
+        try {
+            if (!failed) {
+                if (oos != null) {
+                    oos.writeByte(MARKER_END);
+                    oos.flush();
+                } else {
+                    out.write(MARKER_END);
+                }
+            }
+            out.close();
+        } catch (IOException e) {
+            failed = true;
+            throw e;
+        } finally {
+            if (failed)
+                Files.deleteIfExists(temp);
+        }
+        if (!failed)
+            ObjectAccessUtil.replace(temp, target);
+    }
+
+}
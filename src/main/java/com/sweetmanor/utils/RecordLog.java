@@ -0,0 +1,400 @@
+package com.sweetmanor.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import java.util.zip.CRC32C;
+
+/**
+ * 追加式记录日志：多个对象依次追加到同一个文件中，替代“一个对象一个文件”的存储方式。 <br />
+ * 每条记录为“4 字节长度 + 4 字节 CRC32C + 编码后的对象”，写入先进入内存缓冲区，缓冲区满或 flush 时再写入文件通道；
+ * 同目录下的索引文件（数据文件名加 {@value #INDEX_SUFFIX}）依次保存每条记录的 8 字节偏移量，按记录序号随机读取只需一次索引读取和一次数据读取。 <br />
+ * 打开时进行恢复：从索引中最后一条有效记录开始向后扫描数据文件，补齐索引中缺少的记录，
+ * 遇到长度越界或校验失败的记录（崩溃时未写完的尾部）时截断数据文件和索引文件。
+ * 空记录的 CRC32C 为 0，与崩溃后文件系统留下的全零尾部无法区分，因此编码结果不能为空，长度为 0 的记录视为无效。 <br />
+ * 追加方法是同步的；读取方法只在需要时刷新缓冲区，之后使用定位读取，可以与追加并发执行。
+ *
+ * @param <T> 记录的对象类型
+ * @author ijlhjj
+ * @version 1.0 2025-02-05
+ */
+public class RecordLog<T> implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(RecordLog.class);
+
+    /**
+     * 索引文件名后缀
+     */
+    public static final String INDEX_SUFFIX = ".idx";
+
+    /**
+     * 数据文件头：魔数和格式版本
+     */
+    private static final int MAGIC = 0x524C4F47;
+    private static final int VERSION = 1;
+    private static final int FILE_HEADER = 8;
+    /**
+     * 记录头：长度和校验值
+     */
+    private static final int RECORD_HEADER = 8;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path file;
+    private final ObjectCodec<T> codec;
+    private final FileChannel data;
+    private final FileChannel index;
+    private final ByteBuffer dataBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final ByteBuffer indexBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final ExposedByteArrayOutputStream encoded = new ExposedByteArrayOutputStream();
+    private final CRC32C crc = new CRC32C();
+
+    /**
+     * 数据的逻辑末尾（包含缓冲区中的数据）
+     */
+    private long end;
+    /**
+     * 记录总数（包含缓冲区中的记录）和已写入文件的记录数
+     */
+    private volatile long count;
+    private volatile long flushedCount;
+    private volatile boolean closed;
+
+    private RecordLog(Path file, ObjectCodec<T> codec, FileChannel data, FileChannel index) {
+        this.file = file;
+        this.codec = codec;
+        this.data = data;
+        this.index = index;
+    }
+
+    /**
+     * 打开记录日志，文件不存在时创建，已存在时检查并恢复
+     *
+     * @param file  数据文件
+     * @param codec 记录的编解码器
+     * @param <T>   记录的对象类型
+     * @return 记录日志
+     * @throws IOException 如果文件不是记录日志，或者发生 I/O 错误
+     */
+    public static <T> RecordLog<T> open(Path file, ObjectCodec<T> codec) throws IOException {
+        FileChannel data = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        FileChannel index = null;
+        try {
+            index = FileChannel.open(indexFile(file), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            RecordLog<T> log = new RecordLog<>(file, codec, data, index);
+            log.recover();
+            return log;
+        } catch (IOException | RuntimeException e) {
+            data.close();
+            if (index != null)
+                index.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 获取数据文件对应的索引文件
+     *
+     * @param file 数据文件
+     * @return 索引文件
+     */
+    public static Path indexFile(Path file) {
+        return file.resolveSibling(file.getFileName() + INDEX_SUFFIX);
+    }
+
+    /**
+     * 检查文件头，从索引中最后一条有效记录开始扫描数据文件，补齐索引并截断不完整的尾部
+     */
+    private void recover() throws IOException {
+        if (data.size() == 0) {
+            ByteBuffer header = ByteBuffer.allocate(FILE_HEADER).putInt(MAGIC).putInt(VERSION).flip();
+            writeFully(data, header, 0);
+            index.truncate(0);
+            end = FILE_HEADER;
+            return;
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(FILE_HEADER);
+        readFully(data, header, 0);
+        if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION)
+            throw new IOException("不是记录日志文件：" + file);
+
+        // 从后向前找到索引中最后一条完整的记录，之前的记录不再逐条校验
+        long dataSize = data.size();
+        long indexed = index.size() / 8;
+        long position = FILE_HEADER;
+        while (indexed > 0) {
+            long offset = readOffset(indexed - 1);
+            long next = offset < FILE_HEADER ? -1 : validRecordEnd(offset, dataSize);
+            if (next > 0) {
+                position = next;
+                break;
+            }
+            indexed--;
+        }
+
+        // 向后扫描索引中缺少的记录
+        long recovered = 0;
+        ByteBuffer offsets = ByteBuffer.allocate(8);
+        long next;
+        while ((next = validRecordEnd(position, dataSize)) > 0) {
+            offsets.clear().putLong(position).flip();
+            writeFully(index, offsets, indexed * 8);
+            indexed++;
+            recovered++;
+            position = next;
+        }
+
+        if (position < dataSize)
+            logger.warn("截断记录日志不完整的尾部：{}，{} 字节", file, dataSize - position);
+        if (recovered > 0)
+            logger.info("补齐记录日志索引：{}，{} 条记录", file, recovered);
+        data.truncate(position);
+        index.truncate(indexed * 8);
+        end = position;
+        count = flushedCount = indexed;
+    }
+
+    /**
+     * 校验 offset 处的记录，返回记录的结束位置，记录不完整或校验失败时返回 -1
+     */
+    private long validRecordEnd(long offset, long dataSize) throws IOException {
+        if (dataSize - offset < RECORD_HEADER)
+            return -1;
+        ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER);
+        readFully(data, header, offset);
+        int length = header.getInt(0);
+        if (length <= 0 || dataSize - offset - RECORD_HEADER < length)
+            return -1;
+        ByteBuffer payload = ByteBuffer.allocate(length);
+        readFully(data, payload, offset + RECORD_HEADER);
+        CRC32C check = new CRC32C();
+        check.update(payload.flip());
+        return (int) check.getValue() == header.getInt(4) ? offset + RECORD_HEADER + length : -1;
+    }
+
+    /**
+     * 追加一条记录
+     *
+     * @param object 要追加的对象
+     * @return 记录序号，从 0 开始
+     * @throws IOException 如果对象不能被编码或编码结果为空，或者写入失败
+     */
+    public synchronized long append(T object) throws IOException {
+        ensureOpen();
+        encoded.reset();
+        codec.write(object, encoded);
+        int length = encoded.size();
+        if (length == 0)
+            throw new IOException("记录的编码结果为空");
+        crc.reset();
+        crc.update(encoded.buffer(), 0, length);
+
+        if (dataBuffer.remaining() < RECORD_HEADER + length)
+            flushData();
+        if (dataBuffer.remaining() >= RECORD_HEADER + length) {
+            dataBuffer.putInt(length).putInt((int) crc.getValue()).put(encoded.buffer(), 0, length);
+        } else {
+            // 大于缓冲区的记录直接写入
+            ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER + length);
+            record.putInt(length).putInt((int) crc.getValue()).put(encoded.buffer(), 0, length).flip();
+            writeFully(data, record, end);
+        }
+
+        long offset = end;
+        end += RECORD_HEADER + length;
+        if (!indexBuffer.hasRemaining())
+            flush();
+        indexBuffer.putLong(offset);
+        return count++;
+    }
+
+    /**
+     * 按序号读取记录
+     *
+     * @param n 记录序号
+     * @return 记录中的对象
+     * @throws IOException               如果记录校验失败或者读取失败
+     * @throws IndexOutOfBoundsException 如果序号不存在
+     */
+    public T get(long n) throws IOException {
+        if (n < 0 || n >= count)
+            throw new IndexOutOfBoundsException("Record " + n + " out of range: " + count);
+        if (n >= flushedCount)
+            flush();
+        ensureOpen();
+
+        long offset = readOffset(n);
+        ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER);
+        readFully(data, header, offset);
+        int length = header.getInt(0);
+        if (length <= 0)
+            throw new StreamCorruptedException("记录长度错误：" + n);
+        byte[] payload = new byte[length];
+        readFully(data, ByteBuffer.wrap(payload), offset + RECORD_HEADER);
+        return decode(payload, header.getInt(4), n);
+    }
+
+    /**
+     * 获取记录总数
+     *
+     * @return 记录数
+     */
+    public long size() {
+        return count;
+    }
+
+    /**
+     * 顺序读取全部记录。流创建时的记录都会被读取，之后追加的记录不包含在内；使用完毕后必须关闭流
+     *
+     * @return 记录流
+     * @throws IOException 如果打开文件失败
+     */
+    public Stream<T> stream() throws IOException {
+        flush();
+        long total = flushedCount;
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel.position(FILE_HEADER)), BUFFER_SIZE));
+
+        Spliterator<T> spliterator = new Spliterators.AbstractSpliterator<>(total, Spliterator.ORDERED | Spliterator.SIZED | Spliterator.NONNULL) {
+            private long n;
+
+            @Override
+            public boolean tryAdvance(Consumer<? super T> action) {
+                if (n >= total)
+                    return false;
+                try {
+                    int length = in.readInt();
+                    int checksum = in.readInt();
+                    if (length < 0)
+                        throw new StreamCorruptedException("记录长度错误：" + n);
+                    byte[] payload = in.readNBytes(length);
+                    if (payload.length != length)
+                        throw new EOFException("记录不完整：" + n);
+                    action.accept(decode(payload, checksum, n++));
+                    return true;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+        return StreamSupport.stream(spliterator, false).onClose(() -> {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private T decode(byte[] payload, int checksum, long n) throws IOException {
+        CRC32C check = new CRC32C();
+        check.update(payload);
+        if ((int) check.getValue() != checksum)
+            throw new StreamCorruptedException("记录校验失败：" + n);
+        return codec.read(new ByteArrayInputStream(payload));
+    }
+
+    /**
+     * 将缓冲区中的记录和索引写入文件（不保证写入磁盘）
+     *
+     * @throws IOException 如果写入失败
+     */
+    public synchronized void flush() throws IOException {
+        ensureOpen();
+        // 先写数据再写索引，索引中的偏移量指向的数据总是已经写入
+        flushData();
+        if (indexBuffer.position() > 0) {
+            indexBuffer.flip();
+            writeFully(index, indexBuffer, flushedCount * 8);
+            indexBuffer.clear();
+        }
+        flushedCount = count;
+    }
+
+    private void flushData() throws IOException {
+        if (dataBuffer.position() == 0)
+            return;
+        dataBuffer.flip();
+        writeFully(data, dataBuffer, end - dataBuffer.remaining());
+        dataBuffer.clear();
+    }
+
+    /**
+     * 刷新缓冲区并将数据文件和索引文件强制写入磁盘
+     *
+     * @throws IOException 如果写入失败
+     */
+    public synchronized void sync() throws IOException {
+        flush();
+        data.force(false);
+        index.force(false);
+    }
+
+    /**
+     * 刷新缓冲区并关闭文件
+     *
+     * @throws IOException 如果写入失败
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed)
+            return;
+        try {
+            flush();
+        } finally {
+            closed = true;
+            try (data; index) {
+                logger.debug("关闭记录日志：{}，{} 条记录", file, count);
+            }
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed)
+            throw new IOException("记录日志已关闭：" + file);
+    }
+
+    private long readOffset(long n) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(8);
+        readFully(index, buffer, n * 8);
+        return buffer.getLong(0);
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int n = channel.read(buffer, position);
+            if (n < 0)
+                throw new EOFException("读取记录日志时到达文件末尾");
+            position += n;
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining())
+            position += channel.write(buffer, position);
+    }
+
+    /**
+     * 可以直接访问内部数组的 ByteArrayOutputStream，避免编码结果的复制
+     */
+    private static final class ExposedByteArrayOutputStream extends ByteArrayOutputStream {
+        ExposedByteArrayOutputStream() {
+            super(256);
+        }
+
+        byte[] buffer() {
+            return buf;
+        }
+    }
+
+}
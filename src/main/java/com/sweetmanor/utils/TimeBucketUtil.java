@@ -0,0 +1,337 @@
+package com.sweetmanor.utils;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+/**
+ * 时间分桶聚合工具类：按分钟、小时、天、星期对时间戳进行分组统计。 <br />
+ * 替代 DateUtil.truncate(Date, field) + HashMap&lt;Date, Long&gt; 的写法：时间戳以 long[] 传入，
+ * 通过算术运算直接计算桶下标，计数、求和、最小值、最大值全部累加到基本类型数组中，处理过程不为单个事件创建对象。 <br />
+ * 桶的划分按指定时区的本地时间（墙上时间）计算，夏令时切换日的天桶为 23 或 25 小时；
+ * 夏令时回拨时重复的本地小时会落入同一个小时桶，与按本地时间截取的语义一致。
+ *
+ * @author ijlhjj
+ * @version 1.0 2025-01-06
+ */
+public final class TimeBucketUtil {
+    /**
+     * 数组长度达到该值时使用并行计算
+     */
+    public static final int PARALLEL_THRESHOLD = 1 << 20;
+
+    private static final long MINUTE = 60_000L;
+    private static final long HOUR = 3_600_000L;
+    private static final long DAY = 86_400_000L;
+
+    /**
+     * 私有构造函数，防止类被实例化
+     */
+    private TimeBucketUtil() {
+    }
+
+    /**
+     * 按指定字段统计时间戳的个数，时区为系统默认时区，星期从周日开始
+     *
+     * @param timestamps 时间戳数组（毫秒）, not null
+     * @param field      分桶字段：Calendar.MINUTE、Calendar.HOUR_OF_DAY、Calendar.DAY_OF_MONTH、Calendar.WEEK_OF_YEAR
+     * @return 分桶统计结果
+     */
+    public static Buckets count(long[] timestamps, int field) {
+        return aggregate(timestamps, null, field, ZoneId.systemDefault(), Calendar.SUNDAY);
+    }
+
+    /**
+     * 按指定字段统计时间戳的个数，星期从周日开始
+     *
+     * @param timestamps 时间戳数组（毫秒）, not null
+     * @param field      分桶字段：Calendar.MINUTE、Calendar.HOUR_OF_DAY、Calendar.DAY_OF_MONTH、Calendar.WEEK_OF_YEAR
+     * @param zone       分桶使用的时区, not null
+     * @return 分桶统计结果
+     */
+    public static Buckets count(long[] timestamps, int field, ZoneId zone) {
+        return aggregate(timestamps, null, field, zone, Calendar.SUNDAY);
+    }
+
+    /**
+     * 按指定字段统计时间戳流的个数，星期从周日开始。流中的时间戳会先收集为数组再进行计算
+     *
+     * @param timestamps 时间戳流（毫秒）, not null
+     * @param field      分桶字段：Calendar.MINUTE、Calendar.HOUR_OF_DAY、Calendar.DAY_OF_MONTH、Calendar.WEEK_OF_YEAR
+     * @param zone       分桶使用的时区, not null
+     * @return 分桶统计结果
+     */
+    public static Buckets count(LongStream timestamps, int field, ZoneId zone) {
+        return aggregate(timestamps.toArray(), null, field, zone, Calendar.SUNDAY);
+    }
+
+    /**
+     * 按指定字段对时间戳分桶，统计每个桶内的个数，以及对应数值的和、最小值、最大值
+     *
+     * @param timestamps     时间戳数组（毫秒）, not null
+     * @param values         与时间戳一一对应的数值，为 null 时只统计个数
+     * @param field          分桶字段：Calendar.MINUTE、Calendar.HOUR_OF_DAY、Calendar.DAY_OF_MONTH、Calendar.WEEK_OF_YEAR
+     * @param zone           分桶使用的时区, not null
+     * @param firstDayOfWeek 星期的第一天，只对 Calendar.WEEK_OF_YEAR 有效，可接受以下参数： Calendar.SUNDAY - Calendar.SATURDAY
+     * @return 分桶统计结果
+     * @throws IllegalArgumentException 参数不合法或时间跨度产生的桶数过多
+     */
+    public static Buckets aggregate(long[] timestamps, long[] values, int field, ZoneId zone, int firstDayOfWeek) {
+        // 检查参数
+        if (values != null && values.length != timestamps.length)
+            throw new IllegalArgumentException("values length must equal timestamps length");
+        if (firstDayOfWeek < Calendar.SUNDAY || firstDayOfWeek > Calendar.SATURDAY)
+            throw new IllegalArgumentException("Invalid firstDayOfWeek: " + firstDayOfWeek);
+        long unit = unitOf(field);
+        // 1970-01-01 是星期四，计算星期桶时需要将纪元日平移到星期的第一天
+        int weekShift = Math.floorMod(Calendar.THURSDAY - firstDayOfWeek, 7);
+
+        if (timestamps.length == 0)
+            return new Buckets(field, zone, weekShift, 0, 0, values != null);
+
+        boolean parallel = timestamps.length >= PARALLEL_THRESHOLD;
+
+        // 第一遍：计算时间范围，用于构造时区偏移表
+        long minTs;
+        long maxTs;
+        if (parallel) {
+            minTs = Arrays.stream(timestamps).parallel().min().getAsLong();
+            maxTs = Arrays.stream(timestamps).parallel().max().getAsLong();
+        } else {
+            minTs = Long.MAX_VALUE;
+            maxTs = Long.MIN_VALUE;
+            for (long t : timestamps) {
+                minTs = Math.min(minTs, t);
+                maxTs = Math.max(maxTs, t);
+            }
+        }
+        ZoneOffsets offsets = ZoneOffsets.of(zone, minTs, maxTs);
+
+        // 第二遍：计算桶下标范围。固定偏移时下标随时间单调，直接由最小、最大时间戳得到
+        long firstIndex;
+        long lastIndex;
+        if (offsets.isFixed()) {
+            firstIndex = indexOf(minTs, offsets, unit, weekShift);
+            lastIndex = indexOf(maxTs, offsets, unit, weekShift);
+        } else {
+            IntStream range = IntStream.range(0, timestamps.length);
+            if (parallel)
+                range = range.parallel();
+            firstIndex = range.mapToLong(i -> indexOf(timestamps[i], offsets, unit, weekShift)).min().getAsLong();
+            range = IntStream.range(0, timestamps.length);
+            if (parallel)
+                range = range.parallel();
+            lastIndex = range.mapToLong(i -> indexOf(timestamps[i], offsets, unit, weekShift)).max().getAsLong();
+        }
+        long size = lastIndex - firstIndex + 1;
+        if (size > Integer.MAX_VALUE - 8)
+            throw new IllegalArgumentException("Too many buckets: " + size);
+
+        // 第三遍：累加。桶数远大于每个分片的元素数时并行合并的开销大于收益，退化为串行
+        int chunks = ForkJoinPool.getCommonPoolParallelism();
+        if (!parallel || chunks < 2 || size > timestamps.length / chunks) {
+            Buckets buckets = new Buckets(field, zone, weekShift, firstIndex, (int) size, values != null);
+            buckets.accumulate(timestamps, values, 0, timestamps.length, offsets, unit);
+            return buckets;
+        }
+
+        int chunkSize = (timestamps.length + chunks - 1) / chunks;
+        return IntStream.range(0, chunks).parallel().mapToObj(c -> {
+            Buckets partial = new Buckets(field, zone, weekShift, firstIndex, (int) size, values != null);
+            int from = c * chunkSize;
+            int to = Math.min(timestamps.length, from + chunkSize);
+            partial.accumulate(timestamps, values, from, to, offsets, unit);
+            return partial;
+        }).reduce(Buckets::merge).orElseThrow();
+    }
+
+    /**
+     * 将 Calendar 字段转换为桶的单位长度（毫秒），星期桶以天为单位再做折算
+     */
+    private static long unitOf(int field) {
+        switch (field) {
+            case Calendar.MINUTE:
+                return MINUTE;
+            case Calendar.HOUR:
+            case Calendar.HOUR_OF_DAY:
+                return HOUR;
+            case Calendar.DAY_OF_MONTH:
+            case Calendar.DAY_OF_YEAR:
+            case Calendar.DAY_OF_WEEK:
+                return DAY;
+            case Calendar.WEEK_OF_YEAR:
+            case Calendar.WEEK_OF_MONTH:
+                return 7 * DAY;
+            default:
+                throw new IllegalArgumentException("Unsupported field: " + field);
+        }
+    }
+
+    /**
+     * 计算时间戳按本地时间所在桶的绝对下标
+     */
+    private static long indexOf(long timestamp, ZoneOffsets offsets, long unit, int weekShift) {
+        long local = timestamp + offsets.offsetAt(timestamp);
+        if (unit == 7 * DAY)
+            return Math.floorDiv(Math.floorDiv(local, DAY) + weekShift, 7);
+        return Math.floorDiv(local, unit);
+    }
+
+    /**
+     * 分桶统计结果：第 i 个桶的统计值保存在各数组的第 i 个元素中，空桶的个数为 0。
+     */
+    public static final class Buckets {
+        private final int field;
+        private final ZoneId zone;
+        private final int weekShift;
+        private final long firstIndex;
+        private final long[] counts;
+        private final long[] sums;
+        private final long[] mins;
+        private final long[] maxs;
+
+        private Buckets(int field, ZoneId zone, int weekShift, long firstIndex, int size, boolean withValues) {
+            this.field = field;
+            this.zone = zone;
+            this.weekShift = weekShift;
+            this.firstIndex = firstIndex;
+            this.counts = new long[size];
+            if (withValues) {
+                this.sums = new long[size];
+                this.mins = new long[size];
+                this.maxs = new long[size];
+                Arrays.fill(mins, Long.MAX_VALUE);
+                Arrays.fill(maxs, Long.MIN_VALUE);
+            } else {
+                this.sums = null;
+                this.mins = null;
+                this.maxs = null;
+            }
+        }
+
+        /**
+         * 累加 [from, to) 范围内的时间戳
+         */
+        private void accumulate(long[] timestamps, long[] values, int from, int to, ZoneOffsets offsets, long unit) {
+            if (values == null) {
+                for (int i = from; i < to; i++)
+                    counts[(int) (indexOf(timestamps[i], offsets, unit, weekShift) - firstIndex)]++;
+                return;
+            }
+            for (int i = from; i < to; i++) {
+                int b = (int) (indexOf(timestamps[i], offsets, unit, weekShift) - firstIndex);
+                long v = values[i];
+                counts[b]++;
+                sums[b] += v;
+                mins[b] = Math.min(mins[b], v);
+                maxs[b] = Math.max(maxs[b], v);
+            }
+        }
+
+        /**
+         * 合并另一个分片的结果到当前对象
+         */
+        private Buckets merge(Buckets other) {
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] += other.counts[i];
+                if (sums != null) {
+                    sums[i] += other.sums[i];
+                    mins[i] = Math.min(mins[i], other.mins[i]);
+                    maxs[i] = Math.max(maxs[i], other.maxs[i]);
+                }
+            }
+            return this;
+        }
+
+        /**
+         * 获取桶的个数，包括中间的空桶
+         *
+         * @return 桶的个数
+         */
+        public int size() {
+            return counts.length;
+        }
+
+        /**
+         * 获取分桶字段
+         *
+         * @return Calendar 字段值
+         */
+        public int getField() {
+            return field;
+        }
+
+        /**
+         * 获取第 i 个桶的起始时间，即该桶内时间按分桶字段截取后的时间
+         *
+         * @param i 桶下标
+         * @return 起始时间（毫秒）
+         */
+        public long getStart(int i) {
+            long index = firstIndex + i;
+            long localMillis;
+            if (unitOf(field) == 7 * DAY)
+                localMillis = (index * 7 - weekShift) * DAY;
+            else
+                localMillis = index * unitOf(field);
+            LocalDateTime local = LocalDateTime.ofEpochSecond(Math.floorDiv(localMillis, 1000), 0, ZoneOffset.UTC);
+            return local.atZone(zone).toInstant().toEpochMilli();
+        }
+
+        /**
+         * 获取第 i 个桶的个数
+         *
+         * @param i 桶下标
+         * @return 个数
+         */
+        public long getCount(int i) {
+            return counts[i];
+        }
+
+        /**
+         * 获取第 i 个桶的数值之和，未传入数值时返回 0
+         *
+         * @param i 桶下标
+         * @return 数值之和
+         */
+        public long getSum(int i) {
+            return sums == null ? 0 : sums[i];
+        }
+
+        /**
+         * 获取第 i 个桶的最小值，空桶或未传入数值时返回 Long.MAX_VALUE
+         *
+         * @param i 桶下标
+         * @return 最小值
+         */
+        public long getMin(int i) {
+            return mins == null ? Long.MAX_VALUE : mins[i];
+        }
+
+        /**
+         * 获取第 i 个桶的最大值，空桶或未传入数值时返回 Long.MIN_VALUE
+         *
+         * @param i 桶下标
+         * @return 最大值
+         */
+        public long getMax(int i) {
+            return maxs == null ? Long.MIN_VALUE : maxs[i];
+        }
+
+        /**
+         * 获取所有桶的个数数组的副本
+         *
+         * @return 个数数组
+         */
+        public long[] getCounts() {
+            return counts.clone();
+        }
+
+    }
+
+}
@@ -0,0 +1,102 @@
+package com.sweetmanor.utils;
+
+import java.io.InterruptedIOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 无锁令牌桶：按 GCRA（通用信元速率算法）实现，只保存一个“理论到达时间”，每次申请通过 CAS 将其向后推进所申请字节数对应的时长，
+ * 多个线程共享同一个令牌桶时不需要加锁。 <br />
+ * 空闲时最多积累 {@value #BURST_MILLIS} 毫秒的令牌，允许短时突发；速率为 0 表示不限速。
+ *
+ * @author ijlhjj
+ * @version 1.0 2025-02-03
+ */
+final class TokenBucket {
+    /**
+     * 空闲时可积累的令牌对应的时长（毫秒）
+     */
+    static final long BURST_MILLIS = 100;
+
+    private static final long BURST_NANOS = TimeUnit.MILLISECONDS.toNanos(BURST_MILLIS);
+
+    /**
+     * 每秒字节数，0 表示不限速
+     */
+    private volatile long rate;
+    /**
+     * 理论到达时间（System.nanoTime 时间轴）：之前申请的令牌全部发放完的时刻
+     */
+    private final AtomicLong tat = new AtomicLong(System.nanoTime());
+
+    /**
+     * 构造令牌桶
+     *
+     * @param rate 每秒字节数，0 表示不限速
+     */
+    TokenBucket(long rate) {
+        setRate(rate);
+    }
+
+    long getRate() {
+        return rate;
+    }
+
+    /**
+     * 修改速率，立即生效：按旧速率预约但尚未发放的令牌作废，避免从低速切换到高速时仍需等待旧的预约
+     *
+     * @param rate 每秒字节数，0 表示不限速
+     * @throws IllegalArgumentException rate 小于 0
+     */
+    void setRate(long rate) {
+        if (rate < 0)
+            throw new IllegalArgumentException("Rate must not be negative: " + rate);
+        this.rate = rate;
+        tat.set(System.nanoTime());
+    }
+
+    /**
+     * 预约令牌，返回需要等待的纳秒数（不阻塞）
+     *
+     * @param bytes 申请的字节数
+     * @return 等待时长，0 表示可以立即使用
+     */
+    long reserve(long bytes) {
+        long rate = this.rate;
+        if (rate <= 0 || bytes <= 0)
+            return 0;
+        long cost = (long) (bytes * 1e9 / rate);
+        while (true) {
+            long now = System.nanoTime();
+            long current = tat.get();
+            // 空闲过久时从“当前时刻减去突发时长”开始计算，积累的令牌不超过突发上限
+            long base = current - (now - BURST_NANOS) > 0 ? current : now - BURST_NANOS;
+            long next = base + cost;
+            if (tat.compareAndSet(current, next))
+                return Math.max(0, next - now);
+        }
+    }
+
+    /**
+     * 申请令牌，令牌不足时阻塞等待
+     *
+     * @param bytes 申请的字节数
+     * @throws InterruptedIOException 如果等待时线程被中断
+     */
+    void acquire(long bytes) throws InterruptedIOException {
+        long wait = reserve(bytes);
+        if (wait <= 0)
+            return;
+        long deadline = System.nanoTime() + wait;
+        while (true) {
+            if (Thread.interrupted())
+                throw new InterruptedIOException("等待令牌时被中断");
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0)
+                return;
+            LockSupport.parkNanos(this, remaining);
+        }
+    }
+
+}
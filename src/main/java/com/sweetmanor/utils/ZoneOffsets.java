@@ -0,0 +1,136 @@
+package com.sweetmanor.utils;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.Arrays;
+
+/**
+ * 时区偏移表：预先计算指定时间范围内的时区偏移及其变化点，供批量时间计算使用。 <br />
+ * 构造完成后只读，查询过程不创建任何对象，可被多个线程共享。
+ *
+ * @author ijlhjj
+ * @version 1.0 2025-01-06
+ */
+final class ZoneOffsets {
+    /**
+     * 偏移生效的起始时间（毫秒），第一个元素为 Long.MIN_VALUE
+     */
+    private final long[] starts;
+    /**
+     * 对应区间内的时区偏移（毫秒）
+     */
+    private final int[] offsets;
+
+    private ZoneOffsets(long[] starts, int[] offsets) {
+        this.starts = starts;
+        this.offsets = offsets;
+    }
+
+    /**
+     * 构造覆盖 [fromMillis, toMillis] 时间范围的偏移表
+     *
+     * @param zone       时区, not null
+     * @param fromMillis 范围起始时间（毫秒）
+     * @param toMillis   范围结束时间（毫秒）
+     * @return 偏移表
+     */
+    static ZoneOffsets of(ZoneId zone, long fromMillis, long toMillis) {
+        ZoneRules rules = zone.getRules();
+        // 固定偏移时区只有一个区间
+        if (rules.isFixedOffset()) {
+            int offset = rules.getOffset(Instant.EPOCH).getTotalSeconds() * 1000;
+            return new ZoneOffsets(new long[]{Long.MIN_VALUE}, new int[]{offset});
+        }
+
+        long[] starts = new long[8];
+        int[] offsets = new int[8];
+        starts[0] = Long.MIN_VALUE;
+        offsets[0] = rules.getOffset(Instant.ofEpochMilli(fromMillis)).getTotalSeconds() * 1000;
+        int size = 1;
+
+        // 依次取出范围内的所有偏移变化点
+        ZoneOffsetTransition transition = rules.nextTransition(Instant.ofEpochMilli(fromMillis));
+        while (transition != null && transition.toEpochSecond() * 1000 <= toMillis) {
+            if (size == starts.length) {
+                starts = Arrays.copyOf(starts, size * 2);
+                offsets = Arrays.copyOf(offsets, size * 2);
+            }
+            starts[size] = transition.toEpochSecond() * 1000;
+            offsets[size] = transition.getOffsetAfter().getTotalSeconds() * 1000;
+            size++;
+            transition = rules.nextTransition(transition.getInstant());
+        }
+
+        return new ZoneOffsets(Arrays.copyOf(starts, size), Arrays.copyOf(offsets, size));
+    }
+
+    /**
+     * 是否为固定偏移（范围内没有偏移变化）
+     *
+     * @return 固定偏移返回 true
+     */
+    boolean isFixed() {
+        return starts.length == 1;
+    }
+
+    /**
+     * 获取指定时刻的时区偏移，超出构造范围时返回最近区间的偏移
+     *
+     * @param millis 时间（毫秒）
+     * @return 时区偏移（毫秒）
+     */
+    int offsetAt(long millis) {
+        return offsets[indexOf(millis)];
+    }
+
+    /**
+     * 将本地时间（以 UTC 纪元毫秒表示的墙上时间）转换为时刻。 <br />
+     * 与 GregorianCalendar 的规则一致：本地时间重复时（夏令时回拨）取较晚的时刻，
+     * 本地时间不存在时（夏令时开始）按切换前的偏移计算，即向后顺延间隔的长度。
+     *
+     * @param local 本地时间（毫秒）
+     * @return 时刻（毫秒）
+     */
+    long localToInstant(long local) {
+        if (starts.length == 1)
+            return local - offsets[0];
+
+        // 偏移最多 ±18 小时，本地时间所在区间附近的少数几个区间即可覆盖
+        int idx = indexOf(local);
+        int from = Math.max(0, idx - 2);
+        int to = Math.min(starts.length - 1, idx + 2);
+        for (int i = to; i >= from; i--) {
+            long t = local - offsets[i];
+            if (t >= starts[i] && t < next(i))
+                return t;
+        }
+        // 本地时间落在间隔中：取切换前的偏移
+        for (int i = to; i >= from; i--) {
+            long t = local - offsets[i];
+            if (t >= next(i))
+                return t;
+        }
+        return local - offsets[idx];
+    }
+
+    /**
+     * 下一个区间的起始时间，最后一个区间返回 Long.MAX_VALUE
+     */
+    private long next(int i) {
+        return i + 1 < starts.length ? starts[i + 1] : Long.MAX_VALUE;
+    }
+
+    /**
+     * 查找指定时刻所在区间的下标
+     */
+    private int indexOf(long millis) {
+        if (starts.length == 1)
+            return 0;
+        int i = Arrays.binarySearch(starts, millis);
+        // 未命中时 binarySearch 返回 -(插入点) - 1，所在区间为插入点的前一个
+        return i >= 0 ? i : -i - 2;
+    }
+
+}
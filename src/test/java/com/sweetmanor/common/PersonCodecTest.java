@@ -0,0 +1,70 @@
+package com.sweetmanor.common;
+
+import com.sweetmanor.utils.BinaryCodec;
+import com.sweetmanor.utils.JavaSerializationCodec;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PersonCodecTest {
+
+    /**
+     * 测试单个 Person 的往返：equals 和 hashCode 与原对象一致，transient 的性别不写入
+     */
+    @Test
+    void testPerson() throws IOException {
+        BinaryCodec codec = PersonCodec.newCodec();
+        for (Person person : List.of(new Person("孙悟空", 500, "男"), new Person(null, -1), new Person("", Integer.MAX_VALUE))) {
+            Person restored = (Person) codec.decode(codec.encode(person));
+            assertEquals(person, restored);
+            assertEquals(person.hashCode(), restored.hashCode());
+            assertNull(restored.getSex());
+        }
+        // 长度、类型编号、版本、姓名（长度 + 3 字节）、年龄
+        assertEquals(1 + 1 + 1 + 1 + 3 + 1, codec.encode(new Person("Tom", 25)).length);
+        assertThrows(IllegalArgumentException.class, () -> PersonCodec.register(codec));
+    }
+
+    /**
+     * 测试遇到更新的格式版本时报错
+     */
+    @Test
+    void testUnknownVersion() throws IOException {
+        BinaryCodec codec = PersonCodec.newCodec();
+        byte[] data = codec.encode(new Person("Tom", 25));
+        data[2] = (byte) (PersonCodec.VERSION + 1);
+        assertThrows(StreamCorruptedException.class, () -> codec.decode(data));
+    }
+
+    /**
+     * 测试列表的批量编码：往返一致，体积明显小于 Java 序列化的 ArrayList
+     */
+    @Test
+    void testList() throws IOException {
+        List<Person> people = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++)
+            people.add(new Person(i % 100 == 0 ? null : "name-" + i, i % 120, i % 2 == 0 ? "男" : "女"));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PersonCodec.LIST.write(people, out);
+        PersonCodec.LIST.write(List.of(), out);
+        int size = out.size();
+        ByteArrayInputStream in = new ByteArrayInputStream(out.toByteArray());
+        List<Person> restored = PersonCodec.LIST.read(in);
+        assertEquals(people, restored);
+        assertNull(restored.get(1).getSex());
+        assertTrue(PersonCodec.LIST.read(in).isEmpty());
+
+        out.reset();
+        JavaSerializationCodec.INSTANCE.write(people, out);
+        assertTrue(size < out.size() * 0.6, size + " / " + out.size());
+    }
+
+}
@@ -0,0 +1,70 @@
+package com.sweetmanor.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PersonTableTest {
+
+    /**
+     * 测试与 List&lt;Person&gt; 的相互转换，包括 null 姓名、空姓名、中文姓名和 transient 的性别
+     */
+    @Test
+    void testConversion() {
+        List<Person> people = List.of(new Person("孙悟空", 500, "男"), new Person(null, 1), new Person("", 2, "女"),
+                new Person("Alice", 25, "Female"));
+        PersonTable table = PersonTable.of(people);
+        assertEquals(4, table.size());
+        assertEquals(people, table.toList());
+        assertNull(table.getName(1));
+        assertEquals("", table.getName(2));
+        assertEquals("男", table.getSex(0));
+        assertNull(table.getSex(1));
+        assertEquals("Female", table.get(3).getSex());
+        assertThrows(IndexOutOfBoundsException.class, () -> table.getAge(4));
+        assertEquals(BitSet.valueOf(new long[]{1}), table.nameIs("孙悟空"));
+        assertEquals(BitSet.valueOf(new long[]{4}), table.nameIs(""));
+    }
+
+    /**
+     * 测试筛选和分组统计，与逐个对象计算的结果比较（跨越多个并行块）
+     */
+    @Test
+    void testQuery() {
+        Random random = new Random(7);
+        String[] sexes = {"男", "女", null};
+        List<Person> people = new ArrayList<>();
+        PersonTable table = new PersonTable();
+        for (int i = 0; i < 200_000; i++) {
+            Person person = new Person("p" + i, random.nextInt(120) - 5, sexes[random.nextInt(3)]);
+            people.add(person);
+            table.add(person);
+        }
+
+        BitSet adults = table.ageBetween(18, 60);
+        assertEquals(people.stream().filter(p -> p.getAge() >= 18 && p.getAge() <= 60).count(), adults.cardinality());
+        assertTrue(table.ageBetween(Integer.MIN_VALUE, Integer.MAX_VALUE).cardinality() == table.size());
+        assertTrue(table.ageBetween(10, 9).isEmpty());
+
+        BitSet women = table.sexIs("女");
+        women.and(adults);
+        assertEquals(people.stream().filter(p -> "女".equals(p.getSex()) && p.getAge() >= 18 && p.getAge() <= 60)
+                .collect(Collectors.toList()), table.toList(women));
+
+        Map<Integer, Long> byAge = people.stream().collect(Collectors.groupingBy(Person::getAge, Collectors.counting()));
+        assertEquals(byAge, table.countByAge(null));
+        Map<Integer, Long> adultsByAge = people.stream().filter(p -> p.getAge() >= 18 && p.getAge() <= 60)
+                .collect(Collectors.groupingBy(Person::getAge, Collectors.counting()));
+        assertEquals(adultsByAge, table.countByAge(adults));
+
+        Map<String, Long> bySex = new HashMap<>();
+        for (Person p : people)
+            bySex.merge(p.getSex(), 1L, Long::sum);
+        assertEquals(bySex, table.countBySex(null));
+        assertEquals(table.sexIs(null).cardinality(), bySex.get(null));
+    }
+
+}
@@ -0,0 +1,60 @@
+package com.sweetmanor.utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncFileUtilTest {
+
+    /**
+     * 测试异步写入、读取和拷贝：数据跨越多个缓冲区，并同时发起多个请求
+     */
+    @Test
+    void testReadWriteCopy(@TempDir Path dir) throws Exception {
+        byte[] data = new byte[1_000_000];
+        new Random(1).nextBytes(data);
+
+        List<CompletableFuture<Long>> writes = new ArrayList<>();
+        for (int i = 0; i < 8; i++)
+            writes.add(AsyncFileUtil.writeAsync(dir.resolve("sub/" + i + ".bin"), data));
+        for (CompletableFuture<Long> write : writes)
+            assertEquals(data.length, write.get());
+
+        assertArrayEquals(data, AsyncFileUtil.readAllAsync(dir.resolve("sub/3.bin")).get());
+        assertEquals(data.length, AsyncFileUtil.copyAsync(dir.resolve("sub/3.bin"), dir.resolve("copy/3.bin")).get());
+        assertArrayEquals(data, Files.readAllBytes(dir.resolve("copy/3.bin")));
+
+        // 直接缓冲区写入，覆盖已存在的文件
+        ByteBuffer direct = ByteBuffer.allocateDirect(10).put(new byte[]{1, 2, 3}).flip();
+        assertEquals(3, AsyncFileUtil.writeAsync(dir.resolve("copy/3.bin"), direct).get());
+        assertArrayEquals(new byte[]{1, 2, 3}, AsyncFileUtil.readAllAsync(dir.resolve("copy/3.bin")).get());
+
+        // 空文件
+        assertEquals(0, AsyncFileUtil.writeAsync(dir.resolve("empty"), new byte[0]).get());
+        assertEquals(0, AsyncFileUtil.readAllAsync(dir.resolve("empty")).get().length);
+    }
+
+    /**
+     * 测试文件不存在时 Future 异常完成
+     */
+    @Test
+    void testMissingFile(@TempDir Path dir) {
+        ExecutionException e = assertThrows(ExecutionException.class, () -> AsyncFileUtil.readAllAsync(dir.resolve("none")).get());
+        assertInstanceOf(NoSuchFileException.class, e.getCause());
+        e = assertThrows(ExecutionException.class, () -> AsyncFileUtil.copyAsync(dir.resolve("none"), dir.resolve("b")).get());
+        assertInstanceOf(IOException.class, e.getCause());
+    }
+
+}
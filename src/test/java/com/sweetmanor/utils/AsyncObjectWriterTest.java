@@ -0,0 +1,147 @@
+package com.sweetmanor.utils;
+
+import com.sweetmanor.common.Person;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncObjectWriterTest {
+
+    /**
+     * 写入 "block" 时等待放行的编解码器，用于让后台线程停在一次写入上
+     */
+    private static final class BlockingCodec implements ObjectCodec<Object> {
+        final BinaryCodec codec = BinaryCodecTest.personCodec();
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        @Override
+        public void write(Object object, OutputStream out) throws IOException {
+            if ("error".equals(object))
+                throw new StackOverflowError("deep object graph");
+            if ("block".equals(object)) {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+            }
+            codec.write(object, out);
+        }
+
+        @Override
+        public Object read(InputStream in) throws IOException {
+            return codec.read(in);
+        }
+    }
+
+    /**
+     * 测试同一文件等待中的写入被合并，只写入最后一个版本；同一文件正在写入时新的写入排在其后
+     */
+    @Test
+    void testCoalesce(@TempDir Path dir) throws Exception {
+        BlockingCodec codec = new BlockingCodec();
+        try (AsyncObjectWriter<Object> writer = new AsyncObjectWriter<>(codec, 2)) {
+            CompletableFuture<Void> blocked = writer.write("block", dir.resolve("a"));
+            codec.started.await();
+            CompletableFuture<Void> first = writer.write(new Person("v1", 1), dir.resolve("a"));
+            for (int i = 2; i <= 5; i++)
+                assertSame(first, writer.write(new Person("v" + i, i), dir.resolve("a")));
+            assertEquals(4, writer.getCoalescedCount());
+            // 另一个线程可以写其他文件，但不会抢先写 a
+            writer.write(new Person("b", 0), dir.resolve("b")).get(5, TimeUnit.SECONDS);
+            assertFalse(first.isDone());
+
+            codec.release.countDown();
+            first.get(5, TimeUnit.SECONDS);
+            assertTrue(blocked.isDone());
+            assertEquals(3, writer.getWrittenCount());
+        }
+        assertEquals(new Person("v5", 5), ObjectAccessUtil.readFromFile(dir.resolve("a").toFile(), codec));
+    }
+
+    /**
+     * 测试编码时抛出 Error：Future 异常完成，后台线程继续处理后续写入
+     */
+    @Test
+    void testError(@TempDir Path dir) throws Exception {
+        BlockingCodec codec = new BlockingCodec();
+        try (AsyncObjectWriter<Object> writer = new AsyncObjectWriter<>(codec)) {
+            CompletableFuture<Void> failed = writer.write("error", dir.resolve("a"));
+            ExecutionException e = assertThrows(ExecutionException.class, () -> failed.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(StackOverflowError.class, e.getCause());
+            writer.write("ok", dir.resolve("a")).get(5, TimeUnit.SECONDS);
+            writer.flush();
+        }
+        assertEquals("ok", ObjectAccessUtil.readFromFile(dir.resolve("a").toFile(), codec));
+    }
+
+    /**
+     * 测试三种溢出策略
+     */
+    @Test
+    void testOverflowPolicies(@TempDir Path dir) throws Exception {
+        BlockingCodec codec = new BlockingCodec();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try (AsyncObjectWriter<Object> writer = new AsyncObjectWriter<>(codec).capacity(2)) {
+            writer.write("block", dir.resolve("blocked"));
+            codec.started.await();
+            CompletableFuture<Void> x = writer.write("x", dir.resolve("x"));
+            writer.write("y", dir.resolve("y"));
+
+            writer.policy(AsyncObjectWriter.OverflowPolicy.FAIL);
+            assertThrows(RejectedExecutionException.class, () -> writer.write("z", dir.resolve("z")));
+            // 合并不占用容量
+            writer.write("y2", dir.resolve("y"));
+
+            writer.policy(AsyncObjectWriter.OverflowPolicy.DROP_OLDEST);
+            writer.write("z", dir.resolve("z"));
+            assertThrows(CancellationException.class, x::join);
+            assertEquals(1, writer.getDroppedCount());
+
+            writer.policy(AsyncObjectWriter.OverflowPolicy.BLOCK);
+            Future<CompletableFuture<Void>> w = executor.submit(() -> writer.write("w", dir.resolve("w")));
+            assertThrows(TimeoutException.class, () -> w.get(200, TimeUnit.MILLISECONDS));
+            codec.release.countDown();
+            w.get(5, TimeUnit.SECONDS);
+
+            writer.flush();
+            assertEquals(0, writer.getPendingCount());
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals("y2", ObjectAccessUtil.readFromFile(dir.resolve("y").toFile(), codec));
+        assertEquals("w", ObjectAccessUtil.readFromFile(dir.resolve("w").toFile(), codec));
+        assertFalse(dir.resolve("x").toFile().exists());
+    }
+
+    /**
+     * 测试编码失败时 Future 异常完成；关闭时写完全部等待中的对象，之后拒绝写入
+     */
+    @Test
+    void testFailureAndClose(@TempDir Path dir) throws Exception {
+        BinaryCodec codec = BinaryCodecTest.personCodec();
+        AsyncObjectWriter<Object> writer = new AsyncObjectWriter<>(codec).durable(true);
+        CompletableFuture<Void> failed = writer.write(new Object(), dir.resolve("bad"));
+        assertThrows(ExecutionException.class, () -> failed.get(5, TimeUnit.SECONDS));
+        assertFalse(dir.resolve("bad").toFile().exists());
+
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[100];
+        for (int i = 0; i < futures.length; i++)
+            futures[i] = writer.write(new Person("p" + i, i), dir.resolve("p/" + i));
+        writer.close();
+        for (CompletableFuture<?> future : futures)
+            assertTrue(future.isDone() && !future.isCompletedExceptionally());
+        assertEquals(new Person("p99", 99), ObjectAccessUtil.readFromFile(dir.resolve("p/99").toFile(), codec));
+        assertThrows(IllegalStateException.class, () -> writer.write("x", dir.resolve("x")));
+    }
+
+}
@@ -0,0 +1,98 @@
+package com.sweetmanor.utils;
+
+import com.sweetmanor.common.Person;
+import com.sweetmanor.common.PersonCodec;
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinaryCodecTest {
+
+    /**
+     * 注册 Person 类型，使用 PersonCodec 的格式（编号 16，不写入 transient 的 sex 字段）
+     */
+    static BinaryCodec personCodec() {
+        return PersonCodec.newCodec();
+    }
+
+    /**
+     * 测试内置类型、注册类型和嵌套对象的编解码，以及连续写入多个对象后逐个读取
+     */
+    @Test
+    void testRoundTrip() throws IOException {
+        BinaryCodec codec = personCodec().register(17, Pair.class,
+                (p, out) -> {
+                    out.writeObject(p.first);
+                    out.writeObject(p.second);
+                },
+                in -> new Pair(in.readObject(), in.readObject()));
+
+        List<Object> values = Arrays.asList("孙悟空", "", null, 0, -1, Integer.MIN_VALUE, Long.MAX_VALUE, -3.5, true,
+                new byte[]{1, 2, 3}, new Person("唐僧", 30, "男"), new Person(null, -5),
+                new Pair(123456789L, new Pair("key", new Person("八戒", 1000))));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (Object value : values)
+            codec.write(value, out);
+
+        ByteArrayInputStream in = new ByteArrayInputStream(out.toByteArray());
+        List<Object> restored = new ArrayList<>();
+        for (int i = 0; i < values.size(); i++)
+            restored.add(codec.read(in));
+        assertEquals(0, in.available());
+
+        assertArrayEquals((byte[]) values.get(9), (byte[]) restored.get(9));
+        restored.set(9, values.get(9));
+        assertEquals(values, restored);
+        assertNull(((Person) restored.get(10)).getSex());
+
+        // 小整数和短字符串只占几个字节：长度、类型编号、格式版本、字段
+        assertEquals(3, codec.encode(-1).length);
+        assertEquals(1 + 1 + 1 + 1 + 3 + 1, codec.encode(new Person("Tom", 25)).length);
+    }
+
+    /**
+     * 测试未注册类型、重复注册以及损坏的数据
+     */
+    @Test
+    void testErrors() throws IOException {
+        BinaryCodec codec = personCodec();
+        assertThrows(NotSerializableException.class, () -> codec.encode(new Object()));
+        assertThrows(IllegalArgumentException.class, () -> codec.register(3, Object.class, (v, out) -> {
+        }, in -> null));
+        assertThrows(IllegalArgumentException.class, () -> codec.register(16, Object.class, (v, out) -> {
+        }, in -> null));
+        assertThrows(IllegalArgumentException.class, () -> codec.register(20, Person.class, (v, out) -> {
+        }, in -> null));
+        assertTrue(codec.isRegistered(Person.class));
+
+        byte[] data = codec.encode(new Person("Tom", 25));
+        assertThrows(EOFException.class, () -> codec.decode(Arrays.copyOf(data, data.length - 1)));
+        assertThrows(StreamCorruptedException.class, () -> new BinaryCodec().decode(data));
+    }
+
+    static final class Pair {
+        final Object first;
+        final Object second;
+
+        Pair(Object first, Object second) {
+            this.first = first;
+            this.second = second;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Pair && ((Pair) obj).first.equals(first) && ((Pair) obj).second.equals(second);
+        }
+
+        @Override
+        public int hashCode() {
+            return first.hashCode() * 31 + second.hashCode();
+        }
+    }
+
+}
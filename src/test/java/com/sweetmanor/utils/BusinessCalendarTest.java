@@ -0,0 +1,109 @@
+package com.sweetmanor.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BusinessCalendarTest {
+
+    /**
+     * 测试从文件加载节假日和调休上班日
+     */
+    @Test
+    void testLoad() throws IOException {
+        Path file = Files.createTempFile("holidays-", ".txt");
+        try {
+            Files.write(file, Arrays.asList(
+                    "# 2024 国庆节",
+                    "2024-10-01",
+                    "2024-10-02 休",
+                    "2024-10-03 holiday",
+                    "2024-10-12 班",
+                    ""), StandardCharsets.UTF_8);
+            BusinessCalendar calendar = BusinessCalendar.load(file);
+
+            assertEquals(LocalDate.of(2024, 1, 1), calendar.getFirstDate());
+            assertEquals(LocalDate.of(2024, 12, 31), calendar.getLastDate());
+            assertFalse(calendar.isBusinessDay(LocalDate.of(2024, 10, 1)));
+            assertFalse(calendar.isBusinessDay(LocalDate.of(2024, 10, 3)));
+            assertTrue(calendar.isBusinessDay(LocalDate.of(2024, 10, 4)));
+            // 周六调休上班
+            assertTrue(calendar.isBusinessDay(LocalDate.of(2024, 10, 12)));
+            // 普通周日
+            assertFalse(calendar.isBusinessDay(LocalDate.of(2024, 10, 13)));
+
+            // 9 月 30 日（周一）之后的第 1 个工作日为 10 月 4 日
+            assertEquals(LocalDate.of(2024, 10, 4), calendar.addBusinessDays(LocalDate.of(2024, 9, 30), 1));
+            assertEquals(LocalDate.of(2024, 9, 30), calendar.addBusinessDays(LocalDate.of(2024, 10, 4), -1));
+
+            // 格式错误
+            Files.write(file, Collections.singletonList("2024-10-01 x"), StandardCharsets.UTF_8);
+            assertThrows(IllegalArgumentException.class, () -> BusinessCalendar.load(file));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * 与逐日循环的计算结果进行对比
+     */
+    @Test
+    void testAgainstIteration() {
+        Random random = new Random(1);
+        Set<LocalDate> holidays = new HashSet<>();
+        for (int i = 0; i < 200; i++)
+            holidays.add(LocalDate.of(2020, 1, 1).plusDays(random.nextInt(365 * 5)));
+        BusinessCalendar calendar = BusinessCalendar.of(2020, 2024, holidays, Collections.emptyList());
+
+        for (int i = 0; i < 500; i++) {
+            LocalDate start = LocalDate.of(2020, 7, 1).plusDays(random.nextInt(365 * 4 - 180));
+            int amount = random.nextInt(200) - 100;
+
+            // 逐日循环计算期望值
+            LocalDate expected = start;
+            int step = amount > 0 ? 1 : -1;
+            for (int n = Math.abs(amount); n > 0; ) {
+                expected = expected.plusDays(step);
+                if (isWeekday(expected) && !holidays.contains(expected))
+                    n--;
+            }
+            assertEquals(expected, calendar.addBusinessDays(start, amount));
+
+            int count = 0;
+            for (LocalDate d = start; d.isBefore(expected); d = d.plusDays(1))
+                if (isWeekday(d) && !holidays.contains(d))
+                    count++;
+            if (!expected.isBefore(start))
+                assertEquals(count, calendar.businessDaysBetween(start, expected));
+        }
+    }
+
+    /**
+     * 测试边界情况
+     */
+    @Test
+    void testRange() {
+        BusinessCalendar calendar = BusinessCalendar.of(2025, 2025);
+        // 2025 年共 261 个工作日（不含节假日）
+        assertEquals(261, calendar.businessDaysBetween(LocalDate.of(2025, 1, 1), LocalDate.of(2026, 1, 1)));
+        assertEquals(-261, calendar.businessDaysBetween(LocalDate.of(2026, 1, 1), LocalDate.of(2025, 1, 1)));
+        assertEquals(LocalDate.of(2025, 12, 31), calendar.addBusinessDays(LocalDate.of(2025, 1, 1), 260));
+
+        assertThrows(IllegalArgumentException.class, () -> calendar.isBusinessDay(LocalDate.of(2024, 12, 31)));
+        assertThrows(IllegalArgumentException.class, () -> calendar.addBusinessDays(LocalDate.of(2025, 12, 31), 1));
+        assertThrows(IllegalArgumentException.class, () -> BusinessCalendar.of(2025, 2024));
+    }
+
+    private static boolean isWeekday(LocalDate date) {
+        return date.getDayOfWeek() != DayOfWeek.SATURDAY && date.getDayOfWeek() != DayOfWeek.SUNDAY;
+    }
+
+}
@@ -0,0 +1,128 @@
+package com.sweetmanor.utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Enumeration;
+import java.util.Random;
+import java.util.zip.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompressUtilTest {
+
+    /**
+     * 测试并行 gzip：结果可以被 GZIPInputStream 解压，并行解压结果与原数据一致
+     */
+    @Test
+    void testGzip() throws IOException {
+        byte[] data = sample(CompressUtil.BLOCK_SIZE * 3 + 12345);
+
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        CompressUtil.gzip(new ByteArrayInputStream(data), compressed, 6, 3);
+        assertTrue(compressed.size() < data.length);
+
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed.toByteArray()))) {
+            assertArrayEquals(data, in.readAllBytes());
+        }
+        ByteArrayOutputStream restored = new ByteArrayOutputStream();
+        CompressUtil.gunzip(new ByteArrayInputStream(compressed.toByteArray()), restored, 3);
+        assertArrayEquals(data, restored.toByteArray());
+
+        // 空数据
+        compressed.reset();
+        CompressUtil.gzip(new ByteArrayInputStream(new byte[0]), compressed, -1, 1);
+        restored.reset();
+        CompressUtil.gunzip(new ByteArrayInputStream(compressed.toByteArray()), restored, 1);
+        assertEquals(0, restored.size());
+
+        // 损坏的数据
+        compressed.reset();
+        CompressUtil.gzip(new ByteArrayInputStream(data), compressed, 1, 2);
+        byte[] corrupted = compressed.toByteArray();
+        corrupted[corrupted.length / 2] ^= 0x55;
+        assertThrows(ZipException.class, () -> CompressUtil.gunzip(new ByteArrayInputStream(corrupted), new ByteArrayOutputStream(), 2));
+
+        // 尾部的长度被改大：按实际解压出的数据分配缓冲区，报告长度不一致
+        compressed.reset();
+        CompressUtil.gzip(new ByteArrayInputStream(sample(1000)), compressed, -1, 1);
+        byte[] oversized = compressed.toByteArray();
+        oversized[oversized.length - 1] = 0x7f;
+        assertThrows(ZipException.class, () -> CompressUtil.gunzip(new ByteArrayInputStream(oversized), new ByteArrayOutputStream(), 1));
+    }
+
+    /**
+     * 测试解压普通的 gzip 数据，以及在本工具生成的数据后追加普通 gzip 成员
+     */
+    @Test
+    void testGunzipStandard() throws IOException {
+        byte[] data = sample(100_000);
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        CompressUtil.gzip(new ByteArrayInputStream(data), compressed, -1, 2);
+        try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+            out.write(data);
+        }
+
+        ByteArrayOutputStream restored = new ByteArrayOutputStream();
+        CompressUtil.gunzip(new ByteArrayInputStream(compressed.toByteArray()), restored, 2);
+        assertEquals(data.length * 2, restored.size());
+    }
+
+    /**
+     * 测试并行 zip：ZipFile 可以读取所有条目，内容与源文件一致
+     */
+    @Test
+    void testZip(@TempDir Path dir) throws IOException {
+        Path source = Files.createDirectory(dir.resolve("source"));
+        FileUtilTest.createTree(source, 2);
+        Files.write(source.resolve("d1/big.bin"), sample(300_000));
+        // 超过块大小的文件按块流式压缩
+        Files.write(source.resolve("d1/huge.bin"), sample(CompressUtil.BLOCK_SIZE * 3 + 777));
+
+        Path zipFile = dir.resolve("a.zip");
+        CompressUtil.zip(source, zipFile, 9, 3);
+
+        int count = 0;
+        try (ZipFile zip = new ZipFile(zipFile.toFile())) {
+            Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                assertArrayEquals(Files.readAllBytes(source.resolve(entry.getName())), zip.getInputStream(entry).readAllBytes());
+                count++;
+            }
+            assertNotNull(zip.getEntry("d1/big.bin"));
+            assertEquals(CompressUtil.BLOCK_SIZE * 3 + 777, zip.getEntry("d1/huge.bin").getSize());
+        }
+        assertEquals(FileUtil.countFiles(source.toFile()), count);
+
+        // 顺序读取本地文件头，包括使用数据描述符的条目
+        try (ZipInputStream in = new ZipInputStream(Files.newInputStream(zipFile))) {
+            ZipEntry entry = in.getNextEntry();
+            assertEquals("d0/d0/f0.txt", entry.getName());
+            assertEquals(Files.size(source.resolve("d0/d0/f0.txt")), in.readAllBytes().length);
+            int sequential = 1;
+            while ((entry = in.getNextEntry()) != null) {
+                assertArrayEquals(Files.readAllBytes(source.resolve(entry.getName())), in.readAllBytes());
+                sequential++;
+            }
+            assertEquals(count, sequential);
+        }
+    }
+
+    /**
+     * 生成部分可压缩的数据
+     */
+    private static byte[] sample(int size) {
+        byte[] data = new byte[size];
+        Random random = new Random(1);
+        for (int i = 0; i < size; i++)
+            data[i] = (byte) (i % 1000 < 500 ? 'a' + random.nextInt(4) : random.nextInt());
+        return data;
+    }
+
+}
@@ -0,0 +1,124 @@
+package com.sweetmanor.utils;
+
+import com.sweetmanor.common.Person;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.DataFormatException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompressedCodecTest {
+
+    /**
+     * 测试两种算法的往返、多块对象的并行压缩，以及同一个流中连续读写多个对象
+     */
+    @Test
+    void testRoundTrip() throws IOException {
+        byte[] big = sample(5 << 20);
+        for (CompressedCodec.Algorithm algorithm : CompressedCodec.Algorithm.values()) {
+            CompressedCodec<Object> codec = new CompressedCodec<Object>(BinaryCodecTest.personCodec())
+                    .algorithm(algorithm).blockSize(64 * 1024).parallelism(4);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            codec.write(new Person("孙悟空", 500), out);
+            codec.write(big, out);
+            codec.write("tail", out);
+            assertTrue(out.size() < big.length / 2, algorithm + " " + out.size());
+
+            ByteArrayInputStream in = new ByteArrayInputStream(out.toByteArray());
+            assertEquals(new Person("孙悟空", 500), codec.read(in));
+            assertArrayEquals(big, (byte[]) codec.read(in));
+            assertEquals("tail", codec.read(in));
+            assertEquals(-1, in.read());
+        }
+    }
+
+    /**
+     * 测试 LZ4 在边界长度和不可压缩数据上的往返
+     */
+    @Test
+    void testLz4EdgeCases() throws DataFormatException {
+        Random random = new Random(42);
+        for (int length : new int[]{0, 1, 4, 5, 12, 13, 14, 15, 16, 255, 270, 65536, 70000}) {
+            byte[] repeated = new byte[length];
+            Arrays.fill(repeated, (byte) 'a');
+            byte[] noise = new byte[length];
+            random.nextBytes(noise);
+            for (byte[] src : new byte[][]{repeated, noise, sample(length)}) {
+                byte[] compressed = new byte[Lz4Block.maxCompressedLength(length)];
+                int n = Lz4Block.compress(src, 0, length, compressed, 0);
+                byte[] restored = new byte[length];
+                Lz4Block.decompress(Arrays.copyOf(compressed, n), 0, n, restored, 0, length);
+                assertArrayEquals(src, restored, "length " + length);
+            }
+        }
+    }
+
+    /**
+     * 测试读取未压缩的数据：不以魔数开头时直接交给被包装的编解码器
+     */
+    @Test
+    void testPlainData() throws IOException {
+        BinaryCodec binary = BinaryCodecTest.personCodec();
+        CompressedCodec<Object> codec = new CompressedCodec<>(binary);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        binary.write(1, out);
+        binary.write(new Person("a", 1), out);
+        codec.write("compressed", out);
+
+        ByteArrayInputStream in = new ByteArrayInputStream(out.toByteArray());
+        assertEquals(1, codec.read(in));
+        assertEquals(new Person("a", 1), codec.read(in));
+        assertEquals("compressed", codec.read(in));
+
+        Person person = new Person("猪八戒", 300);
+        assertEquals(person, new CompressedCodec<>(JavaSerializationCodec.INSTANCE)
+                .read(new ByteArrayInputStream(encode(JavaSerializationCodec.INSTANCE, person))));
+    }
+
+    /**
+     * 测试数据损坏和截断时抛出 IOException
+     */
+    @Test
+    void testCorruption() throws IOException {
+        for (CompressedCodec.Algorithm algorithm : CompressedCodec.Algorithm.values()) {
+            CompressedCodec<Object> codec = new CompressedCodec<Object>(BinaryCodecTest.personCodec()).algorithm(algorithm);
+            byte[] data = encode(codec, sample(100_000));
+            byte[] corrupted = data.clone();
+            corrupted[data.length / 2] ^= 0x55;
+            assertThrows(IOException.class, () -> codec.read(new ByteArrayInputStream(corrupted)));
+            assertThrows(IOException.class, () -> codec.read(new ByteArrayInputStream(data, 0, data.length - 10)));
+
+            // 块的原始长度超过上限时在分配前报错
+            byte[] oversized = data.clone();
+            oversized[6] = 0x7f;
+            assertThrows(IOException.class, () -> codec.read(new ByteArrayInputStream(oversized)));
+        }
+        assertThrows(IllegalArgumentException.class,
+                () -> new CompressedCodec<>(JavaSerializationCodec.INSTANCE).blockSize(CompressedCodec.MAX_BLOCK_SIZE + 1));
+    }
+
+    /**
+     * 生成可压缩的测试数据：随机选取的单词
+     */
+    static byte[] sample(int length) {
+        String[] words = {"alpha ", "beta ", "gamma ", "delta ", "孙悟空 ", "猪八戒 ", "0123456789 "};
+        Random random = new Random(length);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(length + 32);
+        while (out.size() < length)
+            out.writeBytes(words[random.nextInt(words.length)].getBytes(StandardCharsets.UTF_8));
+        return Arrays.copyOf(out.toByteArray(), length);
+    }
+
+    private static <T> byte[] encode(ObjectCodec<T> codec, T object) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        codec.write(object, out);
+        return out.toByteArray();
+    }
+
+}
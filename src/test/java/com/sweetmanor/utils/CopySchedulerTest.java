@@ -0,0 +1,80 @@
+package com.sweetmanor.utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CopySchedulerTest {
+
+    /**
+     * 测试限速：两个并发拷贝共享全局速率，总耗时不少于 (总字节数 - 突发量) / 速率
+     */
+    @Test
+    void testRateLimit(@TempDir Path dir) throws Exception {
+        byte[] data = new byte[300_000];
+        new Random(1).nextBytes(data);
+        Path a = Files.write(dir.resolve("a.bin"), data);
+        Path b = Files.write(dir.resolve("b.bin"), data);
+
+        long start = System.nanoTime();
+        try (CopyScheduler scheduler = new CopyScheduler(2).rate(1_000_000)) {
+            CopyScheduler.Job jobA = scheduler.submit(a, dir.resolve("out/a.bin"));
+            CopyScheduler.Job jobB = scheduler.submit(b, dir.resolve("out/b.bin"));
+            assertEquals(data.length, jobA.getFuture().get());
+            assertEquals(data.length, jobB.getFuture().get());
+            assertEquals(0, jobA.getEtaMillis());
+
+            CopyScheduler.Metrics metrics = scheduler.getMetrics();
+            assertEquals(2, metrics.getCompleted());
+            assertEquals(2L * data.length, metrics.getBytes());
+            assertEquals(0, metrics.getPendingBytes());
+        }
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        assertTrue(elapsedMillis >= 450, "elapsed " + elapsedMillis);
+        assertArrayEquals(data, Files.readAllBytes(dir.resolve("out/b.bin")));
+    }
+
+    /**
+     * 测试优先级和取消：单个工作线程时高优先级的任务先执行，取消的任务不产生目标文件
+     */
+    @Test
+    void testPriority(@TempDir Path dir) throws IOException {
+        Path source = Files.write(dir.resolve("a.bin"), new byte[200_000]);
+        Path out = Files.createDirectory(dir.resolve("out"));
+        List<String> order = new CopyOnWriteArrayList<>();
+
+        try (CopyScheduler scheduler = new CopyScheduler(1).rate(1_000_000)) {
+            CopyScheduler.Job first = scheduler.submit(source, out.resolve("first"));
+            CopyScheduler.Job low = scheduler.submit(source, out.resolve("low"), -1);
+            CopyScheduler.Job high = scheduler.submit(source, out.resolve("high"), 10);
+            CopyScheduler.Job cancelled = scheduler.submit(source, out.resolve("cancelled"), -5);
+            for (CopyScheduler.Job job : List.of(first, low, high))
+                job.getFuture().thenRun(() -> order.add(job.getTarget().getFileName().toString()));
+
+            assertTrue(cancelled.cancel());
+            assertTrue(cancelled.getFuture().isCancelled());
+            assertTrue(scheduler.getMetrics().getPendingBytes() > 0);
+            // 提高速率后剩余任务很快完成
+            scheduler.rate(0);
+        }
+
+        assertTrue(order.indexOf("high") < order.indexOf("low"), order.toString());
+        assertEquals(3, order.size());
+        assertFalse(Files.exists(out.resolve("cancelled")));
+        try (var files = Files.list(out)) {
+            assertEquals(3, files.count());
+        }
+        try (CopyScheduler scheduler = new CopyScheduler(1)) {
+            assertThrows(IOException.class, () -> scheduler.submit(dir.resolve("none"), out));
+        }
+    }
+
+}
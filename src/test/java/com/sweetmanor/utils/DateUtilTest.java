@@ -2,8 +2,13 @@ package com.sweetmanor.utils;
 
 import org.junit.jupiter.api.Test;
 
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.Random;
+import java.util.TimeZone;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -157,4 +162,82 @@ class DateUtilTest {
         }
     }
 
+    /**
+     * 测试批量日期计算与逐个 Date 计算的结果一致（系统默认时区）
+     */
+    @Test
+    void testArrayKernels() {
+        Random random = new Random(11);
+        long[] src = random.longs(5000, 0, 4_000_000_000_000L).toArray();
+        long[] dst = new long[src.length];
+        ZoneId zone = ZoneId.systemDefault();
+
+        DateUtil.addDays(src, 45, dst);
+        for (int i = 0; i < src.length; i++)
+            assertEquals(DateUtil.addDays(new Date(src[i]), 45).getTime(), dst[i]);
+
+        DateUtil.startOfDay(src, zone, dst);
+        for (int i = 0; i < src.length; i++)
+            assertEquals(DateUtil.setBeginTime(new Date(src[i])).getTime(), dst[i]);
+
+        DateUtil.endOfDay(src, zone, dst);
+        for (int i = 0; i < src.length; i++)
+            assertEquals(DateUtil.setEndTime(new Date(src[i])).getTime(), dst[i]);
+
+        DateUtil.endOfMonth(src, zone, dst);
+        for (int i = 0; i < src.length; i++)
+            assertEquals(DateUtil.setEndTime(DateUtil.getLastDayOfMonth(new Date(src[i]))).getTime(), dst[i]);
+
+        // dst 长度不足
+        assertThrows(IllegalArgumentException.class, () -> DateUtil.addDays(src, 1, new long[1]));
+    }
+
+    /**
+     * 测试夏令时时区的批量日期计算与 Calendar 的结果一致
+     */
+    @Test
+    void testArrayKernelsWithDaylightSaving() {
+        ZoneId zone = ZoneId.of("America/New_York");
+        TimeZone timeZone = TimeZone.getTimeZone(zone);
+        Random random = new Random(12);
+        long[] src = random.longs(5000, 1_600_000_000_000L, 1_800_000_000_000L).toArray();
+        // 加入夏令时切换附近的时间
+        src[0] = ZonedDateTime.of(2024, 3, 10, 1, 30, 0, 0, zone).toInstant().toEpochMilli();
+        src[1] = ZonedDateTime.of(2024, 11, 3, 1, 30, 0, 0, zone).toInstant().toEpochMilli();
+        src[2] = ZonedDateTime.of(2024, 3, 9, 2, 30, 0, 0, zone).toInstant().toEpochMilli();
+        src[3] = ZonedDateTime.of(2024, 11, 6, 1, 30, 0, 0, zone).toInstant().toEpochMilli();
+        long[] dst = src.clone();
+
+        for (int days : new int[]{-3, 1}) {
+            DateUtil.addDays(src, days, zone, dst);
+            for (int i = 0; i < src.length; i++) {
+                Calendar cal = Calendar.getInstance(timeZone);
+                cal.setTimeInMillis(src[i]);
+                cal.add(Calendar.DAY_OF_MONTH, days);
+                assertEquals(cal.getTimeInMillis(), dst[i]);
+            }
+        }
+
+        DateUtil.startOfDay(src, zone, dst);
+        for (int i = 0; i < src.length; i++)
+            assertEquals(Instant.ofEpochMilli(src[i]).atZone(zone).toLocalDate().atStartOfDay(zone).toInstant().toEpochMilli(), dst[i]);
+
+        DateUtil.endOfMonth(src, zone, dst);
+        for (int i = 0; i < src.length; i++) {
+            Calendar cal = Calendar.getInstance(timeZone);
+            cal.setTimeInMillis(src[i]);
+            cal.set(Calendar.DAY_OF_MONTH, cal.getActualMaximum(Calendar.DAY_OF_MONTH));
+            cal.set(Calendar.HOUR_OF_DAY, 23);
+            cal.set(Calendar.MINUTE, 59);
+            cal.set(Calendar.SECOND, 59);
+            assertEquals(cal.getTimeInMillis(), dst[i]);
+        }
+
+        // 原地计算
+        long[] copy = src.clone();
+        DateUtil.startOfDay(copy, zone, copy);
+        DateUtil.startOfDay(src, zone, dst);
+        assertArrayEquals(dst, copy);
+    }
+
 }
@@ -0,0 +1,127 @@
+package com.sweetmanor.utils;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class DirectoryIndexTest {
+
+    /**
+     * 测试索引的统计、查询以及文件变化后的增量更新
+     */
+    @Test
+    void testIndex(@TempDir Path temp) throws IOException, InterruptedException {
+        Path root = Files.createDirectory(temp.resolve("root"));
+        FileUtilTest.createTree(root, 2);
+
+        try (DirectoryIndex index = new DirectoryIndex(root).start()) {
+            assertStats(FileUtil.stat(root.toFile()), index.stat());
+            assertStats(FileUtil.stat(root.resolve("d1").toFile()), index.stat("d1"));
+
+            FileQuery query = new FileQuery().minSize(100);
+            List<Path> expected;
+            try (Stream<Path> files = FileUtil.streamFiles(root, query)) {
+                expected = files.sorted().collect(Collectors.toList());
+            }
+            assertEquals(expected, index.getFiles(query));
+
+            // 新增文件和目录、删除目录
+            Files.write(root.resolve("new.txt"), new byte[10]);
+            Path dir = Files.createDirectories(root.resolve("d0/new"));
+            Files.write(dir.resolve("a.txt"), new byte[20]);
+            FileUtils.deleteDirectory(root.resolve("d1/d0").toFile());
+
+            FileUtil.DirStats actual = FileUtil.stat(root.toFile());
+            awaitStats(index, actual);
+            assertStats(actual, index.stat());
+            assertTrue(index.getFiles(new FileQuery().glob("a.txt")).contains(dir.resolve("a.txt")));
+        }
+    }
+
+    /**
+     * 测试持久化：重新打开时直接加载保存的索引，并在后台同步期间的变化
+     */
+    @Test
+    void testPersist(@TempDir Path temp) throws IOException, InterruptedException {
+        Path root = Files.createDirectory(temp.resolve("root"));
+        FileUtilTest.createTree(root, 2);
+        Path file = temp.resolve("index.bin");
+
+        FileUtil.DirStats before = FileUtil.stat(root.toFile());
+        try (DirectoryIndex index = new DirectoryIndex(root).persistTo(file).start()) {
+            assertEquals(1, index.getScanCount());
+        }
+        assertTrue(Files.isRegularFile(file));
+
+        // 索引关闭期间的变化
+        Files.write(root.resolve("new.txt"), new byte[10]);
+
+        try (DirectoryIndex index = new DirectoryIndex(root).persistTo(file).start()) {
+            awaitStats(index, FileUtil.stat(root.toFile()));
+            assertEquals(before.getFiles() + 1, index.countFiles());
+            assertEquals(1, index.getScanCount());
+        }
+    }
+
+    /**
+     * 测试符号链接：与 FileUtil.stat 一致，通过链接到达的目录再统计一次，指向祖先目录的链接被跳过；
+     * 链接目录中的变化同时更新两个路径下的索引
+     */
+    @Test
+    void testSymbolicLinks(@TempDir Path temp) throws IOException, InterruptedException {
+        Path root = Files.createDirectory(temp.resolve("root"));
+        Path dir = Files.createDirectory(root.resolve("a"));
+        Files.write(dir.resolve("f.txt"), new byte[100]);
+        try {
+            Files.createSymbolicLink(root.resolve("link"), dir);
+            Files.createSymbolicLink(dir.resolve("loop"), root);
+        } catch (UnsupportedOperationException | IOException e) {
+            assumeTrue(false, "不支持符号链接");
+        }
+
+        try (DirectoryIndex index = new DirectoryIndex(root).start()) {
+            FileUtil.DirStats expected = FileUtil.stat(root.toFile());
+            assertEquals(2, expected.getFiles());
+            assertStats(expected, index.stat());
+            // 两个路径下的子树相同，其中指向根目录的 loop 被跳过
+            assertStats(new FileUtil.DirStats(1, 0, 100), index.stat("link"));
+            assertStats(index.stat("a"), index.stat("link"));
+
+            Files.write(dir.resolve("g.txt"), new byte[10]);
+            awaitStats(index, FileUtil.stat(root.toFile()));
+            assertEquals(2, index.getFiles(new FileQuery().glob("g.txt")).size());
+        }
+    }
+
+    /**
+     * 等待索引与磁盘一致，最多等待 10 秒，超时时报告最后一次的统计结果
+     */
+    private static void awaitStats(DirectoryIndex index, FileUtil.DirStats expected) throws InterruptedException {
+        FileUtil.DirStats stats = index.stat();
+        for (int i = 0; i < 200; i++) {
+            stats = index.stat();
+            if (stats.getFiles() == expected.getFiles() && stats.getDirs() == expected.getDirs()
+                    && stats.getBytes() == expected.getBytes())
+                return;
+            Thread.sleep(50);
+        }
+        fail("索引未与磁盘同步，期望 " + expected + "，实际 " + stats);
+    }
+
+    private static void assertStats(FileUtil.DirStats expected, FileUtil.DirStats actual) {
+        assertEquals(expected.getFiles(), actual.getFiles());
+        assertEquals(expected.getDirs(), actual.getDirs());
+        assertEquals(expected.getBytes(), actual.getBytes());
+    }
+
+}
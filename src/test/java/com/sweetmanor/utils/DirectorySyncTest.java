@@ -0,0 +1,116 @@
+package com.sweetmanor.utils;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class DirectorySyncTest {
+
+    /**
+     * 测试增量同步：首次全部拷贝，之后只拷贝变化的文件，并删除多余的文件
+     */
+    @Test
+    void testSync(@TempDir Path temp) throws IOException {
+        Path source = Files.createDirectory(temp.resolve("source"));
+        FileUtilTest.createTree(source, 3);
+        Path target = temp.resolve("target");
+
+        DirectorySync.Result result = FileUtil.syncDirectory(source.toFile(), target.toFile(), true);
+        assertEquals(45, result.getCopied());
+        assertEquals(0, result.getSkipped());
+        assertEquals(FileUtils.sizeOfDirectory(source.toFile()), result.getBytes());
+        assertTrue(Files.isRegularFile(target.resolve(DirectorySync.STATE_FILE)));
+
+        // 未变化时全部跳过
+        result = FileUtil.syncDirectory(source.toFile(), target.toFile(), true);
+        assertEquals(0, result.getCopied());
+        assertEquals(45, result.getSkipped());
+
+        // 修改、新增、删除文件
+        Files.write(source.resolve("d0/f1.txt"), "changed".getBytes());
+        Files.write(source.resolve("d1/new.txt"), "new".getBytes());
+        FileUtils.deleteDirectory(source.resolve("d0/d1").toFile());
+        Files.write(target.resolve("extra.txt"), new byte[1]);
+
+        result = FileUtil.syncDirectory(source.toFile(), target.toFile(), true);
+        assertEquals(2, result.getCopied());
+        assertEquals(35, result.getSkipped());
+        // d0/d1 目录及其中的 3 个文件、2 个子目录，子目录中各 3 个文件，加上 extra.txt
+        assertEquals(1 + 3 + 2 + 2 * 3 + 1, result.getDeleted());
+        assertEquals("changed", new String(Files.readAllBytes(target.resolve("d0/f1.txt"))));
+        assertFalse(Files.exists(target.resolve("d0/d1")));
+        assertFalse(Files.exists(target.resolve("extra.txt")));
+        assertEquals(FileUtil.stat(source.toFile()).getFiles() + 1, FileUtil.stat(target.toFile()).getFiles());
+    }
+
+    /**
+     * 测试内容校验：大小相同、修改时间不同而内容相同的文件不重新拷贝，只更新修改时间
+     */
+    @Test
+    void testVerifyContent(@TempDir Path temp) throws IOException {
+        Path source = Files.createDirectory(temp.resolve("source"));
+        Path target = temp.resolve("target");
+        Files.write(source.resolve("a.txt"), "hello".getBytes());
+        Files.write(source.resolve("b.txt"), "world".getBytes());
+
+        DirectorySync sync = new DirectorySync().verifyContent(true).concurrency(2);
+        assertEquals(2, sync.sync(source, target).getCopied());
+
+        FileTime time = FileTime.fromMillis(1_600_000_000_000L);
+        Files.setLastModifiedTime(source.resolve("a.txt"), time);
+        Files.write(source.resolve("b.txt"), "WORLD".getBytes());
+        Files.setLastModifiedTime(source.resolve("b.txt"), time);
+
+        DirectorySync.Result result = sync.sync(source, target);
+        assertEquals(1, result.getCopied());
+        assertEquals(1, result.getSkipped());
+        assertEquals(time, Files.getLastModifiedTime(target.resolve("a.txt")));
+        assertEquals("WORLD", new String(Files.readAllBytes(target.resolve("b.txt"))));
+
+        // 同步到自身的子目录
+        assertThrows(IOException.class, () -> sync.sync(source, source.resolve("sub")));
+    }
+
+    /**
+     * 测试符号链接：跟随链接到的目录和文件，链接目标变化时重新拷贝，循环链接被跳过
+     */
+    @Test
+    void testSymbolicLinks(@TempDir Path temp) throws IOException {
+        Path source = Files.createDirectory(temp.resolve("source"));
+        Path target = temp.resolve("target");
+        Path outside = Files.createDirectory(temp.resolve("outside"));
+        Files.write(outside.resolve("a.txt"), "hello".getBytes());
+        Path file = Files.write(temp.resolve("file.txt"), "one".getBytes());
+        try {
+            Files.createSymbolicLink(source.resolve("dir"), outside);
+            Files.createSymbolicLink(source.resolve("link.txt"), file);
+            Files.createSymbolicLink(outside.resolve("loop"), source);
+        } catch (UnsupportedOperationException | IOException e) {
+            assumeTrue(false, "不支持符号链接");
+        }
+
+        DirectorySync sync = new DirectorySync();
+        DirectorySync.Result result = sync.sync(source, target);
+        assertEquals(2, result.getCopied());
+        assertEquals("hello", new String(Files.readAllBytes(target.resolve("dir/a.txt"))));
+        assertFalse(Files.isSymbolicLink(target.resolve("link.txt")));
+        assertFalse(Files.exists(target.resolve("dir/loop")));
+
+        // 链接本身不变，只修改链接目标
+        Files.write(file, "two".getBytes());
+        Files.setLastModifiedTime(file, FileTime.fromMillis(1_600_000_000_000L));
+        result = sync.sync(source, target);
+        assertEquals(1, result.getCopied());
+        assertEquals(1, result.getSkipped());
+        assertEquals("two", new String(Files.readAllBytes(target.resolve("link.txt"))));
+    }
+
+}
@@ -0,0 +1,80 @@
+package com.sweetmanor.utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DiskUsageTest {
+
+    /**
+     * 测试汇总树、最大深度和最大的 N 个目录与文件
+     */
+    @Test
+    void testScan(@TempDir Path dir) throws IOException {
+        FileUtilTest.createTree(dir, 3);
+        Files.write(dir.resolve("d1/d1/big.bin"), new byte[10_000]);
+
+        FileUtil.DirStats stats = FileUtil.stat(dir.toFile());
+        DiskUsage.Result result = FileUtil.diskUsage(dir.toFile());
+        DiskUsage.Node root = result.getRoot();
+        assertEquals(stats.getFiles(), root.getFiles());
+        assertEquals(stats.getDirs(), root.getDirs());
+        assertEquals(stats.getBytes(), root.getBytes());
+
+        // 子目录按大小排列，各子目录之和加上根目录下的文件等于总数
+        List<DiskUsage.Node> children = root.getChildren();
+        assertEquals(dir.resolve("d1"), children.get(0).getPath());
+        assertEquals(FileUtil.stat(dir.resolve("d1").toFile()).getBytes(), children.get(0).getBytes());
+        assertEquals(root.getFiles() - 3, children.get(0).getFiles() + children.get(1).getFiles());
+
+        assertEquals(10, result.getLargestDirs().size());
+        assertEquals(dir.resolve("d1"), result.getLargestDirs().get(0).getPath());
+        assertEquals(dir.resolve("d1/d1"), result.getLargestDirs().get(1).getPath());
+        assertEquals(dir.resolve("d1/d1/big.bin"), result.getLargestFiles().get(0).getPath());
+        assertEquals(10_000, result.getLargestFiles().get(0).getBytes());
+
+        // 限制深度后只保留一层子目录，统计结果不变
+        result = new DiskUsage().maxDepth(1).topN(3).scan(dir);
+        assertEquals(stats.getBytes(), result.getRoot().getBytes());
+        assertEquals(2, result.getRoot().getChildren().size());
+        assertTrue(result.getRoot().getChildren().get(0).getChildren().isEmpty());
+        assertEquals(3, result.getLargestDirs().size());
+        assertEquals(3, result.getLargestFiles().size());
+    }
+
+    /**
+     * 测试硬链接只统计一次，以及是否跟随符号链接
+     */
+    @Test
+    void testLinks(@TempDir Path dir) throws IOException {
+        Path sub = Files.createDirectories(dir.resolve("a/b"));
+        Files.write(sub.resolve("f.txt"), new byte[100]);
+        try {
+            Files.createLink(dir.resolve("a/hard.txt"), sub.resolve("f.txt"));
+            Files.createSymbolicLink(dir.resolve("link"), dir.resolve("a"));
+            Files.createSymbolicLink(sub.resolve("loop"), dir.resolve("a"));
+        } catch (UnsupportedOperationException | IOException e) {
+            // 不支持链接的系统跳过
+            return;
+        }
+
+        DiskUsage.Node root = new DiskUsage().scan(dir).getRoot();
+        // 两个符号链接按文件统计
+        assertEquals(3, root.getFiles());
+        assertEquals(2, root.getDirs());
+        assertEquals(100 + Files.readSymbolicLink(dir.resolve("link")).toString().length() * 2L, root.getBytes());
+
+        // 跟随链接：a 只统计一次，循环被跳过
+        root = new DiskUsage().followLinks(true).scan(dir).getRoot();
+        assertEquals(1, root.getFiles());
+        assertEquals(2, root.getDirs());
+        assertEquals(100, root.getBytes());
+    }
+
+}
@@ -0,0 +1,56 @@
+package com.sweetmanor.utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DuplicateFinderTest {
+
+    /**
+     * 测试分阶段查找：首尾相同而中间不同的文件不是重复文件，硬链接不计为重复
+     */
+    @Test
+    void testFind(@TempDir Path temp) throws IOException {
+        Random random = new Random(1);
+        byte[] big = new byte[(1 << 20) + 100];
+        random.nextBytes(big);
+        Files.write(temp.resolve("big1.bin"), big);
+        Files.createDirectory(temp.resolve("sub"));
+        Files.write(temp.resolve("sub/big2.bin"), big);
+        // 只修改中间的一个字节
+        big[big.length / 2]++;
+        Files.write(temp.resolve("big3.bin"), big);
+
+        Files.write(temp.resolve("a.txt"), "hello".getBytes());
+        Files.write(temp.resolve("sub/b.txt"), "hello".getBytes());
+        Files.write(temp.resolve("c.txt"), "world".getBytes());
+        Files.write(temp.resolve("empty1.txt"), new byte[0]);
+        Files.write(temp.resolve("empty2.txt"), new byte[0]);
+        Files.createLink(temp.resolve("link.txt"), temp.resolve("c.txt"));
+
+        DuplicateFinder.Result result = FileUtil.findDuplicates(temp.toFile());
+        assertEquals(9, result.getFiles());
+        assertEquals(2, result.getGroups().size());
+        assertEquals(Set.of(temp.resolve("big1.bin"), temp.resolve("sub/big2.bin")), Set.copyOf(result.getGroups().get(0)));
+        assertEquals(Set.of(temp.resolve("a.txt"), temp.resolve("sub/b.txt")), Set.copyOf(result.getGroups().get(1)));
+        assertEquals(2, result.getDuplicates());
+        assertEquals(big.length + 5, result.getWastedBytes());
+
+        // 大文件读取首尾各 4KB 后完整读取，3 个 5 字节的小文件只读取一次
+        assertEquals(3L * 2 * 4096 + 3L * big.length + 3 * 5, result.getBytesRead());
+
+        // 空文件参与比较
+        List<List<Path>> groups = new DuplicateFinder().minSize(0).sampleSize(16).find(temp).getGroups();
+        assertEquals(3, groups.size());
+        assertThrows(IllegalArgumentException.class, () -> new DuplicateFinder().sampleSize(0));
+    }
+
+}
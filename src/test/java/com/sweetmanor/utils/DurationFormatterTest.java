@@ -0,0 +1,75 @@
+package com.sweetmanor.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DurationFormatterTest {
+
+    /**
+     * 测试中英文单位表的格式化结果
+     */
+    @Test
+    void testFormat() {
+        long millis = 34218061001L;
+        assertEquals("1年 1月 1日 1时 1分 1秒 1毫秒", DurationFormatter.CHINESE.format(millis));
+        assertEquals("1y 1mo 1d 1h 1m 1s 1ms", DurationFormatter.ENGLISH.format(millis));
+        assertEquals("", DurationFormatter.ENGLISH.format(0));
+
+        assertSame(DurationFormatter.CHINESE, DurationFormatter.getInstance(Locale.SIMPLIFIED_CHINESE));
+        assertSame(DurationFormatter.ENGLISH, DurationFormatter.getInstance(Locale.US));
+
+        assertThrows(IllegalArgumentException.class, () -> DurationFormatter.CHINESE.format(-1));
+    }
+
+    /**
+     * 测试精度：只输出最大的 N 个非零单位
+     */
+    @Test
+    void testPrecision() {
+        // 1 年 5 日 3 时
+        long millis = 370L * 86_400_000L + 3 * 3_600_000L + 1234;
+        assertEquals("1年 5日 ", DurationFormatter.CHINESE.withPrecision(2).format(millis));
+        assertEquals("1y ", DurationFormatter.ENGLISH.withPrecision(1).format(millis));
+        assertThrows(IllegalArgumentException.class, () -> DurationFormatter.CHINESE.withPrecision(0));
+    }
+
+    /**
+     * 测试追加到已有的 StringBuilder 和 Appendable
+     */
+    @Test
+    void testFormatTo() throws IOException {
+        StringBuilder sb = new StringBuilder("耗时：");
+        DurationFormatter.CHINESE.formatTo(61_001, sb);
+        assertEquals("耗时：1分 1秒 1毫秒", sb.toString());
+
+        StringWriter writer = new StringWriter();
+        DurationFormatter.ENGLISH.formatTo(1_234_567_890L, writer);
+        assertEquals(DurationFormatter.ENGLISH.format(1_234_567_890L), writer.toString());
+    }
+
+    /**
+     * 测试解析：格式化后再解析应得到原值
+     */
+    @Test
+    void testParse() {
+        Random random = new Random(3);
+        for (int i = 0; i < 1000; i++) {
+            long millis = Math.abs(random.nextLong() % (1000L * 365 * 86_400_000L));
+            assertEquals(millis, DurationFormatter.CHINESE.parse(DurationFormatter.CHINESE.format(millis)));
+            assertEquals(millis, DurationFormatter.ENGLISH.parse(DurationFormatter.ENGLISH.format(millis)));
+        }
+
+        assertEquals(0, DurationFormatter.CHINESE.parse(""));
+        assertEquals(1001, DurationFormatter.CHINESE.parse("1秒1毫秒"));
+        assertEquals(90_000, DurationFormatter.ENGLISH.parse("1m 30s"));
+        assertThrows(IllegalArgumentException.class, () -> DurationFormatter.ENGLISH.parse("1 week"));
+        assertThrows(IllegalArgumentException.class, () -> DurationFormatter.ENGLISH.parse("h"));
+    }
+
+}
@@ -0,0 +1,72 @@
+package com.sweetmanor.utils;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileCopierTest {
+
+    /**
+     * 测试目录拷贝：内容、修改时间与源目录一致，并报告进度
+     */
+    @Test
+    void testCopyDirectory(@TempDir Path temp) throws IOException {
+        Path source = Files.createDirectory(temp.resolve("source"));
+        FileUtilTest.createTree(source, 3);
+        FileTime time = FileTime.fromMillis(1_600_000_000_000L);
+        Files.setLastModifiedTime(source.resolve("f1.txt"), time);
+
+        AtomicInteger calls = new AtomicInteger();
+        Path target = temp.resolve("target");
+        FileCopier.Progress progress = new FileCopier().concurrency(3).listener(p -> calls.incrementAndGet()).copy(source, target);
+
+        assertEquals(45, progress.getFiles());
+        assertEquals(FileUtils.sizeOfDirectory(source.toFile()), progress.getBytes());
+        assertEquals(45, calls.get());
+        assertTrue(FileUtils.contentEquals(source.resolve("d1/d0/f2.txt").toFile(), target.resolve("d1/d0/f2.txt").toFile()));
+        assertEquals(time, Files.getLastModifiedTime(target.resolve("f1.txt")));
+        assertEquals(FileUtil.stat(source.toFile()).getDirs(), FileUtil.stat(target.toFile()).getDirs());
+
+        // 再次拷贝覆盖已存在的文件
+        Files.write(target.resolve("f2.txt"), new byte[1]);
+        new FileCopier().copy(source, target);
+        assertEquals(Files.size(source.resolve("f2.txt")), Files.size(target.resolve("f2.txt")));
+    }
+
+    /**
+     * 测试单个文件拷贝以及不合法的拷贝
+     */
+    @Test
+    void testCopyFile(@TempDir Path temp) throws IOException {
+        Path source = temp.resolve("a.txt");
+        Files.write(source, "hello".getBytes());
+        Path dir = Files.createDirectory(temp.resolve("dir"));
+
+        // 拷贝到目录
+        new FileCopier().copy(source, dir);
+        assertEquals("hello", new String(Files.readAllBytes(dir.resolve("a.txt"))));
+
+        // 拷贝为文件
+        new FileCopier().copy(source, temp.resolve("b.txt"));
+        assertEquals("hello", new String(Files.readAllBytes(temp.resolve("b.txt"))));
+
+        // 目录不能拷贝到文件或自身的子目录
+        assertThrows(IOException.class, () -> new FileCopier().copy(dir, source));
+        assertThrows(IOException.class, () -> new FileCopier().copy(temp, dir));
+        assertThrows(IllegalArgumentException.class, () -> new FileCopier().concurrency(0));
+
+        // 文件不能拷贝到自身，包括拷贝到所在的目录，原文件保持不变
+        assertThrows(IOException.class, () -> new FileCopier().copy(source, source));
+        assertThrows(IOException.class, () -> FileUtil.copyFile(source.toFile(), temp.toFile()));
+        assertEquals("hello", new String(Files.readAllBytes(source)));
+    }
+
+}
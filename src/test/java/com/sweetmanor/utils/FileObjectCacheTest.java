@@ -0,0 +1,83 @@
+package com.sweetmanor.utils;
+
+import com.sweetmanor.common.Person;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileObjectCacheTest {
+
+    /**
+     * 测试命中、文件变化后重新加载、复制函数，以及按权重淘汰
+     */
+    @Test
+    void testCache(@TempDir Path dir) throws IOException {
+        BinaryCodec codec = BinaryCodecTest.personCodec();
+        FileObjectCache cache = new FileObjectCache().codec(codec);
+        Path a = dir.resolve("a");
+        ObjectAccessUtil.writeToFile(new Person("a", 1), a.toFile(), codec);
+
+        Object first = cache.get(a);
+        assertSame(first, cache.get(a));
+        assertSame(first, cache.get(dir.resolve("./a")));
+        assertEquals(2, cache.getStats().getHits());
+        assertEquals(1, cache.getStats().getMisses());
+
+        // 原子替换写入后重新加载
+        ObjectAccessUtil.writeToFile(new Person("b", 2), a.toFile(), codec);
+        assertEquals(new Person("b", 2), cache.get(a));
+        // 原地修改且大小不变，只有修改时间变化
+        Files.write(a, codec.encode(new Person("c", 3)));
+        Files.setLastModifiedTime(a, FileTime.fromMillis(System.currentTimeMillis() + 10_000));
+        assertEquals(new Person("c", 3), cache.get(a));
+        assertEquals(3, cache.getStats().getMisses());
+
+        // 复制函数
+        cache.copier(value -> {
+            Person p = (Person) value;
+            return new Person(p.getName(), p.getAge());
+        });
+        Person copy = (Person) cache.get(a);
+        copy.setAge(100);
+        assertEquals(3, ((Person) cache.get(a)).getAge());
+
+        // 权重上限：只能容纳一个文件
+        long size = Files.size(a);
+        cache.maxWeight(size);
+        Path b = dir.resolve("b");
+        ObjectAccessUtil.writeToFile(new Person("d", 4), b.toFile(), codec);
+        cache.get(b);
+        assertEquals(1, cache.getStats().getSize());
+        assertEquals(1, cache.getStats().getEvictions());
+
+        Files.delete(b);
+        assertThrows(NoSuchFileException.class, () -> cache.get(b));
+        cache.invalidate(b);
+        assertEquals(0, cache.getStats().getSize());
+    }
+
+    /**
+     * 测试 ObjectAccessUtil.readCached 使用全局缓存
+     */
+    @Test
+    void testReadCached(@TempDir Path dir) {
+        File file = dir.resolve("p").toFile();
+        ObjectAccessUtil.writeToFile(new Person("孙悟空", 500), file);
+        long hits = ObjectAccessUtil.getCache().getStats().getHits();
+
+        Object first = ObjectAccessUtil.readCached(file);
+        assertEquals(new Person("孙悟空", 500), first);
+        assertSame(first, ObjectAccessUtil.readCached(file));
+        assertEquals(hits + 1, ObjectAccessUtil.getCache().getStats().getHits());
+        assertNull(ObjectAccessUtil.readCached(dir.resolve("none").toFile()));
+    }
+
+}
@@ -1,6 +1,20 @@
 package com.sweetmanor.utils;
 
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.filefilter.DirectoryFileFilter;
+import org.apache.commons.io.filefilter.TrueFileFilter;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -45,4 +59,150 @@ class FileUtilTest {
         assertEquals("", baseName);
     }
 
+    /**
+     * 测试目录统计：串行与并行结果一致，并与 commons-io 的结果一致
+     */
+    @Test
+    void testCount(@TempDir Path dir) throws IOException {
+        // 构造目录树：3 层目录，每个目录 3 个文件
+        createTree(dir, 3);
+
+        int files = FileUtils.listFiles(dir.toFile(), null, true).size();
+        int dirs = FileUtils.listFilesAndDirs(dir.toFile(), DirectoryFileFilter.INSTANCE, TrueFileFilter.INSTANCE).size() - 1;
+        assertEquals(files, FileUtil.countFiles(dir.toFile()));
+        assertEquals(dirs, FileUtil.countDirs(dir.toFile()));
+        assertEquals(files + dirs, FileUtil.countDirAndFiles(dir.toFile()));
+
+        FileUtil.DirStats serial = FileUtil.stat(dir.toFile());
+        FileUtil.DirStats parallel = FileUtil.stat(dir.toFile(), true);
+        assertEquals(files, parallel.getFiles());
+        assertEquals(dirs, parallel.getDirs());
+        assertEquals(FileUtils.sizeOfDirectory(dir.toFile()), serial.getBytes());
+        assertEquals(serial.getBytes(), parallel.getBytes());
+
+        // 文件或不存在的路径返回 0
+        assertEquals(0, FileUtil.countFiles(dir.resolve("f0.txt").toFile()));
+        assertEquals(0, FileUtil.countDirs(dir.resolve("none").toFile()));
+    }
+
+    /**
+     * 测试符号链接循环不会导致无限遍历
+     */
+    @Test
+    void testCountWithLinkLoop(@TempDir Path dir) throws IOException {
+        Path sub = Files.createDirectories(dir.resolve("a/b"));
+        Files.write(sub.resolve("f.txt"), new byte[10]);
+        try {
+            Files.createSymbolicLink(sub.resolve("loop"), dir.resolve("a"));
+        } catch (UnsupportedOperationException | IOException e) {
+            // 不支持符号链接的系统跳过
+            return;
+        }
+
+        assertEquals(1, FileUtil.stat(dir.toFile()).getFiles());
+        assertEquals(1, FileUtil.stat(dir.toFile(), true).getFiles());
+        assertEquals(2, FileUtil.stat(dir.toFile(), true).getDirs());
+    }
+
+    /**
+     * 测试查找指定类型文件，与 commons-io 的结果一致
+     */
+    @Test
+    void testGetFiles(@TempDir Path dir) throws IOException {
+        createTree(dir, 2);
+        Files.write(dir.resolve("d0/a.tar.gz"), new byte[1]);
+
+        for (boolean recursive : new boolean[]{true, false}) {
+            for (String[] extensions : new String[][]{null, {"txt"}, {"gz"}, {"tar.gz", "none"}}) {
+                Set<File> expected = new HashSet<>(FileUtils.listFiles(dir.toFile(), extensions, recursive));
+                Set<File> actual = new HashSet<>(Arrays.asList(FileUtil.getFiles(dir.toFile(), extensions, recursive)));
+                assertEquals(expected, actual);
+            }
+        }
+    }
+
+    /**
+     * 测试惰性文件流的过滤条件和并行遍历
+     */
+    @Test
+    void testStreamFiles(@TempDir Path dir) throws IOException {
+        createTree(dir, 3);
+        // 每个目录包含大小为 depth、100 + depth、200 + depth 的文件各一个，共 15 个目录
+        try (Stream<Path> files = FileUtil.streamFiles(dir, new FileQuery().minSize(100).maxSize(199))) {
+            assertEquals(15, files.count());
+        }
+        try (Stream<Path> files = FileUtil.streamFiles(dir, new FileQuery().glob("f0.*"))) {
+            assertEquals(15, files.count());
+        }
+        try (Stream<Path> files = FileUtil.streamFiles(dir, new FileQuery().glob("d0/*.txt"))) {
+            assertEquals(3, files.count());
+        }
+        try (Stream<Path> files = FileUtil.streamFiles(dir, new FileQuery().modifiedAfter(System.currentTimeMillis() + 60_000))) {
+            assertEquals(0, files.count());
+        }
+
+        // 并行遍历结果与串行一致
+        Set<Path> serial;
+        try (Stream<Path> files = FileUtil.streamFiles(dir, new FileQuery())) {
+            serial = files.collect(Collectors.toSet());
+        }
+        try (Stream<Path> files = FileUtil.streamFiles(dir, new FileQuery()).parallel()) {
+            List<Path> parallel = files.collect(Collectors.toList());
+            assertEquals(45, parallel.size());
+            assertEquals(serial, new HashSet<>(parallel));
+        }
+
+        // 流是惰性的：只取第一个文件
+        try (Stream<Path> files = FileUtil.streamFiles(dir, new FileQuery())) {
+            assertTrue(files.findFirst().isPresent());
+        }
+        assertEquals(0, FileUtil.streamFiles(dir.resolve("none"), new FileQuery()).count());
+    }
+
+    /**
+     * 测试并行读取文本行：分块很小时结果仍与 Files.readAllLines 一致
+     */
+    @Test
+    void testLines(@TempDir Path dir) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 1000; i++)
+            sb.append("第").append(i).append("行 line").append(i % 7 == 0 ? "" : "x".repeat(i % 50)).append(i % 3 == 0 ? "\r\n" : "\n");
+        sb.append("\n最后一行没有换行符");
+        Path file = dir.resolve("a.log");
+        Files.writeString(file, sb, StandardCharsets.UTF_8);
+        List<String> expected = Files.readAllLines(file, StandardCharsets.UTF_8);
+
+        for (long chunkSize : new long[]{1, 64, 4096, FileUtil.LINE_CHUNK_SIZE}) {
+            try (Stream<LineSlice> lines = FileUtil.lines(file, StandardCharsets.UTF_8, chunkSize)) {
+                assertEquals(expected, lines.map(LineSlice::toString).collect(Collectors.toList()));
+            }
+        }
+
+        // 按块处理：统计换行符个数
+        LongAdder newlines = new LongAdder();
+        FileUtil.forEachChunk(file, 100, chunk -> {
+            for (int i = chunk.position(); i < chunk.limit(); i++)
+                if (chunk.get(i) == '\n')
+                    newlines.increment();
+        });
+        assertEquals(expected.size() - 1, newlines.sum());
+
+        assertThrows(IllegalArgumentException.class, () -> FileUtil.lines(file, StandardCharsets.UTF_16));
+        try (Stream<LineSlice> lines = FileUtil.lines(Files.createFile(dir.resolve("empty.log")), StandardCharsets.UTF_8)) {
+            assertEquals(0, lines.count());
+        }
+    }
+
+    /**
+     * 在 dir 下递归创建 depth 层子目录，每个目录包含 3 个文件
+     */
+    static void createTree(Path dir, int depth) throws IOException {
+        for (int i = 0; i < 3; i++)
+            Files.write(dir.resolve("f" + i + ".txt"), new byte[i * 100 + depth]);
+        if (depth == 0)
+            return;
+        for (int i = 0; i < 2; i++)
+            createTree(Files.createDirectory(dir.resolve("d" + i)), depth - 1);
+    }
+
 }
@@ -0,0 +1,128 @@
+package com.sweetmanor.utils;
+
+import com.sweetmanor.common.Person;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GroupCommitWriterTest {
+
+    /**
+     * 测试并发写入被合并为少量批次，同一文件的多次写入以最后一次为准，不留下临时文件
+     */
+    @Test
+    void testGroupCommit(@TempDir Path dir) throws Exception {
+        BinaryCodec codec = BinaryCodecTest.personCodec();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try (GroupCommitWriter<Object> writer = new GroupCommitWriter<>(codec).window(50).maxBatch(1000)) {
+            List<CompletableFuture<Void>> futures = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                int n = i;
+                futures.add(executor.submit(() -> writer.write(new Person("name-" + n, n), dir.resolve("d" + n % 4 + "/" + n))).get());
+            }
+            // 同一个文件的连续写入
+            futures.add(writer.write(new Person("first", 1), dir.resolve("same")));
+            futures.add(writer.write(new Person("last", 2), dir.resolve("same")));
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).get();
+
+            assertEquals(202, writer.getCommitCount());
+            assertTrue(writer.getBatchCount() < 50, "batches " + writer.getBatchCount());
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(new Person("name-123", 123), ObjectAccessUtil.readFromFile(dir.resolve("d3/123").toFile(), codec));
+        assertEquals(new Person("last", 2), ObjectAccessUtil.readFromFile(dir.resolve("same").toFile(), codec));
+        try (Stream<Path> files = Files.walk(dir)) {
+            assertEquals(201, files.filter(Files::isRegularFile).count());
+        }
+    }
+
+    /**
+     * 测试编码失败时 Future 异常完成，目标文件保持不变；关闭前排队的写入全部提交
+     */
+    @Test
+    void testFailureAndClose(@TempDir Path dir) throws Exception {
+        BinaryCodec codec = BinaryCodecTest.personCodec();
+        GroupCommitWriter<Object> writer = new GroupCommitWriter<>(codec).window(1000);
+        writer.write(new Person("old", 1), dir.resolve("a")).get();
+
+        CompletableFuture<Void> failed = writer.write(new Object(), dir.resolve("a"));
+        assertTrue(failed.isCompletedExceptionally());
+        CompletableFuture<Void> pending = writer.write("queued", dir.resolve("b"));
+        writer.close();
+        assertTrue(pending.isDone());
+        assertEquals(new Person("old", 1), ObjectAccessUtil.readFromFile(dir.resolve("a").toFile(), codec));
+        assertEquals("queued", ObjectAccessUtil.readFromFile(dir.resolve("b").toFile(), codec));
+        assertThrows(IllegalStateException.class, () -> writer.write("x", dir.resolve("c")));
+    }
+
+    /**
+     * 测试编码期间写入器被关闭：Future 异常完成，不留下临时文件
+     */
+    @Test
+    void testCloseDuringEncode(@TempDir Path dir) throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        BinaryCodec binary = BinaryCodecTest.personCodec();
+        ObjectCodec<Object> codec = new ObjectCodec<>() {
+            @Override
+            public void write(Object object, OutputStream out) throws IOException {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new InterruptedIOException();
+                }
+                binary.write(object, out);
+            }
+
+            @Override
+            public Object read(InputStream in) throws IOException {
+                return binary.read(in);
+            }
+        };
+        GroupCommitWriter<Object> writer = new GroupCommitWriter<>(codec);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<CompletableFuture<Void>> late = executor.submit(() -> writer.write("late", dir.resolve("late")));
+            started.await();
+            writer.close();
+            release.countDown();
+            ExecutionException e = assertThrows(ExecutionException.class, () -> late.get(5, TimeUnit.SECONDS).get(5, TimeUnit.SECONDS));
+            assertInstanceOf(IllegalStateException.class, e.getCause());
+        } finally {
+            executor.shutdown();
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    /**
+     * 测试 ObjectAccessUtil 的原子写入
+     */
+    @Test
+    void testWriteAtomically(@TempDir Path dir) throws IOException {
+        ObjectAccessUtil.writeAtomically(new Person("孙悟空", 500), dir.resolve("sub/p").toFile());
+        assertEquals(new Person("孙悟空", 500), ObjectAccessUtil.readFromFile(dir.resolve("sub/p").toFile()));
+        assertThrows(IOException.class, () -> ObjectAccessUtil.writeAtomically(new Object(), dir.resolve("sub/p").toFile(), BinaryCodecTest.personCodec()));
+        assertEquals(new Person("孙悟空", 500), ObjectAccessUtil.readFromFile(dir.resolve("sub/p").toFile()));
+        try (Stream<Path> files = Files.list(dir.resolve("sub"))) {
+            assertEquals(1, files.count());
+        }
+    }
+
+}
@@ -0,0 +1,118 @@
+package com.sweetmanor.utils;
+
+import com.sweetmanor.common.Person;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedObjectStoreTest {
+
+    /**
+     * 测试读写、覆盖、删除，以及重新打开后从数据文件重建索引
+     */
+    @Test
+    void testPutGetRemove(@TempDir Path dir) throws IOException {
+        BinaryCodec codec = BinaryCodecTest.personCodec();
+        try (MappedObjectStore<Object, Object> store = MappedObjectStore.open(dir, codec, codec)) {
+            // 超过初始索引容量和映射容量
+            for (int i = 0; i < 20_000; i++)
+                store.put("key-" + i, new Person("name-" + i, i % 100));
+            store.put(42L, "long key");
+            assertEquals(20_001, store.size());
+            assertEquals(new Person("name-12345", 45), store.get("key-12345"));
+            assertEquals("long key", store.get(42L));
+            assertNull(store.get("none"));
+
+            store.put("key-1", new Person("changed", 1));
+            assertTrue(store.remove("key-2"));
+            assertFalse(store.remove("key-2"));
+            assertFalse(store.containsKey("key-2"));
+            assertEquals(20_000, store.size());
+            assertTrue(store.getGarbageBytes() > 0);
+        }
+
+        try (MappedObjectStore<Object, Object> store = MappedObjectStore.open(dir, codec, codec)) {
+            assertEquals(20_000, store.size());
+            assertEquals(new Person("changed", 1), store.get("key-1"));
+            assertNull(store.get("key-2"));
+            assertEquals(new Person("name-19999", 99), store.get("key-19999"));
+        }
+    }
+
+    /**
+     * 测试删除后再写入同一个键时，墓碑只计入一次可回收字节；重新打开后统计一致
+     */
+    @Test
+    void testGarbageAccounting(@TempDir Path dir) throws IOException {
+        BinaryCodec codec = BinaryCodecTest.personCodec();
+        try (MappedObjectStore<Object, Object> store = MappedObjectStore.open(dir, codec, codec)) {
+            long empty = store.getDataSize();
+            store.put("k", "v");
+            long live = store.getDataSize() - empty;
+            store.remove("k");
+            long removed = store.getDataSize();
+            store.put("k", "v");
+            // 旧值和墓碑都是垃圾，新值是存活数据
+            assertEquals(removed - empty, store.getGarbageBytes());
+
+            for (int i = 0; i < 1000; i++) {
+                store.remove("k");
+                store.put("k", "v");
+            }
+            assertEquals(store.getDataSize() - empty - live, store.getGarbageBytes());
+        }
+        try (MappedObjectStore<Object, Object> store = MappedObjectStore.open(dir, codec, codec)) {
+            assertTrue(store.getGarbageBytes() < store.getDataSize());
+            assertEquals("v", store.get("k"));
+            store.compact();
+            assertEquals("v", store.get("k"));
+            assertEquals(0, store.getGarbageBytes());
+        }
+    }
+
+    /**
+     * 测试压缩：回收覆盖和删除的记录，压缩后数据不变；可回收的字节数足够多时在后台自动压缩
+     */
+    @Test
+    void testCompact(@TempDir Path dir) throws IOException, InterruptedException {
+        try (MappedObjectStore<Object, Object> store = ObjectAccessUtil.openObjectStore(dir.toFile())) {
+            for (int i = 0; i < 1000; i++)
+                store.put(i, "value-" + i);
+            for (int i = 0; i < 1000; i += 2)
+                store.remove(i);
+            for (int i = 1; i < 1000; i += 4)
+                store.put(i, "new-" + i);
+
+            long before = store.getDataSize();
+            store.compact();
+            assertTrue(store.getDataSize() < before);
+            assertEquals(0, store.getGarbageBytes());
+            assertEquals(500, store.size());
+            assertNull(store.get(0));
+            assertEquals("new-1", store.get(1));
+            assertEquals("value-3", store.get(3));
+
+            // 反复覆盖同一批键，累积超过阈值后自动压缩
+            byte[] value = new byte[1024];
+            for (int round = 0; round < 5; round++)
+                for (int i = 0; i < 500; i++)
+                    store.put("big-" + i, value);
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (store.getCompactionCount() < 2 && System.currentTimeMillis() < deadline)
+                Thread.sleep(10);
+            assertTrue(store.getCompactionCount() >= 2);
+            assertArrayEquals(value, (byte[]) store.get("big-499"));
+            assertEquals(1000, store.size());
+        }
+
+        try (MappedObjectStore<Object, Object> store = ObjectAccessUtil.openObjectStore(dir.toFile())) {
+            assertEquals(1000, store.size());
+            assertEquals("new-5", store.get(5));
+        }
+    }
+
+}
@@ -4,11 +4,17 @@ import com.sweetmanor.common.Person;
 import org.junit.jupiter.api.*;
 import org.junit.jupiter.api.MethodOrderer.OrderAnnotation;
 import org.junit.jupiter.api.TestInstance.Lifecycle;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
 /**
  * 全部测试方法使用一个测试实例，测试必须按指定顺序执行
@@ -77,4 +83,61 @@ class ObjectAccessUtilTest {
         assertNull(p2.getSex());
     }
 
+    /**
+     * 测试指定编解码器读写，以及替换默认编解码器
+     */
+    @Test
+    @Order(3)
+    void testCodec() {
+        BinaryCodec codec = BinaryCodecTest.personCodec();
+        long javaSize = file.length();
+        ObjectAccessUtil.writeToFile(p, file, codec);
+        assertTrue(file.length() < javaSize);
+        assertEquals(p, ObjectAccessUtil.readFromFile(file, codec));
+
+        ObjectAccessUtil.setDefaultCodec(codec);
+        try {
+            assertEquals(p, ObjectAccessUtil.readFromFile(file));
+        } finally {
+            ObjectAccessUtil.setDefaultCodec(null);
+        }
+        // Java 序列化无法读取二进制编码，返回 null
+        assertSame(JavaSerializationCodec.INSTANCE, ObjectAccessUtil.getDefaultCodec());
+        assertNull(ObjectAccessUtil.readFromFile(file));
+    }
+
+    /**
+     * 测试替换写入保留目标文件的权限，新文件的权限由 umask 决定，符号链接被写穿而不是被替换
+     */
+    @Test
+    @Order(4)
+    void testPermissionsAndLinks(@TempDir Path dir) throws IOException {
+        assumeTrue(FileSystems.getDefault().supportedFileAttributeViews().contains("posix"));
+        Path existing = dir.resolve("existing");
+        Files.createFile(existing);
+        Files.setPosixFilePermissions(existing, PosixFilePermissions.fromString("rw-r-----"));
+        ObjectAccessUtil.writeToFile(p, existing.toFile());
+        assertEquals("rw-r-----", PosixFilePermissions.toString(Files.getPosixFilePermissions(existing)));
+
+        Path plain = Files.createFile(dir.resolve("plain"));
+        Path created = dir.resolve("created");
+        ObjectAccessUtil.writeToFile(p, created.toFile());
+        assertEquals(Files.getPosixFilePermissions(plain), Files.getPosixFilePermissions(created));
+
+        Path link = Files.createSymbolicLink(dir.resolve("link"), existing.getFileName());
+        ObjectAccessUtil.writeToFile(new Person("猪八戒", 300), link.toFile());
+        assertTrue(Files.isSymbolicLink(link));
+        assertEquals(new Person("猪八戒", 300), ObjectAccessUtil.readFromFile(existing.toFile()));
+        assertEquals("rw-r-----", PosixFilePermissions.toString(Files.getPosixFilePermissions(existing)));
+
+        try (ObjectWriter<Object> writer = ObjectAccessUtil.openWriter(link.toFile())) {
+            writer.write(p);
+        }
+        assertTrue(Files.isSymbolicLink(link));
+        try (ObjectReader<Object> reader = ObjectAccessUtil.openReader(existing.toFile())) {
+            assertEquals(p, reader.next());
+        }
+        assertEquals("rw-r-----", PosixFilePermissions.toString(Files.getPosixFilePermissions(existing)));
+    }
+
 }
@@ -0,0 +1,80 @@
+package com.sweetmanor.utils;
+
+import com.sweetmanor.common.Person;
+import com.sweetmanor.common.PersonCodec;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * 编解码器性能对比：分别对 Person、Long 键和 String 键逐个编码、解码，再对整个 Person 列表批量编码、解码
+ * （PersonCodec.LIST），输出每个对象的平均字节数和耗时。 <br />
+ * 不是单元测试，直接运行 main 方法；先预热再计时，结果只用于比较同一台机器上的相对差异。
+ *
+ * @author ijlhjj
+ * @version 1.0 2025-02-04
+ */
+public class ObjectCodecBenchmark {
+    private static final int COUNT = 100_000;
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) throws IOException {
+        BinaryCodec binary = PersonCodec.newCodec();
+        run("Person", i -> new Person("name-" + i, i % 120, i % 2 == 0 ? "男" : "女"), binary);
+        run("Long key", i -> (long) i * 7919, binary);
+        run("String key", i -> "user:" + i, binary);
+
+        List<Person> people = new ArrayList<>(COUNT);
+        for (int i = 0; i < COUNT; i++)
+            people.add(new Person("name-" + i, i % 120, i % 2 == 0 ? "男" : "女"));
+        System.out.println("Person 列表：");
+        measure("  Java 序列化     ", List.of(people), COUNT, JavaSerializationCodec.INSTANCE);
+        measure("  PersonCodec.LIST", List.of(people), COUNT, PersonCodec.LIST);
+    }
+
+    private static void run(String name, IntFunction<Object> factory, BinaryCodec binary) throws IOException {
+        List<Object> objects = new ArrayList<>(COUNT);
+        for (int i = 0; i < COUNT; i++)
+            objects.add(factory.apply(i));
+
+        System.out.println(name + "：");
+        measure("  Java 序列化", objects, COUNT, JavaSerializationCodec.INSTANCE);
+        measure("  BinaryCodec", objects, COUNT, binary);
+    }
+
+    /**
+     * 逐个编码、解码 objects，按 count 个对象计算平均值（批量编码时 objects 只有一个列表）
+     */
+    private static <T> void measure(String name, List<T> objects, int count, ObjectCodec<? super T> codec)
+            throws IOException {
+        long bytes = 0;
+        long writeNanos = Long.MAX_VALUE;
+        long readNanos = Long.MAX_VALUE;
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        // 取多轮中最快的一轮，第一轮兼作预热
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            bytes = 0;
+            List<byte[]> encoded = new ArrayList<>(objects.size());
+            for (T object : objects) {
+                buffer.reset();
+                codec.write(object, buffer);
+                encoded.add(buffer.toByteArray());
+                bytes += buffer.size();
+            }
+            writeNanos = Math.min(writeNanos, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            for (byte[] data : encoded)
+                codec.read(new ByteArrayInputStream(data));
+            readNanos = Math.min(readNanos, System.nanoTime() - start);
+        }
+        System.out.printf("%s：%6.1f 字节/对象，编码 %7.1f ns/对象，解码 %7.1f ns/对象%n", name,
+                (double) bytes / count, (double) writeNanos / count, (double) readNanos / count);
+    }
+
+}
@@ -0,0 +1,100 @@
+package com.sweetmanor.utils;
+
+import com.sweetmanor.common.Person;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ObjectWriterTest {
+
+    /**
+     * 测试 Java 序列化的对象序列：跨越多次句柄表重置，共享引用在重置间隔内保持
+     */
+    @Test
+    void testJavaSerialization(@TempDir Path dir) throws IOException {
+        File file = dir.resolve("people.seq").toFile();
+        Person shared = new Person("唐僧", 30);
+        try (ObjectWriter<Object> writer = ObjectAccessUtil.openWriter(file, JavaSerializationCodec.INSTANCE, 100)) {
+            for (int i = 0; i < 10_000; i++)
+                writer.write(new Person("name-" + i, i % 100));
+            writer.write(shared);
+            writer.write(shared);
+            assertEquals(10_002, writer.getCount());
+            assertFalse(file.exists(), "目标文件在关闭前不应出现");
+        }
+
+        try (ObjectReader<Object> reader = ObjectAccessUtil.openReader(file)) {
+            for (int i = 0; i < 10_000; i++)
+                assertEquals(new Person("name-" + i, i % 100), reader.next());
+            // 同一个重置间隔内的两次写入读出同一个实例
+            assertSame(reader.next(), reader.next());
+            assertFalse(reader.hasNext());
+            assertThrows(NoSuchElementException.class, reader::next);
+            assertEquals(10_002, reader.getCount());
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    /**
+     * 测试其他编解码器的对象序列，以及以流的方式读取
+     */
+    @Test
+    void testCodecStream(@TempDir Path dir) throws IOException {
+        BinaryCodec codec = BinaryCodecTest.personCodec();
+        File file = dir.resolve("people.seq").toFile();
+        try (ObjectWriter<Object> writer = ObjectAccessUtil.openWriter(file, codec)) {
+            for (int i = 0; i < 1000; i++)
+                writer.write(new Person("name-" + i, i));
+        }
+
+        try (Stream<Object> people = ObjectAccessUtil.openReader(file, codec).stream()) {
+            assertEquals(999 * 1000 / 2, people.mapToInt(p -> ((Person) p).getAge()).sum());
+        }
+        // 编解码器与文件格式不一致
+        assertThrows(StreamCorruptedException.class, () -> ObjectAccessUtil.openReader(file));
+    }
+
+    /**
+     * 测试写入失败后关闭不替换目标文件，以及截断的文件读取时报错
+     */
+    @Test
+    void testFailureAndTruncation(@TempDir Path dir) throws IOException {
+        File file = dir.resolve("people.seq").toFile();
+        try (ObjectWriter<Object> writer = ObjectAccessUtil.openWriter(file)) {
+            writer.write(new Person("a", 1));
+            writer.write(new Person("b", 2));
+        }
+        byte[] data = Files.readAllBytes(file.toPath());
+
+        ObjectWriter<Object> writer = ObjectAccessUtil.openWriter(file);
+        writer.write(new Person("c", 3));
+        assertThrows(IOException.class, () -> writer.write(new Object()));
+        assertThrows(IOException.class, () -> writer.write(new Person("d", 4)));
+        writer.close();
+        assertArrayEquals(data, Files.readAllBytes(file.toPath()));
+        try (Stream<Path> files = Files.list(dir)) {
+            assertEquals(1, files.count());
+        }
+
+        Files.write(file.toPath(), Arrays.copyOf(data, data.length - 1));
+        try (ObjectReader<Object> reader = ObjectAccessUtil.openReader(file)) {
+            assertEquals(new Person("a", 1), reader.next());
+            assertEquals(new Person("b", 2), reader.next());
+            assertThrows(UncheckedIOException.class, reader::hasNext);
+        }
+    }
+
+}
@@ -0,0 +1,119 @@
+package com.sweetmanor.utils;
+
+import com.sweetmanor.common.Person;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecordLogTest {
+
+    private static final BinaryCodec CODEC = BinaryCodecTest.personCodec();
+
+    /**
+     * 测试追加、随机读取、顺序遍历以及重新打开后继续追加
+     */
+    @Test
+    void testAppendAndRead(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("sub/people.log");
+        try (RecordLog<Object> log = ObjectAccessUtil.openRecordLog(file.toFile(), CODEC)) {
+            for (int i = 0; i < 10_000; i++)
+                assertEquals(i, log.append(person(i)));
+            // 大于缓冲区的记录
+            log.append(new Person("x".repeat(100_000), -1));
+
+            // 未刷新的记录也可以读取
+            assertEquals(person(9999), log.get(9999));
+            assertEquals(100_000, ((Person) log.get(10_000)).getName().length());
+            assertEquals(person(0), log.get(0));
+            assertThrows(IndexOutOfBoundsException.class, () -> log.get(10_001));
+        }
+
+        try (RecordLog<Object> log = RecordLog.open(file, CODEC)) {
+            assertEquals(10_001, log.size());
+            assertEquals(10_001, log.append(person(-1)));
+            assertEquals(person(1234), log.get(1234));
+            try (Stream<Object> records = log.stream()) {
+                List<Object> all = records.collect(Collectors.toList());
+                assertEquals(10_002, all.size());
+                assertEquals(person(5000), all.get(5000));
+                assertEquals(person(-1), all.get(10_001));
+            }
+        }
+        assertEquals(10_002 * 8, Files.size(RecordLog.indexFile(file)));
+    }
+
+    /**
+     * 测试恢复：截断不完整的尾部记录，重建缺失的索引，检测损坏的记录
+     */
+    @Test
+    void testRecover(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("people.log");
+        try (RecordLog<Object> log = RecordLog.open(file, CODEC)) {
+            for (int i = 0; i < 100; i++)
+                log.append(person(i));
+        }
+        long size = Files.size(file);
+
+        // 模拟崩溃：最后一条记录只写入了一半，索引只写入了前 50 条
+        byte[] torn = CODEC.encode(person(100));
+        Files.write(file, new byte[]{0, 0, 0, (byte) (torn.length), 1, 2, 3, 4}, StandardOpenOption.APPEND);
+        Files.write(file, torn, StandardOpenOption.APPEND);
+        try (var channel = Files.newByteChannel(file, StandardOpenOption.WRITE)) {
+            channel.truncate(Files.size(file) - 1);
+        }
+        try (var channel = Files.newByteChannel(RecordLog.indexFile(file), StandardOpenOption.WRITE)) {
+            channel.truncate(50 * 8 + 3);
+        }
+
+        try (RecordLog<Object> log = RecordLog.open(file, CODEC)) {
+            assertEquals(100, log.size());
+            assertEquals(size, Files.size(file));
+            assertEquals(person(99), log.get(99));
+            assertEquals(100, log.append(person(100)));
+        }
+
+        // 崩溃后文件末尾留下全零的数据：空记录的校验值也为 0，不能被当作记录
+        size = Files.size(file);
+        Files.write(file, new byte[64], StandardOpenOption.APPEND);
+        try (RecordLog<Object> log = RecordLog.open(file, CODEC)) {
+            assertEquals(101, log.size());
+            assertEquals(size, Files.size(file));
+            assertEquals(person(100), log.get(100));
+        }
+
+        // 索引文件丢失时从数据文件重建
+        Files.delete(RecordLog.indexFile(file));
+        try (RecordLog<Object> log = RecordLog.open(file, CODEC)) {
+            assertEquals(101, log.size());
+            assertEquals(person(100), log.get(100));
+        }
+
+        // 中间的记录损坏：随机读取和遍历时检测到校验失败
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length / 2] ^= 0x55;
+        Files.write(file, bytes);
+        try (RecordLog<Object> log = RecordLog.open(file, CODEC); Stream<Object> records = log.stream()) {
+            assertEquals(101, log.size());
+            assertThrows(UncheckedIOException.class, () -> records.forEach(record -> {
+            }));
+        }
+
+        Files.write(dir.resolve("other"), new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+        assertThrows(IOException.class, () -> RecordLog.open(dir.resolve("other"), CODEC));
+    }
+
+    private static Person person(int i) {
+        return new Person("name-" + i, i % 100);
+    }
+
+}
@@ -0,0 +1,128 @@
+package com.sweetmanor.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimeBucketUtilTest {
+
+    /**
+     * 测试按天分桶的结果与 DateUtil.truncate + HashMap 的结果一致
+     */
+    @Test
+    void testCountByDay() {
+        Random random = new Random(42);
+        long base = 1_700_000_000_000L;
+        long[] timestamps = new long[10000];
+        for (int i = 0; i < timestamps.length; i++)
+            timestamps[i] = base + (long) (random.nextDouble() * 30 * 86_400_000L);
+
+        // 使用 truncate 计算期望结果
+        Map<Long, Long> expected = new HashMap<>();
+        for (long t : timestamps)
+            expected.merge(DateUtil.truncate(new Date(t), Calendar.DAY_OF_MONTH).getTime(), 1L, Long::sum);
+
+        TimeBucketUtil.Buckets buckets = TimeBucketUtil.count(timestamps, Calendar.DAY_OF_MONTH);
+        long total = 0;
+        for (int i = 0; i < buckets.size(); i++) {
+            assertEquals(expected.getOrDefault(buckets.getStart(i), 0L), buckets.getCount(i));
+            total += buckets.getCount(i);
+        }
+        assertEquals(timestamps.length, total);
+    }
+
+    /**
+     * 测试夏令时时区的天桶：切换日为 23 小时
+     */
+    @Test
+    void testDaylightSavingDay() {
+        ZoneId zone = ZoneId.of("America/New_York");
+        // 2024-03-10 为夏令时开始日，当天只有 23 小时
+        long dayStart = ZonedDateTime.of(2024, 3, 10, 0, 0, 0, 0, zone).toInstant().toEpochMilli();
+        long nextDay = ZonedDateTime.of(2024, 3, 11, 0, 0, 0, 0, zone).toInstant().toEpochMilli();
+        long[] timestamps = {dayStart, nextDay - 1, nextDay};
+
+        TimeBucketUtil.Buckets buckets = TimeBucketUtil.count(timestamps, Calendar.DAY_OF_MONTH, zone);
+        assertEquals(2, buckets.size());
+        assertEquals(2, buckets.getCount(0));
+        assertEquals(1, buckets.getCount(1));
+        assertEquals(dayStart, buckets.getStart(0));
+        assertEquals(nextDay, buckets.getStart(1));
+    }
+
+    /**
+     * 测试按星期分桶，星期的第一天与 DateUtil.getFirstDayOfWeek 一致（周日）
+     */
+    @Test
+    void testCountByWeek() {
+        ZoneId zone = ZoneId.systemDefault();
+        // 2025-01-04 为周六，2025-01-05 为周日
+        long saturday = ZonedDateTime.of(2025, 1, 4, 12, 0, 0, 0, zone).toInstant().toEpochMilli();
+        long sunday = ZonedDateTime.of(2025, 1, 5, 12, 0, 0, 0, zone).toInstant().toEpochMilli();
+
+        TimeBucketUtil.Buckets buckets = TimeBucketUtil.count(new long[]{saturday, sunday}, Calendar.WEEK_OF_YEAR, zone);
+        assertEquals(2, buckets.size());
+        long expectedStart = DateUtil.setBeginTime(DateUtil.getFirstDayOfWeek(new Date(sunday))).getTime();
+        assertEquals(expectedStart, buckets.getStart(1));
+
+        // 星期从周一开始时，两个时间戳属于同一周
+        buckets = TimeBucketUtil.aggregate(new long[]{saturday, sunday}, null, Calendar.WEEK_OF_YEAR, zone, Calendar.MONDAY);
+        assertEquals(1, buckets.size());
+        assertEquals(2, buckets.getCount(0));
+    }
+
+    /**
+     * 测试数值聚合：和、最小值、最大值，空桶的个数为 0
+     */
+    @Test
+    void testAggregate() {
+        ZoneId zone = ZoneId.of("UTC");
+        long[] timestamps = {0, 1000, 59_999, 180_000};
+        long[] values = {5, -3, 10, 7};
+
+        TimeBucketUtil.Buckets buckets = TimeBucketUtil.aggregate(timestamps, values, Calendar.MINUTE, zone, Calendar.SUNDAY);
+        assertEquals(4, buckets.size());
+        assertEquals(3, buckets.getCount(0));
+        assertEquals(12, buckets.getSum(0));
+        assertEquals(-3, buckets.getMin(0));
+        assertEquals(10, buckets.getMax(0));
+        assertEquals(0, buckets.getCount(1));
+        assertEquals(7, buckets.getSum(3));
+
+        // 空数组
+        assertEquals(0, TimeBucketUtil.count(new long[0], Calendar.HOUR_OF_DAY, zone).size());
+
+        // 不支持的字段
+        assertThrows(IllegalArgumentException.class, () -> TimeBucketUtil.count(timestamps, Calendar.YEAR, zone));
+    }
+
+    /**
+     * 测试大数组（并行计算）的结果与逐个计算的结果一致
+     */
+    @Test
+    void testParallel() {
+        ZoneId zone = ZoneId.of("Europe/Berlin");
+        int n = TimeBucketUtil.PARALLEL_THRESHOLD + 1000;
+        long[] timestamps = new Random(7).longs(n, 1_700_000_000_000L, 1_700_000_000_000L + 400L * 86_400_000L).toArray();
+        long[] values = new Random(8).longs(n, -1000, 1000).toArray();
+
+        // 按本地日期计算期望的和
+        Map<LocalDate, Long> expected = new HashMap<>();
+        for (int i = 0; i < n; i++)
+            expected.merge(Instant.ofEpochMilli(timestamps[i]).atZone(zone).toLocalDate(), values[i], Long::sum);
+
+        TimeBucketUtil.Buckets buckets = TimeBucketUtil.aggregate(timestamps, values, Calendar.DAY_OF_MONTH, zone, Calendar.SUNDAY);
+        assertEquals(n, Arrays.stream(buckets.getCounts()).sum());
+        for (int i = 0; i < buckets.size(); i++) {
+            LocalDate day = Instant.ofEpochMilli(buckets.getStart(i)).atZone(zone).toLocalDate();
+            assertEquals(expected.getOrDefault(day, 0L), buckets.getSum(i));
+        }
+    }
+
+}